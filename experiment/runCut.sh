@@ -4,6 +4,8 @@ set -u
 set -o pipefail
 
 TIMEOUT_SECONDS=300
+# parsed instances are cached there, such that each instance is parsed once across the runs
+INSTANCE_CACHE="${INSTANCE_CACHE:-experiment/instance_cache}"
 MAIN_CLASS="org.maxicp.modeling.xcsp3.XCSP3TestCut"
 
 usage() {
@@ -77,6 +79,7 @@ process_root() {
         tmp_out="tmp_output_$$.txt"
         timeout "${TIMEOUT_SECONDS}s" mvn -q exec:java \
             -Dexec.mainClass="$MAIN_CLASS" \
+            -Dmaxicp.instanceCache="$INSTANCE_CACHE" \
             -Dexec.args="$instance" \
             -Dexec.jvmArgs="-Xms1g -Xmx4g" > "$tmp_out" 2>&1
 
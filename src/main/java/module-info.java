@@ -17,6 +17,7 @@ module org.maxicp {
     exports org.maxicp.modeling.utils;
     exports org.maxicp.modeling.xcsp3;
     exports org.maxicp.modeling.symbolic;
+    exports org.maxicp.modeling.presolve;
     exports org.maxicp.modeling.algebra;
     exports org.maxicp.modeling.algebra.scheduling;
     exports org.maxicp.modeling.algebra.bool;
@@ -37,6 +38,8 @@ module org.maxicp {
     requires org.json;
     requires xcsp3.tools;
     requires java.xml;
+    requires java.management;
+    requires jdk.management;
     requires java.compiler;
     requires jdk.unsupported.desktop;
     requires junit;
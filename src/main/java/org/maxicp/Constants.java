@@ -34,6 +34,15 @@ public class Constants {
      */
     public final static int PIORITY_SLOW = 2;
 
+    /**
+     * Domain width from which {@link org.maxicp.cp.engine.core.CPIntVarImpl}
+     * uses an {@link org.maxicp.cp.engine.core.IntervalListDomain}
+     * (memory proportional to the number of holes)
+     * instead of a {@link org.maxicp.cp.engine.core.SparseSetDomain}
+     * (memory proportional to the width of the domain).
+     */
+    public final static int INTERVAL_LIST_DOMAIN_THRESHOLD = 1 << 16;
+
 
     public enum CumulativeAlgo {
         BELDICEANU_CARLSSON,
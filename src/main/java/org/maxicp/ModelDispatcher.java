@@ -24,11 +24,16 @@ import org.maxicp.modeling.symbolic.*;
 import org.maxicp.search.BestFirstSearch;
 import org.maxicp.search.ConcurrentDFSearch;
 import org.maxicp.search.DFSearch;
+import org.maxicp.search.EPSearch;
+import org.maxicp.search.WorkStealingDFSearch;
 import org.maxicp.util.Ints;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -40,9 +45,11 @@ import static org.maxicp.Constants.HORIZON;
 public class ModelDispatcher implements ModelProxyInstantiator, AutoCloseable, ModelProxyInstantiatorWithCP, ModelProxy {
     private Model initialModel;
     private ThreadLocal<Model> currentModel;
+    private final AtomicInteger nVariables = new AtomicInteger();
     private ConstraintGraph graph;
     private int id = -1;
     private List<IntExpression> preload ;
+    private final ConcurrentHashMap<Object, Object> attachments = new ConcurrentHashMap<>();
 
     public ModelDispatcher() {
         initialModel = SymbolicModel.emptyModel(this);
@@ -70,6 +77,17 @@ public class ModelDispatcher implements ModelProxyInstantiator, AutoCloseable, M
         return m;
     }
 
+    @Override
+    public int nextVariableIndex() {
+        return nVariables.getAndIncrement();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T attachment(Object key, Supplier<T> create) {
+        return (T) attachments.computeIfAbsent(key, k -> create.get());
+    }
+
     /**
      * Shortcut for baseModel.getModel().getConstraints();
      * @return an iterable with all the constraints in the current model
@@ -78,6 +96,14 @@ public class ModelDispatcher implements ModelProxyInstantiator, AutoCloseable, M
         return getModel().getConstraints();
     }
 
+    /**
+     * @return the integer expressions created by this dispatcher, in their order of creation,
+     * which are the nodes of the graph created by {@link #createGraph(ConcreteCPModel)}
+     */
+    public List<IntExpression> getPreloaded() {
+        return Collections.unmodifiableList(preload);
+    }
+
     /**
      * Create an array of n IntVars with domain between 0 and domSize-1, inclusive.
      * @param n size of the array, number of IntVars
@@ -192,6 +218,7 @@ public class ModelDispatcher implements ModelProxyInstantiator, AutoCloseable, M
         currentModel.remove();
         currentModel = null;
         initialModel = null;
+        attachments.clear();
     }
 
     public Objective minimize(Expression v) {
@@ -214,10 +241,18 @@ public class ModelDispatcher implements ModelProxyInstantiator, AutoCloseable, M
         return new DFSearch(this, branching);
     }
 
+    public EPSearch epSearch(Supplier<Supplier<Runnable[]>> branching) {
+        return new EPSearch(this, branching);
+    }
+
     public ConcurrentDFSearch concurrentDFSearch(Supplier<SymbolicModel[]> symbolicBranching) {
         return new ConcurrentDFSearch(this, symbolicBranching);
     }
 
+    public WorkStealingDFSearch workStealingDFSearch(Supplier<SymbolicModel[]> symbolicBranching) {
+        return new WorkStealingDFSearch(this, symbolicBranching);
+    }
+
     public <U extends Comparable<U>> BestFirstSearch<U> bestFirstSearch(Supplier<Runnable[]> branching, Supplier<U> nodeEvaluator) {
         return new BestFirstSearch<U>(this, branching, nodeEvaluator);
     }
@@ -0,0 +1,504 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2024 UCLouvain
+ */
+
+package org.maxicp.andor.benchmark;
+
+import org.maxicp.ModelDispatcher;
+import org.maxicp.andor.ConstraintGraph;
+import org.maxicp.andor.search.DFSearchMini_And_CS;
+import org.maxicp.andor.search.DFSearchMini_And_PS;
+import org.maxicp.andor.search.DFSearchMini_Or;
+import org.maxicp.cp.modeling.ConcreteCPModel;
+import org.maxicp.modeling.algebra.integer.IntExpression;
+import org.maxicp.modeling.gc_dimacs.GraphColoringInstance;
+import org.maxicp.modeling.xcsp3.XCSP3Mini_And_CS;
+import org.maxicp.modeling.xcsp3.XCSP3Mini_And_PS;
+import org.maxicp.modeling.xcsp3.XCSP3Mini_Or;
+import org.maxicp.search.SearchStatistics;
+import org.maxicp.search.Searches;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static org.maxicp.andor.Scheme.fiducciaMattheyses;
+import static org.maxicp.andor.Scheme.firstFail;
+
+/**
+ * Runs the searches of the experiments on lists of XCSP3 and graph coloring (DIMACS) instances within a single JVM,
+ * instead of one JVM per run as in the {@code experiment/*.sh} scripts, such that the measures are not
+ * polluted by the warmup of the JIT compiler.
+ * <p>
+ * Each search is configured as in the main of {@link XCSP3Mini_Or}, {@link XCSP3Mini_And_CS},
+ * {@link XCSP3Mini_And_PS} and of the graph coloring mains of {@link org.maxicp.modeling.gc_dimacs}.
+ * The time limit of a run is enforced by the {@code solve(limit)} predicate of the search, from the start of the run,
+ * such that the loading of the instance counts but is not interrupted.
+ * The searches are first run on the first instance of each format, for warmup, and the results of these runs are dropped.
+ * Independent runs can be executed on parallel threads, each run loading its own model.
+ * <p>
+ * The results are written as CSV and optionally as JSON. Each run reports its search statistics,
+ * the time spent to load the instance, to instantiate the model (including the constraint graph of the AND searches)
+ * and to search, the bytes allocated by its thread and the peak usage of the heap during the run.
+ * The peak usage of the heap is shared by the runs executed in parallel, use a single thread to measure it.
+ * <pre>
+ * java org.maxicp.andor.benchmark.BatchRunner --searches or,and-cs --timeout 300 --threads 4 --csv results.csv @instances.txt
+ * </pre>
+ */
+public class BatchRunner {
+
+    /**
+     * Format of an instance file, given by its extension
+     */
+    public enum Format {
+        XCSP3, DIMACS;
+
+        /**
+         * @return the format of the instance file
+         * @throws IllegalArgumentException if the extension is neither {@code .xml}, {@code .lzma} nor {@code .col}
+         */
+        public static Format of(String instance) {
+            if (instance.endsWith(".xml") || instance.endsWith(".lzma"))
+                return XCSP3;
+            if (instance.endsWith(".col"))
+                return DIMACS;
+            throw new IllegalArgumentException("unknown format of " + instance);
+        }
+    }
+
+    /**
+     * A search, configured as in the corresponding main
+     */
+    public enum Search {
+        OR("or") {
+            @Override
+            Loaded loadXCSP3(String instance) throws Exception {
+                XCSP3Mini_Or.XCSP3LoadedInstance loaded = XCSP3Mini_Or.load(instance);
+                return new Loaded(loaded.md(), loaded.decisionVars());
+            }
+
+            @Override
+            Function<Predicate<SearchStatistics>, SearchStatistics> create(ModelDispatcher md, ConcreteCPModel cp, IntExpression[] vars, int solutionsLimit) {
+                DFSearchMini_Or search = cp.dfSearchMini(Searches.firstFail(vars));
+                return limit -> search.solve(limit.or(statistics -> statistics.numberOfSolutions() >= solutionsLimit));
+            }
+        },
+        AND_CS("and-cs") {
+            @Override
+            Loaded loadXCSP3(String instance) throws Exception {
+                XCSP3Mini_And_CS.XCSP3LoadedInstance loaded = XCSP3Mini_And_CS.load(instance);
+                return new Loaded(loaded.md(), loaded.decisionVars());
+            }
+
+            @Override
+            Function<Predicate<SearchStatistics>, SearchStatistics> create(ModelDispatcher md, ConcreteCPModel cp, IntExpression[] vars, int solutionsLimit) {
+                ConstraintGraph graph = md.createGraph(cp);
+                DFSearchMini_And_CS search = cp.dfSearchMini_And_CS(graph, fiducciaMattheyses(graph, sizeToFix(vars), false), firstFail());
+                return limit -> search.solve(solutionsLimit, limit);
+            }
+        },
+        AND_PS("and-ps") {
+            @Override
+            Loaded loadXCSP3(String instance) throws Exception {
+                XCSP3Mini_And_PS.XCSP3LoadedInstance loaded = XCSP3Mini_And_PS.load(instance);
+                return new Loaded(loaded.md(), loaded.decisionVars());
+            }
+
+            @Override
+            Function<Predicate<SearchStatistics>, SearchStatistics> create(ModelDispatcher md, ConcreteCPModel cp, IntExpression[] vars, int solutionsLimit) {
+                ConstraintGraph graph = md.createGraph(cp);
+                DFSearchMini_And_PS search = cp.dfSearchMini_And_PS(graph, fiducciaMattheyses(graph, sizeToFix(vars), false), firstFail());
+                return limit -> search.solve(solutionsLimit, limit);
+            }
+        };
+
+        private final String name;
+
+        Search(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @return the search with the given name, as written in the results
+         * @throws IllegalArgumentException if there is no such search
+         */
+        public static Search of(String name) {
+            for (Search s : values())
+                if (s.name.equalsIgnoreCase(name) || s.name().equalsIgnoreCase(name))
+                    return s;
+            throw new IllegalArgumentException("unknown search " + name);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+
+        Loaded load(String instance) throws Exception {
+            return switch (Format.of(instance)) {
+                case XCSP3 -> loadXCSP3(instance);
+                case DIMACS -> {
+                    GraphColoringInstance loaded = GraphColoringInstance.load(instance, false);
+                    yield new Loaded(loaded.md(), loaded.vars());
+                }
+            };
+        }
+
+        abstract Loaded loadXCSP3(String instance) throws Exception;
+
+        /**
+         * Creates the search on the instantiated model
+         *
+         * @return the search, run with a limit
+         */
+        abstract Function<Predicate<SearchStatistics>, SearchStatistics> create(ModelDispatcher md, ConcreteCPModel cp, IntExpression[] vars, int solutionsLimit);
+
+        private static int sizeToFix(IntExpression[] vars) {
+            return Math.max(vars.length / 20, 4);
+        }
+    }
+
+    private record Loaded(ModelDispatcher md, IntExpression[] vars) {
+    }
+
+    /**
+     * A run of a search on an instance
+     */
+    public record Run(String instance, Search search) {
+    }
+
+    /**
+     * Result of a run
+     *
+     * @param run           the run
+     * @param status        {@code OK} if the search is completed, {@code TIMEOUT} if it reached the time limit,
+     *                      {@code LIMIT} if it reached the limit on the number of solutions,
+     *                      {@code ERROR} if it threw an exception or an error
+     * @param statistics    the statistics of the search, null if it did not start
+     * @param loadNanos     the time spent to load the instance
+     * @param initNanos     the time spent to instantiate the model and to create the search
+     * @param searchNanos   the time spent in the search
+     * @param allocated     the bytes allocated by the thread of the run, -1 if not supported by the JVM
+     * @param peakHeap      the peak usage of the heap during the run, in bytes
+     * @param error         the error of the run, null if none
+     */
+    public record Result(Run run, String status, SearchStatistics statistics, long loadNanos, long initNanos,
+                         long searchNanos, long allocated, long peakHeap, String error) {
+    }
+
+    private final long timeoutNanos;
+    private final int solutionsLimit;
+    private final int nThreads;
+    private final int warmupRuns;
+    private final long warmupTimeoutNanos;
+
+    /**
+     * Creates a runner
+     *
+     * @param timeout        the time limit of a run
+     * @param unit           the unit of the time limits
+     * @param solutionsLimit the maximum number of solutions of a run
+     * @param nThreads       the number of runs executed in parallel
+     * @param warmupRuns     the number of warmup runs of each search on the first instance of each format
+     * @param warmupTimeout  the time limit of a warmup run
+     */
+    public BatchRunner(long timeout, TimeUnit unit, int solutionsLimit, int nThreads, int warmupRuns, long warmupTimeout) {
+        if (nThreads < 1)
+            throw new IllegalArgumentException("the number of threads must be positive");
+        this.timeoutNanos = unit.toNanos(timeout);
+        this.solutionsLimit = solutionsLimit;
+        this.nThreads = nThreads;
+        this.warmupRuns = warmupRuns;
+        this.warmupTimeoutNanos = unit.toNanos(warmupTimeout);
+    }
+
+    /**
+     * Executes the runs, after the warmup
+     *
+     * @param runs the runs
+     * @return their results, in the order of the runs
+     */
+    public List<Result> run(List<Run> runs) {
+        warmup(runs);
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (Run run : runs)
+                futures.add(executor.submit(() -> execute(run, timeoutNanos)));
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> future : futures)
+                results.add(future.get());
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void warmup(List<Run> runs) {
+        Map<Format, String> first = new EnumMap<>(Format.class);
+        Set<Search> searches = EnumSet.noneOf(Search.class);
+        for (Run run : runs) {
+            first.putIfAbsent(Format.of(run.instance()), run.instance());
+            searches.add(run.search());
+        }
+        for (int i = 0; i < warmupRuns; i++)
+            for (String instance : first.values())
+                for (Search search : searches)
+                    execute(new Run(instance, search), warmupTimeoutNanos);
+    }
+
+    private static final long NOT_ENDED = Long.MIN_VALUE;
+
+    /**
+     * Executes a run on the current thread
+     */
+    Result execute(Run run, long timeoutNanos) {
+        long start = System.nanoTime();
+        long deadline = start + timeoutNanos;
+        long allocated = allocatedBytes();
+        resetPeakHeap();
+        // end of the loading, of the instantiation and of the search
+        long[] times = {NOT_ENDED, NOT_ENDED, NOT_ENDED};
+        SearchStatistics[] statistics = new SearchStatistics[1];
+        String status;
+        String error = null;
+        try {
+            Loaded loaded = run.search().load(run.instance());
+            times[0] = System.nanoTime();
+            try (ModelDispatcher md = loaded.md()) {
+                md.runCP((Function<ConcreteCPModel, Void>) cp -> {
+                    Function<Predicate<SearchStatistics>, SearchStatistics> search = run.search().create(md, cp, loaded.vars(), solutionsLimit);
+                    times[1] = System.nanoTime();
+                    statistics[0] = search.apply(s -> System.nanoTime() > deadline);
+                    times[2] = System.nanoTime();
+                    return null;
+                });
+            }
+            if (statistics[0].isCompleted())
+                status = "OK";
+            else
+                status = System.nanoTime() > deadline ? "TIMEOUT" : "LIMIT";
+        } catch (Exception | OutOfMemoryError | StackOverflowError e) {
+            status = "ERROR";
+            error = e.toString();
+        }
+        long end = System.nanoTime();
+        // a phase that did not end lasts until the end of the run, the next ones take no time
+        long loaded = times[0] == NOT_ENDED ? end : times[0];
+        long initialized = times[1] == NOT_ENDED ? end : times[1];
+        long searched = times[2] == NOT_ENDED ? end : times[2];
+        long allocatedAfter = allocatedBytes();
+        return new Result(run, status, statistics[0], loaded - start, initialized - loaded, searched - initialized,
+                allocated < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocated,
+                peakHeap(), error);
+    }
+
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled())
+            return bean.getCurrentThreadAllocatedBytes();
+        return -1;
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if (pool.getType() == MemoryType.HEAP)
+                pool.resetPeakUsage();
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if (pool.getType() == MemoryType.HEAP)
+                peak += pool.getPeakUsage().getUsed();
+        return peak;
+    }
+
+    // ====================================================================================
+    // results
+
+    private static final String[] COLUMNS = {"instance", "search", "status", "completed", "solutions", "choices",
+            "failures", "and_nodes", "load_ms", "init_ms", "search_ms", "total_ms", "allocated_bytes", "peak_heap_bytes", "error"};
+
+    private static Object[] values(Result r) {
+        SearchStatistics s = r.statistics();
+        return new Object[]{r.run().instance(), r.run().search().toString(), r.status(),
+                s != null && s.isCompleted(),
+                s == null ? 0 : s.numberOfSolutions(),
+                s == null ? 0 : s.numberOfNodes(),
+                s == null ? 0 : s.numberOfFailures(),
+                s == null ? 0 : s.numberOfAndNodes(),
+                millis(r.loadNanos()), millis(r.initNanos()), millis(r.searchNanos()),
+                millis(r.loadNanos() + r.initNanos() + r.searchNanos()),
+                r.allocated(), r.peakHeap(), r.error()};
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
+    /**
+     * Writes results as CSV, with a header line
+     *
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public static void writeCsv(Path file, List<Result> results) {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println(String.join(",", COLUMNS));
+            for (Result r : results) {
+                StringJoiner line = new StringJoiner(",");
+                for (Object v : values(r))
+                    line.add(v == null ? "" : csv(v.toString()));
+                out.println(line);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes results as a JSON array of objects
+     *
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public static void writeJson(Path file, List<Result> results) {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println("[");
+            for (int i = 0; i < results.size(); i++) {
+                Object[] values = values(results.get(i));
+                StringJoiner object = new StringJoiner(", ", "  {", "}");
+                for (int j = 0; j < COLUMNS.length; j++)
+                    object.add(json(COLUMNS[j]) + ": " + json(values[j]));
+                out.println(object + (i + 1 < results.size() ? "," : ""));
+            }
+            out.println("]");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String csv(String v) {
+        if (v.indexOf(',') < 0 && v.indexOf('"') < 0 && v.indexOf('\n') < 0)
+            return v;
+        return '"' + v.replace("\"", "\"\"") + '"';
+    }
+
+    private static String json(Object v) {
+        if (v == null)
+            return "null";
+        if (v instanceof Number || v instanceof Boolean)
+            return v.toString();
+        StringBuilder b = new StringBuilder("\"");
+        for (char c : v.toString().toCharArray()) {
+            switch (c) {
+                case '"' -> b.append("\\\"");
+                case '\\' -> b.append("\\\\");
+                case '\n' -> b.append("\\n");
+                case '\r' -> b.append("\\r");
+                case '\t' -> b.append("\\t");
+                default -> {
+                    if (c < 0x20)
+                        b.append(String.format("\\u%04x", (int) c));
+                    else
+                        b.append(c);
+                }
+            }
+        }
+        return b.append('"').toString();
+    }
+
+    // ====================================================================================
+    // command line
+
+    private static void usage() {
+        System.err.println("""
+                Usage: BatchRunner [options] <instance>... | @<file listing one instance per line>
+                  --searches <list>       searches among or, and-cs, and-ps, separated by commas (default: all)
+                  --timeout <seconds>     time limit of each run (default: 300)
+                  --solutions <n>         maximum number of solutions of each run (default: no limit)
+                  --threads <n>           number of runs executed in parallel (default: 1)
+                  --warmup <n>            warmup runs of each search on the first instance of each format (default: 1)
+                  --warmup-timeout <s>    time limit of a warmup run (default: 10)
+                  --csv <file>            CSV results (default: results.csv)
+                  --json <file>           JSON results (default: none)""");
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<Search> searches = List.of(Search.values());
+        long timeout = 300;
+        int solutions = Integer.MAX_VALUE;
+        int threads = 1;
+        int warmup = 1;
+        long warmupTimeout = 10;
+        Path csv = Path.of("results.csv");
+        Path json = null;
+        List<String> instances = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--searches" -> searches = Arrays.stream(args[++i].split(",")).map(String::trim).map(Search::of).toList();
+                    case "--timeout" -> timeout = Long.parseLong(args[++i]);
+                    case "--solutions" -> solutions = Integer.parseInt(args[++i]);
+                    case "--threads" -> threads = Integer.parseInt(args[++i]);
+                    case "--warmup" -> warmup = Integer.parseInt(args[++i]);
+                    case "--warmup-timeout" -> warmupTimeout = Long.parseLong(args[++i]);
+                    case "--csv" -> csv = Path.of(args[++i]);
+                    case "--json" -> json = Path.of(args[++i]);
+                    default -> {
+                        if (args[i].startsWith("--"))
+                            throw new IllegalArgumentException("unknown option " + args[i]);
+                        if (args[i].startsWith("@")) {
+                            for (String line : Files.readAllLines(Path.of(args[i].substring(1)))) {
+                                line = line.strip();
+                                if (!line.isEmpty() && !line.startsWith("#"))
+                                    instances.add(line);
+                            }
+                        } else {
+                            instances.add(args[i]);
+                        }
+                    }
+                }
+            }
+            if (instances.isEmpty())
+                throw new IllegalArgumentException("no instance");
+            instances.forEach(Format::of);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println(e.getMessage());
+            usage();
+            System.exit(1);
+            return;
+        }
+
+        List<Run> runs = new ArrayList<>();
+        for (String instance : instances)
+            for (Search search : searches)
+                runs.add(new Run(instance, search));
+        BatchRunner runner = new BatchRunner(timeout, TimeUnit.SECONDS, solutions, threads, warmup, warmupTimeout);
+        List<Result> results = runner.run(runs);
+        writeCsv(csv, results);
+        if (json != null)
+            writeJson(json, results);
+        for (Result r : results)
+            System.out.format("%s %s %s %.0f ms%n", r.run().instance(), r.run().search(), r.status(),
+                    millis(r.loadNanos() + r.initNanos() + r.searchNanos()));
+    }
+}
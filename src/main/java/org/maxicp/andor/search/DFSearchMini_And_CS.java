@@ -38,6 +38,9 @@ public class DFSearchMini_And_CS extends RunnableSearchMethod {
     private boolean showSolutions = false;
     private boolean computeSolutions = true;
     private ConstraintGraph graph;
+    private static final Predicate<SearchStatistics> NO_LIMIT = statistics -> false;
+    // checked before each decision, the search being stopped once it holds
+    private Predicate<SearchStatistics> limit = NO_LIMIT;
 
     public void setDFSListener(DFSListener listener) {
         this.dfsListener = listener;
@@ -314,6 +317,8 @@ public class DFSearchMini_And_CS extends RunnableSearchMethod {
                     this.complete = false;
                     break;
                 }
+                if (limit.test(statistics))
+                    throw new StopSearchException();
                 sm.withNewState(() -> {
                     try {
                         // Apply the Runnable
@@ -369,7 +374,26 @@ public class DFSearchMini_And_CS extends RunnableSearchMethod {
 
     @Override
     public SearchStatistics solve(Predicate<SearchStatistics> limit) {
-        throw new RuntimeException("DFSearch type AND/OR doesn't take predicate as limite, use an integer instead");
+        return solve(Integer.MAX_VALUE, limit);
+    }
+
+    /**
+     * Start the AND/OR search, stopped once a number of solutions is found or once the limit holds
+     * on the statistics, which are then not completed.
+     * The limit is checked before each decision, e.g. {@code statistics -> System.nanoTime() > deadline}.
+     * The solutions are counted once the search ends, such that a search stopped by the limit reports none.
+     *
+     * @param solutionsLimit the maximum number of solutions to find before stopping the search
+     * @param limit the predicate on the statistics of the search stopping it
+     * @return the statistics of the search
+     */
+    public SearchStatistics solve(int solutionsLimit, Predicate<SearchStatistics> limit) {
+        this.limit = limit;
+        try {
+            return solve(new SearchStatistics(), solutionsLimit, false);
+        } finally {
+            this.limit = NO_LIMIT;
+        }
     }
 
 
@@ -61,9 +61,11 @@ public class DFSearchMini_Or extends RunnableSearchMethod {
             throw new StopSearchException();
         Runnable[] branches = branching.get();
         if (branches.length == 0) {
-            statistics.incrSolutions();
-            notifySolution(currNodeId++, parentId);
-            notifySolution();
+            if (acceptLeaf(statistics)) {
+                statistics.incrSolutions();
+                notifySolution(currNodeId++, parentId);
+                notifySolution();
+            }
         } else {
             for (Runnable b : branches) {
                 int nodeId = currNodeId++;
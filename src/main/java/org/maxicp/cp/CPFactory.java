@@ -1059,6 +1059,17 @@ public final class CPFactory {
         return new Or(x);
     }
 
+    /**
+     * Returns a nogood constraint, forbidding a combination of values
+     *
+     * @param x the variables
+     * @param v the forbidden values, {@code v[i]} for {@code x[i]}
+     * @return a constraint so that {@code x[0] != v[0] or ... or x[n-1] != v[n-1]}
+     */
+    public static CPConstraint noGood(CPIntVar[] x, int[] v) {
+        return new NoGood(x, v);
+    }
+
     /**
      * Model the logical implication constraint
      *
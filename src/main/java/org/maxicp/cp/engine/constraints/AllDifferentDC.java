@@ -23,8 +23,24 @@ import java.util.Arrays;
  */
 public class AllDifferentDC extends AtLeastNValueDC {
 
+    private final CPIntVar[] x;
+
     public AllDifferentDC(CPIntVar... x) {
         super(x, new CPIntVarImpl(x[0].getSolver(), x.length, x.length));
+        this.x = x;
+    }
+
+    @Override
+    public void propagate() {
+        super.propagate();
+        // the values left to the last unfixed variable are not taken by the other ones
+        int nUnfixed = 0;
+        for (int i = 0; i < x.length && nUnfixed <= 1; i++) {
+            if (!x[i].isFixed())
+                nUnfixed++;
+        }
+        if (nUnfixed <= 1)
+            setEntailed();
     }
 
 }
@@ -61,6 +61,9 @@ public class AtLeastNValueDC extends AbstractCPConstraint {
         this.x = x;
         this.posted = false;
         this.nValueVar = nVal;
+        // the pruning keeps the maximum matching and its strongly connected components
+        setIdempotent(true);
+        setExpensive(true);
     }
 
     public AtLeastNValueDC(CPIntVar[] x, CPIntVar nval, boolean dontPostFWC) {
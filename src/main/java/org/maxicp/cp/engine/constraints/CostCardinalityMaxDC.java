@@ -85,6 +85,7 @@ public class CostCardinalityMaxDC extends AbstractCPConstraint {
      */
     public CostCardinalityMaxDC(CPIntVar[] x, int[] upper, int[][] costs, CPIntVar H, Algorithm algorithm)  {
         super(x[0].getSolver());
+        setExpensive(true);
         nVars = x.length;
         this.x = CPFactory.makeIntVarArray(nVars, i -> x[i]);
         this.costs = costs;
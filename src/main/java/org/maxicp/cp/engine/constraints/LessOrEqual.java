@@ -20,6 +20,7 @@ public class LessOrEqual extends AbstractCPConstraint { // x <= y
         super(x.getSolver());
         this.x = x;
         this.y = y;
+        setIdempotent(true);
     }
 
     @Override
@@ -34,6 +35,6 @@ public class LessOrEqual extends AbstractCPConstraint { // x <= y
         x.removeAbove(y.max());
         y.removeBelow(x.min());
         if (x.max() <= y.min())
-            setActive(false);
+            setEntailed();
     }
 }
@@ -32,8 +32,9 @@ public class NegTableCT extends AbstractCPConstraint {
 
     // contains the current value of the table (i.e., tuples valid given current state)
     private final StateSparseBitSet validTuples;
-    // supports[i][v] is the set of tuples supported by x[i]=v (i.e., tuples with this value for this variable)
-    private final StateSparseBitSet.SupportBitSet[][] supports;
+    // supports of the tuples, possibly shared with the same table in other solvers
+    private final TableSupports supports;
+    private final long[] supportWords;
 
     // keep track of the unbounded vars
     private final int[] unbounded;
@@ -56,9 +57,24 @@ public class NegTableCT extends AbstractCPConstraint {
      * @param table the array of invalid solutions (second dimension must be of same size as the array x)
      */
     public NegTableCT(CPIntVar[] x, int[][] table) {
-        super(x[0].getSolver());
+        this(x, TableSupports.of(x, table));
         assert !hasDuplicates(table) : "your table should not have duplicates";
+    }
+
+    /**
+     * Negative Table constraint with supports computed beforehand,
+     * typically shared with the same constraint posted in other solvers.
+     *
+     * @param x        the variables to constraint. x is not empty.
+     * @param supports the supports of the invalid solutions, without duplicates,
+     *                 covering the domains of x (see {@link TableSupports#covers(CPIntVar[])})
+     */
+    public NegTableCT(CPIntVar[] x, TableSupports supports) {
+        super(x[0].getSolver());
+        assert supports.covers(x) : "the supports do not cover the domains of the variables";
         this.scpSize = x.length;
+        this.supports = supports;
+        this.supportWords = supports.words();
         // variables with offset (min dom = 0)
         this.offx = new CPIntVar[this.scpSize];
         this.delta = new DeltaCPIntVar[this.scpSize];
@@ -67,31 +83,15 @@ public class NegTableCT extends AbstractCPConstraint {
             this.unbounded[i] = i;
         }
         this.nUnbound = this.getSolver().getStateManager().makeStateInt(this.scpSize);
-        int[] offset = new int[this.scpSize];
         int maxsize = 0;
 
-        this.validTuples = new StateSparseBitSet(this.getSolver().getStateManager(), table.length);
+        this.validTuples = new StateSparseBitSet(this.getSolver().getStateManager(), supports.numberOfTuples());
         this.collected = validTuples.new CollectionBitSet();
 
-        // Allocate supportedByVarVal
-        supports = new StateSparseBitSet.SupportBitSet[this.scpSize][];
         for (int i = 0; i < this.scpSize; i++) {
-            offset[i] = x[i].min();
-            this.offx[i] = minus(x[i], offset[i]); // map the variables domain to start at 0
+            this.offx[i] = minus(x[i], supports.offset(i)); // map the variables domain to start at the offset of the supports
             this.delta[i] = this.offx[i].delta(this);
             maxsize = Math.max(maxsize, this.offx[i].max());
-            supports[i] = new StateSparseBitSet.SupportBitSet[this.offx[i].max() + 1];
-            for (int j = 0; j < supports[i].length; j++)
-                supports[i][j] = validTuples.new SupportBitSet();
-        }
-
-        // Set values in supports, which contains all the tuples supported by each var-val pair
-        for (int i = 0; i < table.length; i++) { //i is the index of the tuple (in table)
-            for (int j = 0; j < this.scpSize; j++) { //j is the index of the current variable (in x)
-                if (x[j].contains(table[i][j])) {
-                    supports[j][table[i][j] - offset[j]].set(i);
-                }
-            }
         }
 
         this.tempDom = new int[maxsize + 1];
@@ -123,14 +123,14 @@ public class NegTableCT extends AbstractCPConstraint {
 
             if (var.isFixed()) {
                 // var has been bound, direct intersection with support
-                validTuples.intersect(supports[idx][var.min()]);
+                validTuples.intersect(supportWords, supports.index(idx, var.min()));
             } else {
                 // clear temp var collecting
                 collected.clear();
                 // less values remaining
                 int n = var.fillArray(tempDom);
                 for (int j = 0; j < n; j++) {
-                    collected.union(supports[idx][tempDom[j]]);
+                    collected.union(supportWords, supports.index(idx, tempDom[j]));
                 }
 
                 validTuples.intersect(collected);
@@ -148,7 +148,7 @@ public class NegTableCT extends AbstractCPConstraint {
             int idx = this.unbounded[i];
             CPIntVar var = this.offx[idx];
             int threshold = cardinal / var.size();
-            this.filterDomain(var, supports[idx], threshold);
+            this.filterDomain(var, idx, threshold);
             if (var.isFixed()) {
                 // var is bound, removed from unbounded
                 nUnboundValue--;
@@ -187,7 +187,7 @@ public class NegTableCT extends AbstractCPConstraint {
 
                 if (var.isFixed()) {
                     // var has been bound, direct intersection with support
-                    validTuples.intersect(supports[idx][var.min()]);
+                    validTuples.intersect(supportWords, supports.index(idx, var.min()));
                 } else {
                     // clear temp var collecting
                     collected.clear();
@@ -195,14 +195,14 @@ public class NegTableCT extends AbstractCPConstraint {
                         // less values removed
                         int n = dvar.fillArray(tempDom);
                         for (int j = 0; j < n; j++) {
-                            collected.union(supports[idx][tempDom[j]]);
+                            collected.union(supportWords, supports.index(idx, tempDom[j]));
                         }
                         collected.invert();
                     } else {
                         // less values remaining
                         int n = var.fillArray(tempDom);
                         for (int j = 0; j < n; j++) {
-                            collected.union(supports[idx][tempDom[j]]);
+                            collected.union(supportWords, supports.index(idx, tempDom[j]));
                         }
                     }
                     validTuples.intersect(collected);
@@ -223,7 +223,7 @@ public class NegTableCT extends AbstractCPConstraint {
             int threshold = cardinal / var.size();
             if (nChange > 1 || idx != idxChange)
                 // check all unbound left if at least two have changed or this one is not the last one changed
-                this.filterDomain(var, supports[idx], threshold);
+                this.filterDomain(var, idx, threshold);
             if (var.isFixed()) {
                 // var is bound, removed from unbounded
                 nUnboundValue--;
@@ -238,13 +238,14 @@ public class NegTableCT extends AbstractCPConstraint {
         this.nUnbound.setValue(nUnboundValue);
     }
 
-    private void filterDomain(CPIntVar var, StateSparseBitSet.SupportBitSet[] supp, int threshold) {
+    private void filterDomain(CPIntVar var, int idx, int threshold) {
         int n = var.fillArray(tempDom);
         collected.clear();
         for (int j = 0; j < n; j++) {
-            if (threshold == validTuples.countIntersection(supp[tempDom[j]])) {
+            int support = supports.index(idx, tempDom[j]);
+            if (threshold == validTuples.countIntersection(supportWords, support)) {
                 var.remove(tempDom[j]);
-                collected.union(supp[tempDom[j]]);
+                collected.union(supportWords, support);
             }
         }
         collected.invert();
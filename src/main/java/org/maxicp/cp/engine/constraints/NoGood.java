@@ -0,0 +1,98 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.cp.engine.constraints;
+
+import org.maxicp.cp.engine.core.AbstractCPConstraint;
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.state.StateInt;
+
+import static org.maxicp.util.exception.InconsistencyException.INCONSISTENCY;
+
+/**
+ * Nogood constraint {@code not (x1 = v1 and x2 = v2 and ... xn = vn)},
+ * i.e. the clause {@code x1 != v1 or x2 != v2 or ... xn != vn}.
+ * <p>
+ * Propagated with two watched literals as the {@link Or} constraint:
+ * a literal {@code xi != vi} is false once {@code xi} is fixed to {@code vi}.
+ * The constraint is only woken up when a watched variable is fixed.
+ */
+public class NoGood extends AbstractCPConstraint {
+
+    private final CPIntVar[] x;
+    private final int[] v;
+    private final int n;
+    private StateInt wL; // watched literal left
+    private StateInt wR; // watched literal right
+
+    /**
+     * Creates a nogood constraint: at least one variable differs from its value
+     * {@code x1 != v1 or x2 != v2 or ... xn != vn}
+     *
+     * @param x the variables in the scope of the constraint
+     * @param v the forbidden combination of values, {@code v[i]} for {@code x[i]}
+     */
+    public NoGood(CPIntVar[] x, int[] v) {
+        super(x[0].getSolver());
+        if (x.length != v.length) throw new IllegalArgumentException("one value per variable is needed");
+        this.x = x;
+        this.v = v;
+        this.n = x.length;
+        wL = getSolver().getStateManager().makeStateInt(0);
+        wR = getSolver().getStateManager().makeStateInt(n - 1);
+        setIdempotent(true);
+    }
+
+    private boolean isFalse(int i) {
+        return x[i].isFixed() && x[i].min() == v[i];
+    }
+
+    @Override
+    public void post() {
+        updateWatches(true);
+    }
+
+    @Override
+    public void propagate() {
+        updateWatches(false);
+    }
+
+    private void updateWatches(boolean posting) {
+        int oldL = wL.value();
+        int oldR = wR.value();
+        // update watched literals
+        int i = wL.value();
+        while (i < n && (isFalse(i) || !x[i].contains(v[i]))) {
+            if (!x[i].contains(v[i])) {
+                setEntailed();
+                return;
+            }
+            i += 1;
+        }
+        wL.setValue(i);
+        i = wR.value();
+        while (i >= 0 && i >= wL.value() && (isFalse(i) || !x[i].contains(v[i]))) {
+            if (!x[i].contains(v[i])) {
+                setEntailed();
+                return;
+            }
+            i -= 1;
+        }
+        wR.setValue(i);
+
+        if (wL.value() > wR.value()) {
+            throw INCONSISTENCY;
+        } else if (wL.value() == wR.value()) { // only one literal left
+            x[wL.value()].remove(v[wL.value()]);
+            setEntailed();
+        } else {
+            // only the variables newly watched are registered, the registrations are undone on backtrack as the watches
+            if (posting || wL.value() != oldL)
+                x[wL.value()].propagateOnFix(this);
+            if (posting || wR.value() != oldR)
+                x[wR.value()].propagateOnFix(this);
+        }
+    }
+}
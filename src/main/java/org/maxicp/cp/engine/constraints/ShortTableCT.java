@@ -9,7 +9,6 @@ import org.maxicp.cp.engine.core.AbstractCPConstraint;
 import org.maxicp.cp.engine.core.CPIntVar;
 import org.maxicp.cp.engine.core.DeltaCPIntVar;
 import org.maxicp.state.StateInt;
-import org.maxicp.state.datastructures.BitSet;
 import org.maxicp.state.datastructures.StateSparseBitSet;
 import org.maxicp.util.exception.InconsistencyException;
 
@@ -30,9 +29,12 @@ public class ShortTableCT extends AbstractCPConstraint {
 
     // contains the current value of the table (i.e., tuples valid given current state)
     private final StateSparseBitSet validTuples;
-    // supports[i][v] is the set of tuples supported by x[i]=v (i.e., tuples with this value for this variable)
-    private final StateSparseBitSet.SupportBitSet[][] supports;
-    private final StateSparseBitSet.SupportBitSet[][] supportsStar;
+    // supports of the tuples, possibly shared with the same table in other solvers
+    private final TableSupports supports;
+    // tuples with the value or a star for the variable
+    private final long[] supportWords;
+    // tuples with exactly the value for the variable
+    private final long[] strictSupportWords;
 
     // keep track of the unbounded vars
     private final int[] unbounded;
@@ -55,8 +57,24 @@ public class ShortTableCT extends AbstractCPConstraint {
      * @param star  the {@code *} symbol representing "any" value in the table
      */
     public ShortTableCT(CPIntVar[] x, int[][] table, int star) {
+        this(x, TableSupports.of(x, table, star));
+    }
+
+    /**
+     * Create a Table constraint with short tuples, with supports computed beforehand,
+     * typically shared with the same constraint posted in other solvers.
+     *
+     * @param x        the variables to constraint. x must be non empty.
+     * @param supports the supports of the short table, computed with {@link TableSupports#of(CPIntVar[], int[][], int)}
+     *                 and covering the domains of x (see {@link TableSupports#covers(CPIntVar[])})
+     */
+    public ShortTableCT(CPIntVar[] x, TableSupports supports) {
         super(x[0].getSolver());
+        assert supports.covers(x) : "the supports do not cover the domains of the variables";
         this.scpSize = x.length;
+        this.supports = supports;
+        this.supportWords = supports.words();
+        this.strictSupportWords = supports.strictWords();
         // variables with offset (min dom = 0)
         this.offx = new CPIntVar[this.scpSize];
         this.delta = new DeltaCPIntVar[this.scpSize];
@@ -65,41 +83,15 @@ public class ShortTableCT extends AbstractCPConstraint {
             this.unbounded[i] = i;
         }
         this.nUnbound = this.getSolver().getStateManager().makeStateInt(this.scpSize);
-        int[] offset = new int[this.scpSize];
         int maxsize = 0;
 
-        this.validTuples = new StateSparseBitSet(this.getSolver().getStateManager(), table.length);
+        this.validTuples = new StateSparseBitSet(this.getSolver().getStateManager(), supports.numberOfTuples());
         this.collected = validTuples.new CollectionBitSet();
 
-        // Allocate supportedByVarVal
-        supports = new StateSparseBitSet.SupportBitSet[this.scpSize][];
-        supportsStar = new StateSparseBitSet.SupportBitSet[this.scpSize][];
         for (int i = 0; i < this.scpSize; i++) {
-            offset[i] = x[i].min();
-            this.offx[i] = minus(x[i], offset[i]); // map the variables domain to start at 0
+            this.offx[i] = minus(x[i], supports.offset(i)); // map the variables domain to start at the offset of the supports
             this.delta[i] = this.offx[i].delta(this);
             maxsize = Math.max(maxsize, this.offx[i].max());
-            supports[i] = new StateSparseBitSet.SupportBitSet[this.offx[i].max() + 1];
-            supportsStar[i] = new StateSparseBitSet.SupportBitSet[this.offx[i].max() + 1];
-            for (int j = 0; j < supports[i].length; j++) {
-                supportsStar[i][j] = validTuples.new SupportBitSet();
-            }
-        }
-
-        // Set values in supports, which contains all the tuples supported by each var-val pair
-        for (int j = 0; j < this.scpSize; j++) { //j is the index of the current variable (in x)
-            BitSet stars = new BitSet(table.length);
-            for (int i = 0; i < table.length; i++) { //i is the index of the tuple (in table)
-                if (table[i][j] == star) {
-                    stars.set(i);
-                } else if (x[j].contains(table[i][j])) {
-                    supportsStar[j][table[i][j] - offset[j]].set(i);
-                }
-            }
-            for (int k = 0; k < supports[j].length; k++) {
-                supports[j][k] = validTuples.new SupportBitSet(supportsStar[j][k]);
-                supports[j][k].union(stars);
-            }
         }
 
         this.tempDom = new int[maxsize + 1];
@@ -119,7 +111,7 @@ public class ShortTableCT extends AbstractCPConstraint {
 
             if (var.isFixed()) {
                 // var has been bound, direct intersection with support
-                validTuples.intersect(supports[idx][var.min()]);
+                validTuples.intersect(supportWords, supports.index(idx, var.min()));
                 if (validTuples.isEmpty())
                     throw InconsistencyException.INCONSISTENCY;
                 // var is bound, removed from unbounded
@@ -132,7 +124,7 @@ public class ShortTableCT extends AbstractCPConstraint {
                 // less values remaining
                 int n = var.fillArray(tempDom);
                 for (int j = 0; j < n; j++) {
-                    collected.union(supports[idx][tempDom[j]]);
+                    collected.union(supportWords, supports.index(idx, tempDom[j]));
                 }
 
                 validTuples.intersect(collected);
@@ -148,7 +140,7 @@ public class ShortTableCT extends AbstractCPConstraint {
         for (int i = nUnboundValue - 1; i >= 0; i--) {
             int idx = this.unbounded[i];
             CPIntVar var = this.offx[idx];
-            this.filterDomain(var, supports[idx]);
+            this.filterDomain(var, idx);
             if (var.isFixed()) {
                 // var is bound, removed from unbounded
                 nUnboundValue--;
@@ -186,7 +178,7 @@ public class ShortTableCT extends AbstractCPConstraint {
 
                 if (var.isFixed()) {
                     // var has been bound, direct intersection with support
-                    validTuples.intersect(supports[idx][var.min()]);
+                    validTuples.intersect(supportWords, supports.index(idx, var.min()));
                     if (validTuples.isEmpty())
                         throw InconsistencyException.INCONSISTENCY;
                     // var is bound, removed from unbounded
@@ -200,14 +192,14 @@ public class ShortTableCT extends AbstractCPConstraint {
                         // less values removed
                         int n = dvar.fillArray(tempDom);
                         for (int j = 0; j < n; j++) {
-                            collected.union(supportsStar[idx][tempDom[j]]);
+                            collected.union(strictSupportWords, supports.index(idx, tempDom[j]));
                         }
                         collected.invert();
                     } else {
                         // less values remaining
                         int n = var.fillArray(tempDom);
                         for (int j = 0; j < n; j++) {
-                            collected.union(supports[idx][tempDom[j]]);
+                            collected.union(supportWords, supports.index(idx, tempDom[j]));
                         }
                     }
                     validTuples.intersect(collected);
@@ -225,7 +217,7 @@ public class ShortTableCT extends AbstractCPConstraint {
             CPIntVar var = this.offx[idx];
             if (nChange > 1 || idx != idxChange)
                 // check all unbound left if at least two have changed or this one is not the last one changed
-                this.filterDomain(var, supports[idx]);
+                this.filterDomain(var, idx);
             if (var.isFixed()) {
                 // var is bound, removed from unbounded
                 nUnboundValue--;
@@ -236,10 +228,10 @@ public class ShortTableCT extends AbstractCPConstraint {
         this.nUnbound.setValue(nUnboundValue);
     }
 
-    private void filterDomain(CPIntVar var, StateSparseBitSet.SupportBitSet[] supp) {
+    private void filterDomain(CPIntVar var, int idx) {
         int n = var.fillArray(tempDom);
         for (int j = 0; j < n; j++) {
-            if (validTuples.hasEmptyIntersection(supp[tempDom[j]])) {
+            if (validTuples.hasEmptyIntersection(supportWords, supports.index(idx, tempDom[j]))) {
                 var.remove(tempDom[j]);
             }
         }
@@ -105,6 +105,7 @@ public class SoftCardinalityDC extends AbstractCPConstraint{
         this.up = up;
         this.viol = viol;
         check();
+        setExpensive(true);
     }
 
     /**
@@ -106,5 +106,8 @@ public class Sum extends AbstractCPConstraint {
             x[idx].removeAbove(-((int) (sumMin - min[idx])));
             x[idx].removeBelow(-((int) (sumMax - max[idx])));
         }
+        // a single free variable is fixed by the filtering above
+        if (nU <= 1)
+            setEntailed();
     }
 }
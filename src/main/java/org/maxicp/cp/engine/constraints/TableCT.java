@@ -28,8 +28,9 @@ public class TableCT extends AbstractCPConstraint {
 
     // contains the current value of the table (i.e., tuples valid given current state)
     private final StateSparseBitSet validTuples;
-    // supports[i][v] is the set of tuples supported by x[i]=v (i.e., tuples with this value for this variable)
-    private final StateSparseBitSet.SupportBitSet[][] supports;
+    // supports of the tuples, possibly shared with the same table in other solvers
+    private final TableSupports supports;
+    private final long[] supportWords;
 
     // keep track of the unbounded vars
     private final int[] unbounded;
@@ -59,8 +60,23 @@ public class TableCT extends AbstractCPConstraint {
      *              The second dimension must be of the same size as the array x.
      */
     public TableCT(CPIntVar[] x, int[][] table) {
+        this(x, TableSupports.of(x, table));
+    }
+
+    /**
+     * Table constraint with supports computed beforehand,
+     * typically shared with the same constraint posted in other solvers.
+     *
+     * @param x        the non-empty set of variables to constraint
+     * @param supports the supports of the possible set of solutions for x,
+     *                 covering the domains of x (see {@link TableSupports#covers(CPIntVar[])})
+     */
+    public TableCT(CPIntVar[] x, TableSupports supports) {
         super(x[0].getSolver());
+        assert supports.covers(x) : "the supports do not cover the domains of the variables";
         this.scpSize = x.length;
+        this.supports = supports;
+        this.supportWords = supports.words();
         // variables with offset (min dom = 0)
         this.offx = new CPIntVar[this.scpSize];
         this.delta = new DeltaCPIntVar[this.scpSize];
@@ -69,34 +85,20 @@ public class TableCT extends AbstractCPConstraint {
             this.unbounded[i] = i;
         }
         this.nUnbound = this.getSolver().getStateManager().makeStateInt(this.scpSize);
-        int[] offset = new int[this.scpSize];
         int maxsize = 0;
 
-        this.validTuples = new StateSparseBitSet(this.getSolver().getStateManager(), table.length);
+        this.validTuples = new StateSparseBitSet(this.getSolver().getStateManager(), supports.numberOfTuples());
         this.collected = validTuples.new CollectionBitSet();
 
-        // Allocate supportedByVarVal
-        supports = new StateSparseBitSet.SupportBitSet[this.scpSize][];
         for (int i = 0; i < this.scpSize; i++) {
-            offset[i] = x[i].min();
-            this.offx[i] = minus(x[i], offset[i]); // map the variables domain to start at 0
+            this.offx[i] = minus(x[i], supports.offset(i)); // map the variables domain to start at the offset of the supports
             this.delta[i] = this.offx[i].delta(this);
             maxsize = Math.max(maxsize, this.offx[i].max());
-            supports[i] = new StateSparseBitSet.SupportBitSet[this.offx[i].max() + 1];
-            for (int j = 0; j < supports[i].length; j++)
-                supports[i][j] = validTuples.new SupportBitSet();
-        }
-
-        // Set values in supports, which contains all the tuples supported by each var-val pair
-        for (int i = 0; i < table.length; i++) { //i is the index of the tuple (in table)
-            for (int j = 0; j < this.scpSize; j++) { //j is the index of the current variable (in x)
-                if (x[j].contains(table[i][j])) {
-                    supports[j][table[i][j] - offset[j]].set(i);
-                }
-            }
         }
 
         this.tempDom = new int[maxsize + 1];
+        // removing unsupported values does not invalidate any tuple
+        setIdempotent(true);
     }
 
     @Override
@@ -113,7 +115,7 @@ public class TableCT extends AbstractCPConstraint {
 
             if (var.isFixed()) {
                 // var has been bound, direct intersection with support
-                validTuples.intersect(supports[idx][var.min()]);
+                validTuples.intersect(supportWords, supports.index(idx, var.min()));
                 if (validTuples.isEmpty())
                     throw InconsistencyException.INCONSISTENCY;
                 // var is bound, removed from unbounded
@@ -126,7 +128,7 @@ public class TableCT extends AbstractCPConstraint {
                 // less values remaining
                 int n = var.fillArray(tempDom);
                 for (int j = 0; j < n; j++) {
-                    collected.union(supports[idx][tempDom[j]]);
+                    collected.union(supportWords, supports.index(idx, tempDom[j]));
                 }
 
                 validTuples.intersect(collected);
@@ -142,7 +144,7 @@ public class TableCT extends AbstractCPConstraint {
         for (int i = nUnboundValue - 1; i >= 0; i--) {
             int idx = this.unbounded[i];
             CPIntVar var = this.offx[idx];
-            this.filterDomain(var, supports[idx]);
+            this.filterDomain(var, idx);
             if (var.isFixed()) {
                 // var is bound, removed from unbounded
                 nUnboundValue--;
@@ -153,6 +155,8 @@ public class TableCT extends AbstractCPConstraint {
         this.nUnbound.setValue(nUnboundValue);
         for (int i = 0; i < this.scpSize; i++)
             this.offx[i].propagateOnDomainChange(this);
+        if (nUnboundValue <= 1)
+            setEntailed();
     }
 
     @Override
@@ -180,7 +184,7 @@ public class TableCT extends AbstractCPConstraint {
 
                 if (var.isFixed()) {
                     // var has been bound, direct intersection with support
-                    validTuples.intersect(supports[idx][var.min()]);
+                    validTuples.intersect(supportWords, supports.index(idx, var.min()));
                     if (validTuples.isEmpty())
                         throw InconsistencyException.INCONSISTENCY;
                     // var is bound, removed from unbounded
@@ -194,14 +198,14 @@ public class TableCT extends AbstractCPConstraint {
                         // less values removed
                         int n = dvar.fillArray(tempDom);
                         for (int j = 0; j < n; j++) {
-                            collected.union(supports[idx][tempDom[j]]);
+                            collected.union(supportWords, supports.index(idx, tempDom[j]));
                         }
                         collected.invert();
                     } else {
                         // less values remaining
                         int n = var.fillArray(tempDom);
                         for (int j = 0; j < n; j++) {
-                            collected.union(supports[idx][tempDom[j]]);
+                            collected.union(supportWords, supports.index(idx, tempDom[j]));
                         }
                     }
                     validTuples.intersect(collected);
@@ -219,7 +223,7 @@ public class TableCT extends AbstractCPConstraint {
             CPIntVar var = this.offx[idx];
             if (nChange > 1 || idx != idxChange)
                 // check all unbound left if at least two have changed or this one is not the last one changed
-                this.filterDomain(var, supports[idx]);
+                this.filterDomain(var, idx);
             if (var.isFixed()) {
                 // var is bound, removed from unbounded
                 nUnboundValue--;
@@ -228,12 +232,15 @@ public class TableCT extends AbstractCPConstraint {
             }
         }
         this.nUnbound.setValue(nUnboundValue);
+        // every remaining value of the last unbound variable is supported
+        if (nUnboundValue <= 1)
+            setEntailed();
     }
 
-    private void filterDomain(CPIntVar var, StateSparseBitSet.SupportBitSet[] supp) {
+    private void filterDomain(CPIntVar var, int idx) {
         int n = var.fillArray(tempDom);
         for (int j = 0; j < n; j++) {
-            if (validTuples.hasEmptyIntersection(supp[tempDom[j]])) {
+            if (validTuples.hasEmptyIntersection(supportWords, supports.index(idx, tempDom[j]))) {
                 var.remove(tempDom[j]);
             }
         }
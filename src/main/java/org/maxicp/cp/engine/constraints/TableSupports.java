@@ -0,0 +1,178 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.cp.engine.constraints;
+
+import org.maxicp.cp.engine.core.CPIntVar;
+
+/**
+ * Immutable supports of a table, i.e. for each variable and value,
+ * the bit-set of the tuples compatible with the variable taking this value.
+ * <p>
+ * The supports only depend on the table and on the range of the domains,
+ * such that they are computed once and shared read-only by the {@link TableCT},
+ * {@link ShortTableCT} and {@link NegTableCT} constraints posted on the same table
+ * in different solvers, e.g. by the workers of a parallel search.
+ * Each constraint only keeps its reversible set of the valid tuples.
+ * <p>
+ * All the bit-sets are stored in a single array of words:
+ * the support of {@code x[i] = v} is made of the {@link #numberOfWords()} words
+ * starting at {@link #index(int, int) index(i, v - offset(i))}.
+ */
+public final class TableSupports {
+
+    private final int nTuples;
+    private final int nWords;
+    private final int[] offset;
+    private final int[] size;
+    private final int[] start;
+    // tuples having the value, or a star, for the variable
+    private final long[] words;
+    // tuples having the value for the variable, the same array as words if there is no star
+    private final long[] strictWords;
+
+    private TableSupports(int[][] table, int[] min, int[] max, boolean hasStar, int star) {
+        int arity = min.length;
+        this.nTuples = table.length;
+        this.nWords = (nTuples + 63) >>> 6;
+        this.offset = min.clone();
+        this.size = new int[arity];
+        this.start = new int[arity];
+        int total = 0;
+        for (int i = 0; i < arity; i++) {
+            size[i] = max[i] - min[i] + 1;
+            start[i] = total;
+            total = Math.addExact(total, Math.multiplyExact(size[i], nWords));
+        }
+        this.strictWords = new long[total];
+        long[] stars = hasStar ? new long[arity * nWords] : null;
+        for (int t = 0; t < nTuples; t++) {
+            for (int i = 0; i < arity; i++) {
+                int v = table[t][i];
+                if (hasStar && v == star) {
+                    stars[i * nWords + (t >>> 6)] |= 1L << t;
+                } else if (v >= offset[i] && v - offset[i] < size[i]) {
+                    strictWords[start[i] + (v - offset[i]) * nWords + (t >>> 6)] |= 1L << t;
+                }
+            }
+        }
+        if (hasStar) {
+            this.words = strictWords.clone();
+            for (int i = 0; i < arity; i++)
+                for (int v = 0; v < size[i]; v++)
+                    for (int w = 0; w < nWords; w++)
+                        words[start[i] + v * nWords + w] |= stars[i * nWords + w];
+        } else {
+            this.words = strictWords;
+        }
+    }
+
+    /**
+     * Computes the supports of a table for the current domains of the variables
+     *
+     * @param x     the variables of the table
+     * @param table the tuples, the second dimension being of the same size as the array x
+     * @return the supports of the table
+     */
+    public static TableSupports of(CPIntVar[] x, int[][] table) {
+        return new TableSupports(table, mins(x), maxs(x), false, 0);
+    }
+
+    /**
+     * Computes the supports of a short table for the current domains of the variables
+     *
+     * @param x     the variables of the table
+     * @param table the tuples, the second dimension being of the same size as the array x
+     * @param star  the {@code *} symbol representing "any" value in the table
+     * @return the supports of the table
+     */
+    public static TableSupports of(CPIntVar[] x, int[][] table, int star) {
+        return new TableSupports(table, mins(x), maxs(x), true, star);
+    }
+
+    private static int[] mins(CPIntVar[] x) {
+        int[] min = new int[x.length];
+        for (int i = 0; i < x.length; i++)
+            min[i] = x[i].min();
+        return min;
+    }
+
+    private static int[] maxs(CPIntVar[] x) {
+        int[] max = new int[x.length];
+        for (int i = 0; i < x.length; i++)
+            max[i] = x[i].max();
+        return max;
+    }
+
+    /**
+     * Tells if the supports can be used for the variables,
+     * i.e. if the domains are within the ranges the supports were computed for
+     *
+     * @param x the variables of the table
+     * @return true if the supports cover the domains of the variables
+     */
+    public boolean covers(CPIntVar[] x) {
+        if (x.length != offset.length)
+            return false;
+        for (int i = 0; i < x.length; i++)
+            if (x[i].min() < offset[i] || x[i].max() - offset[i] >= size[i])
+                return false;
+        return true;
+    }
+
+    /**
+     * @return the number of variables of the table
+     */
+    public int arity() {
+        return offset.length;
+    }
+
+    /**
+     * @return the number of tuples of the table
+     */
+    public int numberOfTuples() {
+        return nTuples;
+    }
+
+    /**
+     * @return the number of words of each support
+     */
+    public int numberOfWords() {
+        return nWords;
+    }
+
+    /**
+     * @param i index of a variable
+     * @return the smallest value of the variable having a support, at index 0
+     */
+    public int offset(int i) {
+        return offset[i];
+    }
+
+    /**
+     * @param i index of a variable
+     * @param v value of the variable, minus its offset
+     * @return the index of the first word of the support of {@code x[i] = v + offset(i)}
+     */
+    public int index(int i, int v) {
+        return start[i] + v * nWords;
+    }
+
+    /**
+     * @return the words of the supports, tuples with a star being supports of all the values.
+     * They must not be modified.
+     */
+    long[] words() {
+        return words;
+    }
+
+    /**
+     * @return the words of the supports without the tuples having a star for the variable.
+     * They must not be modified.
+     */
+    long[] strictWords() {
+        return strictWords;
+    }
+}
@@ -76,6 +76,7 @@ public class GeneralizedCumulativeConstraint extends AbstractCPConstraint {
         this.maxCapacity = maxCapacity;
         this.minCapacity = minCapacity;
         hasMinCapa = minCapacity > Integer.MIN_VALUE;
+        setExpensive(true);
 
         StateManager sm = activities[0].interval().getSolver().getStateManager();
         activeSet = new StateSparseSet(sm, nMax(), 0);
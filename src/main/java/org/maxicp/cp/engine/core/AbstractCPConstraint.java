@@ -23,6 +23,10 @@ public abstract class AbstractCPConstraint implements CPConstraint {
      */
     private final CPSolver cp;
     private boolean scheduled = false;
+    private int queueIndex = -1;
+    private boolean idempotent = false;
+    private boolean expensive = false;
+    private int weight = 1;
     private final State<Boolean> active;
 
     private ArrayList<Delta> deltas;
@@ -64,6 +68,26 @@ public abstract class AbstractCPConstraint implements CPConstraint {
         return scheduled;
     }
 
+    @Override
+    public void setQueueIndex(int index) {
+        this.queueIndex = index;
+    }
+
+    @Override
+    public int getQueueIndex() {
+        return queueIndex;
+    }
+
+    @Override
+    public int weight() {
+        return weight;
+    }
+
+    @Override
+    public void incrementWeight() {
+        weight++;
+    }
+
     public void setActive(boolean active) {
         this.active.setValue(active);
     }
@@ -72,6 +96,47 @@ public abstract class AbstractCPConstraint implements CPConstraint {
         return active.value();
     }
 
+    /**
+     * Deactivates the constraint because it is entailed:
+     * every assignment of the current domains satisfies it.
+     * The constraint is not scheduled anymore until
+     * the state is restored.
+     */
+    protected void setEntailed() {
+        setActive(false);
+    }
+
+    /**
+     * Declares the propagator idempotent, typically in the constructor.
+     *
+     * @param idempotent true if one call to {@link #propagate()}
+     *                   always reaches a fix-point of the constraint
+     * @see CPConstraint#isIdempotent()
+     */
+    protected void setIdempotent(boolean idempotent) {
+        this.idempotent = idempotent;
+    }
+
+    @Override
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+
+    /**
+     * Declares the propagator expensive, typically in the constructor.
+     *
+     * @param expensive true if the propagator is expensive
+     * @see CPConstraint#isExpensive()
+     */
+    protected void setExpensive(boolean expensive) {
+        this.expensive = expensive;
+    }
+
+    @Override
+    public boolean isExpensive() {
+        return expensive;
+    }
+
     @Override
     public int priority() {
         return Constants.PIORITY_FAST;
@@ -87,6 +87,11 @@ public class CPBoolVarImpl implements CPBoolVar {
         binaryVar.propagateOnBoundChange(c);
     }
 
+    @Override
+    public void visitConstraints(Consumer<CPConstraint> visitor) {
+        binaryVar.visitConstraints(visitor);
+    }
+
     @Override
     public int min() {
         return binaryVar.min();
@@ -64,6 +64,61 @@ public interface CPConstraint extends ConcreteConstraint<ConcreteCPModel> {
      */
     boolean isActive();
 
+    /**
+     * Returns true if the propagator is idempotent:
+     * calling {@link #propagate()} again right after it does not filter anything.
+     * <p>The fix-point does not schedule an idempotent constraint again
+     * for the domain modifications it makes itself during its propagation.
+     * <p>By default a constraint is not idempotent.
+     * @return true if the constraint is idempotent
+     */
+    boolean isIdempotent();
+
+    /**
+     * Returns true if the propagator is expensive.
+     * <p>Only the staged propagation mode of {@link MaxiCP} uses it
+     * (see {@link StagedPropagation}): the expensive propagators are then called
+     * once the other ones are at their fix-point, within a budget.
+     * Otherwise they are propagated at their {@link #priority()} as any constraint.
+     * <p>By default a constraint is not expensive.
+     * @return true if the constraint is expensive
+     */
+    boolean isExpensive();
+
+    /**
+     * Sets the index of the constraint in the propagation queue of the solver.
+     * This method is called by the solver and is not
+     * intended to be called by the user.
+     *
+     * @param index the index given by the solver
+     * @see PropagationQueue#register(CPConstraint)
+     */
+    void setQueueIndex(int index);
+
+    /**
+     * Returns the index of the constraint in the propagation queue of the solver.
+     * @return the last value given to {@link #setQueueIndex(int)}, -1 if none
+     */
+    int getQueueIndex();
+
+    /**
+     * Returns the weight of the constraint, one plus the number of times
+     * its posting or its propagation failed since its creation.
+     * The weight is not restored on backtrack, such that the search heuristics
+     * (e.g. {@link org.maxicp.search.Searches#domWdeg(CPIntVar...)}) learn from the whole search.
+     * @return the weight of the constraint
+     */
+    int weight();
+
+    /**
+     * Increments the weight of the constraint.
+     * This method is called by the solver when the posting or the propagation of the constraint fails
+     * and is not intended to be called by the user.
+     *
+     * @see #weight()
+     */
+    void incrementWeight();
+
     void registerDelta(Delta delta);
 
     void updateDeltas();
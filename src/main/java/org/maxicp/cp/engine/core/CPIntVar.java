@@ -89,6 +89,28 @@ public interface CPIntVar extends CPVar, ConcreteIntVar {
      */
     void propagateOnBoundChange(CPConstraint c);
 
+    /**
+     * Calls the visitor on each active constraint registered for the events of this variable,
+     * once per constraint even if it is registered for several events.
+     *
+     * @param visitor called on each constraint of the variable
+     */
+    void visitConstraints(Consumer<CPConstraint> visitor);
+
+    /**
+     * Returns the weighted degree of the variable:
+     * the sum of the {@link CPConstraint#weight()} of the active constraints
+     * registered for the events of this variable, each constraint being counted once.
+     *
+     * @return the weighted degree of the variable
+     * @see org.maxicp.search.Searches#domWdeg(CPIntVar...)
+     */
+    default int weightedDegree() {
+        int[] w = new int[1];
+        visitConstraints(c -> w[0] += c.weight());
+        return w[0];
+    }
+
 
     /**
      * Returns the minimum of the domain of the variable
@@ -58,6 +58,10 @@ public class CPIntVarConstant implements CPIntVar{
 
     }
 
+    @Override
+    public void visitConstraints(Consumer<CPConstraint> visitor) {
+    }
+
     @Override
     public int min() {
         return value;
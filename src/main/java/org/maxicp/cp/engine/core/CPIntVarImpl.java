@@ -5,17 +5,21 @@
 
 package org.maxicp.cp.engine.core;
 
+import org.maxicp.Constants;
 import org.maxicp.modeling.ModelProxy;
 import org.maxicp.state.datastructures.StateStack;
 import org.maxicp.util.exception.InconsistencyException;
 
 import java.security.InvalidParameterException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Set;
 import java.util.function.Consumer;
 
 /**
  * Implementation of a variable
- * with a {@link SparseSetDomain}.
+ * with a {@link SparseSetDomain}, or an {@link IntervalListDomain}
+ * when the initial domain is wider than {@link Constants#INTERVAL_LIST_DOMAIN_THRESHOLD}.
  */
 public class CPIntVarImpl implements CPIntVar {
 
@@ -74,18 +78,9 @@ public class CPIntVarImpl implements CPIntVar {
      * @param max the maximum value of the domain with {@code max >= min}
      */
     public CPIntVarImpl(CPSolver cp, int min, int max) {
-        if (min == Integer.MIN_VALUE || max == Integer.MAX_VALUE) throw new InvalidParameterException("consider reducing the domains, Integer.MIN _VALUE and Integer.MAX_VALUE not allowed");
-        if (min > max) throw new InvalidParameterException("at least one setValue in the domain");
-        this.cp = cp;
-        domain = new SparseSetDomain(cp.getStateManager(), min, max);
-        onDomain = new StateStack<>(cp.getStateManager());
-        onBind = new StateStack<>(cp.getStateManager());
-        onBounds = new StateStack<>(cp.getStateManager());
-        this.id = cp.getModelProxy().getId();
+        this(cp, makeDomain(cp, min, max));
     }
 
-
-
     /**
      * Creates a variable with a given set of values as initial domain.
      *
@@ -93,8 +88,8 @@ public class CPIntVarImpl implements CPIntVar {
      * @param values the initial values in the domain, it must be nonempty
      */
     public CPIntVarImpl(CPSolver cp, Set<Integer> values) {
-        this(cp, values.stream().min(Integer::compare).get(), values.stream().max(Integer::compare).get());
-        if (values.isEmpty()) throw new InvalidParameterException("at least one setValue in the domain");
+        this(cp, makeDomain(cp, values));
+        if (size() == values.size()) return;
         for (int i = min(); i < max(); i++) {
             if (!values.contains(i)) {
                 try {
@@ -105,6 +100,39 @@ public class CPIntVarImpl implements CPIntVar {
         }
     }
 
+    /**
+     * Creates a variable with the given domain.
+     *
+     * @param cp the solver in which the variable is created
+     * @param domain the initial domain, it must be nonempty and
+     *               must use the state manager of the solver
+     */
+    public CPIntVarImpl(CPSolver cp, IntDomain domain) {
+        this.cp = cp;
+        this.domain = domain;
+        onDomain = new StateStack<>(cp.getStateManager());
+        onBind = new StateStack<>(cp.getStateManager());
+        onBounds = new StateStack<>(cp.getStateManager());
+        this.id = cp.getModelProxy().getId();
+    }
+
+    private static IntDomain makeDomain(CPSolver cp, int min, int max) {
+        if (min == Integer.MIN_VALUE || max == Integer.MAX_VALUE) throw new InvalidParameterException("consider reducing the domains, Integer.MIN _VALUE and Integer.MAX_VALUE not allowed");
+        if (min > max) throw new InvalidParameterException("at least one setValue in the domain");
+        if ((long) max - min + 1 > Constants.INTERVAL_LIST_DOMAIN_THRESHOLD)
+            return new IntervalListDomain(cp.getStateManager(), min, max);
+        return new SparseSetDomain(cp.getStateManager(), min, max);
+    }
+
+    private static IntDomain makeDomain(CPSolver cp, Set<Integer> values) {
+        if (values.isEmpty()) throw new InvalidParameterException("at least one setValue in the domain");
+        int min = values.stream().min(Integer::compare).get();
+        int max = values.stream().max(Integer::compare).get();
+        if ((long) max - min + 1 > Constants.INTERVAL_LIST_DOMAIN_THRESHOLD)
+            return new IntervalListDomain(cp.getStateManager(), values);
+        return makeDomain(cp, min, max);
+    }
+
     @Override
     public CPSolver getSolver() {
         return cp;
@@ -162,6 +190,22 @@ public class CPIntVarImpl implements CPIntVar {
     }
 
 
+    @Override
+    public void visitConstraints(Consumer<CPConstraint> visitor) {
+        Set<CPConstraint> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        visitConstraints(onDomain, visited, visitor);
+        visitConstraints(onBind, visited, visitor);
+        visitConstraints(onBounds, visited, visitor);
+    }
+
+    private static void visitConstraints(StateStack<CPConstraint> constraints, Set<CPConstraint> visited, Consumer<CPConstraint> visitor) {
+        for (int i = 0; i < constraints.size(); i++) {
+            CPConstraint c = constraints.get(i);
+            if (c.isActive() && visited.add(c))
+                visitor.accept(c);
+        }
+    }
+
     protected void scheduleAll(StateStack<CPConstraint> constraints) {
         for (int i = 0; i < constraints.size(); i++)
             cp.schedule(constraints.get(i));
@@ -72,6 +72,11 @@ public class CPIntVarViewMul implements CPIntVar {
         x.propagateOnBoundChange(c);
     }
 
+    @Override
+    public void visitConstraints(Consumer<CPConstraint> visitor) {
+        x.visitConstraints(visitor);
+    }
+
     @Override
     public int min() {
         if (a >= 0)
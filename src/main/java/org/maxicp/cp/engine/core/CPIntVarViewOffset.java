@@ -71,6 +71,11 @@ public class CPIntVarViewOffset implements CPIntVar {
         x.propagateOnBoundChange(c);
     }
 
+    @Override
+    public void visitConstraints(Consumer<CPConstraint> visitor) {
+        x.visitConstraints(visitor);
+    }
+
     @Override
     public int min() {
         return x.min() + o;
@@ -63,6 +63,11 @@ public class CPIntVarViewOpposite implements CPIntVar {
         x.propagateOnBoundChange(c);
     }
 
+    @Override
+    public void visitConstraints(Consumer<CPConstraint> visitor) {
+        x.visitConstraints(visitor);
+    }
+
     @Override
     public int min() {
         return -x.max();
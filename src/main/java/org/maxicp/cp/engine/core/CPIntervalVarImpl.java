@@ -12,6 +12,9 @@ import org.maxicp.state.StateInt;
 import org.maxicp.state.datastructures.StateStack;
 import org.maxicp.util.exception.InconsistencyException;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 import java.util.function.Consumer;
 
 import static org.maxicp.Constants.HORIZON;
@@ -112,6 +115,14 @@ public class CPIntervalVarImpl implements CPIntervalVar {
                 onChange.push(c);
             }
 
+            @Override
+            public void visitConstraints(Consumer<CPConstraint> visitor) {
+                Set<CPConstraint> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+                for (int i = 0; i < onChange.size(); i++)
+                    if (onChange.get(i).isActive() && visited.add(onChange.get(i)))
+                        visitor.accept(onChange.get(i));
+            }
+
             @Override
             public int min() {
                 if (isPresent.value()) {
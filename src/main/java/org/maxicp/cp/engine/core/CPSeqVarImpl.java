@@ -256,6 +256,10 @@ public class CPSeqVarImpl implements CPSeqVar {
                     propagateOnFix(c);
                 }
 
+                @Override
+                public void visitConstraints(Consumer<CPConstraint> visitor) {
+                }
+
                 @Override
                 public int min() {
                     if (isNode(REQUIRED)) {
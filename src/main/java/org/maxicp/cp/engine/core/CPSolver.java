@@ -12,6 +12,8 @@ import org.maxicp.search.Objective;
 import org.maxicp.state.StateManaged;
 import org.maxicp.util.exception.InconsistencyException;
 
+import java.util.function.Consumer;
+
 public interface CPSolver extends StateManaged {
 
     /**
@@ -53,6 +55,17 @@ public interface CPSolver extends StateManaged {
      */
     void onFixPoint(Runnable listener);
 
+    /**
+     * Adds a listener called whenever the posting or the propagation of a constraint fails,
+     * after the weight of the constraint is incremented.
+     * The listener may be removed from the listener itself.
+     *
+     * @param listener the listener that is called with the constraint whose propagation failed
+     * @return removes the listener when run, such that it is no longer called nor referenced by the solver
+     * @see CPConstraint#weight()
+     */
+    Runnable onFailure(Consumer<CPConstraint> listener);
+
     /**
      * Creates a minimization objective on the given variable.
      *
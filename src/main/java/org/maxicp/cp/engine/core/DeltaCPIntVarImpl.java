@@ -22,7 +22,8 @@ public class DeltaCPIntVarImpl implements DeltaCPIntVar {
     public DeltaCPIntVarImpl(CPIntVar x) {
         this.deltaState = x.getSolver().getStateManager().makeStateRef(null);
         this.x = x;
-        iteratorValues = new int[x.size()];
+        // allocated lazily as the domain can be very large (see IntervalListDomain)
+        iteratorValues = new int[0];
     }
 
     @Override
@@ -67,6 +68,8 @@ public class DeltaCPIntVarImpl implements DeltaCPIntVar {
 
     @Override
     public Iterator<Integer> iterator() {
+        if (iteratorValues.length < size())
+            iteratorValues = new int[Math.max(size(), 2 * iteratorValues.length)];
         iteratorSize = fillArray(iteratorValues);
         return new Iterator<Integer>() {
             final int ts = iteratorTimeStamp;
@@ -33,6 +33,26 @@ public class DoNothingConstraint implements CPConstraint {
         return false;
     }
 
+    @Override
+    public void setQueueIndex(int index) {
+
+    }
+
+    @Override
+    public int getQueueIndex() {
+        return -1;
+    }
+
+    @Override
+    public int weight() {
+        return 1;
+    }
+
+    @Override
+    public void incrementWeight() {
+
+    }
+
     @Override
     public void setActive(boolean active) {
 
@@ -43,6 +63,16 @@ public class DoNothingConstraint implements CPConstraint {
         return false;
     }
 
+    @Override
+    public boolean isIdempotent() {
+        return true;
+    }
+
+    @Override
+    public boolean isExpensive() {
+        return false;
+    }
+
     @Override
     public void registerDelta(Delta delta) {
 
@@ -12,17 +12,29 @@ import org.maxicp.modeling.ModelProxy;
 import org.maxicp.modeling.concrete.BasicModelProxy;
 import org.maxicp.modeling.symbolic.SymbolicModel;
 import org.maxicp.search.IntObjective;
+import org.maxicp.state.State;
 import org.maxicp.state.StateManager;
-import org.maxicp.util.PQueue;
 import org.maxicp.util.exception.InconsistencyException;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 
 public class MaxiCP implements CPSolver {
 
-    private final PQueue<CPConstraint> propagationQueue = new PQueue<>(Constants.PIORITY_SLOW+1);
+    private final PropagationQueue propagationQueue;
     private final List<Runnable> fixPointListeners = new LinkedList<>();
+    @SuppressWarnings("unchecked")
+    private Consumer<CPConstraint>[] failureListeners = new Consumer[0]; // replaced when a listener is added or removed
+
+    private PropagationProfiler profiler = null;
+    private CPConstraint propagating = null; // constraint currently propagated by the fix-point
+
+    private record Deferred(CPConstraint c, Deferred next) {}
+
+    private StagedPropagation staged = null;
+    private State<Deferred> deferred = null; // expensive constraints not propagated yet, null until staged propagation is enabled
+    private final ArrayList<CPConstraint> deferredScheduled = new ArrayList<>(); // deferred constraints with the scheduled status set
 
     private final StateManager sm;
     private final ModelProxy modelProxy;
@@ -30,6 +42,7 @@ public class MaxiCP implements CPSolver {
 
     public MaxiCP(StateManager sm) {
         this.sm = sm;
+        this.propagationQueue = new PropagationQueue(sm, Constants.PIORITY_SLOW + 1);
         //use a very simple ModelProxy to allow usage of Expression-based searches
         this.modelProxy = new BasicModelProxy();
         this.modelProxy.setModel(new ConcreteCPModel(this.modelProxy, this, SymbolicModel.emptyModel(this.modelProxy)));
@@ -37,6 +50,7 @@ public class MaxiCP implements CPSolver {
 
     public MaxiCP(StateManager sm, ModelProxy modelProxy) {
         this.sm = sm;
+        this.propagationQueue = new PropagationQueue(sm, Constants.PIORITY_SLOW + 1);
         this.modelProxy = modelProxy;
     }
 
@@ -46,12 +60,23 @@ public class MaxiCP implements CPSolver {
     }
 
     public void schedule(CPConstraint c) {
+        if (profiler != null) profiler.event();
+        if (staged != null) staged.event();
+        if (c == propagating && c.isIdempotent()) return;
         if (c.isActive() && !c.isScheduled()) {
             c.setScheduled(true);
-            propagationQueue.add(c, c.priority());
+            propagationQueue.add(c, queueLevel(c));
         }
     }
 
+    /**
+     * Returns the level of a constraint in the propagation queue,
+     * the expensive constraints being moved to the last one in staged mode
+     */
+    private int queueLevel(CPConstraint c) {
+        return staged != null && StagedPropagation.isExpensive(c) ? Constants.PIORITY_SLOW : c.priority();
+    }
+
     @Override
     public void onFixPoint(Runnable listener) {
         fixPointListeners.add(listener);
@@ -61,29 +86,250 @@ public class MaxiCP implements CPSolver {
         fixPointListeners.forEach(Runnable::run);
     }
 
+    @Override
+    public Runnable onFailure(Consumer<CPConstraint> listener) {
+        failureListeners = Arrays.copyOf(failureListeners, failureListeners.length + 1);
+        failureListeners[failureListeners.length - 1] = listener;
+        return () -> {
+            for (int i = 0; i < failureListeners.length; i++) {
+                if (failureListeners[i] == listener) {
+                    Consumer<CPConstraint>[] listeners = Arrays.copyOf(failureListeners, failureListeners.length - 1);
+                    System.arraycopy(failureListeners, i + 1, listeners, i, listeners.length - i);
+                    failureListeners = listeners;
+                    return;
+                }
+            }
+        };
+    }
+
+    /**
+     * Attributes a failure to the constraint whose propagation raised it
+     */
+    private void failed(CPConstraint c) {
+        c.incrementWeight();
+        // the array is replaced, not modified, when a listener removes itself
+        for (Consumer<CPConstraint> listener : failureListeners)
+            listener.accept(c);
+    }
+
     @Override
     public void fixPoint() {
         try {
+            if (profiler != null) profiler.fixPointStarted();
             notifyFixPoint();
-            while (!propagationQueue.isEmpty()) {
-                propagate(propagationQueue.poll());
+            if (deferred != null) {
+                stagedFixPoint(false);
+            } else {
+                while (!propagationQueue.isEmpty()) {
+                    propagate(propagationQueue.poll());
+                }
             }
         } catch (InconsistencyException e) {
             // empty the queue and unset the scheduled status
             while (!propagationQueue.isEmpty())
                 propagationQueue.poll().setScheduled(false);
+            if (deferred != null) clearDeferred();
+            throw e;
+        }
+    }
+
+    private void stagedFixPoint(boolean force) {
+        StagedPropagation s = staged;
+        if (s != null) s.fixPointStarted();
+        // the deferred constraints are still scheduled
+        for (Deferred d = deferred.value(); d != null; d = d.next())
+            propagationQueue.add(d.c(), queueLevel(d.c()));
+        deferred.setValue(null);
+        deferredScheduled.clear();
+        while (!propagationQueue.isEmpty()) {
+            CPConstraint c = propagationQueue.poll();
+            if (s != null && StagedPropagation.isExpensive(c) && c.isActive()) {
+                // the cheaper constraints are at their fix-point
+                if (!force && !s.shouldPropagate(c)) {
+                    deferred.setValue(new Deferred(c, deferred.value()));
+                    deferredScheduled.add(c);
+                    continue;
+                }
+                long events = s.numberOfEvents();
+                long start = System.nanoTime();
+                boolean failed = true;
+                try {
+                    propagate(c);
+                    failed = false;
+                } finally {
+                    s.record(c, System.nanoTime() - start, failed || s.numberOfEvents() > events);
+                }
+            } else {
+                propagate(c);
+            }
+        }
+    }
+
+    private void clearDeferred() {
+        for (CPConstraint c : deferredScheduled)
+            c.setScheduled(false);
+        deferredScheduled.clear();
+        deferred.setValue(null);
+    }
+
+    private void restoreDeferred() {
+        // the constraints deferred in the restored state are pending again
+        for (CPConstraint c : deferredScheduled)
+            c.setScheduled(false);
+        deferredScheduled.clear();
+        for (Deferred d = deferred.value(); d != null; d = d.next()) {
+            d.c().setScheduled(true);
+            deferredScheduled.add(d.c());
+        }
+    }
+
+    /**
+     * Propagates the expensive constraints deferred by the staged propagation
+     * ignoring the budget and the adaptive policy, such that the domains are
+     * at the fix-point of all the constraints.
+     *
+     * @throws InconsistencyException if the fix-point detects a failure
+     * @see #enableStagedPropagation(StagedPropagation)
+     */
+    public void propagateDeferred() {
+        if (!hasDeferred()) return;
+        try {
+            stagedFixPoint(true);
+        } catch (InconsistencyException e) {
+            while (!propagationQueue.isEmpty())
+                propagationQueue.poll().setScheduled(false);
+            clearDeferred();
             throw e;
         }
     }
 
+    /**
+     * Returns true if some expensive constraints were deferred by the staged propagation
+     *
+     * @return true if the domains may not be at the fix-point of all the constraints
+     */
+    public boolean hasDeferred() {
+        return deferred != null && deferred.value() != null;
+    }
+
+    /**
+     * Starts the staged propagation mode: the expensive constraints
+     * (see {@link CPConstraint#isExpensive()}) are called only when the other ones
+     * are at their fix-point, within the budget of the policy and
+     * unless the adaptive policy decides to skip them.
+     * <p>
+     * The fix-point may thus terminate with some expensive constraints not propagated.
+     * They are propagated by the next fix-point, or again pending when a state
+     * in which they were not propagated is restored.
+     * The searches propagate them on each leaf before accepting it as a solution
+     * (see {@link StateManager#notifyLeaf()}).
+     *
+     * @param policy the budget and the adaptive policy
+     * @return the policy
+     */
+    public StagedPropagation enableStagedPropagation(StagedPropagation policy) {
+        if (deferred == null) {
+            deferred = sm.makeStateRef(null);
+            sm.onRestore(this::restoreDeferred);
+            sm.onLeaf(this::propagateDeferred);
+        }
+        staged = policy;
+        return policy;
+    }
+
+    /**
+     * Starts the staged propagation mode with the default policy
+     *
+     * @return the policy
+     * @see #enableStagedPropagation(StagedPropagation)
+     */
+    public StagedPropagation enableStagedPropagation() {
+        return enableStagedPropagation(new StagedPropagation());
+    }
+
+    /**
+     * Stops the staged propagation mode.
+     * The deferred constraints are propagated at the next fix-point.
+     */
+    public void disableStagedPropagation() {
+        staged = null;
+    }
+
+    /**
+     * Returns the policy of the staged propagation
+     *
+     * @return the policy, null if the staged propagation is not enabled
+     */
+    public StagedPropagation getStagedPropagation() {
+        return staged;
+    }
+
     private void propagate(CPConstraint c) {
         c.setScheduled(false);
         if (c.isActive()) {
+            CPConstraint previous = propagating;
+            propagating = c;
+            try {
+                if (profiler != null) {
+                    profiledPropagate(c);
+                } else {
+                    c.propagate();
+                    c.updateDeltas();
+                }
+            } catch (InconsistencyException e) {
+                failed(c);
+                throw e;
+            } finally {
+                propagating = previous;
+            }
+        }
+    }
+
+    private void profiledPropagate(CPConstraint c) {
+        PropagationProfiler p = profiler;
+        long events = p.numberOfEvents();
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
             c.propagate();
             c.updateDeltas();
+            failed = false;
+        } finally {
+            p.record(c, System.nanoTime() - start, p.numberOfEvents() - events, failed);
         }
     }
 
+    /**
+     * Starts recording statistics on the propagators called by the fix-point.
+     * Profiling has no cost when it is not enabled.
+     * The statistics are read from the profiler, e.g. with {@link PropagationProfiler#report()}
+     * once the search is over, or emitted at the end of each search with
+     * {@link org.maxicp.search.DFSearch#setProfileReport}.
+     *
+     * @return the profiler collecting the statistics
+     */
+    public PropagationProfiler enableProfiling() {
+        if (profiler == null) profiler = new PropagationProfiler();
+        return profiler;
+    }
+
+    /**
+     * Stops recording statistics on the propagators.
+     */
+    public void disableProfiling() {
+        profiler = null;
+    }
+
+    /**
+     * Returns the profiler of the fix-point
+     *
+     * @return the profiler, null if profiling is not enabled
+     * @see #enableProfiling()
+     */
+    public PropagationProfiler getProfiler() {
+        return profiler;
+    }
+
     @Override
     public IntObjective minimize(CPIntVar x) {
         return new Minimize(x);
@@ -101,7 +347,13 @@ public class MaxiCP implements CPSolver {
 
     @Override
     public void post(CPConstraint c, boolean enforceFixPoint) {
-        c.post();
+        propagationQueue.register(c);
+        try {
+            c.post();
+        } catch (InconsistencyException e) {
+            failed(c);
+            throw e;
+        }
         if (enforceFixPoint) fixPoint();
     }
 
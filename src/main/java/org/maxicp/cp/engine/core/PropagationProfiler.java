@@ -0,0 +1,224 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.cp.engine.core;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects statistics on the propagators executed by the fix-point of a {@link MaxiCP} solver.
+ * <p>
+ * Profiling is opt-in ({@link MaxiCP#enableProfiling()}): when it is disabled
+ * the fix-point does not call the profiler at all.
+ * For each constraint class and each constraint instance it records
+ * the number of calls, the time spent, the number of variable events
+ * (a domain modification notified to a subscribed constraint) raised by the calls,
+ * the number of calls that raised at least one event and the number of failures.
+ * It also counts the fix-point computations and the iterations of the fix-point loop.
+ */
+public class PropagationProfiler {
+
+    /**
+     * Statistics of a constraint class or of a constraint instance
+     */
+    public static class Stats {
+        private final String name;
+        private long calls;
+        private long nanos;
+        private long events;
+        private long pruningCalls;
+        private long failures;
+
+        private Stats(String name) {
+            this.name = name;
+        }
+
+        private void record(long nanos, long events, boolean failed) {
+            this.calls++;
+            this.nanos += nanos;
+            this.events += events;
+            if (events > 0) this.pruningCalls++;
+            if (failed) this.failures++;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public long calls() {
+            return calls;
+        }
+
+        public long nanos() {
+            return nanos;
+        }
+
+        public long events() {
+            return events;
+        }
+
+        public long pruningCalls() {
+            return pruningCalls;
+        }
+
+        public long failures() {
+            return failures;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-40s %12d %12.3f %12d %12d %10d", name, calls, nanos / 1e6, events, pruningCalls, failures);
+        }
+    }
+
+    private record InstanceStats(Stats instance, Stats clazz) {}
+
+    private final int maxInstances;
+    private final Map<Class<?>, Stats> classStats = new HashMap<>();
+    private final Map<CPConstraint, InstanceStats> instanceStats = new IdentityHashMap<>();
+
+    private long nFixPoints;
+    private long nIterations;
+    private long nEvents;
+
+    /**
+     * Creates a profiler tracking at most 10000 constraint instances
+     */
+    public PropagationProfiler() {
+        this(10000);
+    }
+
+    /**
+     * Creates a profiler
+     *
+     * @param maxInstances maximum number of constraint instances tracked individually,
+     *                     the other ones (typically the ones posted by the branching)
+     *                     only contribute to the statistics of their class
+     */
+    public PropagationProfiler(int maxInstances) {
+        this.maxInstances = maxInstances;
+    }
+
+    void fixPointStarted() {
+        nFixPoints++;
+    }
+
+    void event() {
+        nEvents++;
+    }
+
+    long numberOfEvents() {
+        return nEvents;
+    }
+
+    void record(CPConstraint c, long nanos, long events, boolean failed) {
+        nIterations++;
+        InstanceStats s = instanceStats.get(c);
+        if (s == null) {
+            Stats clazz = classStats.computeIfAbsent(c.getClass(), k -> new Stats(k.getSimpleName().isEmpty() ? k.getName() : k.getSimpleName()));
+            if (instanceStats.size() < maxInstances) {
+                s = new InstanceStats(new Stats(clazz.name() + "@" + Integer.toHexString(System.identityHashCode(c))), clazz);
+                instanceStats.put(c, s);
+            } else {
+                clazz.record(nanos, events, failed);
+                return;
+            }
+        }
+        s.instance().record(nanos, events, failed);
+        s.clazz().record(nanos, events, failed);
+    }
+
+    /**
+     * @return the number of fix-point computations
+     */
+    public long numberOfFixPoints() {
+        return nFixPoints;
+    }
+
+    /**
+     * @return the number of propagator calls over all the fix-point computations
+     */
+    public long numberOfIterations() {
+        return nIterations;
+    }
+
+    /**
+     * Returns the statistics aggregated by constraint class,
+     * sorted by decreasing time spent.
+     *
+     * @return the statistics of each constraint class
+     */
+    public List<Stats> classStatistics() {
+        List<Stats> stats = new ArrayList<>(classStats.values());
+        stats.sort(Comparator.comparingLong(Stats::nanos).reversed());
+        return stats;
+    }
+
+    /**
+     * Returns the statistics of the tracked constraint instances,
+     * sorted by decreasing time spent.
+     *
+     * @return the statistics of each tracked constraint instance
+     */
+    public List<Stats> instanceStatistics() {
+        List<Stats> stats = new ArrayList<>();
+        for (InstanceStats s : instanceStats.values())
+            stats.add(s.instance());
+        stats.sort(Comparator.comparingLong(Stats::nanos).reversed());
+        return stats;
+    }
+
+    /**
+     * Clears all the statistics.
+     */
+    public void reset() {
+        classStats.clear();
+        instanceStats.clear();
+        nFixPoints = 0;
+        nIterations = 0;
+        nEvents = 0;
+    }
+
+    /**
+     * Returns a textual report with the statistics per class
+     * and the most expensive constraint instances.
+     *
+     * @param nInstances number of constraint instances to report
+     * @return the report
+     */
+    public String report(int nInstances) {
+        String header = String.format("%-40s %12s %12s %12s %12s %10s", "", "calls", "time(ms)", "events", "pruning", "failures");
+        StringBuilder b = new StringBuilder();
+        b.append("fix-points: ").append(nFixPoints).append(", propagator calls: ").append(nIterations).append('\n');
+        b.append(header.replaceFirst(" {5}", "class")).append('\n');
+        for (Stats s : classStatistics())
+            b.append(s).append('\n');
+        b.append(header.replaceFirst(" {8}", "instance")).append('\n');
+        List<Stats> instances = instanceStatistics();
+        for (int i = 0; i < Math.min(nInstances, instances.size()); i++)
+            b.append(instances.get(i)).append('\n');
+        return b.toString();
+    }
+
+    /**
+     * Returns a textual report with the statistics per class
+     * and the 10 most expensive constraint instances.
+     *
+     * @return the report
+     */
+    public String report() {
+        return report(10);
+    }
+
+    @Override
+    public String toString() {
+        return report();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.cp.engine.core;
+
+import org.maxicp.state.StateInt;
+import org.maxicp.state.StateManager;
+
+/**
+ * Priority queue of constraints used by the fix-point of {@link MaxiCP}.
+ * <p>
+ * Constraints are identified by a dense integer index assigned by {@link #register(CPConstraint)}.
+ * Each priority level has its own circular {@code int[]} queue of indices and
+ * a bitmask of the non-empty levels makes {@link #isEmpty()} and {@link #poll()} O(1)
+ * whatever the number of priorities.
+ * <p>
+ * The number of registered constraints is reversible such that the indices
+ * of the constraints posted during the search are reused after backtracking.
+ * A constraint whose index was reused by another one is simply registered again.
+ */
+public class PropagationQueue {
+
+    private CPConstraint[] constraints = new CPConstraint[64];
+    private final StateInt nConstraints;
+
+    private final int[][] queues;
+    private final int[] head;
+    private final int[] size;
+    private int nonEmpty = 0; // bit p is set iff queues[p] is not empty
+
+    /**
+     * Creates an empty propagation queue
+     *
+     * @param sm          the state manager used to reuse the indices of the constraints on backtrack
+     * @param nPriorities the number of priority levels, 0 being the most urgent one, at most 32
+     */
+    public PropagationQueue(StateManager sm, int nPriorities) {
+        if (nPriorities > Integer.SIZE) throw new IllegalArgumentException("at most " + Integer.SIZE + " priorities");
+        nConstraints = sm.makeStateInt(0);
+        queues = new int[nPriorities][16];
+        head = new int[nPriorities];
+        size = new int[nPriorities];
+    }
+
+    /**
+     * Assigns an index to the constraint if it does not have a valid one yet.
+     *
+     * @param c the constraint to register
+     * @return the index of the constraint
+     */
+    public int register(CPConstraint c) {
+        int id = c.getQueueIndex();
+        if (id >= 0 && id < nConstraints.value() && constraints[id] == c)
+            return id;
+        id = nConstraints.value();
+        if (id == constraints.length) {
+            CPConstraint[] newConstraints = new CPConstraint[2 * id];
+            System.arraycopy(constraints, 0, newConstraints, 0, id);
+            constraints = newConstraints;
+        }
+        constraints[id] = c;
+        c.setQueueIndex(id);
+        nConstraints.setValue(id + 1);
+        return id;
+    }
+
+    /**
+     * Enqueues the constraint at the level of its {@link CPConstraint#priority()}.
+     * The caller is responsible for not adding twice the same constraint.
+     *
+     * @param c the constraint to enqueue
+     */
+    public void add(CPConstraint c) {
+        add(c, c.priority());
+    }
+
+    /**
+     * Enqueues the constraint at a given level.
+     * The caller is responsible for not adding twice the same constraint.
+     *
+     * @param c the constraint to enqueue
+     * @param p the priority level, 0 being the most urgent one
+     */
+    public void add(CPConstraint c, int p) {
+        int id = register(c);
+        int[] q = queues[p];
+        int s = size[p];
+        if (s == q.length) {
+            q = grow(p);
+        }
+        q[(head[p] + s) & (q.length - 1)] = id;
+        size[p] = s + 1;
+        nonEmpty |= 1 << p;
+    }
+
+    private int[] grow(int p) {
+        int[] q = queues[p];
+        int[] newQ = new int[2 * q.length];
+        int h = head[p];
+        System.arraycopy(q, h, newQ, 0, q.length - h);
+        System.arraycopy(q, 0, newQ, q.length - h, h);
+        head[p] = 0;
+        queues[p] = newQ;
+        return newQ;
+    }
+
+    /**
+     * Removes and returns the first constraint of the most urgent non-empty priority level.
+     *
+     * @return the next constraint to propagate, null if the queue is empty
+     */
+    public CPConstraint poll() {
+        if (nonEmpty == 0) return null;
+        int p = Integer.numberOfTrailingZeros(nonEmpty);
+        int[] q = queues[p];
+        int h = head[p];
+        int id = q[h];
+        head[p] = (h + 1) & (q.length - 1);
+        if (--size[p] == 0) {
+            nonEmpty &= ~(1 << p);
+        }
+        return constraints[id];
+    }
+
+    /**
+     * @return true if no constraint is enqueued
+     */
+    public boolean isEmpty() {
+        return nonEmpty == 0;
+    }
+
+    /**
+     * @return the number of enqueued constraints
+     */
+    public int size() {
+        int s = 0;
+        for (int i = 0; i < size.length; i++)
+            s += size[i];
+        return s;
+    }
+}
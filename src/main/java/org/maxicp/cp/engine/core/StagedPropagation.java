@@ -0,0 +1,157 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.cp.engine.core;
+
+import org.maxicp.Constants;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Policy of the staged propagation mode of {@link MaxiCP}.
+ * <p>
+ * The expensive constraints (see {@link CPConstraint#isExpensive()}) are the expensive stage:
+ * in staged mode, they are moved to the last priority level {@link Constants#PIORITY_SLOW}
+ * such that the fix-point only propagates them once all the cheaper constraints are at their fix-point.
+ * Their priority is left unchanged when the staged mode is not enabled.
+ * In staged mode, the expensive propagators called during one fix-point
+ * are limited by a work budget (number of calls) and a time budget.
+ * Moreover, a propagator that pruned nothing in its last calls is skipped
+ * during an increasing number of fix-points (the adaptive policy).
+ * <p>
+ * A propagator exceeding the budget or skipped is not lost: it remains scheduled
+ * and is propagated at the next fix-point, unless the state is restored
+ * in between since the propagation it missed is undone anyway.
+ * The searches call {@link MaxiCP#propagateDeferred()} before accepting a solution,
+ * through {@link org.maxicp.state.StateManager#notifyLeaf()}.
+ *
+ * @see MaxiCP#enableStagedPropagation(StagedPropagation)
+ */
+public class StagedPropagation {
+
+    private static class Record {
+        int nonPruningStreak = 0;
+        int skipsLeft = 0;
+    }
+
+    private final int maxCalls;
+    private final long maxNanos;
+    private final int skipThreshold;
+    private final int maxSkips;
+
+    private final Map<CPConstraint, Record> records = new IdentityHashMap<>();
+
+    private int nCalls; // expensive calls in the current fix-point
+    private long nanos; // time spent in expensive calls in the current fix-point
+    private long nEvents;
+
+    private long nSkipped;
+    private long nOverBudget;
+
+    /**
+     * Creates a staged propagation policy without budget
+     * that skips a propagator after 8 calls that pruned nothing,
+     * during at most 64 fix-points.
+     */
+    public StagedPropagation() {
+        this(Integer.MAX_VALUE, Long.MAX_VALUE, 8, 64);
+    }
+
+    /**
+     * Creates a staged propagation policy
+     *
+     * @param maxCalls      maximum number of calls to expensive propagators per fix-point
+     * @param maxNanos      maximum time in nanoseconds spent in expensive propagators per fix-point,
+     *                      checked before each call
+     * @param skipThreshold number of consecutive calls that pruned nothing after which
+     *                      an expensive propagator starts to be skipped,
+     *                      {@code Integer.MAX_VALUE} to never skip
+     * @param maxSkips      maximum number of consecutive fix-points during which
+     *                      a propagator is skipped; the number of skips grows with
+     *                      the number of calls that pruned nothing
+     */
+    public StagedPropagation(int maxCalls, long maxNanos, int skipThreshold, int maxSkips) {
+        if (maxCalls < 1) throw new IllegalArgumentException("maxCalls must be positive");
+        this.maxCalls = maxCalls;
+        this.maxNanos = maxNanos;
+        this.skipThreshold = skipThreshold;
+        this.maxSkips = maxSkips;
+    }
+
+    /**
+     * Returns true if the constraint belongs to the expensive stage
+     *
+     * @param c a constraint
+     * @return true if the constraint is declared expensive
+     */
+    public static boolean isExpensive(CPConstraint c) {
+        return c.isExpensive();
+    }
+
+    void fixPointStarted() {
+        nCalls = 0;
+        nanos = 0;
+    }
+
+    void event() {
+        nEvents++;
+    }
+
+    long numberOfEvents() {
+        return nEvents;
+    }
+
+    /**
+     * Decides if an expensive propagator is called now or deferred
+     */
+    boolean shouldPropagate(CPConstraint c) {
+        if (nCalls >= maxCalls || nanos >= maxNanos) {
+            nOverBudget++;
+            return false;
+        }
+        Record r = records.get(c);
+        if (r != null && r.skipsLeft > 0) {
+            r.skipsLeft--;
+            nSkipped++;
+            return false;
+        }
+        return true;
+    }
+
+    void record(CPConstraint c, long nanos, boolean pruned) {
+        this.nCalls++;
+        this.nanos += nanos;
+        Record r = records.computeIfAbsent(c, k -> new Record());
+        if (pruned) {
+            r.nonPruningStreak = 0;
+        } else if (++r.nonPruningStreak >= skipThreshold) {
+            r.skipsLeft = Math.min(maxSkips, r.nonPruningStreak - skipThreshold + 1);
+        }
+    }
+
+    /**
+     * @return the number of expensive propagator calls deferred by the adaptive policy
+     */
+    public long numberOfSkipped() {
+        return nSkipped;
+    }
+
+    /**
+     * @return the number of expensive propagator calls deferred because the budget was exhausted
+     */
+    public long numberOfOverBudget() {
+        return nOverBudget;
+    }
+
+    /**
+     * Forgets the history of the propagators and the statistics.
+     */
+    public void reset() {
+        records.clear();
+        nSkipped = 0;
+        nOverBudget = 0;
+    }
+}
@@ -68,41 +68,12 @@ public class NQueensEPS {
         System.out.println("Time taken for simple resolution: " + (time/1000000000.));
 
         // Solve with Embarassingly Parallel Search (EPS)
-        System.out.println("--- EPS (DFS for decomposition)");
+        System.out.println("--- EPS (breadth-first decomposition)");
         long time2 = TimeIt.run(() -> {
-
-            ExecutorService executorService = Executors.newFixedThreadPool(8);
-            Function<Model, SearchStatistics> epsSolve = (m) -> {
-                return model.runAsConcrete(CPModelInstantiator.withTrailing, m, (cp) -> {
-                    DFSearch search = cp.dfSearch(branching);
-                    return search.solve();
-                });
-            };
-
-            // Collect sub-problems by collecting leaf nodes in a depth limited search
-            // and solve them in parallel
-            LinkedList<Future<SearchStatistics>> results = new LinkedList<>();
-            model.runCP((cp) -> {
-                DFSearch search = cp.dfSearch(new LimitedDepthBranching(branching, 10));
-                search.onSolution(() -> {
-                    // get the sub-problem in this node
-                    Model m = cp.symbolicCopy();
-                    // and solve it
-                    results.add(executorService.submit(() -> epsSolve.apply(m)));
-                });
-                System.out.println("Number of EPS subproblems generated: " + search.solve().numberOfSolutions());
-            });
-
-            int count = 0;
-            for (var fr : results) {
-                try {
-                    count += fr.get().numberOfSolutions();
-                } catch (InterruptedException | ExecutionException e) {
-                    e.printStackTrace();
-                }
-            }
-            System.out.println("Total number of solutions (in EPS): " + count);
-            executorService.shutdown();
+            EPSearch search = model.epSearch(() -> branching);
+            SearchStatistics stats = search.solve();
+            System.out.println("Number of EPS subproblems generated: " + search.numberOfSubproblems());
+            System.out.println("Total number of solutions (in EPS): " + stats.numberOfSolutions());
         });
         System.out.println("Time taken for EPS resolution: " + (time2/1000000000.));
 
@@ -10,6 +10,7 @@ import org.maxicp.cp.engine.core.CPSolver;
 import org.maxicp.cp.engine.core.MaxiCP;
 import org.maxicp.modeling.Model;
 import org.maxicp.modeling.ModelProxyInstantiator;
+import org.maxicp.modeling.presolve.Presolver;
 import org.maxicp.state.StateManager;
 import org.maxicp.state.copy.Copier;
 import org.maxicp.state.trail.Trailer;
@@ -17,15 +18,24 @@ import org.maxicp.state.trail.Trailer;
 import java.util.function.Supplier;
 
 public class CPModelInstantiator {
-    public record Instantiator(Supplier<StateManager> stateManagerSupplier) implements ModelProxyInstantiator.ModelInstantiator<ConcreteCPModel> {
+    /**
+     * @param stateManagerSupplier creates the state manager of the solver
+     * @param presolver            simplifies the model before its instantiation, null for none
+     */
+    public record Instantiator(Supplier<StateManager> stateManagerSupplier, Presolver presolver) implements ModelProxyInstantiator.ModelInstantiator<ConcreteCPModel> {
+        public Instantiator(Supplier<StateManager> stateManagerSupplier) {
+            this(stateManagerSupplier, null);
+        }
+
         @Override
         public ConcreteCPModel instantiate(Model m) {
             CPSolver s = new MaxiCP(stateManagerSupplier.get(), m.getModelProxy());
-            return new ConcreteCPModel(m.getModelProxy(), s, m.symbolicCopy());
+            return new ConcreteCPModel(m.getModelProxy(), s, CompiledCPModel.of(m.symbolicCopy(), presolver));
         }
     }
 
     static public final Instantiator withTrailing = new Instantiator(Trailer::new);
     static public final Instantiator withCopying = new Instantiator(Copier::new);
     static public final Instantiator base = withTrailing;
+    static public final Instantiator withPresolve = new Instantiator(Trailer::new, Presolver.standard());
 }
@@ -0,0 +1,229 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2024 UCLouvain
+ *
+ */
+
+package org.maxicp.cp.modeling;
+
+import org.maxicp.modeling.Constraint;
+import org.maxicp.modeling.ModelProxy;
+import org.maxicp.modeling.presolve.Domain;
+import org.maxicp.modeling.presolve.PresolvedModel;
+import org.maxicp.modeling.presolve.Presolver;
+import org.maxicp.modeling.symbolic.SymbolicIntVar;
+import org.maxicp.modeling.symbolic.SymbolicModel;
+import org.maxicp.modeling.utils.EqHelper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Immutable result of the preprocessing of a symbolic model, from which
+ * any number of {@link ConcreteCPModel} are instantiated, possibly concurrently.
+ * <p>
+ * It holds the constraints to instantiate, in order: the equalities simplified by {@link EqHelper}
+ * followed by the other constraints of the model.
+ * The constraints can first be simplified by a {@link Presolver}, the variables being then created
+ * with the domains it reduced, see {@link #domain(SymbolicIntVar)}.
+ * It also holds read-only data shared by all the instances, computed once by the first instance needing it,
+ * see {@link #shared(Object, Supplier)}.
+ * <p>
+ * The compiled models of the last symbolic models instantiated are cached by their {@link ModelProxy},
+ * see {@link #of(SymbolicModel)}, such that each worker of a parallel search only pays for the creation
+ * of its solver and constraints, and that the cache is released with the proxy.
+ */
+public final class CompiledCPModel {
+
+    private static final int CACHE_SIZE = 8;
+
+    private final SymbolicModel model;
+    private final Presolver presolver;
+    private final PresolvedModel presolved;
+    private final Constraint[] constraints;
+    private final ConcurrentHashMap<Object, Object> shared = new ConcurrentHashMap<>();
+
+    private CompiledCPModel(SymbolicModel model, Presolver presolver) {
+        this.model = model;
+        this.presolver = presolver;
+        this.presolved = presolver == null ? null : presolver.presolve(model.getConstraints());
+        Iterable<Constraint> source = presolved == null ? model.getConstraints() : presolved.constraints();
+        EqHelper.EqSimplified eqSimplified = EqHelper.preprocess(source, ConcreteCPModel::isViewOf);
+        List<Constraint> all = new ArrayList<>(eqSimplified.newConstraints());
+        Set<Constraint> ignored = eqSimplified.oldConstraints();
+        for (Constraint c : source)
+            if (!ignored.contains(c))
+                all.add(c);
+        this.constraints = all.toArray(new Constraint[0]);
+    }
+
+    /**
+     * Preprocesses a symbolic model, without caching it
+     *
+     * @param model the symbolic model
+     * @return the compiled model
+     */
+    public static CompiledCPModel compile(SymbolicModel model) {
+        return new CompiledCPModel(model, null);
+    }
+
+    /**
+     * Presolves and preprocesses a symbolic model, without caching it
+     *
+     * @param model     the symbolic model
+     * @param presolver the presolver simplifying the constraints, null for none
+     * @return the compiled model
+     */
+    public static CompiledCPModel compile(SymbolicModel model, Presolver presolver) {
+        return new CompiledCPModel(model, presolver);
+    }
+
+    /**
+     * Returns the compiled model of a symbolic model, from the cache of its proxy if it was compiled recently
+     *
+     * @param model the symbolic model
+     * @return the compiled model
+     */
+    public static CompiledCPModel of(SymbolicModel model) {
+        return of(model, null);
+    }
+
+    /**
+     * Returns the compiled model of a symbolic model presolved by a given presolver,
+     * from the cache of its proxy if it was compiled recently
+     *
+     * @param model     the symbolic model
+     * @param presolver the presolver simplifying the constraints, null for none
+     * @return the compiled model
+     */
+    public static CompiledCPModel of(SymbolicModel model, Presolver presolver) {
+        Cache cache = model.modelProxy() == null ? null : model.modelProxy().attachment(Cache.class, Cache::new);
+        return cache == null ? new CompiledCPModel(model, presolver) : cache.get(model, presolver);
+    }
+
+    /**
+     * Empties the cache of the compiled models of a proxy, to release the symbolic models it references
+     *
+     * @param proxy the proxy of the symbolic models
+     */
+    public static void clearCache(ModelProxy proxy) {
+        Cache cache = proxy.attachment(Cache.class, Cache::new);
+        if (cache != null)
+            cache.clear();
+    }
+
+    /**
+     * Compiled models of the last symbolic models of a proxy.
+     * A model is compiled outside the lock of the cache, the other threads asking for it waiting for its future.
+     */
+    private static final class Cache {
+
+        private record Entry(SymbolicModel model, Presolver presolver, CompletableFuture<CompiledCPModel> compiled) {
+        }
+
+        // most recently used first, the symbolic models are compared by identity as their equality is structural
+        private final Entry[] entries = new Entry[CACHE_SIZE];
+
+        CompiledCPModel get(SymbolicModel model, Presolver presolver) {
+            Entry entry;
+            boolean compile;
+            synchronized (this) {
+                int i = 0;
+                while (i < CACHE_SIZE && entries[i] != null && (entries[i].model != model || entries[i].presolver != presolver))
+                    i++;
+                compile = i == CACHE_SIZE || entries[i] == null;
+                entry = compile ? new Entry(model, presolver, new CompletableFuture<>()) : entries[i];
+                System.arraycopy(entries, 0, entries, 1, Math.min(i, CACHE_SIZE - 1));
+                entries[0] = entry;
+            }
+            if (compile) {
+                try {
+                    entry.compiled.complete(new CompiledCPModel(model, presolver));
+                } catch (RuntimeException | Error e) {
+                    remove(entry);
+                    entry.compiled.completeExceptionally(e);
+                    throw e;
+                }
+            }
+            try {
+                return entry.compiled.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException re)
+                    throw re;
+                throw e;
+            }
+        }
+
+        private synchronized void remove(Entry entry) {
+            for (int i = 0; i < CACHE_SIZE; i++) {
+                if (entries[i] == entry) {
+                    System.arraycopy(entries, i + 1, entries, i, CACHE_SIZE - 1 - i);
+                    entries[CACHE_SIZE - 1] = null;
+                    return;
+                }
+            }
+        }
+
+        synchronized void clear() {
+            Arrays.fill(entries, null);
+        }
+    }
+
+    /**
+     * @return the symbolic model that was compiled
+     */
+    public SymbolicModel model() {
+        return model;
+    }
+
+    /**
+     * @return the result of the presolve, null if the model was not presolved
+     */
+    public PresolvedModel presolved() {
+        return presolved;
+    }
+
+    /**
+     * @param x a variable
+     * @return the domain of the variable reduced by the presolve, null if it was not reduced
+     */
+    public Domain domain(SymbolicIntVar x) {
+        return presolved == null ? null : presolved.domain(x);
+    }
+
+    /**
+     * @return the number of constraints to instantiate
+     */
+    public int numberOfConstraints() {
+        return constraints.length;
+    }
+
+    /**
+     * @param i index of a constraint
+     * @return the i-th constraint to instantiate
+     */
+    public Constraint constraint(int i) {
+        return constraints[i];
+    }
+
+    /**
+     * Returns read-only data shared by all the instances of this model,
+     * computed on the first call with a given key.
+     * The data must not be modified by the instances.
+     *
+     * @param key     identifies the data, e.g. the constraint it is computed for
+     * @param compute computes the data
+     * @param <T>     the type of the data
+     * @return the shared data
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T shared(Object key, Supplier<T> compute) {
+        return (T) shared.computeIfAbsent(key, k -> compute.get());
+    }
+}
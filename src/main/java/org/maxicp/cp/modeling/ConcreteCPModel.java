@@ -9,9 +9,11 @@ package org.maxicp.cp.modeling;
 import org.maxicp.cp.CPFactory;
 import org.maxicp.cp.engine.constraints.Equal;
 import org.maxicp.cp.engine.constraints.IsOr;
+import org.maxicp.cp.engine.constraints.TableSupports;
 import org.maxicp.cp.engine.constraints.scheduling.*;
 import org.maxicp.cp.engine.core.*;
 import org.maxicp.modeling.*;
+import org.maxicp.modeling.algebra.StructuralKey;
 import org.maxicp.modeling.algebra.bool.*;
 import org.maxicp.modeling.algebra.bool.EndAfter;
 import org.maxicp.modeling.algebra.bool.EndBefore;
@@ -28,6 +30,7 @@ import org.maxicp.modeling.constraints.scheduling.NoOverlap;
 import org.maxicp.modeling.constraints.scheduling.Present;
 import org.maxicp.modeling.constraints.scheduling.Start;
 import org.maxicp.modeling.constraints.seqvar.*;
+import org.maxicp.modeling.presolve.Domain;
 import org.maxicp.modeling.symbolic.*;
 import org.maxicp.modeling.utils.EqHelper;
 import org.maxicp.search.IntObjective;
@@ -39,8 +42,12 @@ import org.maxicp.util.exception.NotYetImplementedException;
 
 import java.util.ArrayDeque;
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.IntStream;
 
 public class ConcreteCPModel implements ConcreteModel {
@@ -53,9 +60,19 @@ public class ConcreteCPModel implements ConcreteModel {
     final StateMap<IntervalExpression, CPIntervalVar> intervalExprMapping;
     final StateMap<CumulFunction, CPCumulFunction> cumulFunMapping;
     private final ModelProxy modelProxy;
+    private final CompiledCPModel compiled;
+    // symbolic variables mapped during the construction, never undone by a backtrack
+    private final Set<IntExpression> permanentVars = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final PermanentVars permanent = new PermanentVars();
+    // hash-consing of the expressions: the first expression instantiated with a given structure
+    // represents all the expressions equal to it, such that they share their variable.
+    // Only done while the model is constructed, its mappings are never undone, the maps are then released
+    private Map<Object, IntExpression> representatives = new HashMap<>();
+    private Map<Object, Object> structuralKeys = new IdentityHashMap<>();
 
     private boolean firstConstruction;
     private boolean disableFixPoint;
+    private int jumpCheckpointStride = 0;
 
     /**
      * Temporarily disables the fix point while r is run, then run the fixpoint
@@ -65,8 +82,11 @@ public class ConcreteCPModel implements ConcreteModel {
     private void noFixPoint(java.lang.Runnable r) {
         boolean oldVal = disableFixPoint;
         disableFixPoint = true;
-        r.run();
-        disableFixPoint = oldVal;
+        try {
+            r.run();
+        } finally {
+            disableFixPoint = oldVal;
+        }
     }
 
     /**
@@ -87,10 +107,23 @@ public class ConcreteCPModel implements ConcreteModel {
     }
 
     public ConcreteCPModel(ModelProxy modelProxy, CPSolver solver, SymbolicModel baseNode) {
+        this(modelProxy, solver, CompiledCPModel.compile(baseNode));
+    }
+
+    /**
+     * Instantiates a compiled model, which can be shared by several concrete models
+     *
+     * @param modelProxy the proxy of the model
+     * @param solver     the solver in which the constraints are posted
+     * @param compiled   the compiled model
+     */
+    public ConcreteCPModel(ModelProxy modelProxy, CPSolver solver, CompiledCPModel compiled) {
         firstConstruction = true;
         disableFixPoint = false;
 
+        SymbolicModel baseNode = compiled.model();
         this.modelProxy = modelProxy;
+        this.compiled = compiled;
         this.concretizedNode = baseNode;
         this.model = solver.getStateManager().makeStateRef(baseNode);
         this.solver = solver;
@@ -101,20 +134,15 @@ public class ConcreteCPModel implements ConcreteModel {
         this.cumulFunMapping = solver.getStateManager().makeStateMap();
 
         noFixPoint(() -> {
-            EqHelper.EqSimplified eqSimplified = EqHelper.preprocess(baseNode.getConstraints(), ConcreteCPModel::isViewOf);
-            for (Constraint c : eqSimplified.newConstraints())
-                instantiateConstraint(c);
-
-            Set<Constraint> ignored = eqSimplified.oldConstraints();
-
-            for (Constraint c : baseNode.getConstraints())
-                if (!ignored.contains(c))
-                    instantiateConstraint(c);
+            for (int i = 0; i < compiled.numberOfConstraints(); i++)
+                instantiateConstraint(compiled.constraint(i));
         });
         solver.fixPoint();
         getStateManager().saveState();
 
         firstConstruction = false;
+        representatives = null;
+        structuralKeys = null;
     }
 
     /**
@@ -123,7 +151,7 @@ public class ConcreteCPModel implements ConcreteModel {
      * @param expr
      * @return
      */
-    private static IntExpression isViewOf(IntExpression expr) {
+    static IntExpression isViewOf(IntExpression expr) {
         return switch (expr) {
             case CstOffset co -> isViewOf(co.expr());
             case UnaryMinus um -> isViewOf(um.expr());
@@ -135,6 +163,49 @@ public class ConcreteCPModel implements ConcreteModel {
         return getCPVar(expr);
     }
 
+    /**
+     * @return the compiled model from which this model was instantiated,
+     * holding the data shared with the other instances
+     */
+    public CompiledCPModel getCompiledModel() {
+        return compiled;
+    }
+
+    /**
+     * Supports of a table constraint of the compiled model, shared with the other instances.
+     * The supports of the constraints added later, or computed for other domains,
+     * are not shared.
+     *
+     * @param key     the table constraint
+     * @param x       the variables of the table
+     * @param compute computes the supports
+     * @return the supports of the table, covering the domains of x
+     */
+    private TableSupports tableSupports(Constraint key, CPIntVar[] x, Supplier<TableSupports> compute) {
+        if (!firstConstruction)
+            return compute.get();
+        TableSupports supports = compiled.shared(key, compute);
+        return supports.covers(x) ? supports : compute.get();
+    }
+
+    @Override
+    public boolean isPermanent(IntExpression expr) {
+        return permanentVars.contains(expr);
+    }
+
+    @Override
+    public PermanentVars permanentVars() {
+        return permanent;
+    }
+
+    /**
+     * Records the mapping of a symbolic variable done while the model is constructed
+     */
+    private void mapped(IntExpression expr) {
+        if (firstConstruction && expr instanceof SymbolicIntVar)
+            permanentVars.add(expr);
+    }
+
     public ConcreteBoolVar getConcreteVar(BoolExpression expr) {
         return getCPVar(expr);
     }
@@ -155,6 +226,12 @@ public class ConcreteCPModel implements ConcreteModel {
         if (cached != null)
             return cached;
 
+        if (representative(v) instanceof BoolExpression r && r != v) {
+            CPBoolVar shared = getCPVar(r);
+            boolExprMapping.put(v, shared);
+            return shared;
+        }
+
         CPBoolVar newVar = switch (v) {
             case IsNodeRequired bv -> getCPVar(bv.seqVar).getNodeVar(bv.node).isRequired();
             case IntervalStatus s -> getCPVar(s.intervalVar).status();
@@ -218,7 +295,16 @@ public class ConcreteCPModel implements ConcreteModel {
         if (cached != null)
             return cached;
 
+        IntExpression r = representative(v);
+        if (r != v) {
+            CPIntVar shared = getCPVar(r);
+            intExprMapping.put(v, shared);
+            return shared;
+        }
+
         CPIntVar newVar = switch (v) {
+            case IntVarSetImpl iv when compiled.domain(iv) != null -> makeIntVar(compiled.domain(iv));
+            case IntVarRangeImpl iv when compiled.domain(iv) != null -> makeIntVar(compiled.domain(iv));
             case IntVarSetImpl iv -> CPFactory.makeIntVar(solver, iv.dom);
             case IntVarRangeImpl iv -> CPFactory.makeIntVar(solver, iv.defaultMin(), iv.defaultMax());
             case CstOffset iv -> CPFactory.plus(getCPVar(iv.expr()), iv.v());
@@ -252,15 +338,66 @@ public class ConcreteCPModel implements ConcreteModel {
                     throw new NotYetImplementedException("Unknown expression type %s in getCPVar".formatted(v.getClass()));
         };
         intExprMapping.put(v, newVar);
+        mapped(v);
         return newVar;
     }
 
+    /**
+     * Returns the representative of the expressions with the same structure as e,
+     * that is the first of them for which it was asked.
+     * The variables are their own representative, only the compound expressions are compared by structure.
+     * The expressions instantiated during the search, after the construction of the model, are their own representative
+     * since their mappings are undone on backtrack.
+     *
+     * @param e an expression
+     * @return the representative of e, e itself if it is the first with its structure
+     */
+    private IntExpression representative(IntExpression e) {
+        if (representatives == null || !(e instanceof Record))
+            return e;
+        return representatives.computeIfAbsent(StructuralKey.of(e, structuralKeys), k -> e);
+    }
+
+    /**
+     * Creates a variable with a domain reduced by the presolve
+     */
+    private CPIntVar makeIntVar(Domain d) {
+        return d.isInterval() ? CPFactory.makeIntVar(solver, d.min(), d.max()) : CPFactory.makeIntVar(solver, d.toSet());
+    }
+
+    /**
+     * Removes from v the values not in the domain reduced by the presolve, if any
+     */
+    private static void restrict(CPIntVar v, Domain d) {
+        if (d == null)
+            return;
+        v.removeBelow(d.min());
+        v.removeAbove(d.max());
+        if (!d.isInterval()) {
+            int[] content = new int[v.size()];
+            int n = v.fillArray(content);
+            for (int i = 0; i < n; i++)
+                if (!d.contains(content[i]))
+                    v.remove(content[i]);
+        }
+    }
+
     /**
      * Enforce that v == expr, without using Equal/NotEqual if possible.
      */
     public void enforceEqualityIntExpression(IntExpression expr, CPIntVar v) {
         if ((expr instanceof BoolExpression && boolExprMapping.containsKey(expr)) || intExprMapping.containsKey(expr))
             throw new RuntimeException("enforceEqualityIntExpression cannot force equality on an already-instantiated expression");
+        IntExpression r = representative(expr);
+        if (r != expr && (r instanceof BoolExpression br ? boolExprMapping.containsKey(br) : intExprMapping.containsKey(r))) {
+            // an expression with the same structure is already instantiated
+            post(new Equal(getCPVar(r), v));
+            if (expr instanceof BoolExpression be && r instanceof BoolExpression br)
+                boolExprMapping.put(be, getCPVar(br));
+            else
+                intExprMapping.put(expr, v);
+            return;
+        }
         switch (expr) {
             case IntVarSetImpl iv -> {
                 int[] content = new int[v.size()];
@@ -268,10 +405,12 @@ public class ConcreteCPModel implements ConcreteModel {
                 for (int val : content)
                     if (!iv.dom.contains(val))
                         v.remove(val);
+                restrict(v, compiled.domain(iv));
             }
             case IntVarRangeImpl iv -> {
                 v.removeBelow(iv.min());
                 v.removeAbove(iv.max());
+                restrict(v, compiled.domain(iv));
             }
             case IntVar x -> throw new RuntimeException("Unknown IntVar type %s".formatted(x.getClass()));
             case Constant c -> v.fix(c.v());
@@ -338,7 +477,20 @@ public class ConcreteCPModel implements ConcreteModel {
             default ->
                     throw new NotYetImplementedException("Unknown expression type %s in enforceEqualityIntExpression".formatted(v.getClass()));
         }
-        intExprMapping.put(expr, v);
+        mapEqual(expr, v);
+        if (r != expr)
+            mapEqual(r, v);
+        mapped(expr);
+    }
+
+    /**
+     * Records that expr is instantiated by v, a boolean expression being mapped to a boolean variable
+     */
+    private void mapEqual(IntExpression expr, CPIntVar v) {
+        if (expr instanceof BoolExpression be && v instanceof CPBoolVar bv)
+            boolExprMapping.put(be, bv);
+        else
+            intExprMapping.put(expr, v);
     }
 
     public CPBoolVar asBoolVar(CPIntVar v) {
@@ -448,35 +600,34 @@ public class ConcreteCPModel implements ConcreteModel {
         model.setValue(model.value().add(c));
     }
 
+    /**
+     * Sets the number of constraints instantiated by {@link #jumpTo} between two saved states.
+     * <p>
+     * When jumping to a node, the states of its ancestors at every {@code stride} constraints
+     * below the common ancestor are propagated and saved, such that a later jump to a nearby node
+     * restores the deepest of them shared with that node instead of re-instantiating the whole path.
+     * The saved states are the ones of the current path only, i.e. of the nodes used most recently.
+     * <p>
+     * The additional states are pushed on the state manager, this should only be enabled
+     * when the search moves in the tree with {@link #jumpTo}, such as {@link org.maxicp.search.BestFirstSearch}.
+     *
+     * @param stride the number of constraints between two saved states, 0 to disable it (the default)
+     */
+    public void setJumpCheckpointStride(int stride) {
+        if (stride < 0) throw new IllegalArgumentException("the stride cannot be negative");
+        this.jumpCheckpointStride = stride;
+    }
+
     @Override
     public void jumpTo(SymbolicModel node, boolean enforceFixPoint) {
-        // Find the first node in common
-        HashSet<SymbolicModel> nodeCurrentlyPresent = new HashSet<>();
-
-        SymbolicModel cur = model.value();
-        while (cur != concretizedNode) {
-            nodeCurrentlyPresent.add(cur);
-            cur = cur.parent();
-        }
-        nodeCurrentlyPresent.add(cur);
-
-        cur = node;
-        while (cur != null && !nodeCurrentlyPresent.contains(cur)) {
-            cur = cur.parent();
-        }
-        SymbolicModel firstCommonNode = cur;
+        // the common ancestor is found by comparing the depths of the nodes
+        SymbolicModel firstCommonNode = SymbolicModel.commonAncestor(model.value(), node);
+        if (firstCommonNode == null || firstCommonNode.depth() < concretizedNode.depth())
+            throw new NotAChildModelException();
 
-        // Now list the nodes before this first common node
-        nodeCurrentlyPresent.clear();
-        cur = firstCommonNode;
-        while (cur != null) {
-            nodeCurrentlyPresent.add(cur);
-            cur = cur.parent();
-        }
-
-        // Now revert the solver until we are at a node below the first common node
+        // Now revert the solver until we are at a node above the first common node
         boolean hasJumped = false; // set to true if the solver has actually jumped (in case jumping to the current location)
-        while (!nodeCurrentlyPresent.contains(model.value())) {
+        while (model.value().depth() > firstCommonNode.depth()) {
             hasJumped = true;
             getStateManager().restoreState();
         }
@@ -484,16 +635,24 @@ public class ConcreteCPModel implements ConcreteModel {
             getStateManager().saveState();
 
         // We now just have to add constraints until we are at the right node
-        ArrayDeque<Constraint> needConcretization = new ArrayDeque<>();
-        cur = node;
-        while (cur != model.value()) {
-            needConcretization.addFirst(cur.constraint());
+        SymbolicModel from = model.value();
+        SymbolicModel[] path = new SymbolicModel[node.depth() - from.depth()];
+        SymbolicModel cur = node;
+        for (int i = path.length - 1; i >= 0; i--) {
+            path[i] = cur;
             cur = cur.parent();
         }
 
+        int stride = enforceFixPoint ? jumpCheckpointStride : 0;
         noFixPoint(() -> {
-            for (Constraint cln : needConcretization) {
-                instantiateConstraint(cln);
+            for (int i = 0; i < path.length; i++) {
+                instantiateConstraint(path[i].constraint());
+                if (stride > 0 && (i + 1) % stride == 0 && i + 1 < path.length) {
+                    // propagated and saved, restoring it gives back this node
+                    solver.fixPoint();
+                    model.setValue(path[i]);
+                    getStateManager().saveState();
+                }
             }
         });
         if (enforceFixPoint)
@@ -522,6 +681,8 @@ public class ConcreteCPModel implements ConcreteModel {
         });
         if (enforceFixPoint)
             solver.fixPoint();
+
+        model.setValue(m);
     }
 
     @Override
@@ -613,15 +774,17 @@ public class ConcreteCPModel implements ConcreteModel {
                 post(new org.maxicp.cp.engine.constraints.Sorted(x, o, y));
             }
             case Table t -> {
+                CPIntVar[] x = getCPVar(t.x());
                 if (t.starred().isEmpty())
-                    post(new org.maxicp.cp.engine.constraints.TableCT(getCPVar(t.x()), t.array()));
+                    post(new org.maxicp.cp.engine.constraints.TableCT(x, tableSupports(t, x, () -> TableSupports.of(x, t.array()))));
                 else
-                    post(new org.maxicp.cp.engine.constraints.ShortTableCT(getCPVar(t.x()), t.array(), t.starred().get()));
+                    post(new org.maxicp.cp.engine.constraints.ShortTableCT(x, tableSupports(t, x, () -> TableSupports.of(x, t.array(), t.starred().get()))));
             }
             case NegTable t -> {
-                if (t.starred().isEmpty())
-                    post(new org.maxicp.cp.engine.constraints.NegTableCT(getCPVar(t.x()), t.array()));
-                else
+                if (t.starred().isEmpty()) {
+                    CPIntVar[] x = getCPVar(t.x());
+                    post(new org.maxicp.cp.engine.constraints.NegTableCT(x, tableSupports(t, x, () -> TableSupports.of(x, t.array()))));
+                } else
                     throw new NotYetImplementedException("Negative Table with stars is available in maxicp.cp but not yet implemented");
             }
             //-----------------------------------------
@@ -95,5 +95,26 @@ public interface ModelProxy {
 
     <T extends Model> T setModel(T m);
 
+    /**
+     * Returns a new index for a symbolic variable of this proxy, the indices being dense from 0
+     * such that the concrete models can keep the permanent concrete variables in an array
+     * (see {@link org.maxicp.modeling.concrete.PermanentVars}).
+     *
+     * @return the index of the variable, -1 if the proxy does not index its variables
+     */
+    default int nextVariableIndex() {return -1;}
+
     default int getId() {return -1;}
+
+    /**
+     * Returns data attached to this proxy by a solver, e.g. its compiled symbolic models
+     * (see {@link org.maxicp.cp.modeling.CompiledCPModel#of(SymbolicModel)}),
+     * created on the first call with a given key and released with the proxy.
+     *
+     * @param key    identifies the data
+     * @param create creates the data
+     * @param <T>    the type of the data
+     * @return the data, null if the proxy does not keep data
+     */
+    default <T> T attachment(Object key, Supplier<T> create) {return null;}
 }
@@ -0,0 +1,234 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2024 UCLouvain
+ */
+
+package org.maxicp.modeling.algebra;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.util.*;
+import java.util.function.ToLongFunction;
+
+/**
+ * Keys comparing the constraints and expressions by their structure.
+ * <p>
+ * The records of the modeling layer hold arrays, such that their equality is the identity of the arrays.
+ * The key of a record is made of its class and of the keys of its components,
+ * arrays and lists are compared element-wise, sets regardless of the order,
+ * and the other objects (e.g. the variables) with their own equality.
+ * <p>
+ * The keys of the records are memoized by identity in a map given to {@link #of(Object, Map)},
+ * such that the key of a tree whose subtrees are shared is computed in linear time.
+ * <p>
+ * The hash codes of the keys depend on the identity of the variables and classes.
+ * {@link #hash(Object, ToLongFunction)} instead gives a hash of the structure that is stable across executions.
+ */
+public final class StructuralKey {
+
+    private record IntArray(int[] a) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IntArray other && Arrays.equals(a, other.a);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(a);
+        }
+    }
+
+    /**
+     * Key of a record, its hash code being computed once
+     */
+    private static final class Node {
+        private final Object[] parts;
+        private final int hash;
+
+        Node(Object[] parts) {
+            this.parts = parts;
+            this.hash = Arrays.hashCode(parts);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o == this || (o instanceof Node other && hash == other.hash && Arrays.equals(parts, other.parts));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    // accessors of the components of each record class, null if they are not accessible
+    private static final ClassValue<Method[]> ACCESSORS = new ClassValue<>() {
+        @Override
+        protected Method[] computeValue(Class<?> type) {
+            RecordComponent[] components = type.getRecordComponents();
+            Method[] accessors = new Method[components.length];
+            try {
+                for (int i = 0; i < components.length; i++) {
+                    accessors[i] = components[i].getAccessor();
+                    accessors[i].setAccessible(true);
+                }
+            } catch (RuntimeException e) {
+                return null;
+            }
+            return accessors;
+        }
+    };
+
+    private StructuralKey() {
+    }
+
+    /**
+     * @param o a constraint, an expression or one of their components
+     * @return a key equal to the key of any object with the same structure
+     */
+    public static Object of(Object o) {
+        return of(o, new IdentityHashMap<>());
+    }
+
+    /**
+     * @param o    a constraint, an expression or one of their components
+     * @param memo the keys of the records already computed, by identity
+     * @return a key equal to the key of any object with the same structure
+     */
+    public static Object of(Object o, Map<Object, Object> memo) {
+        return switch (o) {
+            case null -> null;
+            case int[] a -> new IntArray(a);
+            case int[][] a -> {
+                List<Object> rows = new ArrayList<>(a.length);
+                for (int[] row : a)
+                    rows.add(new IntArray(row));
+                yield rows;
+            }
+            case Object[] a -> {
+                List<Object> keys = new ArrayList<>(a.length);
+                for (Object x : a)
+                    keys.add(of(x, memo));
+                yield keys;
+            }
+            case Set<?> s -> {
+                Set<Object> keys = new HashSet<>();
+                for (Object x : s)
+                    keys.add(of(x, memo));
+                yield keys;
+            }
+            case Collection<?> c -> {
+                List<Object> keys = new ArrayList<>(c.size());
+                for (Object x : c)
+                    keys.add(of(x, memo));
+                yield keys;
+            }
+            case Optional<?> opt -> opt.map(x -> of(x, memo));
+            case Record r -> {
+                Object key = memo.get(r);
+                if (key == null) {
+                    key = ofRecord(r, memo);
+                    memo.put(r, key);
+                }
+                yield key;
+            }
+            default -> o;
+        };
+    }
+
+    /**
+     * Returns a hash of the structure of an object that is stable across executions:
+     * equal for two objects with the same structure built in the same way, whatever the execution.
+     * The records, arrays, collections, optionals, numbers, strings and enums are hashed by their content,
+     * the other objects (e.g. the variables) by the given function.
+     *
+     * @param o    a constraint, an expression or one of their components
+     * @param leaf the hash of the other objects, which must itself be stable
+     * @return the hash of the structure of o
+     */
+    public static long hash(Object o, ToLongFunction<Object> leaf) {
+        return hash(o, leaf, new IdentityHashMap<>());
+    }
+
+    private static long hash(Object o, ToLongFunction<Object> leaf, Map<Object, Long> memo) {
+        return switch (o) {
+            case null -> 0;
+            case Integer i -> mix(1, i);
+            case Long l -> mix(2, l);
+            case Boolean b -> mix(3, b ? 1 : 0);
+            case Number n -> mix(4, Double.doubleToLongBits(n.doubleValue()));
+            case String s -> mix(5, s.hashCode());
+            case Enum<?> e -> mix(mix(6, e.getDeclaringClass().getName().hashCode()), e.name().hashCode());
+            case int[] a -> mix(7, Arrays.hashCode(a));
+            case int[][] a -> {
+                long h = mix(8, a.length);
+                for (int[] row : a)
+                    h = mix(h, Arrays.hashCode(row));
+                yield h;
+            }
+            case Object[] a -> {
+                long h = mix(9, a.length);
+                for (Object x : a)
+                    h = mix(h, hash(x, leaf, memo));
+                yield h;
+            }
+            case Set<?> s -> {
+                long sum = 0;
+                for (Object x : s)
+                    sum += hash(x, leaf, memo);
+                yield mix(mix(10, s.size()), sum);
+            }
+            case Collection<?> c -> {
+                long h = mix(11, c.size());
+                for (Object x : c)
+                    h = mix(h, hash(x, leaf, memo));
+                yield h;
+            }
+            case Optional<?> opt -> opt.isEmpty() ? 12 : mix(13, hash(opt.get(), leaf, memo));
+            case Record r -> {
+                Long h = memo.get(r);
+                if (h == null) {
+                    h = hashRecord(r, leaf, memo);
+                    memo.put(r, h);
+                }
+                yield h;
+            }
+            default -> mix(14, leaf.applyAsLong(o));
+        };
+    }
+
+    private static long hashRecord(Record r, ToLongFunction<Object> leaf, Map<Object, Long> memo) {
+        Method[] accessors = ACCESSORS.get(r.getClass());
+        if (accessors == null)
+            return mix(15, leaf.applyAsLong(r));
+        long h = mix(16, r.getClass().getName().hashCode());
+        try {
+            for (Method accessor : accessors)
+                h = mix(h, hash(accessor.invoke(r), leaf, memo));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return mix(15, leaf.applyAsLong(r));
+        }
+        return h;
+    }
+
+    private static long mix(long h, long v) {
+        h = (h ^ v) * 0x9e3779b97f4a7c15L;
+        return h ^ (h >>> 32);
+    }
+
+    private static Object ofRecord(Record r, Map<Object, Object> memo) {
+        Method[] accessors = ACCESSORS.get(r.getClass());
+        if (accessors == null)
+            return r; // not accessible, compared with its own equality
+        Object[] parts = new Object[accessors.length + 1];
+        parts[0] = r.getClass();
+        try {
+            for (int i = 0; i < accessors.length; i++)
+                parts[i + 1] = of(accessors[i].invoke(r), memo);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // not accessible, compared with its own equality
+            return r;
+        }
+        return new Node(parts);
+    }
+}
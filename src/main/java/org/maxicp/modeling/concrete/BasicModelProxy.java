@@ -3,6 +3,9 @@ package org.maxicp.modeling.concrete;
 import org.maxicp.modeling.Model;
 import org.maxicp.modeling.ModelProxy;
 
+import java.util.HashMap;
+import java.util.function.Supplier;
+
 /**
  * A very simple ModelProxy which is not thread-safe.
  * Use this class only when you explicitly want to avoid a ModelDispatcher, which is thread-safe.
@@ -10,6 +13,8 @@ import org.maxicp.modeling.ModelProxy;
 public class BasicModelProxy implements ModelProxy {
 
     private Model model;
+    private int nVariables = 0;
+    private final HashMap<Object, Object> attachments = new HashMap<>();
 
     public BasicModelProxy() {
         this(null);
@@ -29,4 +34,15 @@ public class BasicModelProxy implements ModelProxy {
         model = m;
         return m;
     }
+
+    @Override
+    public int nextVariableIndex() {
+        return nVariables++;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T attachment(Object key, Supplier<T> create) {
+        return (T) attachments.computeIfAbsent(key, k -> create.get());
+    }
 }
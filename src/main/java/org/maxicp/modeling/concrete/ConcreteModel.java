@@ -35,6 +35,28 @@ public interface ConcreteModel extends Model, StateManaged {
 
     ConcreteIntervalVar getConcreteVar(IntervalExpression expr);
 
+    /**
+     * Tells if the concrete variable of an expression is permanent,
+     * i.e. the expression will be mapped to the same concrete variable whatever the state of the model,
+     * such that it can be kept instead of being looked up at each call to {@link #getConcreteVar(IntExpression)}.
+     *
+     * @param expr an expression whose concrete variable exists
+     * @return true if its concrete variable will never change
+     */
+    default boolean isPermanent(IntExpression expr) {
+        return false;
+    }
+
+    /**
+     * Returns the permanent concrete variables of this model found so far,
+     * filled by the symbolic variables the first time they are resolved
+     *
+     * @return the permanent variables, null if this model does not keep them
+     */
+    default PermanentVars permanentVars() {
+        return null;
+    }
+
     default void add(Constraint c) { add(c, true); }
 
     void add(Constraint c, boolean enforceFixPoint);
@@ -0,0 +1,41 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.modeling.concrete;
+
+import java.util.Arrays;
+
+/**
+ * Permanent concrete variables of a concrete model (see {@link ConcreteModel#isPermanent}),
+ * indexed by the index of their symbolic variable (see {@link org.maxicp.modeling.ModelProxy#nextVariableIndex()}).
+ * <p>
+ * Each concrete model has its own table, used by the thread solving it only,
+ * such that the threads solving the same symbolic model do not share anything.
+ */
+public final class PermanentVars {
+
+    private ConcreteIntVar[] vars = new ConcreteIntVar[64];
+
+    /**
+     * @param index the index of a symbolic variable
+     * @return its permanent concrete variable, null if it is not known yet
+     */
+    public ConcreteIntVar get(int index) {
+        ConcreteIntVar[] v = vars;
+        return index < v.length ? v[index] : null;
+    }
+
+    /**
+     * Records the permanent concrete variable of a symbolic variable
+     *
+     * @param index the index of the symbolic variable
+     * @param var   its concrete variable
+     */
+    public void put(int index, ConcreteIntVar var) {
+        if (index >= vars.length)
+            vars = Arrays.copyOf(vars, Math.max(2 * vars.length, index + 1));
+        vars[index] = var;
+    }
+}
@@ -3,9 +3,10 @@ package org.maxicp.modeling.constraints;
 import org.maxicp.modeling.algebra.integer.IntExpression;
 import org.maxicp.modeling.constraints.helpers.CacheScope;
 import org.maxicp.modeling.constraints.helpers.ConstraintFromRecord;
+import org.maxicp.modeling.constraints.helpers.ConstraintFromRecord.IgnoreScope;
 
 import java.util.Optional;
 
-public record Table(IntExpression[] x, int[][] array, Optional<Integer> starred) implements ConstraintFromRecord, CacheScope {
+public record Table(IntExpression[] x, int[][] array, @IgnoreScope Optional<Integer> starred) implements ConstraintFromRecord, CacheScope {
     public Table(IntExpression[] x, int[][] array) { this(x, array, Optional.empty()); }
 }
@@ -0,0 +1,75 @@
+package org.maxicp.modeling.gc_dimacs;
+
+import org.maxicp.ModelDispatcher;
+import org.maxicp.modeling.algebra.integer.IntExpression;
+import org.maxicp.modeling.constraints.AllDifferent;
+import org.maxicp.modeling.symbolic.ParsedInstanceCache;
+import org.maxicp.util.io.InputReader;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.maxicp.modeling.Factory.makeModelDispatcher;
+
+/**
+ * Graph coloring instance in the DIMACS format, a variable giving the color of each vertex
+ * and an {@link AllDifferent} constraint on each edge.
+ * <p>
+ * The instances are read from the {@link ParsedInstanceCache} given by {@link ParsedInstanceCache#fromSystemProperty()}, if any.
+ *
+ * @param md   the dispatcher of the model
+ * @param vars the color of each vertex
+ */
+public record GraphColoringInstance(ModelDispatcher md, IntExpression[] vars) implements AutoCloseable {
+
+    /**
+     * Loads an instance
+     *
+     * @param filename        the path of the instance
+     * @param ignoreSelfLoops true to post no constraint on the edges between a vertex and itself
+     * @return the loaded instance
+     */
+    public static GraphColoringInstance load(String filename, boolean ignoreSelfLoops) {
+        String tag = ignoreSelfLoops ? "dimacs-no-self-loops" : "dimacs";
+        ParsedInstanceCache cache = ParsedInstanceCache.fromSystemProperty();
+        if (cache != null) {
+            Optional<ParsedInstanceCache.Entry> cached = cache.read(Path.of(filename), tag);
+            if (cached.isPresent())
+                return new GraphColoringInstance(cached.get().md(), cached.get().decisionVars());
+        }
+        GraphColoringInstance instance = parse(filename, ignoreSelfLoops);
+        if (cache != null)
+            cache.write(Path.of(filename), tag, instance.md, new String[instance.vars.length], instance.vars);
+        return instance;
+    }
+
+    private static GraphColoringInstance parse(String filename, boolean ignoreSelfLoops) {
+        InputReader reader = new InputReader(filename);
+        ModelDispatcher model = makeModelDispatcher();
+
+        // Initializes the instance variables
+        String type = reader.getString();
+        while (type.equals("c")) {
+            reader.skipLine();
+            type = reader.getString();
+        }
+        assert type.equals("p");
+        reader.getString();
+        Integer[] problem = reader.getIntLine();
+        IntExpression[] vars = model.intVarArray(problem[0], problem[2]);
+
+        // Initializes the instance constraints
+        for (int i = 0; i < problem[1]; i++) {
+            reader.getString();
+            Integer[] edgeVars = reader.getIntLine();
+            if (!ignoreSelfLoops || !edgeVars[0].equals(edgeVars[1]))
+                model.add(new AllDifferent(vars[edgeVars[0] - 1], vars[edgeVars[1] - 1]));
+        }
+        return new GraphColoringInstance(model, vars);
+    }
+
+    @Override
+    public void close() throws Exception {
+        md.close();
+    }
+}
@@ -4,41 +4,21 @@ import org.maxicp.ModelDispatcher;
 import org.maxicp.andor.ConstraintGraph;
 import org.maxicp.cp.modeling.ConcreteCPModel;
 import org.maxicp.modeling.algebra.integer.IntExpression;
-import org.maxicp.modeling.constraints.AllDifferent;
 import org.maxicp.andor.search.DFSearchMini_And_PS;
 import org.maxicp.search.SearchStatistics;
-import org.maxicp.util.io.InputReader;
 
 import static org.maxicp.andor.Scheme.fiducciaMattheyses;
 import static org.maxicp.andor.Scheme.firstFail;
-import static org.maxicp.modeling.Factory.makeModelDispatcher;
 
 public class GraphColoring_And_PS {
     public static void main(String[] args) {
         String instanceName = (args.length > 0) ? args[0] : "graph_coloring/instance/david.col";
-        InputReader reader = new InputReader(instanceName);
-        ModelDispatcher model = makeModelDispatcher();
+        GraphColoringInstance instance = GraphColoringInstance.load(instanceName, false);
+        ModelDispatcher model = instance.md();
+        IntExpression[] vars = instance.vars();
 
-        // Initializes the instance variables
-        String type = reader.getString();
-        while (type.equals("c")) {
-            reader.skipLine();
-            type = reader.getString();
-        }
-        assert type.equals("p");
-        reader.getString();
-        Integer[] problem = reader.getIntLine();
-        IntExpression[] vars = model.intVarArray(problem[0], problem[2]);
-
-        // Initializes the instance constraints
-        for (int i = 0; i < problem[1]; i++) {
-            reader.getString();
-            Integer[] edgeVars = reader.getIntLine();
-            model.add(new AllDifferent(vars[edgeVars[0]-1],vars[edgeVars[1]-1]));
-        }
-
-        int sizeToFix = Math.max(problem[0] / 20, 4);
-        int fixToSplit = Math.min(problem[0] / 10, 10);
+        int sizeToFix = Math.max(vars.length / 20, 4);
+        int fixToSplit = Math.min(vars.length / 10, 10);
 
         ConcreteCPModel cp = model.cpInstantiate();
         ConstraintGraph graph = model.createGraph(cp);
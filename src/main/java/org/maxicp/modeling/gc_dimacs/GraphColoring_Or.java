@@ -4,35 +4,16 @@ import org.maxicp.ModelDispatcher;
 import org.maxicp.andor.search.DFSearchMini_Or;
 import org.maxicp.cp.modeling.ConcreteCPModel;
 import org.maxicp.modeling.algebra.integer.IntExpression;
-import org.maxicp.modeling.constraints.AllDifferent;
 import org.maxicp.search.*;
-import org.maxicp.util.io.InputReader;
 
 import static org.maxicp.modeling.Factory.*;
 
 public class GraphColoring_Or {
     public static void main(String[] args) {
         String instanceName = (args.length > 0) ? args[0] : "graph_coloring/instance/david.col";
-        InputReader reader = new InputReader(instanceName);
-
-        ModelDispatcher model = makeModelDispatcher();
-
-        String type = reader.getString();
-        while (type.equals("c")) {
-            reader.skipLine();
-            type = reader.getString();
-        }
-        assert type.equals("p");
-        reader.getString();
-        Integer[] problem = reader.getIntLine();
-        //System.out.println(Arrays.toString(problem));
-        IntExpression[] vars = model.intVarArray(problem[0], problem[2]);
-
-        for (int i = 0; i < problem[1]; i++) {
-            reader.getString();
-            Integer[] edgeVars = reader.getIntLine();
-            model.add(new AllDifferent(vars[edgeVars[0]-1],vars[edgeVars[1]-1]));
-        }
+        GraphColoringInstance instance = GraphColoringInstance.load(instanceName, false);
+        ModelDispatcher model = instance.md();
+        IntExpression[] vars = instance.vars();
 
         ConcreteCPModel cp = model.cpInstantiate();
 
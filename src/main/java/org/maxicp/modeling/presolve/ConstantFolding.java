@@ -0,0 +1,226 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2024 UCLouvain
+ */
+
+package org.maxicp.modeling.presolve;
+
+import org.maxicp.modeling.Constraint;
+import org.maxicp.modeling.algebra.Expression;
+import org.maxicp.modeling.algebra.bool.*;
+import org.maxicp.modeling.algebra.integer.*;
+import org.maxicp.modeling.constraints.ExpressionIsTrue;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+
+/**
+ * Replaces the constant subexpressions of the {@link ExpressionIsTrue} constraints by their value:
+ * the constant terms of the {@link Sum} and {@link WeightedSum} are merged into one,
+ * the terms with a zero weight are dropped, and the operations on constants are evaluated.
+ * The constraints that are always true are removed and the conjunctions are split into one constraint per operand.
+ * <p>
+ * Only the constants of the expressions are used, not the domains of the variables.
+ */
+public final class ConstantFolding implements PresolvePass {
+
+    @Override
+    public String name() {
+        return "constant folding";
+    }
+
+    @Override
+    public void apply(PresolveState state) {
+        List<Constraint> constraints = state.constraints();
+        Map<Expression, IntExpression> folded = new IdentityHashMap<>();
+        List<Constraint> added = new ArrayList<>();
+        ListIterator<Constraint> it = constraints.listIterator();
+        while (it.hasNext()) {
+            if (!(it.next() instanceof ExpressionIsTrue c))
+                continue;
+            BoolExpression e = (BoolExpression) fold(c.expr(), folded);
+            if (e instanceof And and) {
+                it.remove();
+                for (BoolExpression a : and.exprs())
+                    added.add(new ExpressionIsTrue(a));
+                state.rewritten();
+                continue;
+            }
+            Boolean truth = truth(e);
+            if (truth == null) {
+                if (e != c.expr()) {
+                    it.set(new ExpressionIsTrue(e));
+                    state.rewritten();
+                }
+            } else if (truth) {
+                it.remove();
+                state.removed(1);
+            } else {
+                state.setInfeasible(c + " is always false");
+            }
+        }
+        constraints.addAll(added);
+    }
+
+    /**
+     * @param e a boolean expression
+     * @return its value if all its operands are constants, null otherwise
+     */
+    static Boolean truth(BoolExpression e) {
+        return switch (e) {
+            case Eq eq when eq.a() instanceof Constant a && eq.b() instanceof Constant b -> a.v() == b.v();
+            case NotEq ne when ne.a() instanceof Constant a && ne.b() instanceof Constant b -> a.v() != b.v();
+            case LessOrEq le when le.a() instanceof Constant a && le.b() instanceof Constant b -> a.v() <= b.v();
+            case GreaterOrEq ge when ge.a() instanceof Constant a && ge.b() instanceof Constant b -> a.v() >= b.v();
+            case InSet in when in.a() instanceof Constant a -> in.b().contains(a.v());
+            case Not not -> {
+                Boolean t = truth(not.a());
+                yield t == null ? null : !t;
+            }
+            default -> null;
+        };
+    }
+
+    /**
+     * Folds the constants of an expression, the boolean expressions are simplified but never replaced by a constant,
+     * such that the result can be used wherever the expression is
+     *
+     * @param e      the expression
+     * @param folded the expressions already folded, such that shared subexpressions remain shared
+     * @return the folded expression, e itself if nothing changed
+     */
+    static IntExpression fold(IntExpression e, Map<Expression, IntExpression> folded) {
+        IntExpression f = folded.get(e);
+        if (f != null)
+            return f;
+        f = foldChildren(e, folded);
+        if (!(f instanceof BoolExpression)) {
+            try {
+                f = foldNode(f);
+            } catch (ArithmeticException overflow) {
+                // kept as is, the solver reports the overflow if it matters
+            }
+        }
+        folded.put(e, f);
+        return f;
+    }
+
+    private static IntExpression foldChildren(IntExpression e, Map<Expression, IntExpression> folded) {
+        if (e.subexpressions().isEmpty())
+            return e;
+        boolean changed = false;
+        for (Expression c : e.subexpressions()) {
+            if (c instanceof IntExpression ic && fold(ic, folded) != ic) {
+                changed = true;
+                break;
+            }
+        }
+        if (!changed)
+            return e;
+        return e.mapSubexpressions(c -> c instanceof IntExpression ic ? fold(ic, folded) : c);
+    }
+
+    private static IntExpression foldNode(IntExpression e) {
+        return switch (e) {
+            case Sum s -> foldSum(s);
+            case WeightedSum ws -> foldWeightedSum(ws);
+            case CstOffset o when o.expr() instanceof Constant c -> constant(e, Math.addExact(c.v(), o.v()));
+            case CstOffset o when o.v() == 0 -> o.expr();
+            case CstMul m when m.expr() instanceof Constant c -> constant(e, Math.multiplyExact(c.v(), m.mul()));
+            case CstMul m when m.mul() == 1 -> m.expr();
+            case UnaryMinus u when u.expr() instanceof Constant c -> constant(e, Math.negateExact(c.v()));
+            case Abs a when a.expr() instanceof Constant c -> constant(e, Math.absExact(c.v()));
+            case Min m when allConstants(m.exprs()) -> {
+                int v = Integer.MAX_VALUE;
+                for (IntExpression x : m.exprs())
+                    v = Math.min(v, ((Constant) x).v());
+                yield constant(e, v);
+            }
+            case Max m when allConstants(m.exprs()) -> {
+                int v = Integer.MIN_VALUE;
+                for (IntExpression x : m.exprs())
+                    v = Math.max(v, ((Constant) x).v());
+                yield constant(e, v);
+            }
+            case Mul m when allConstants(m.subexprs()) -> {
+                int v = 1;
+                for (IntExpression x : m.subexprs())
+                    v = Math.multiplyExact(v, ((Constant) x).v());
+                yield constant(e, v);
+            }
+            case Element1D el when el.index() instanceof Constant i && i.v() >= 0 && i.v() < el.array().length ->
+                    constant(e, el.array()[i.v()]);
+            default -> e;
+        };
+    }
+
+    private static IntExpression foldSum(Sum s) {
+        int c = 0;
+        int nConstants = 0;
+        List<IntExpression> terms = new ArrayList<>();
+        for (IntExpression x : s.subexprs()) {
+            if (x instanceof Constant k) {
+                c = Math.addExact(c, k.v());
+                nConstants++;
+            } else {
+                terms.add(x);
+            }
+        }
+        if (nConstants == 0 || (nConstants == 1 && c != 0 && terms.size() > 1))
+            return s;
+        if (terms.isEmpty())
+            return constant(s, c);
+        if (terms.size() == 1)
+            return c == 0 ? terms.getFirst() : new CstOffset(terms.getFirst(), c);
+        if (c != 0)
+            terms.add(constant(s, c));
+        return new Sum(terms.toArray(IntExpression[]::new));
+    }
+
+    private static IntExpression foldWeightedSum(WeightedSum ws) {
+        int c = 0;
+        boolean changed = false;
+        List<IntExpression> terms = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        for (int i = 0; i < ws.subexprs().length; i++) {
+            IntExpression x = ws.subexprs()[i];
+            int w = ws.weights()[i];
+            if (w == 0) {
+                changed = true;
+            } else if (x instanceof Constant k) {
+                c = Math.addExact(c, Math.multiplyExact(w, k.v()));
+                changed = true;
+            } else {
+                terms.add(x);
+                weights.add(w);
+            }
+        }
+        if (!changed)
+            return ws;
+        if (terms.isEmpty())
+            return constant(ws, c);
+        if (terms.size() == 1) {
+            IntExpression t = weights.getFirst() == 1 ? terms.getFirst() : new CstMul(terms.getFirst(), weights.getFirst());
+            return c == 0 ? t : new CstOffset(t, c);
+        }
+        if (c != 0) {
+            terms.add(constant(ws, c));
+            weights.add(1);
+        }
+        return new WeightedSum(terms.toArray(IntExpression[]::new), weights.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private static boolean allConstants(IntExpression[] exprs) {
+        for (IntExpression x : exprs)
+            if (!(x instanceof Constant))
+                return false;
+        return true;
+    }
+
+    private static Constant constant(IntExpression e, int v) {
+        return new Constant(e.getModelProxy(), v);
+    }
+}
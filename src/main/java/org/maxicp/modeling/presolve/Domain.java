@@ -0,0 +1,226 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2024 UCLouvain
+ */
+
+package org.maxicp.modeling.presolve;
+
+import org.maxicp.modeling.symbolic.IntVarRangeImpl;
+import org.maxicp.modeling.symbolic.IntVarSetImpl;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.IntPredicate;
+
+/**
+ * Domain of a symbolic variable reduced by the presolve,
+ * with which its concrete variable is created instead of its initial domain.
+ * <p>
+ * It is an interval until a value is removed inside it,
+ * then the values are enumerated if there are at most {@link #MAX_ENUMERATED} of them.
+ * Removing values inside a larger interval is not done, see {@link #canRemoveValues()}.
+ */
+public final class Domain {
+
+    /**
+     * Maximum number of values of an interval domain in which holes can be made
+     */
+    public static final int MAX_ENUMERATED = 1 << 16;
+
+    private int min;
+    private int max;
+    // the sorted values, null if the domain is the interval [min, max]
+    private int[] values;
+
+    private Domain(int min, int max, int[] values) {
+        this.min = min;
+        this.max = max;
+        this.values = values;
+    }
+
+    static Domain of(IntVarRangeImpl x) {
+        return new Domain(x.defaultMin(), x.defaultMax(), null);
+    }
+
+    static Domain of(IntVarSetImpl x) {
+        int[] values = x.dom.stream().mapToInt(Integer::intValue).toArray();
+        return new Domain(values[0], values[values.length - 1], values.length == values[values.length - 1] - values[0] + 1 ? null : values);
+    }
+
+    static Domain of(int value) {
+        return new Domain(value, value, null);
+    }
+
+    Domain copy() {
+        return new Domain(min, max, values);
+    }
+
+    /**
+     * @return the smallest value
+     */
+    public int min() {
+        return min;
+    }
+
+    /**
+     * @return the largest value
+     */
+    public int max() {
+        return max;
+    }
+
+    /**
+     * @return the number of values
+     */
+    public int size() {
+        return values == null ? Math.max(0, max - min + 1) : values.length;
+    }
+
+    /**
+     * @return true if there is no value left
+     */
+    public boolean isEmpty() {
+        return values == null ? min > max : values.length == 0;
+    }
+
+    /**
+     * @return true if there is a single value left
+     */
+    public boolean isFixed() {
+        return !isEmpty() && min == max;
+    }
+
+    /**
+     * @return true if the domain is an interval
+     */
+    public boolean isInterval() {
+        return values == null;
+    }
+
+    /**
+     * @param v a value
+     * @return true if the value is in the domain
+     */
+    public boolean contains(int v) {
+        if (v < min || v > max)
+            return false;
+        return values == null || Arrays.binarySearch(values, v) >= 0;
+    }
+
+    /**
+     * @return true if values inside the domain can be removed,
+     * i.e. it is not an interval larger than {@link #MAX_ENUMERATED}
+     */
+    public boolean canRemoveValues() {
+        return values != null || (long) max - min + 1 <= MAX_ENUMERATED;
+    }
+
+    /**
+     * @return the sorted values of the domain
+     */
+    public int[] values() {
+        if (values != null)
+            return values.clone();
+        int[] all = new int[size()];
+        for (int i = 0; i < all.length; i++)
+            all[i] = min + i;
+        return all;
+    }
+
+    /**
+     * @return the values of the domain
+     */
+    public Set<Integer> toSet() {
+        TreeSet<Integer> set = new TreeSet<>();
+        for (int v : values())
+            set.add(v);
+        return set;
+    }
+
+    /**
+     * Removes the values smaller than v
+     *
+     * @return true if the domain changed
+     */
+    boolean removeBelow(int v) {
+        if (v <= min)
+            return false;
+        if (values == null) {
+            min = v;
+        } else {
+            values = Arrays.stream(values).filter(w -> w >= v).toArray();
+            updateBounds();
+        }
+        return true;
+    }
+
+    /**
+     * Removes the values larger than v
+     *
+     * @return true if the domain changed
+     */
+    boolean removeAbove(int v) {
+        if (v >= max)
+            return false;
+        if (values == null) {
+            max = v;
+        } else {
+            values = Arrays.stream(values).filter(w -> w <= v).toArray();
+            updateBounds();
+        }
+        return true;
+    }
+
+    /**
+     * Keeps the values satisfying a predicate, the domain must allow it (see {@link #canRemoveValues()})
+     *
+     * @return true if the domain changed
+     */
+    boolean retain(IntPredicate keep) {
+        assert canRemoveValues();
+        int[] all = values();
+        int[] kept = Arrays.stream(all).filter(keep).toArray();
+        if (kept.length == all.length)
+            return false;
+        values = kept;
+        updateBounds();
+        return true;
+    }
+
+    /**
+     * Keeps the values of the domain that are in a collection, for any size of the domain
+     *
+     * @return true if the domain changed
+     */
+    boolean intersect(Collection<Integer> keep) {
+        int[] kept = keep.stream().mapToInt(Integer::intValue).filter(this::contains).sorted().distinct().toArray();
+        if (kept.length == size())
+            return false;
+        values = kept;
+        updateBounds();
+        return true;
+    }
+
+    private void updateBounds() {
+        if (values.length == 0) {
+            min = 1;
+            max = 0;
+            return;
+        }
+        min = values[0];
+        max = values[values.length - 1];
+        if (values.length == max - min + 1)
+            values = null;
+    }
+
+    @Override
+    public String toString() {
+        if (isEmpty())
+            return "{}";
+        if (values == null)
+            return min == max ? String.valueOf(min) : "{" + min + ".." + max + "}";
+        return Arrays.toString(values).replace('[', '{').replace(']', '}');
+    }
+}
@@ -0,0 +1,24 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2024 UCLouvain
+ */
+
+package org.maxicp.modeling.presolve;
+
+/**
+ * A simplification of the constraints and domains of a model, run by a {@link Presolver}
+ */
+public interface PresolvePass {
+
+    /**
+     * @return the name of the pass in the reports
+     */
+    String name();
+
+    /**
+     * Simplifies the model, counting what is done in the state
+     *
+     * @param state the constraints and domains of the model
+     */
+    void apply(PresolveState state);
+}
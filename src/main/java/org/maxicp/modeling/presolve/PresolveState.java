@@ -0,0 +1,225 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2024 UCLouvain
+ */
+
+package org.maxicp.modeling.presolve;
+
+import org.maxicp.modeling.Constraint;
+import org.maxicp.modeling.algebra.Expression;
+import org.maxicp.modeling.algebra.integer.Constant;
+import org.maxicp.modeling.algebra.integer.CstOffset;
+import org.maxicp.modeling.algebra.integer.IntExpression;
+import org.maxicp.modeling.algebra.integer.UnaryMinus;
+import org.maxicp.modeling.symbolic.IntVarRangeImpl;
+import org.maxicp.modeling.symbolic.IntVarSetImpl;
+import org.maxicp.modeling.symbolic.SymbolicIntVar;
+
+import java.util.*;
+
+/**
+ * The constraints and the domains of the variables being presolved,
+ * modified in place by the {@link PresolvePass}.
+ * <p>
+ * The passes count what they do with {@link #removed}, {@link #rewritten} and {@link #reduced},
+ * such that the {@link Presolver} reports it and knows when a fix point is reached.
+ */
+public final class PresolveState {
+
+    private final List<Constraint> constraints;
+    private final IdentityHashMap<SymbolicIntVar, Domain> domains = new IdentityHashMap<>();
+    private final Set<SymbolicIntVar> variables = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<SymbolicIntVar> eliminated = Collections.newSetFromMap(new IdentityHashMap<>());
+    private String infeasible = null;
+
+    int nRemoved = 0;
+    int nRewritten = 0;
+    int nReduced = 0;
+
+    PresolveState(Iterable<Constraint> constraints) {
+        this.constraints = new ArrayList<>();
+        for (Constraint c : constraints)
+            this.constraints.add(c);
+        for (Constraint c : this.constraints)
+            collectVariables(c, variables);
+    }
+
+    /**
+     * @return the constraints, that the passes modify in place
+     */
+    public List<Constraint> constraints() {
+        return constraints;
+    }
+
+    /**
+     * @return the variables of the initial constraints, whose domain can be reduced
+     */
+    public Set<SymbolicIntVar> variables() {
+        return Collections.unmodifiableSet(variables);
+    }
+
+    /**
+     * @param x a variable
+     * @return its domain, reduced by the presolve, null if the domain of the variable cannot be reduced
+     */
+    public Domain domain(SymbolicIntVar x) {
+        Domain d = domains.get(x);
+        if (d != null)
+            return d;
+        d = switch (x) {
+            case IntVarRangeImpl r -> Domain.of(r);
+            case IntVarSetImpl s -> Domain.of(s);
+            default -> null;
+        };
+        if (d != null)
+            domains.put(x, d);
+        return d;
+    }
+
+    /**
+     * Replaces the domain of a variable
+     *
+     * @param x a variable whose domain can be reduced
+     * @param d its new domain, not empty
+     */
+    void setDomain(SymbolicIntVar x, Domain d) {
+        assert !d.isEmpty();
+        domains.put(x, d);
+    }
+
+    /**
+     * @return the domains reduced by the presolve
+     */
+    Map<SymbolicIntVar, Domain> reducedDomains() {
+        IdentityHashMap<SymbolicIntVar, Domain> reduced = new IdentityHashMap<>();
+        for (Map.Entry<SymbolicIntVar, Domain> e : domains.entrySet()) {
+            Domain initial = e.getKey() instanceof IntVarRangeImpl r ? Domain.of(r) : Domain.of((IntVarSetImpl) e.getKey());
+            if (initial.size() != e.getValue().size())
+                reduced.put(e.getKey(), e.getValue());
+        }
+        return reduced;
+    }
+
+    /**
+     * @param e an expression
+     * @return a lower bound of the expression given the reduced domains,
+     * {@link Integer#MIN_VALUE} if it is not known
+     */
+    public int min(IntExpression e) {
+        return switch (e) {
+            case Constant c -> c.v();
+            case SymbolicIntVar x when domain(x) != null -> domain(x).min();
+            case CstOffset o -> {
+                int m = min(o.expr());
+                yield m == Integer.MIN_VALUE ? m : saturate((long) m + o.v());
+            }
+            case UnaryMinus u -> {
+                int m = max(u.expr());
+                yield m == Integer.MAX_VALUE ? Integer.MIN_VALUE : -m;
+            }
+            default -> Integer.MIN_VALUE;
+        };
+    }
+
+    /**
+     * @param e an expression
+     * @return an upper bound of the expression given the reduced domains,
+     * {@link Integer#MAX_VALUE} if it is not known
+     */
+    public int max(IntExpression e) {
+        return switch (e) {
+            case Constant c -> c.v();
+            case SymbolicIntVar x when domain(x) != null -> domain(x).max();
+            case CstOffset o -> {
+                int m = max(o.expr());
+                yield m == Integer.MAX_VALUE ? m : saturate((long) m + o.v());
+            }
+            case UnaryMinus u -> {
+                int m = min(u.expr());
+                yield m == Integer.MIN_VALUE ? Integer.MAX_VALUE : -m;
+            }
+            default -> Integer.MAX_VALUE;
+        };
+    }
+
+    private static int saturate(long v) {
+        return (int) Math.max(Integer.MIN_VALUE + 1L, Math.min(Integer.MAX_VALUE - 1L, v));
+    }
+
+    /**
+     * Records the removal of constraints
+     *
+     * @param n the number of constraints removed
+     */
+    public void removed(int n) {
+        nRemoved += n;
+    }
+
+    /**
+     * Records that a constraint was replaced by a simpler one
+     */
+    public void rewritten() {
+        nRewritten++;
+    }
+
+    /**
+     * Records that the domain of a variable was reduced
+     */
+    public void reduced() {
+        nReduced++;
+    }
+
+    /**
+     * Records that a variable is replaced by its value in the constraints
+     *
+     * @param x the fixed variable
+     */
+    void eliminated(SymbolicIntVar x) {
+        eliminated.add(x);
+    }
+
+    /**
+     * @return the variables replaced by their value in the constraints
+     */
+    Set<SymbolicIntVar> eliminated() {
+        return eliminated;
+    }
+
+    /**
+     * Records that the model is infeasible.
+     * The constraint proving it is kept, such that the solver fails when posting it.
+     *
+     * @param reason why the model is infeasible
+     */
+    public void setInfeasible(String reason) {
+        if (infeasible == null)
+            infeasible = reason;
+    }
+
+    /**
+     * @return the reason why the model is infeasible, null if it is not known to be infeasible
+     */
+    public String infeasible() {
+        return infeasible;
+    }
+
+    /**
+     * Collects the symbolic integer variables used by a constraint
+     *
+     * @param c   the constraint
+     * @param out the set the variables are added to
+     */
+    static void collectVariables(Constraint c, Set<SymbolicIntVar> out) {
+        ArrayDeque<Expression> todo = new ArrayDeque<>(c.scope());
+        Set<Expression> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        while (!todo.isEmpty()) {
+            Expression e = todo.pop();
+            if (!seen.add(e))
+                continue;
+            if (e instanceof SymbolicIntVar x)
+                out.add(x);
+            else
+                todo.addAll(e.subexpressions());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2024 UCLouvain
+ */
+
+package org.maxicp.modeling.presolve;
+
+import org.maxicp.modeling.Constraint;
+import org.maxicp.modeling.symbolic.SymbolicIntVar;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Result of a {@link Presolver}
+ *
+ * @param constraints   the constraints to instantiate instead of the ones of the model
+ * @param domains       the reduced domains, with which the variables must be created
+ * @param eliminated    the fixed variables replaced by their value in the constraints
+ * @param unconstrained the variables of the model that are not used by the constraints anymore
+ * @param infeasible    the reason why the model is infeasible, null if it is not known to be
+ * @param reports       what each pass did
+ */
+public record PresolvedModel(List<Constraint> constraints,
+                             Map<SymbolicIntVar, Domain> domains,
+                             Set<SymbolicIntVar> eliminated,
+                             Set<SymbolicIntVar> unconstrained,
+                             String infeasible,
+                             List<Report> reports) {
+
+    /**
+     * What a pass did, summed over the rounds of the presolve
+     *
+     * @param pass      the name of the pass
+     * @param runs      the number of times it was run
+     * @param nanos     the time spent in the pass
+     * @param removed   the number of constraints removed
+     * @param rewritten the number of constraints replaced by simpler ones
+     * @param reduced   the number of domains reduced
+     */
+    public record Report(String pass, int runs, long nanos, int removed, int rewritten, int reduced) {
+        @Override
+        public String toString() {
+            return String.format("%-24s %3d runs %9.3f ms  removed %6d  rewritten %6d  reduced domains %6d",
+                    pass, runs, nanos / 1e6, removed, rewritten, reduced);
+        }
+    }
+
+    /**
+     * @return true if the presolve proved that the model has no solution
+     */
+    public boolean isInfeasible() {
+        return infeasible != null;
+    }
+
+    /**
+     * @param x a variable
+     * @return the reduced domain of the variable, null if it was not reduced
+     */
+    public Domain domain(SymbolicIntVar x) {
+        return domains.get(x);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("presolve:\n");
+        for (Report r : reports)
+            sb.append("  ").append(r).append('\n');
+        sb.append("  ").append(constraints.size()).append(" constraints, ")
+                .append(domains.size()).append(" reduced domains, ")
+                .append(eliminated.size()).append(" eliminated variables, ")
+                .append(unconstrained.size()).append(" unconstrained variables\n");
+        if (infeasible != null)
+            sb.append("  infeasible: ").append(infeasible).append('\n');
+        return sb.toString();
+    }
+}
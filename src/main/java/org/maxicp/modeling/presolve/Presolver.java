@@ -0,0 +1,105 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2024 UCLouvain
+ */
+
+package org.maxicp.modeling.presolve;
+
+import org.maxicp.modeling.Constraint;
+import org.maxicp.modeling.symbolic.SymbolicIntVar;
+
+import java.util.*;
+
+/**
+ * Runs a sequence of {@link PresolvePass} on the constraints of a model,
+ * in rounds until none of them changes the model or the maximum number of rounds is reached.
+ * Each pass is timed and reports what it removed, see {@link PresolvedModel#reports()}.
+ * <p>
+ * The presolve is done on the symbolic layer, before the instantiation:
+ * the constraints are simplified and the domains reduced by the unary constraints,
+ * the variables being created with their reduced domains.
+ */
+public final class Presolver {
+
+    private final PresolvePass[] passes;
+    private int maxRounds = 5;
+
+    /**
+     * Creates a presolver running the given passes, in this order
+     *
+     * @param passes the passes
+     */
+    public Presolver(PresolvePass... passes) {
+        this.passes = passes.clone();
+    }
+
+    /**
+     * @return a presolver with all the passes of this package
+     */
+    public static Presolver standard() {
+        return new Presolver(
+                new ConstantFolding(),
+                new UnaryDomainReduction(),
+                new RedundantConstraintElimination(),
+                new TableMerging(),
+                new VariableElimination());
+    }
+
+    /**
+     * Sets the maximum number of rounds of the passes
+     *
+     * @param maxRounds the maximum number of rounds, at least 1
+     * @return this presolver
+     */
+    public Presolver setMaxRounds(int maxRounds) {
+        if (maxRounds < 1) throw new IllegalArgumentException("at least one round is needed");
+        this.maxRounds = maxRounds;
+        return this;
+    }
+
+    /**
+     * Presolves constraints
+     *
+     * @param constraints the constraints of the model
+     * @return the simplified constraints and reduced domains
+     */
+    public PresolvedModel presolve(Iterable<Constraint> constraints) {
+        PresolveState state = new PresolveState(constraints);
+        int[] runs = new int[passes.length];
+        long[] nanos = new long[passes.length];
+        int[] removed = new int[passes.length];
+        int[] rewritten = new int[passes.length];
+        int[] reduced = new int[passes.length];
+        boolean changed = true;
+        for (int round = 0; round < maxRounds && changed && state.infeasible() == null; round++) {
+            changed = false;
+            for (int p = 0; p < passes.length && state.infeasible() == null; p++) {
+                state.nRemoved = 0;
+                state.nRewritten = 0;
+                state.nReduced = 0;
+                long start = System.nanoTime();
+                passes[p].apply(state);
+                nanos[p] += System.nanoTime() - start;
+                runs[p]++;
+                removed[p] += state.nRemoved;
+                rewritten[p] += state.nRewritten;
+                reduced[p] += state.nReduced;
+                changed |= state.nRemoved + state.nRewritten + state.nReduced > 0;
+            }
+        }
+        List<PresolvedModel.Report> reports = new ArrayList<>(passes.length);
+        for (int p = 0; p < passes.length; p++)
+            reports.add(new PresolvedModel.Report(passes[p].name(), runs[p], nanos[p], removed[p], rewritten[p], reduced[p]));
+
+        Set<SymbolicIntVar> used = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Constraint c : state.constraints())
+            PresolveState.collectVariables(c, used);
+        Set<SymbolicIntVar> unconstrained = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (SymbolicIntVar x : state.variables())
+            if (!used.contains(x))
+                unconstrained.add(x);
+        return new PresolvedModel(List.copyOf(state.constraints()), Collections.unmodifiableMap(state.reducedDomains()),
+                Collections.unmodifiableSet(state.eliminated()), Collections.unmodifiableSet(unconstrained),
+                state.infeasible(), List.copyOf(reports));
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2024 UCLouvain
+ */
+
+package org.maxicp.modeling.presolve;
+
+import org.maxicp.modeling.Constraint;
+import org.maxicp.modeling.algebra.StructuralKey;
+import org.maxicp.modeling.algebra.bool.GreaterOrEq;
+import org.maxicp.modeling.algebra.bool.LessOrEq;
+import org.maxicp.modeling.algebra.bool.NotEq;
+import org.maxicp.modeling.algebra.integer.IntExpression;
+import org.maxicp.modeling.constraints.AllDifferent;
+import org.maxicp.modeling.constraints.ExpressionIsTrue;
+
+import java.util.*;
+
+/**
+ * Removes the constraints that do not restrict the model:
+ * <ul>
+ *     <li>the duplicates of a constraint, compared by their structure;</li>
+ *     <li>the comparisons entailed by the bounds of the domains, e.g. {@code x <= y} when {@code max(x) <= min(y)};</li>
+ *     <li>the {@link AllDifferent} on less than two expressions
+ *     or on a subset of the expressions of another {@link AllDifferent}.</li>
+ * </ul>
+ */
+public final class RedundantConstraintElimination implements PresolvePass {
+
+    /**
+     * Maximum number of {@link AllDifferent} compared pairwise to find the subsumed ones
+     */
+    private static final int MAX_ALLDIFF_PAIRS = 1000;
+
+    @Override
+    public String name() {
+        return "redundant constraints";
+    }
+
+    @Override
+    public void apply(PresolveState state) {
+        List<Constraint> constraints = state.constraints();
+        Set<Object> seen = new HashSet<>();
+        List<AllDifferent> allDiffs = new ArrayList<>();
+        Iterator<Constraint> it = constraints.iterator();
+        while (it.hasNext()) {
+            Constraint c = it.next();
+            if (!seen.add(StructuralKey.of(c)) || isEntailed(c, state)) {
+                it.remove();
+                state.removed(1);
+            } else if (c instanceof AllDifferent a) {
+                allDiffs.add(a);
+            }
+        }
+        if (allDiffs.size() > 1 && allDiffs.size() <= MAX_ALLDIFF_PAIRS) {
+            Set<Constraint> subsumed = subsumedAllDifferent(allDiffs);
+            if (!subsumed.isEmpty()) {
+                constraints.removeIf(subsumed::contains);
+                state.removed(subsumed.size());
+            }
+        }
+    }
+
+    private static boolean isEntailed(Constraint c, PresolveState state) {
+        return switch (c) {
+            case ExpressionIsTrue(LessOrEq(IntExpression a, IntExpression b)) -> lessOrEqual(a, b, state);
+            case ExpressionIsTrue(GreaterOrEq(IntExpression a, IntExpression b)) -> lessOrEqual(b, a, state);
+            case ExpressionIsTrue(NotEq(IntExpression a, IntExpression b)) ->
+                    known(a, b, state) && (state.max(a) < state.min(b) || state.max(b) < state.min(a));
+            case AllDifferent a -> a.x().size() < 2;
+            default -> false;
+        };
+    }
+
+    private static boolean lessOrEqual(IntExpression a, IntExpression b, PresolveState state) {
+        return known(a, b, state) && state.max(a) <= state.min(b);
+    }
+
+    private static boolean known(IntExpression a, IntExpression b, PresolveState state) {
+        return state.min(a) != Integer.MIN_VALUE && state.max(a) != Integer.MAX_VALUE
+                && state.min(b) != Integer.MIN_VALUE && state.max(b) != Integer.MAX_VALUE;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<Constraint> subsumedAllDifferent(List<AllDifferent> allDiffs) {
+        List<AllDifferent> bySize = new ArrayList<>(allDiffs);
+        bySize.sort(Comparator.comparingInt((AllDifferent a) -> a.x().size()).reversed());
+        List<Set<Object>> scopes = new ArrayList<>(bySize.size());
+        for (AllDifferent a : bySize)
+            scopes.add((Set<Object>) StructuralKey.of(a.x()));
+        Set<Constraint> subsumed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 1; i < bySize.size(); i++) {
+            for (int j = 0; j < i; j++) {
+                if (!subsumed.contains(bySize.get(j)) && scopes.get(j).containsAll(scopes.get(i))) {
+                    subsumed.add(bySize.get(i));
+                    break;
+                }
+            }
+        }
+        return subsumed;
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2024 UCLouvain
+ */
+
+package org.maxicp.modeling.presolve;
+
+import org.maxicp.modeling.Constraint;
+import org.maxicp.modeling.algebra.StructuralKey;
+import org.maxicp.modeling.algebra.integer.Constant;
+import org.maxicp.modeling.algebra.integer.IntExpression;
+import org.maxicp.modeling.constraints.NegTable;
+import org.maxicp.modeling.constraints.Table;
+import org.maxicp.modeling.symbolic.SymbolicIntVar;
+
+import java.util.*;
+
+/**
+ * Simplifies the tables without star:
+ * <ul>
+ *     <li>the tuples with a value outside the domains are removed;</li>
+ *     <li>the positive tables on the same expressions, possibly in another order, are replaced by the intersection of their tuples;</li>
+ *     <li>the negative tables on the same expressions are replaced by the union of their tuples.</li>
+ * </ul>
+ * A positive table without valid tuple is kept and the model is reported as infeasible,
+ * a negative table without tuple is removed.
+ */
+public final class TableMerging implements PresolvePass {
+
+    private record Tuple(int[] values) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Tuple other && Arrays.equals(values, other.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(values);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "table merging";
+    }
+
+    @Override
+    public void apply(PresolveState state) {
+        List<Constraint> constraints = state.constraints();
+        // tables grouped by the set of their expressions, in the order of the constraints
+        Map<Object, List<Integer>> positive = new LinkedHashMap<>();
+        Map<Object, List<Integer>> negative = new LinkedHashMap<>();
+        for (int i = 0; i < constraints.size(); i++) {
+            Constraint c = constraints.get(i);
+            if (c instanceof Table t && t.starred().isEmpty()) {
+                int[][] valid = validTuples(t.x(), t.array(), state);
+                if (valid.length == 0) {
+                    state.setInfeasible(c + " has no valid tuple");
+                    continue;
+                }
+                if (valid.length != t.array().length) {
+                    t = new Table(t.x(), valid);
+                    constraints.set(i, t);
+                    state.rewritten();
+                }
+                Object scope = scope(t.x());
+                if (scope != null)
+                    positive.computeIfAbsent(scope, k -> new ArrayList<>()).add(i);
+            } else if (c instanceof NegTable t && t.starred().isEmpty()) {
+                int[][] valid = validTuples(t.x(), t.array(), state);
+                if (valid.length != t.array().length) {
+                    t = new NegTable(t.x(), valid);
+                    constraints.set(i, t);
+                    state.rewritten();
+                }
+                Object scope = scope(t.x());
+                if (scope != null)
+                    negative.computeIfAbsent(scope, k -> new ArrayList<>()).add(i);
+            }
+        }
+        Set<Integer> removed = new HashSet<>();
+        for (List<Integer> group : positive.values())
+            if (group.size() > 1)
+                merge(constraints, group, true, removed, state);
+        for (List<Integer> group : negative.values())
+            if (group.size() > 1)
+                merge(constraints, group, false, removed, state);
+        for (int i = 0; i < constraints.size(); i++)
+            if (constraints.get(i) instanceof NegTable t && t.array().length == 0)
+                removed.add(i);
+        if (!removed.isEmpty()) {
+            List<Constraint> kept = new ArrayList<>(constraints.size() - removed.size());
+            for (int i = 0; i < constraints.size(); i++)
+                if (!removed.contains(i))
+                    kept.add(constraints.get(i));
+            constraints.clear();
+            constraints.addAll(kept);
+            state.removed(removed.size());
+        }
+    }
+
+    /**
+     * Merges the tables of a group into the first one
+     */
+    private static void merge(List<Constraint> constraints, List<Integer> group, boolean intersect,
+                              Set<Integer> removed, PresolveState state) {
+        IntExpression[] x = scopeOf(constraints.get(group.getFirst()));
+        List<Object> columns = columnKeys(x);
+        LinkedHashSet<Tuple> tuples = tuples(tableOf(constraints.get(group.getFirst())), null);
+        for (int k = 1; k < group.size(); k++) {
+            Constraint other = constraints.get(group.get(k));
+            List<Object> otherColumns = columnKeys(scopeOf(other));
+            int[] perm = new int[x.length];
+            for (int i = 0; i < x.length; i++)
+                perm[i] = otherColumns.indexOf(columns.get(i));
+            LinkedHashSet<Tuple> otherTuples = tuples(tableOf(other), perm);
+            if (intersect)
+                tuples.retainAll(otherTuples);
+            else
+                tuples.addAll(otherTuples);
+            removed.add(group.get(k));
+        }
+        int[][] array = tuples.stream().map(Tuple::values).toArray(int[][]::new);
+        if (intersect) {
+            if (array.length == 0) {
+                // the tables are kept, the solver fails on them
+                state.setInfeasible("the tables on " + Arrays.toString(x) + " have no common tuple");
+                group.subList(1, group.size()).forEach(removed::remove);
+                return;
+            }
+            constraints.set(group.getFirst(), new Table(x, array));
+        } else {
+            constraints.set(group.getFirst(), new NegTable(x, array));
+        }
+        state.rewritten();
+    }
+
+    private static IntExpression[] scopeOf(Constraint c) {
+        return c instanceof Table t ? t.x() : ((NegTable) c).x();
+    }
+
+    private static int[][] tableOf(Constraint c) {
+        return c instanceof Table t ? t.array() : ((NegTable) c).array();
+    }
+
+    private static LinkedHashSet<Tuple> tuples(int[][] array, int[] perm) {
+        LinkedHashSet<Tuple> tuples = new LinkedHashSet<>();
+        for (int[] tuple : array) {
+            if (perm == null) {
+                tuples.add(new Tuple(tuple));
+            } else {
+                int[] reordered = new int[perm.length];
+                for (int i = 0; i < perm.length; i++)
+                    reordered[i] = tuple[perm[i]];
+                tuples.add(new Tuple(reordered));
+            }
+        }
+        return tuples;
+    }
+
+    private static List<Object> columnKeys(IntExpression[] x) {
+        List<Object> keys = new ArrayList<>(x.length);
+        for (IntExpression e : x)
+            keys.add(StructuralKey.of(e));
+        return keys;
+    }
+
+    /**
+     * @return the set of the expressions of a table, null if an expression appears twice
+     */
+    private static Object scope(IntExpression[] x) {
+        List<Object> keys = columnKeys(x);
+        Set<Object> scope = new HashSet<>(keys);
+        return scope.size() == keys.size() ? scope : null;
+    }
+
+    /**
+     * @return the tuples whose values are in the domains of the expressions
+     */
+    private static int[][] validTuples(IntExpression[] x, int[][] array, PresolveState state) {
+        Domain[] domains = new Domain[x.length];
+        for (int i = 0; i < x.length; i++) {
+            if (x[i] instanceof SymbolicIntVar v)
+                domains[i] = state.domain(v);
+            else if (x[i] instanceof Constant c)
+                domains[i] = Domain.of(c.v());
+        }
+        List<int[]> valid = new ArrayList<>(array.length);
+        for (int[] tuple : array) {
+            boolean ok = true;
+            for (int i = 0; i < x.length && ok; i++)
+                ok = domains[i] == null || domains[i].contains(tuple[i]);
+            if (ok)
+                valid.add(tuple);
+        }
+        return valid.size() == array.length ? array : valid.toArray(int[][]::new);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2024 UCLouvain
+ */
+
+package org.maxicp.modeling.presolve;
+
+import org.maxicp.modeling.Constraint;
+import org.maxicp.modeling.algebra.bool.*;
+import org.maxicp.modeling.algebra.integer.Constant;
+import org.maxicp.modeling.algebra.integer.IntExpression;
+import org.maxicp.modeling.constraints.ExpressionIsTrue;
+import org.maxicp.modeling.constraints.NegTable;
+import org.maxicp.modeling.constraints.Table;
+import org.maxicp.modeling.symbolic.SymbolicIntVar;
+
+import java.util.*;
+
+/**
+ * Applies the unary constraints to the domains of their variable and removes them,
+ * such that the variables are created with the reduced domains.
+ * <p>
+ * The unary constraints are the comparisons of a variable with a constant,
+ * the {@link InSet} and the tables with a single column.
+ * A constraint emptying the domain of its variable is kept and the model is reported as infeasible.
+ */
+public final class UnaryDomainReduction implements PresolvePass {
+
+    @Override
+    public String name() {
+        return "unary domain reduction";
+    }
+
+    @Override
+    public void apply(PresolveState state) {
+        ListIterator<Constraint> it = state.constraints().listIterator();
+        while (it.hasNext()) {
+            Constraint c = it.next();
+            SymbolicIntVar x = variable(c);
+            if (x == null)
+                continue;
+            Domain d = state.domain(x);
+            if (d == null)
+                continue;
+            Domain reduced = d.copy();
+            Boolean changed = reduce(c, reduced);
+            if (changed == null)
+                continue;
+            if (reduced.isEmpty()) {
+                state.setInfeasible(c + " empties the domain of " + x);
+                continue;
+            }
+            it.remove();
+            state.removed(1);
+            if (changed) {
+                state.setDomain(x, reduced);
+                state.reduced();
+            }
+        }
+    }
+
+    /**
+     * @return the variable of a unary constraint that can be applied to the domain, null otherwise
+     */
+    private static SymbolicIntVar variable(Constraint c) {
+        IntExpression x = switch (c) {
+            case ExpressionIsTrue(BoolExpression e) -> switch (e) {
+                case Eq(IntExpression a, IntExpression b) -> operand(a, b);
+                case NotEq(IntExpression a, IntExpression b) -> operand(a, b);
+                case LessOrEq(IntExpression a, IntExpression b) -> operand(a, b);
+                case GreaterOrEq(IntExpression a, IntExpression b) -> operand(a, b);
+                case InSet(IntExpression a, Set<Integer> ignored) -> a;
+                case Not(InSet(IntExpression a, Set<Integer> ignored)) -> a;
+                default -> null;
+            };
+            case Table t when t.x().length == 1 -> t.x()[0];
+            case NegTable t when t.x().length == 1 && t.starred().isEmpty() -> t.x()[0];
+            default -> null;
+        };
+        return x instanceof SymbolicIntVar v ? v : null;
+    }
+
+    private static IntExpression operand(IntExpression a, IntExpression b) {
+        if (a instanceof Constant)
+            return b;
+        return b instanceof Constant ? a : null;
+    }
+
+    /**
+     * Applies a unary constraint to a domain
+     *
+     * @return whether the domain changed, null if the constraint cannot be applied
+     */
+    private static Boolean reduce(Constraint c, Domain d) {
+        return switch (c) {
+            case ExpressionIsTrue(Eq(IntExpression a, IntExpression b)) -> {
+                int v = value(a, b);
+                if (!d.contains(v))
+                    yield d.intersect(List.of());
+                yield d.removeBelow(v) | d.removeAbove(v);
+            }
+            case ExpressionIsTrue(NotEq(IntExpression a, IntExpression b)) -> {
+                int v = value(a, b);
+                if (!d.contains(v))
+                    yield false;
+                if (!d.canRemoveValues())
+                    yield null;
+                yield d.retain(w -> w != v);
+            }
+            case ExpressionIsTrue(LessOrEq(IntExpression a, Constant b)) -> d.removeAbove(b.v());
+            case ExpressionIsTrue(LessOrEq(Constant a, IntExpression b)) -> d.removeBelow(a.v());
+            case ExpressionIsTrue(GreaterOrEq(IntExpression a, Constant b)) -> d.removeBelow(b.v());
+            case ExpressionIsTrue(GreaterOrEq(Constant a, IntExpression b)) -> d.removeAbove(a.v());
+            case ExpressionIsTrue(InSet(IntExpression a, Set<Integer> values)) -> d.intersect(values);
+            case ExpressionIsTrue(Not(InSet(IntExpression a, Set<Integer> values))) -> {
+                if (!d.canRemoveValues())
+                    yield null;
+                yield d.retain(w -> !values.contains(w));
+            }
+            case Table t -> {
+                List<Integer> values = new ArrayList<>();
+                for (int[] tuple : t.array()) {
+                    if (t.starred().isPresent() && tuple[0] == t.starred().get())
+                        yield false;
+                    values.add(tuple[0]);
+                }
+                yield d.intersect(values);
+            }
+            case NegTable t -> {
+                if (!d.canRemoveValues())
+                    yield null;
+                Set<Integer> values = new HashSet<>();
+                for (int[] tuple : t.array())
+                    values.add(tuple[0]);
+                yield d.retain(w -> !values.contains(w));
+            }
+            default -> null;
+        };
+    }
+
+    private static int value(IntExpression a, IntExpression b) {
+        return a instanceof Constant c ? c.v() : ((Constant) b).v();
+    }
+}
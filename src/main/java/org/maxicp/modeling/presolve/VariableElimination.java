@@ -0,0 +1,91 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2024 UCLouvain
+ */
+
+package org.maxicp.modeling.presolve;
+
+import org.maxicp.modeling.Constraint;
+import org.maxicp.modeling.algebra.Expression;
+import org.maxicp.modeling.algebra.bool.BoolExpression;
+import org.maxicp.modeling.algebra.integer.Constant;
+import org.maxicp.modeling.algebra.integer.IntExpression;
+import org.maxicp.modeling.constraints.ExpressionIsTrue;
+import org.maxicp.modeling.symbolic.SymbolicIntVar;
+
+import java.util.IdentityHashMap;
+import java.util.ListIterator;
+import java.util.Map;
+
+/**
+ * Eliminates the variables whose domain is reduced to a single value:
+ * they are replaced by their value in the expressions of the {@link ExpressionIsTrue} constraints,
+ * which are then folded as by {@link ConstantFolding}.
+ * The variables remain in the other constraints, and are created fixed if they are used.
+ * <p>
+ * The variables that are not used by any constraint anymore are reported by the {@link Presolver}.
+ */
+public final class VariableElimination implements PresolvePass {
+
+    @Override
+    public String name() {
+        return "variable elimination";
+    }
+
+    @Override
+    public void apply(PresolveState state) {
+        Map<Expression, IntExpression> substituted = new IdentityHashMap<>();
+        Map<Expression, IntExpression> folded = new IdentityHashMap<>();
+        ListIterator<Constraint> it = state.constraints().listIterator();
+        while (it.hasNext()) {
+            if (!(it.next() instanceof ExpressionIsTrue c))
+                continue;
+            IntExpression s = substitute(c.expr(), substituted, state);
+            if (s == c.expr())
+                continue;
+            BoolExpression e = (BoolExpression) ConstantFolding.fold(s, folded);
+            Boolean truth = ConstantFolding.truth(e);
+            if (truth == null) {
+                it.set(new ExpressionIsTrue(e));
+                state.rewritten();
+            } else if (truth) {
+                it.remove();
+                state.removed(1);
+            } else {
+                state.setInfeasible(c + " is violated by the fixed variables");
+            }
+        }
+    }
+
+    /**
+     * Replaces the fixed variables of an expression by their value,
+     * the boolean expressions being never replaced by a constant
+     *
+     * @return the expression, e itself if it has no fixed variable
+     */
+    private static IntExpression substitute(IntExpression e, Map<Expression, IntExpression> memo, PresolveState state) {
+        IntExpression s = memo.get(e);
+        if (s != null)
+            return s;
+        s = e;
+        if (e instanceof SymbolicIntVar x && !(e instanceof BoolExpression)) {
+            Domain d = state.domain(x);
+            if (d != null && d.isFixed()) {
+                s = new Constant(x.getModelProxy(), d.min());
+                state.eliminated(x);
+            }
+        } else {
+            boolean changed = false;
+            for (Expression c : e.subexpressions()) {
+                if (c instanceof IntExpression ic && substitute(ic, memo, state) != ic) {
+                    changed = true;
+                    break;
+                }
+            }
+            if (changed)
+                s = e.mapSubexpressions(c -> c instanceof IntExpression ic ? substitute(ic, memo, state) : c);
+        }
+        memo.put(e, s);
+        return s;
+    }
+}
@@ -0,0 +1,9 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2024 UCLouvain
+ */
+
+/**
+ * Presolve of the symbolic models, simplifying their constraints and domains before they are instantiated
+ */
+package org.maxicp.modeling.presolve;
@@ -0,0 +1,51 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.modeling.symbolic;
+
+import org.maxicp.modeling.concrete.ConcreteIntVar;
+import org.maxicp.modeling.concrete.ConcreteModel;
+import org.maxicp.modeling.concrete.PermanentVars;
+
+/**
+ * Binding of a symbolic variable to its concrete variable in the current model.
+ * <p>
+ * Resolving the concrete variable costs a lookup of the current model of the thread
+ * in the {@link org.maxicp.modeling.ModelProxy} and a lookup in the mapping of the concrete model.
+ * When the concrete model tells that the variable is permanent, it is kept in the
+ * {@link PermanentVars} of the concrete model, a dense array indexed by the index of the variable.
+ * The next lookups then cost the current model of the thread and an array access.
+ * <p>
+ * Each thread solves its own concrete model, hence has its own bindings:
+ * the threads never write to a shared field.
+ */
+final class ConcreteBinding {
+
+    private final SymbolicIntVar var;
+    private final int index;
+
+    ConcreteBinding(SymbolicIntVar var) {
+        this.var = var;
+        this.index = var.getModelProxy().nextVariableIndex();
+    }
+
+    /**
+     * @return the concrete variable in the current model, null if the current model is not concrete
+     */
+    ConcreteIntVar get() {
+        if (!(var.getModelProxy().getModel() instanceof ConcreteModel model))
+            return null;
+        PermanentVars permanent = index < 0 ? null : model.permanentVars();
+        if (permanent != null) {
+            ConcreteIntVar x = permanent.get(index);
+            if (x != null)
+                return x;
+        }
+        ConcreteIntVar x = model.getConcreteVar(var);
+        if (permanent != null && model.isPermanent(var))
+            permanent.put(index, x);
+        return x;
+    }
+}
@@ -7,6 +7,7 @@ package org.maxicp.modeling.symbolic;
 
 import org.maxicp.modeling.ModelProxy;
 import org.maxicp.modeling.algebra.VariableNotFixedException;
+import org.maxicp.modeling.concrete.ConcreteIntVar;
 
 public class IntVarRangeImpl implements SymbolicIntVar {
 
@@ -15,6 +16,7 @@ public class IntVarRangeImpl implements SymbolicIntVar {
     private final ModelProxy modelProxy;
     private final String id;
     private final int idd;
+    private final ConcreteBinding binding;
 
     public IntVarRangeImpl(ModelProxy modelProxy, String id, int min, int max) {
         this.min = min;
@@ -23,6 +25,7 @@ public class IntVarRangeImpl implements SymbolicIntVar {
         this.id = id;
         this.modelProxy = modelProxy;
         this.idd = modelProxy.getId();;
+        this.binding = new ConcreteBinding(this);
     }
 
     public IntVarRangeImpl(ModelProxy modelProxy, int min, int max) {
@@ -62,6 +65,48 @@ public class IntVarRangeImpl implements SymbolicIntVar {
         return defaultSize();
     }
 
+    @Override
+    public int evaluate() throws VariableNotFixedException {
+        ConcreteIntVar x = binding.get();
+        return x == null ? defaultEvaluate() : x.evaluate();
+    }
+
+    @Override
+    public int min() {
+        ConcreteIntVar x = binding.get();
+        return x == null ? defaultMin() : x.min();
+    }
+
+    @Override
+    public int max() {
+        ConcreteIntVar x = binding.get();
+        return x == null ? defaultMax() : x.max();
+    }
+
+    @Override
+    public int size() {
+        ConcreteIntVar x = binding.get();
+        return x == null ? defaultSize() : x.size();
+    }
+
+    @Override
+    public boolean contains(int v) {
+        ConcreteIntVar x = binding.get();
+        return x == null ? defaultContains(v) : x.contains(v);
+    }
+
+    @Override
+    public int fillArray(int[] array) {
+        ConcreteIntVar x = binding.get();
+        return x == null ? defaultFillArray(array) : x.fillArray(array);
+    }
+
+    @Override
+    public boolean isFixed() {
+        ConcreteIntVar x = binding.get();
+        return x == null ? defaultSize() == 1 : x.isFixed();
+    }
+
     @Override
     public String toString() {
         if (getModelProxy().isConcrete()) {
@@ -79,7 +124,10 @@ public class IntVarRangeImpl implements SymbolicIntVar {
 
     @Override
     public void fix(int v) {
-        getModelProxy().getConcreteModel().getConcreteVar(this).fix(v);
+        ConcreteIntVar x = binding.get();
+        if (x == null)
+            throw new ModelProxy.NotConcreteException();
+        x.fix(v);
     }
 
     @Override
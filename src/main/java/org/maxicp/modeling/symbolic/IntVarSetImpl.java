@@ -7,6 +7,7 @@ package org.maxicp.modeling.symbolic;
 
 import org.maxicp.modeling.ModelProxy;
 import org.maxicp.modeling.algebra.VariableNotFixedException;
+import org.maxicp.modeling.concrete.ConcreteIntVar;
 
 import java.util.Set;
 import java.util.TreeSet;
@@ -15,6 +16,7 @@ public class IntVarSetImpl implements SymbolicIntVar {
     public final TreeSet<Integer> dom;
     private final ModelProxy modelProxy;
     private final String id;
+    private final ConcreteBinding binding;
 
     public IntVarSetImpl(ModelProxy modelProxy, String id, Set<Integer> domain) {
         dom = new TreeSet<>();
@@ -22,6 +24,7 @@ public class IntVarSetImpl implements SymbolicIntVar {
         assert !domain.isEmpty();
         this.id = id;
         this.modelProxy = modelProxy;
+        this.binding = new ConcreteBinding(this);
     }
 
     public IntVarSetImpl(ModelProxy modelProxy, Set<Integer> domain) {
@@ -64,6 +67,48 @@ public class IntVarSetImpl implements SymbolicIntVar {
         return idx;
     }
 
+    @Override
+    public int evaluate() throws VariableNotFixedException {
+        ConcreteIntVar x = binding.get();
+        return x == null ? defaultEvaluate() : x.evaluate();
+    }
+
+    @Override
+    public int min() {
+        ConcreteIntVar x = binding.get();
+        return x == null ? defaultMin() : x.min();
+    }
+
+    @Override
+    public int max() {
+        ConcreteIntVar x = binding.get();
+        return x == null ? defaultMax() : x.max();
+    }
+
+    @Override
+    public int size() {
+        ConcreteIntVar x = binding.get();
+        return x == null ? defaultSize() : x.size();
+    }
+
+    @Override
+    public boolean contains(int v) {
+        ConcreteIntVar x = binding.get();
+        return x == null ? defaultContains(v) : x.contains(v);
+    }
+
+    @Override
+    public int fillArray(int[] array) {
+        ConcreteIntVar x = binding.get();
+        return x == null ? defaultFillArray(array) : x.fillArray(array);
+    }
+
+    @Override
+    public boolean isFixed() {
+        ConcreteIntVar x = binding.get();
+        return x == null ? defaultSize() == 1 : x.isFixed();
+    }
+
     @Override
     public String toString() {
         if (getModelProxy().isConcrete()) {
@@ -0,0 +1,602 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2024 UCLouvain
+ */
+
+package org.maxicp.modeling.symbolic;
+
+import org.maxicp.ModelDispatcher;
+import org.maxicp.modeling.Constraint;
+import org.maxicp.modeling.Factory;
+import org.maxicp.modeling.algebra.bool.*;
+import org.maxicp.modeling.algebra.integer.*;
+import org.maxicp.modeling.constraints.AllDifferent;
+import org.maxicp.modeling.constraints.ExpressionIsTrue;
+import org.maxicp.modeling.constraints.NegTable;
+import org.maxicp.modeling.constraints.Table;
+import org.maxicp.util.ImmutableSet;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+import static org.maxicp.util.io.VarInts.readVarInt;
+import static org.maxicp.util.io.VarInts.readZigZag;
+import static org.maxicp.util.io.VarInts.writeVarInt;
+import static org.maxicp.util.io.VarInts.writeZigZag;
+
+/**
+ * On-disk cache of parsed instances, such that the benchmarks running several searches on the same instance
+ * (each in its own JVM) parse it once.
+ * <p>
+ * An entry is the symbolic model built by a parser: its variables and their domains,
+ * in the order of creation of {@link ModelDispatcher#getPreloaded()},
+ * its decision variables with their names, and its constraints,
+ * the tuples of the tables being written once even if they are shared by several tables.
+ * Everything is written as variable-length integers and read back into primitive arrays.
+ * <p>
+ * The entries are keyed by the SHA-256 of the instance file and by the name of the parser,
+ * such that an entry is not reused after the file changed, nor by a parser building another model.
+ * The models that cannot be cached, e.g. with constraints other than the tables, all-different
+ * and the arithmetic and logical expressions, are not written and are parsed each time.
+ * A missing, stale or unreadable entry is a cache miss.
+ */
+public final class ParsedInstanceCache {
+
+    /**
+     * System property giving the directory of the cache used by {@link #fromSystemProperty()}
+     */
+    public static final String PROPERTY = "maxicp.instanceCache";
+
+    private static final int MAGIC = 0x4d584943; // MXIC
+    private static final int VERSION = 2;
+
+    // variables
+    private static final int RANGE = 0;
+    private static final int SET = 1;
+
+    // constraints
+    private static final int EXPRESSION_IS_TRUE = 0;
+    private static final int TABLE = 1;
+    private static final int NEG_TABLE = 2;
+    private static final int ALL_DIFFERENT = 3;
+
+    // expressions
+    private static final int VAR = 0;
+    private static final int CONSTANT = 1;
+    private static final int EQ = 2;
+    private static final int NOT_EQ = 3;
+    private static final int LESS_OR_EQ = 4;
+    private static final int GREATER_OR_EQ = 5;
+    private static final int IN_SET = 6;
+    private static final int NOT = 7;
+    private static final int AND = 8;
+    private static final int OR = 9;
+    private static final int SUM = 10;
+    private static final int WEIGHTED_SUM = 11;
+    private static final int CST_MUL = 12;
+    private static final int CST_OFFSET = 13;
+    private static final int MUL = 14;
+    private static final int ABS = 15;
+    private static final int UNARY_MINUS = 16;
+    private static final int MIN = 17;
+    private static final int MAX = 18;
+    private static final int ELEMENT_1D = 19;
+    private static final int ELEMENT_1D_VAR = 20;
+
+    /**
+     * A model read from the cache
+     *
+     * @param md           the dispatcher of the model
+     * @param names        the names of the decision variables
+     * @param decisionVars the decision variables
+     */
+    public record Entry(ModelDispatcher md, String[] names, IntExpression[] decisionVars) {
+    }
+
+    /**
+     * Thrown while writing a model that cannot be cached
+     */
+    private static final class NotCacheable extends Exception {
+        NotCacheable(Object o) {
+            super("cannot cache " + o, null, false, false);
+        }
+    }
+
+    private final Path directory;
+
+    /**
+     * Creates a cache in a directory, created if needed
+     *
+     * @param directory the directory of the entries
+     */
+    public ParsedInstanceCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return the cache in the directory given by the system property {@value #PROPERTY},
+     * or null if the property is not set
+     */
+    public static ParsedInstanceCache fromSystemProperty() {
+        String dir = System.getProperty(PROPERTY);
+        return dir == null || dir.isBlank() ? null : new ParsedInstanceCache(Path.of(dir));
+    }
+
+    /**
+     * @return the directory of the entries
+     */
+    public Path directory() {
+        return directory;
+    }
+
+    /**
+     * Reads the model of an instance from the cache
+     *
+     * @param instance the instance file
+     * @param parser   the name of the parser having built the model
+     * @return the model, or empty if the cache has no valid entry for the instance
+     */
+    public Optional<Entry> read(Path instance, String parser) {
+        try {
+            Path file = entry(instance, parser);
+            if (!Files.exists(file))
+                return Optional.empty();
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+                return Optional.of(new Reader(in).read());
+            }
+        } catch (IOException | RuntimeException e) {
+            // corrupted or written by another version, the instance is parsed again
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes the model of an instance to the cache
+     *
+     * @param instance     the instance file
+     * @param parser       the name of the parser having built the model
+     * @param md           the dispatcher of the model
+     * @param names        the names of the decision variables
+     * @param decisionVars the decision variables
+     * @return true if the model was written, false if it cannot be cached
+     * @throws UncheckedIOException if the entry cannot be written
+     */
+    public boolean write(Path instance, String parser, ModelDispatcher md, String[] names, IntExpression[] decisionVars) {
+        byte[] encoded;
+        try {
+            encoded = new Writer(md).write(names, decisionVars);
+        } catch (NotCacheable e) {
+            return false;
+        }
+        try {
+            Files.createDirectories(directory);
+            Path file = entry(instance, parser);
+            Path tmp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            Files.write(tmp, encoded);
+            // concurrent writers of the same entry write the same content
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the file of the entry of an instance
+     */
+    Path entry(Path instance, String parser) throws IOException {
+        return directory.resolve(hash(instance) + "-" + parser + ".bin");
+    }
+
+    private static String hash(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(file)) {
+            for (int n = in.read(buffer); n >= 0; n = in.read(buffer))
+                digest.update(buffer, 0, n);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // ====================================================================================
+
+    private static final class Writer {
+        private final ModelDispatcher md;
+        private final IdentityHashMap<IntExpression, Integer> varIds = new IdentityHashMap<>();
+        private final IdentityHashMap<int[][], Integer> tableIds = new IdentityHashMap<>();
+        private final List<int[][]> tables = new ArrayList<>();
+
+        Writer(ModelDispatcher md) {
+            this.md = md;
+        }
+
+        byte[] write(String[] names, IntExpression[] decisionVars) throws NotCacheable {
+            try {
+                // the constraints are encoded first, to collect the tables
+                ByteArrayOutputStream constraintBytes = new ByteArrayOutputStream();
+                DataOutputStream constraints = new DataOutputStream(constraintBytes);
+                List<IntExpression> vars = md.getPreloaded();
+                for (int i = 0; i < vars.size(); i++)
+                    varIds.put(vars.get(i), i);
+                // the model lists its constraints from the newest, they are written in posting order
+                List<Constraint> posted = new ArrayList<>();
+                for (Constraint c : md.getConstraints())
+                    posted.add(c);
+                int n = posted.size();
+                for (int i = n - 1; i >= 0; i--)
+                    writeConstraint(constraints, posted.get(i));
+                constraints.flush();
+
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                Map<IntExpression, String> nameOf = new IdentityHashMap<>();
+                for (int i = 0; i < decisionVars.length; i++)
+                    nameOf.put(decisionVars[i], names[i]);
+                writeVarInt(out, vars.size());
+                for (IntExpression x : vars)
+                    writeVariable(out, x, nameOf.get(x));
+                writeVarInt(out, decisionVars.length);
+                for (IntExpression x : decisionVars)
+                    writeVarInt(out, id(x));
+                writeVarInt(out, tables.size());
+                for (int[][] table : tables)
+                    writeTable(out, table);
+                writeVarInt(out, n);
+                constraintBytes.writeTo(out);
+                out.flush();
+                return bytes.toByteArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private int id(IntExpression x) throws NotCacheable {
+            Integer id = varIds.get(x);
+            if (id == null)
+                throw new NotCacheable(x);
+            return id;
+        }
+
+        private void writeVariable(DataOutputStream out, IntExpression x, String name) throws IOException, NotCacheable {
+            switch (x) {
+                case IntVarRangeImpl v -> {
+                    out.writeByte(RANGE);
+                    writeZigZag(out, v.defaultMin());
+                    writeZigZag(out, v.defaultMax());
+                }
+                case IntVarSetImpl v -> {
+                    out.writeByte(SET);
+                    writeVarInt(out, v.dom.size());
+                    int previous = 0;
+                    for (int value : v.dom) {
+                        writeZigZag(out, value - previous);
+                        previous = value;
+                    }
+                }
+                default -> throw new NotCacheable(x);
+            }
+            out.writeBoolean(name != null);
+            if (name != null)
+                out.writeUTF(name);
+        }
+
+        private void writeTable(DataOutputStream out, int[][] table) throws IOException {
+            writeVarInt(out, table.length);
+            int arity = table.length == 0 ? 0 : table[0].length;
+            writeVarInt(out, arity);
+            for (int[] tuple : table)
+                for (int v : tuple)
+                    writeZigZag(out, v);
+        }
+
+        private int tableId(int[][] table) throws NotCacheable {
+            Integer id = tableIds.get(table);
+            if (id == null) {
+                for (int[] tuple : table)
+                    if (tuple.length != table[0].length)
+                        throw new NotCacheable("table with tuples of different arities");
+                id = tables.size();
+                tableIds.put(table, id);
+                tables.add(table);
+            }
+            return id;
+        }
+
+        private void writeConstraint(DataOutputStream out, Constraint c) throws IOException, NotCacheable {
+            switch (c) {
+                case ExpressionIsTrue(BoolExpression e) -> {
+                    out.writeByte(EXPRESSION_IS_TRUE);
+                    writeExpression(out, e);
+                }
+                case Table t -> {
+                    out.writeByte(TABLE);
+                    writeExpressions(out, t.x());
+                    writeVarInt(out, tableId(t.array()));
+                    writeStar(out, t.starred());
+                }
+                case NegTable t -> {
+                    out.writeByte(NEG_TABLE);
+                    writeExpressions(out, t.x());
+                    writeVarInt(out, tableId(t.array()));
+                    writeStar(out, t.starred());
+                }
+                case AllDifferent a -> {
+                    out.writeByte(ALL_DIFFERENT);
+                    writeExpressions(out, a.x().toArray(new IntExpression[0]));
+                }
+                default -> throw new NotCacheable(c);
+            }
+        }
+
+        private void writeStar(DataOutputStream out, Optional<Integer> starred) throws IOException {
+            out.writeBoolean(starred.isPresent());
+            if (starred.isPresent())
+                out.writeInt(starred.get());
+        }
+
+        private void writeExpressions(DataOutputStream out, IntExpression[] x) throws IOException, NotCacheable {
+            writeVarInt(out, x.length);
+            for (IntExpression e : x)
+                writeExpression(out, e);
+        }
+
+        private void writeExpression(DataOutputStream out, IntExpression e) throws IOException, NotCacheable {
+            Integer id = varIds.get(e);
+            if (id != null) {
+                out.writeByte(VAR);
+                writeVarInt(out, id);
+                return;
+            }
+            switch (e) {
+                case Constant(var ignored, int v) -> {
+                    out.writeByte(CONSTANT);
+                    writeZigZag(out, v);
+                }
+                case Eq(IntExpression a, IntExpression b) -> writeBinary(out, EQ, a, b);
+                case NotEq(IntExpression a, IntExpression b) -> writeBinary(out, NOT_EQ, a, b);
+                case LessOrEq(IntExpression a, IntExpression b) -> writeBinary(out, LESS_OR_EQ, a, b);
+                case GreaterOrEq(IntExpression a, IntExpression b) -> writeBinary(out, GREATER_OR_EQ, a, b);
+                case InSet(IntExpression a, Set<Integer> values) -> {
+                    out.writeByte(IN_SET);
+                    writeExpression(out, a);
+                    writeInts(out, values.stream().mapToInt(Integer::intValue).toArray());
+                }
+                case Not(BoolExpression a) -> {
+                    out.writeByte(NOT);
+                    writeExpression(out, a);
+                }
+                case And(ImmutableSet<BoolExpression> exprs) -> {
+                    out.writeByte(AND);
+                    writeExpressions(out, exprs.toArray(new IntExpression[0]));
+                }
+                case Or(ImmutableSet<BoolExpression> exprs) -> {
+                    out.writeByte(OR);
+                    writeExpressions(out, exprs.toArray(new IntExpression[0]));
+                }
+                case Sum(IntExpression[] x) -> {
+                    out.writeByte(SUM);
+                    writeExpressions(out, x);
+                }
+                case WeightedSum(IntExpression[] x, int[] weights) -> {
+                    out.writeByte(WEIGHTED_SUM);
+                    writeExpressions(out, x);
+                    writeInts(out, weights);
+                }
+                case CstMul(IntExpression x, int mul) -> {
+                    out.writeByte(CST_MUL);
+                    writeExpression(out, x);
+                    writeZigZag(out, mul);
+                }
+                case CstOffset(IntExpression x, int v) -> {
+                    out.writeByte(CST_OFFSET);
+                    writeExpression(out, x);
+                    writeZigZag(out, v);
+                }
+                case Mul(IntExpression[] x) -> {
+                    out.writeByte(MUL);
+                    writeExpressions(out, x);
+                }
+                case Abs(IntExpression x) -> {
+                    out.writeByte(ABS);
+                    writeExpression(out, x);
+                }
+                case UnaryMinus(IntExpression x) -> {
+                    out.writeByte(UNARY_MINUS);
+                    writeExpression(out, x);
+                }
+                case Min(IntExpression[] x) -> {
+                    out.writeByte(MIN);
+                    writeExpressions(out, x);
+                }
+                case Max(IntExpression[] x) -> {
+                    out.writeByte(MAX);
+                    writeExpressions(out, x);
+                }
+                case Element1D(int[] array, IntExpression index) -> {
+                    out.writeByte(ELEMENT_1D);
+                    writeInts(out, array);
+                    writeExpression(out, index);
+                }
+                case Element1DVar(IntExpression[] array, IntExpression index) -> {
+                    out.writeByte(ELEMENT_1D_VAR);
+                    writeExpressions(out, array);
+                    writeExpression(out, index);
+                }
+                default -> throw new NotCacheable(e);
+            }
+        }
+
+        private void writeBinary(DataOutputStream out, int kind, IntExpression a, IntExpression b) throws IOException, NotCacheable {
+            out.writeByte(kind);
+            writeExpression(out, a);
+            writeExpression(out, b);
+        }
+
+        private void writeInts(DataOutputStream out, int[] values) throws IOException {
+            writeVarInt(out, values.length);
+            for (int v : values)
+                writeZigZag(out, v);
+        }
+    }
+
+    // ====================================================================================
+
+    private static final class Reader {
+        private final DataInputStream in;
+        private final ModelDispatcher md = Factory.makeModelDispatcher();
+        private IntExpression[] vars;
+        private String[] varNames;
+        private int[][][] tables;
+
+        Reader(DataInputStream in) {
+            this.in = in;
+        }
+
+        Entry read() throws IOException {
+            try {
+                if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION)
+                    throw new IOException("not an entry of this version of the cache");
+                vars = new IntExpression[readVarInt(in)];
+                varNames = new String[vars.length];
+                for (int i = 0; i < vars.length; i++)
+                    vars[i] = readVariable(i);
+                String[] names = new String[readVarInt(in)];
+                IntExpression[] decisionVars = new IntExpression[names.length];
+                for (int i = 0; i < decisionVars.length; i++) {
+                    int id = readVarInt(in);
+                    decisionVars[i] = vars[id];
+                    names[i] = varNames[id];
+                }
+                tables = new int[readVarInt(in)][][];
+                for (int i = 0; i < tables.length; i++)
+                    tables[i] = readTable();
+                int n = readVarInt(in);
+                for (int i = 0; i < n; i++)
+                    md.add(readConstraint());
+                return new Entry(md, names, decisionVars);
+            } catch (IOException | RuntimeException e) {
+                try {
+                    md.close();
+                } catch (Exception ignored) {
+                }
+                throw e;
+            }
+        }
+
+        private IntExpression readVariable(int id) throws IOException {
+            int kind = in.readUnsignedByte();
+            int[] values = null;
+            int min = 0, max = 0;
+            if (kind == RANGE) {
+                min = readZigZag(in);
+                max = readZigZag(in);
+            } else if (kind == SET) {
+                values = new int[readVarInt(in)];
+                int previous = 0;
+                for (int i = 0; i < values.length; i++)
+                    values[i] = previous = previous + readZigZag(in);
+            } else {
+                throw new IOException("unknown variable kind " + kind);
+            }
+            String name = in.readBoolean() ? in.readUTF() : null;
+            varNames[id] = name;
+            if (values == null)
+                return name == null ? md.intVar(min, max) : md.intVar(name, min, max);
+            return name == null ? md.intVar(values) : md.intVar(name, values);
+        }
+
+        private int[][] readTable() throws IOException {
+            int[][] table = new int[readVarInt(in)][readVarInt(in)];
+            for (int[] tuple : table)
+                for (int j = 0; j < tuple.length; j++)
+                    tuple[j] = readZigZag(in);
+            return table;
+        }
+
+        private Constraint readConstraint() throws IOException {
+            int kind = in.readUnsignedByte();
+            return switch (kind) {
+                case EXPRESSION_IS_TRUE -> new ExpressionIsTrue((BoolExpression) readExpression());
+                case TABLE -> new Table(readExpressions(), tables[readVarInt(in)], readStar());
+                case NEG_TABLE -> new NegTable(readExpressions(), tables[readVarInt(in)], readStar());
+                case ALL_DIFFERENT -> new AllDifferent(readExpressions());
+                default -> throw new IOException("unknown constraint kind " + kind);
+            };
+        }
+
+        private Optional<Integer> readStar() throws IOException {
+            return in.readBoolean() ? Optional.of(in.readInt()) : Optional.empty();
+        }
+
+        private IntExpression[] readExpressions() throws IOException {
+            IntExpression[] x = new IntExpression[readVarInt(in)];
+            for (int i = 0; i < x.length; i++)
+                x[i] = readExpression();
+            return x;
+        }
+
+        private BoolExpression[] readBoolExpressions() throws IOException {
+            BoolExpression[] x = new BoolExpression[readVarInt(in)];
+            for (int i = 0; i < x.length; i++)
+                x[i] = (BoolExpression) readExpression();
+            return x;
+        }
+
+        private IntExpression readExpression() throws IOException {
+            int kind = in.readUnsignedByte();
+            return switch (kind) {
+                case VAR -> vars[readVarInt(in)];
+                case CONSTANT -> new Constant(md, readZigZag(in));
+                case EQ -> new Eq(readExpression(), readExpression());
+                case NOT_EQ -> new NotEq(readExpression(), readExpression());
+                case LESS_OR_EQ -> new LessOrEq(readExpression(), readExpression());
+                case GREATER_OR_EQ -> new GreaterOrEq(readExpression(), readExpression());
+                case IN_SET -> new InSet(readExpression(), ImmutableSet.of(readInts()));
+                case NOT -> new Not((BoolExpression) readExpression());
+                case AND -> new And(readBoolExpressions());
+                case OR -> new Or(readBoolExpressions());
+                case SUM -> new Sum(readExpressions());
+                case WEIGHTED_SUM -> new WeightedSum(readExpressions(), readInts());
+                case CST_MUL -> new CstMul(readExpression(), readZigZag(in));
+                case CST_OFFSET -> new CstOffset(readExpression(), readZigZag(in));
+                case MUL -> new Mul(readExpressions());
+                case ABS -> new Abs(readExpression());
+                case UNARY_MINUS -> new UnaryMinus(readExpression());
+                case MIN -> new Min(readExpressions());
+                case MAX -> new Max(readExpressions());
+                case ELEMENT_1D -> {
+                    int[] array = readInts();
+                    yield new Element1D(array, readExpression());
+                }
+                case ELEMENT_1D_VAR -> new Element1DVar(readExpressions(), readExpression());
+                default -> throw new IOException("unknown expression kind " + kind);
+            };
+        }
+
+        private int[] readInts() throws IOException {
+            int[] values = new int[readVarInt(in)];
+            for (int i = 0; i < values.length; i++)
+                values[i] = readZigZag(in);
+            return values;
+        }
+    }
+
+    // ====================================================================================
+}
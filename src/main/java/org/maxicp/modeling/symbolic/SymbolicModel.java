@@ -14,7 +14,39 @@ import org.maxicp.util.exception.NotImplementedException;
 
 import java.util.Iterator;
 
-public record SymbolicModel(Constraint constraint, SymbolicModel parent, ModelProxy modelProxy) implements Model, Iterable<Constraint> {
+/**
+ * Immutable model made of a constraint added to a parent model.
+ *
+ * @param constraint the last constraint added, null for the empty model
+ * @param parent     the model to which the constraint is added, null for the empty model
+ * @param modelProxy the proxy of the model
+ * @param depth      the number of constraints from the empty model, such that the common ancestor
+ *                   of two models is found by walking up from the deepest one
+ */
+public record SymbolicModel(Constraint constraint, SymbolicModel parent, ModelProxy modelProxy, int depth) implements Model, Iterable<Constraint> {
+    public SymbolicModel(Constraint constraint, SymbolicModel parent, ModelProxy modelProxy) {
+        this(constraint, parent, modelProxy, parent == null ? 0 : parent.depth + 1);
+    }
+
+    /**
+     * Returns the deepest ancestor shared by two models, the models being compared by identity
+     *
+     * @param a a model
+     * @param b another model
+     * @return the common ancestor of a and b, possibly one of them, null if they have none
+     */
+    public static SymbolicModel commonAncestor(SymbolicModel a, SymbolicModel b) {
+        while (a != null && b != null && a.depth > b.depth)
+            a = a.parent;
+        while (a != null && b != null && b.depth > a.depth)
+            b = b.parent;
+        while (a != b && a != null && b != null) {
+            a = a.parent;
+            b = b.parent;
+        }
+        return a == b ? a : null;
+    }
+
     @Override
     public SymbolicModel symbolicCopy() {
         return this;
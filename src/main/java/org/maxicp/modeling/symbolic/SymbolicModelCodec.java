@@ -0,0 +1,292 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2024 UCLouvain
+ */
+
+package org.maxicp.modeling.symbolic;
+
+import org.maxicp.modeling.Constraint;
+import org.maxicp.modeling.algebra.StructuralKey;
+import org.maxicp.modeling.algebra.bool.*;
+import org.maxicp.modeling.algebra.integer.Constant;
+import org.maxicp.modeling.algebra.integer.IntExpression;
+import org.maxicp.modeling.algebra.integer.SymbolicIntExpression;
+import org.maxicp.modeling.constraints.ExpressionIsTrue;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+import static org.maxicp.util.io.VarInts.readVarInt;
+import static org.maxicp.util.io.VarInts.readZigZag;
+import static org.maxicp.util.io.VarInts.writeVarInt;
+import static org.maxicp.util.io.VarInts.writeZigZag;
+
+/**
+ * Compact binary encoding of the descendants of a root {@link SymbolicModel},
+ * such as the subproblems of an {@link org.maxicp.search.EPSearch} or the nodes left open by a search,
+ * such that they can be stored off-heap or on disk in large numbers and replayed from the root.
+ * <p>
+ * A descendant is encoded by the constraints added to the root, each one as its kind followed by
+ * the identifiers of its variables, i.e. their indices in the array given to the codec, and its constants,
+ * all as variable-length integers. A branching decision on small domains thus takes 3 bytes.
+ * The constraints that can be encoded are the comparisons
+ * ({@link Eq}, {@link NotEq}, {@link LessOrEq}, {@link GreaterOrEq}) between a variable and a constant
+ * or between two variables, which are the decisions of the usual branchings.
+ * <p>
+ * The root is identified by a fingerprint of the structure of its constraints (their kinds, scopes, constants and tables)
+ * and of the variables, checked when reading a file, such that subproblems are not replayed on another model.
+ * The fingerprint is stable across executions for a model built in the same way.
+ */
+public final class SymbolicModelCodec {
+
+    private static final int MAGIC = 0x4d585350; // MXSP
+    private static final int VERSION = 1;
+
+    private static final int EQ = 0;
+    private static final int NEQ = 1;
+    private static final int LE = 2;
+    private static final int GE = 3;
+    // added to the kind when the second operand is a variable instead of a constant
+    private static final int VAR = 4;
+
+    private final SymbolicModel root;
+    private final IntExpression[] variables;
+    private final IdentityHashMap<IntExpression, Integer> ids = new IdentityHashMap<>();
+    private final long fingerprint;
+
+    /**
+     * Creates a codec of the descendants of a model
+     *
+     * @param root      the root model, shared by the encoder and the decoder
+     * @param variables the variables on which the constraints added to the root are posted,
+     *                  their index being their identifier in the encoding
+     */
+    public SymbolicModelCodec(SymbolicModel root, IntExpression... variables) {
+        this.root = root;
+        this.variables = variables.clone();
+        for (int i = 0; i < variables.length; i++)
+            ids.putIfAbsent(variables[i], i);
+        this.fingerprint = fingerprint(root, variables);
+    }
+
+    /**
+     * @return the root model
+     */
+    public SymbolicModel root() {
+        return root;
+    }
+
+    /**
+     * @return the fingerprint of the root model and of the variables
+     */
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Encodes a descendant of the root
+     *
+     * @param node a model obtained by adding constraints to the root
+     * @return the encoding of the constraints added to the root
+     * @throws IllegalArgumentException if the model does not descend from the root
+     *                                  or one of its constraints cannot be encoded
+     */
+    public byte[] encode(SymbolicModel node) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            write(out, node);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a descendant of the root
+     *
+     * @param encoded the encoding given by {@link #encode(SymbolicModel)}
+     * @return the root with the encoded constraints added to it
+     * @throws IllegalArgumentException if the encoding is invalid
+     */
+    public SymbolicModel decode(byte[] encoded) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+            return read(in);
+        } catch (EOFException e) {
+            throw new IllegalArgumentException("truncated encoding", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes descendants of the root to a file, preceded by the fingerprint of the root
+     *
+     * @param file  the file
+     * @param nodes the models to write
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public void write(Path file, List<SymbolicModel> nodes) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(fingerprint);
+            writeVarInt(out, nodes.size());
+            for (SymbolicModel node : nodes)
+                write(out, node);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the descendants of the root written by {@link #write(Path, List)}
+     *
+     * @param file the file
+     * @return the models, in the order in which they were written
+     * @throws UncheckedIOException if the file cannot be read or was not written for this root
+     */
+    public List<SymbolicModel> read(Path file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION)
+                throw new IOException(file + " is not a file of subproblems");
+            if (in.readLong() != fingerprint)
+                throw new IOException(file + " was written for another model");
+            int n = readVarInt(in);
+            List<SymbolicModel> nodes = new ArrayList<>(n);
+            for (int i = 0; i < n; i++)
+                nodes.add(read(in));
+            return nodes;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the constraints added to the root to obtain a model
+     */
+    public void write(DataOutputStream out, SymbolicModel node) throws IOException {
+        if (node.depth() < root.depth())
+            throw new IllegalArgumentException("the model does not descend from the root");
+        Constraint[] added = new Constraint[node.depth() - root.depth()];
+        SymbolicModel cur = node;
+        for (int i = added.length - 1; i >= 0; i--) {
+            added[i] = cur.constraint();
+            cur = cur.parent();
+        }
+        if (cur != root)
+            throw new IllegalArgumentException("the model does not descend from the root");
+        writeVarInt(out, added.length);
+        for (Constraint c : added)
+            writeConstraint(out, c);
+    }
+
+    /**
+     * Reads the constraints written by {@link #write(DataOutputStream, SymbolicModel)} and adds them to the root
+     */
+    public SymbolicModel read(DataInputStream in) throws IOException {
+        int n = readVarInt(in);
+        SymbolicModel node = root;
+        for (int i = 0; i < n; i++)
+            node = node.add(readConstraint(in));
+        return node;
+    }
+
+    private void writeConstraint(DataOutputStream out, Constraint c) throws IOException {
+        if (!(c instanceof ExpressionIsTrue(BoolExpression e)))
+            throw new IllegalArgumentException("cannot encode " + c);
+        switch (e) {
+            case Eq(IntExpression a, IntExpression b) -> writeComparison(out, EQ, EQ, a, b, c);
+            case NotEq(IntExpression a, IntExpression b) -> writeComparison(out, NEQ, NEQ, a, b, c);
+            case LessOrEq(IntExpression a, IntExpression b) -> writeComparison(out, LE, GE, a, b, c);
+            case GreaterOrEq(IntExpression a, IntExpression b) -> writeComparison(out, GE, LE, a, b, c);
+            default -> throw new IllegalArgumentException("cannot encode " + c);
+        }
+    }
+
+    /**
+     * Writes a comparison, the variable being put first
+     *
+     * @param kind     the kind of the comparison
+     * @param inverted the kind of the comparison with its operands swapped
+     */
+    private void writeComparison(DataOutputStream out, int kind, int inverted, IntExpression a, IntExpression b, Constraint c) throws IOException {
+        Integer ia = ids.get(a);
+        Integer ib = ids.get(b);
+        if (ia != null && ib != null) {
+            out.writeByte(kind + VAR);
+            writeVarInt(out, ia);
+            writeVarInt(out, ib);
+        } else if (ia != null && b instanceof Constant k) {
+            out.writeByte(kind);
+            writeVarInt(out, ia);
+            writeZigZag(out, k.v());
+        } else if (ib != null && a instanceof Constant k) {
+            out.writeByte(inverted);
+            writeVarInt(out, ib);
+            writeZigZag(out, k.v());
+        } else {
+            throw new IllegalArgumentException("cannot encode " + c + ", its operands are not variables of the codec or constants");
+        }
+    }
+
+    private Constraint readConstraint(DataInputStream in) throws IOException {
+        int kind = in.readUnsignedByte();
+        if (kind >= 2 * VAR)
+            throw new IllegalArgumentException("unknown constraint kind " + kind);
+        IntExpression a = variable(readVarInt(in));
+        IntExpression b = (kind & VAR) != 0 ? variable(readVarInt(in)) : new Constant(a.getModelProxy(), readZigZag(in));
+        BoolExpression e = switch (kind & ~VAR) {
+            case EQ -> new Eq(a, b);
+            case NEQ -> new NotEq(a, b);
+            case LE -> new LessOrEq(a, b);
+            default -> new GreaterOrEq(a, b);
+        };
+        return new ExpressionIsTrue(e);
+    }
+
+    private IntExpression variable(int id) {
+        if (id >= variables.length)
+            throw new IllegalArgumentException("unknown variable " + id);
+        return variables[id];
+    }
+
+    /**
+     * Fingerprint of the root, by the structure of its constraints, and of the initial domains of the variables.
+     * The variables of the constraints are identified by their index in the variables of the codec,
+     * or by their initial domain for the other ones.
+     */
+    private long fingerprint(SymbolicModel root, IntExpression[] variables) {
+        ToLongFunction<Object> leaf = o -> {
+            Integer id = o instanceof IntExpression x ? ids.get(x) : null;
+            return id != null ? id : domainHash(o);
+        };
+        long h = 0xcbf29ce484222325L;
+        h = mix(h, root.depth());
+        for (Constraint c : root.getConstraints())
+            h = mix(h, StructuralKey.hash(c, leaf));
+        h = mix(h, variables.length);
+        for (IntExpression x : variables)
+            h = mix(h, domainHash(x));
+        return h;
+    }
+
+    private static long domainHash(Object x) {
+        long h = x.getClass().getName().hashCode();
+        if (x instanceof SymbolicIntExpression s) {
+            h = mix(h, s.defaultMin());
+            h = mix(h, s.defaultMax());
+            h = mix(h, s.defaultSize());
+        }
+        return h;
+    }
+
+    private static long mix(long h, long v) {
+        h = (h ^ v) * 0x100000001b3L;
+        return h ^ (h >>> 29);
+    }
+}
@@ -7,6 +7,7 @@ import org.maxicp.modeling.algebra.VariableNotFixedException;
 import org.maxicp.modeling.algebra.bool.*;
 import org.maxicp.modeling.algebra.integer.*;
 import org.maxicp.modeling.constraints.*;
+import org.maxicp.modeling.symbolic.ParsedInstanceCache;
 import org.maxicp.search.DFSearch;
 import org.maxicp.search.SearchStatistics;
 import org.maxicp.util.ImmutableSet;
@@ -23,7 +24,9 @@ import org.xcsp.common.structures.Transition;
 import org.xcsp.parser.callbacks.XCallbacks;
 import org.xcsp.parser.entries.XVariables;
 
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.function.BiFunction;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -42,21 +45,58 @@ public class XCSP3 extends XCallbacksDecomp {
     }
 
     public static XCSP3LoadedInstance load(String filename) throws Exception {
-        XCSP3 xcsp3 = new XCSP3();
-        try {
-            xcsp3.loadInstance(filename);
-        }
-        catch (Throwable t) {
-            xcsp3.md.close();
-            throw t;
+        ParsedInstanceCache.Entry entry = parse(filename, CACHE_TAG, () -> {
+            XCSP3 xcsp3 = new XCSP3();
+            try {
+                xcsp3.loadInstance(filename);
+            }
+            catch (Throwable t) {
+                xcsp3.md.close();
+                throw t;
+            }
+            return new ParsedInstanceCache.Entry(xcsp3.md, xcsp3.decisionVars.toArray(new String[0]), xcsp3.decisionVars.stream().map(xcsp3.varHashMap::get).toArray(IntExpression[]::new));
+        });
+        return new XCSP3LoadedInstance(entry.md(), entry.decisionVars(), solutionGenerator(entry.names(), entry.decisionVars()));
+    }
+
+    /**
+     * Name of the models built by the parsers of this package from the XCSP3 files in the {@link ParsedInstanceCache},
+     * which are the same for all the search variants
+     */
+    static final String CACHE_TAG = "xcsp3";
+
+    /**
+     * Parses an instance, or reads it from the cache given by {@link ParsedInstanceCache#fromSystemProperty()}.
+     * A parsed instance is written to the cache.
+     *
+     * @param filename the path of the instance
+     * @param tag      the name of the models built by the parser
+     * @param parser   parses the instance
+     * @return the model of the instance
+     */
+    static ParsedInstanceCache.Entry parse(String filename, String tag, Callable<ParsedInstanceCache.Entry> parser) throws Exception {
+        ParsedInstanceCache cache = ParsedInstanceCache.fromSystemProperty();
+        if (cache != null) {
+            Optional<ParsedInstanceCache.Entry> cached = cache.read(Path.of(filename), tag);
+            if (cached.isPresent())
+                return cached.get();
         }
+        ParsedInstanceCache.Entry entry = parser.call();
+        if (cache != null)
+            cache.write(Path.of(filename), tag, entry.md(), entry.names(), entry.decisionVars());
+        return entry;
+    }
 
-        Supplier<String> solutionGenerator = () -> {
+    /**
+     * @return a generator of the XCSP3 instantiation of the decision variables, once they are fixed
+     */
+    static Supplier<String> solutionGenerator(String[] names, IntExpression[] decisionVars) {
+        return () -> {
             StringBuilder b = new StringBuilder();
             b.append("<instantiation>\n\t<list>\n\t\t");
-            b.append(String.join(" ", xcsp3.decisionVars));
+            b.append(String.join(" ", names));
             b.append("\n\t</list>\n\t<values>\n\t\t");
-            b.append(String.join(" ", xcsp3.decisionVars.stream().map(xcsp3.varHashMap::get).map(x -> {
+            b.append(String.join(" ", Arrays.stream(decisionVars).map(x -> {
                         try {
                             return Integer.toString(x.evaluate());
                         } catch (VariableNotFixedException e) {
@@ -66,7 +106,6 @@ public class XCSP3 extends XCallbacksDecomp {
             b.append("\n\t</values>\n</instantiation>");
             return b.toString();
         };
-        return new XCSP3LoadedInstance(xcsp3.md, xcsp3.decisionVars.stream().map(xcsp3.varHashMap::get).toArray(IntExpression[]::new), solutionGenerator);
     }
 
     // ====================================================================================
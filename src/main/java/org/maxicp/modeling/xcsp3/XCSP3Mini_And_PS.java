@@ -7,6 +7,7 @@ import org.maxicp.modeling.algebra.VariableNotFixedException;
 import org.maxicp.modeling.algebra.bool.*;
 import org.maxicp.modeling.algebra.integer.*;
 import org.maxicp.modeling.constraints.*;
+import org.maxicp.modeling.symbolic.ParsedInstanceCache;
 import org.maxicp.andor.search.DFSearchMini_And_PS;
 import org.maxicp.search.SearchStatistics;
 import org.maxicp.util.ImmutableSet;
@@ -39,31 +40,18 @@ public class XCSP3Mini_And_PS extends XCallbacksDecomp {
     }
 
     public static XCSP3LoadedInstance load(String filename) throws Exception {
-        XCSP3Mini_And_PS xcsp3 = new XCSP3Mini_And_PS();
-        try {
-            xcsp3.loadInstance(filename);
-        }
-        catch (Throwable t) {
-            xcsp3.md.close();
-            throw t;
-        }
-
-        Supplier<String> solutionGenerator = () -> {
-            StringBuilder b = new StringBuilder();
-            b.append("<instantiation>\n\t<list>\n\t\t");
-            b.append(String.join(" ", xcsp3.decisionVars));
-            b.append("\n\t</list>\n\t<values>\n\t\t");
-            b.append(String.join(" ", xcsp3.decisionVars.stream().map(xcsp3.varHashMap::get).map(x -> {
-                        try {
-                            return Integer.toString(x.evaluate());
-                        } catch (VariableNotFixedException e) {
-                            throw new RuntimeException(e);
-                        }
-                    }).toArray(String[]::new)));
-            b.append("\n\t</values>\n</instantiation>");
-            return b.toString();
-        };
-        return new XCSP3LoadedInstance(xcsp3.md, xcsp3.decisionVars.stream().map(xcsp3.varHashMap::get).toArray(IntExpression[]::new), solutionGenerator);
+        ParsedInstanceCache.Entry entry = XCSP3.parse(filename, XCSP3.CACHE_TAG, () -> {
+            XCSP3Mini_And_PS xcsp3 = new XCSP3Mini_And_PS();
+            try {
+                xcsp3.loadInstance(filename);
+            }
+            catch (Throwable t) {
+                xcsp3.md.close();
+                throw t;
+            }
+            return new ParsedInstanceCache.Entry(xcsp3.md, xcsp3.decisionVars.toArray(new String[0]), xcsp3.decisionVars.stream().map(xcsp3.varHashMap::get).toArray(IntExpression[]::new));
+        });
+        return new XCSP3LoadedInstance(entry.md(), entry.decisionVars(), XCSP3.solutionGenerator(entry.names(), entry.decisionVars()));
     }
 
     // ====================================================================================
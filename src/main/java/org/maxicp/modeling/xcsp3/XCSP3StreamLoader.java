@@ -0,0 +1,1067 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2024 UCLouvain
+ */
+
+package org.maxicp.modeling.xcsp3;
+
+import org.maxicp.ModelDispatcher;
+import org.maxicp.modeling.Factory;
+import org.maxicp.modeling.algebra.bool.*;
+import org.maxicp.modeling.algebra.integer.*;
+import org.maxicp.modeling.constraints.NegTable;
+import org.maxicp.modeling.constraints.Table;
+import org.maxicp.modeling.symbolic.ParsedInstanceCache;
+import org.maxicp.util.ImmutableSet;
+import org.maxicp.util.exception.NotYetImplementedException;
+import org.xcsp.common.Constants;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Streaming loader of XCSP3 instances, for the large instances on which {@link XCSP3#load(String)}
+ * spends most of its time and memory in the parser.
+ * <p>
+ * The instance is read with a StAX parser and the variables and constraints are added to the model as they are read,
+ * without building the document nor the objects of the XCSP3 parser.
+ * The tuples of the extension constraints are parsed from the characters of the document
+ * directly into the {@code int[]} rows of the table, and the tuples of a group are parsed once
+ * and shared by all the constraints of the group.
+ * A file can also be read through a memory mapping with {@link #load(Path, boolean)}.
+ * The files are read from the {@link ParsedInstanceCache} given by {@link ParsedInstanceCache#fromSystemProperty()}, if any.
+ * <p>
+ * The supported constraints are extension, intension, allDifferent, sum, element and instantiation,
+ * possibly in groups and blocks, and the objectives on a variable, an expression,
+ * or on the sum, minimum or maximum of a list.
+ * The other constraints throw a {@link NotYetImplementedException},
+ * such instances are to be loaded with {@link XCSP3#load(String)}.
+ * Compressed instances ({@code .lzma}) must be decompressed by the caller,
+ * e.g. by giving a decompressing stream to {@link #load(InputStream)}.
+ */
+public final class XCSP3StreamLoader {
+
+    // size of the windows of a memory mapped file
+    private static final long MAPPING_WINDOW = 1L << 30;
+    // name of the models of this loader in the cache, which may differ from the ones of the XCSP3 parser
+    private static final String CACHE_TAG = "xcsp3-stream";
+
+    private final ModelDispatcher md;
+    // variables by identifier, in the order of declaration, cells of arrays being named as "x[i][j]"
+    private final LinkedHashMap<String, IntExpression> varHashMap = new LinkedHashMap<>();
+    // variables appearing in a constraint or in the objective
+    private final HashSet<String> used = new HashSet<>();
+    private final HashMap<String, int[]> arraySizes = new HashMap<>();
+    // index of the first argument denoted by "%..." in the template of the current group
+    private int firstUnnamedArg = 0;
+    private XMLStreamReader reader;
+
+    private XCSP3StreamLoader(ModelDispatcher md) {
+        this.md = md;
+    }
+
+    /**
+     * Loads an instance from a file
+     *
+     * @param filename the path of the file
+     * @return the loaded instance
+     * @throws IOException if the file cannot be read or is not a valid XCSP3 document
+     */
+    public static XCSP3.XCSP3LoadedInstance load(String filename) throws IOException {
+        return load(Path.of(filename), false);
+    }
+
+    /**
+     * Loads an instance from a file
+     *
+     * @param file         the file
+     * @param memoryMapped true to read the file through a memory mapping instead of a buffered stream
+     * @return the loaded instance
+     * @throws IOException if the file cannot be read or is not a valid XCSP3 document
+     */
+    public static XCSP3.XCSP3LoadedInstance load(Path file, boolean memoryMapped) throws IOException {
+        ParsedInstanceCache cache = ParsedInstanceCache.fromSystemProperty();
+        ParsedInstanceCache.Entry entry = cache == null ? null : cache.read(file, CACHE_TAG).orElse(null);
+        if (entry == null) {
+            try (InputStream in = memoryMapped ? new MappedInputStream(file) : new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+                entry = parse(in);
+            }
+            if (cache != null)
+                cache.write(file, CACHE_TAG, entry.md(), entry.names(), entry.decisionVars());
+        }
+        return loadedInstance(entry);
+    }
+
+    /**
+     * Loads an instance from a stream, which is not closed
+     *
+     * @param in the XCSP3 document
+     * @return the loaded instance
+     * @throws IOException if the stream cannot be read or is not a valid XCSP3 document
+     */
+    public static XCSP3.XCSP3LoadedInstance load(InputStream in) throws IOException {
+        return loadedInstance(parse(in));
+    }
+
+    private static ParsedInstanceCache.Entry parse(InputStream in) throws IOException {
+        XCSP3StreamLoader loader = new XCSP3StreamLoader(Factory.makeModelDispatcher());
+        try {
+            XMLInputFactory factory = XMLInputFactory.newFactory();
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+            factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+            loader.reader = factory.createXMLStreamReader(in);
+            loader.readInstance();
+            loader.reader.close();
+        } catch (XMLStreamException e) {
+            closeQuietly(loader.md);
+            throw new IOException("invalid XCSP3 document", e);
+        } catch (Throwable t) {
+            closeQuietly(loader.md);
+            throw t;
+        }
+        return loader.entry();
+    }
+
+    private static void closeQuietly(ModelDispatcher md) {
+        try {
+            md.close();
+        } catch (Exception ignored) {
+        }
+    }
+
+    private ParsedInstanceCache.Entry entry() {
+        String[] decisionVars = varHashMap.keySet().stream().filter(used::contains).toArray(String[]::new);
+        return new ParsedInstanceCache.Entry(md, decisionVars, Arrays.stream(decisionVars).map(varHashMap::get).toArray(IntExpression[]::new));
+    }
+
+    private static XCSP3.XCSP3LoadedInstance loadedInstance(ParsedInstanceCache.Entry entry) {
+        return new XCSP3.XCSP3LoadedInstance(entry.md(), entry.decisionVars(), XCSP3.solutionGenerator(entry.names(), entry.decisionVars()));
+    }
+
+    // ====================================================================================
+    // document
+
+    private void readInstance() throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() != XMLStreamConstants.START_ELEMENT)
+                continue;
+            switch (reader.getLocalName()) {
+                case "instance" -> {
+                    String type = reader.getAttributeValue(null, "type");
+                    if (type != null && !type.equals("CSP") && !type.equals("COP"))
+                        throw new NotYetImplementedException("Instances of type %s are not supported".formatted(type));
+                }
+                case "variables" -> readVariables();
+                case "constraints" -> readConstraints();
+                case "objectives" -> readObjectives();
+                default -> skipElement();
+            }
+        }
+    }
+
+    /**
+     * Skips the current element and its content, the reader being on its start
+     */
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT)
+                depth++;
+            else if (event == XMLStreamConstants.END_ELEMENT)
+                depth--;
+        }
+    }
+
+    /**
+     * Reads the text of the current element, which has no child element
+     */
+    private String readText() throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        while (true) {
+            int event = reader.next();
+            switch (event) {
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE ->
+                        text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                case XMLStreamConstants.START_ELEMENT ->
+                        throw new IllegalArgumentException("unexpected element <%s>".formatted(reader.getLocalName()));
+                case XMLStreamConstants.END_ELEMENT -> {
+                    return text.toString().trim();
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    // ====================================================================================
+    // variables
+
+    private void readVariables() throws XMLStreamException {
+        while (true) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT)
+                return;
+            if (event != XMLStreamConstants.START_ELEMENT)
+                continue;
+            String type = reader.getAttributeValue(null, "type");
+            if (type != null && !type.equals("integer"))
+                throw new NotYetImplementedException("Variables of type %s are not supported".formatted(type));
+            if (reader.getAttributeValue(null, "as") != null)
+                throw new NotYetImplementedException("Variables declared with 'as' are not supported");
+            switch (reader.getLocalName()) {
+                case "var" -> {
+                    String id = reader.getAttributeValue(null, "id");
+                    declare(id, parseDomain(readText()));
+                }
+                case "array" -> readArray();
+                default -> throw new IllegalArgumentException("unexpected element <%s> in <variables>".formatted(reader.getLocalName()));
+            }
+        }
+    }
+
+    private void readArray() throws XMLStreamException {
+        String id = reader.getAttributeValue(null, "id");
+        int[] size = parseSize(reader.getAttributeValue(null, "size"));
+        arraySizes.put(id, size);
+        int n = 1;
+        for (int s : size)
+            n = Math.multiplyExact(n, s);
+        int[][] domains = new int[n][];
+        StringBuilder text = new StringBuilder();
+        while (true) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT)
+                break;
+            if (event == XMLStreamConstants.CHARACTERS)
+                text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            else if (event == XMLStreamConstants.START_ELEMENT) {
+                // <domain for="...">
+                String cells = reader.getAttributeValue(null, "for");
+                int[] domain = parseDomain(readText());
+                if (cells.trim().equals("others")) {
+                    for (int i = 0; i < n; i++)
+                        if (domains[i] == null)
+                            domains[i] = domain;
+                } else {
+                    for (String cell : cells.trim().split("\\s+"))
+                        for (int i : cellIndices(cell, id, size))
+                            domains[i] = domain;
+                }
+            }
+        }
+        if (!text.toString().isBlank()) {
+            int[] domain = parseDomain(text.toString().trim());
+            Arrays.fill(domains, domain);
+        }
+        // the cells are declared in the lexicographic order of their indices, the undefined ones are skipped
+        int[] index = new int[size.length];
+        for (int i = 0; i < n; i++) {
+            if (domains[i] != null) {
+                StringBuilder name = new StringBuilder(id);
+                for (int k : index)
+                    name.append('[').append(k).append(']');
+                declare(name.toString(), domains[i]);
+            }
+            for (int d = size.length - 1; d >= 0 && ++index[d] == size[d]; d--)
+                index[d] = 0;
+        }
+    }
+
+    /**
+     * Declares a variable
+     *
+     * @param domain the domain as {min, max} for an interval, or as the sorted values preceded by -1
+     */
+    private void declare(String id, int[] domain) {
+        IntExpression x = domain.length == 2
+                ? md.intVar(id, domain[0], domain[1])
+                : md.intVar(id, Arrays.copyOfRange(domain, 1, domain.length));
+        varHashMap.put(id, x);
+    }
+
+    /**
+     * Parses a domain such as "0..9" or "1 3 5..7"
+     *
+     * @return {min, max} if the domain is an interval, otherwise the sorted values preceded by -1
+     */
+    private static int[] parseDomain(String text) {
+        String[] tokens = text.trim().split("\\s+");
+        if (tokens.length == 1 && tokens[0].contains("..")) {
+            int[] range = parseRange(tokens[0]);
+            if (range[0] > range[1])
+                throw new IllegalArgumentException("empty domain " + text);
+            return range;
+        }
+        TreeSet<Integer> values = new TreeSet<>();
+        for (String token : tokens) {
+            if (token.contains("..")) {
+                int[] range = parseRange(token);
+                for (int v = range[0]; v <= range[1]; v++)
+                    values.add(v);
+            } else {
+                values.add(parseInt(token));
+            }
+        }
+        if (values.size() == values.last() - values.first() + 1)
+            return new int[]{values.first(), values.last()};
+        int[] domain = new int[values.size() + 1];
+        domain[0] = -1;
+        int i = 1;
+        for (int v : values)
+            domain[i++] = v;
+        return domain;
+    }
+
+    private static int[] parseRange(String token) {
+        int dots = token.indexOf("..");
+        return new int[]{parseInt(token.substring(0, dots)), parseInt(token.substring(dots + 2))};
+    }
+
+    private static int parseInt(String token) {
+        if (token.contains("infinity"))
+            throw new NotYetImplementedException("Infinite domains are not supported");
+        return Integer.parseInt(token.charAt(0) == '+' ? token.substring(1) : token);
+    }
+
+    private static boolean isInteger(String token) {
+        char c = token.charAt(0);
+        return Character.isDigit(c) || ((c == '-' || c == '+') && token.length() > 1 && Character.isDigit(token.charAt(1)));
+    }
+
+    private static int[] parseSize(String size) {
+        String[] dims = size.trim().substring(1, size.trim().length() - 1).split("\\]\\s*\\[");
+        return Arrays.stream(dims).mapToInt(d -> Integer.parseInt(d.trim())).toArray();
+    }
+
+    /**
+     * Positions in an array of the cells denoted by an expression such as "x[1][]" or "x[0..2][3]",
+     * in the lexicographic order of their indices
+     */
+    private static int[] cellIndices(String cells, String id, int[] size) {
+        int open = cells.indexOf('[');
+        if (open < 0 || !cells.substring(0, open).equals(id))
+            throw new IllegalArgumentException("%s does not denote cells of the array %s".formatted(cells, id));
+        int[][] ranges = parseIndexRanges(cells.substring(open), size);
+        int n = 1;
+        for (int[] r : ranges)
+            n *= r[1] - r[0] + 1;
+        int[] indices = new int[n];
+        int[] index = new int[size.length];
+        for (int d = 0; d < size.length; d++)
+            index[d] = ranges[d][0];
+        for (int i = 0; i < n; i++) {
+            int pos = 0;
+            for (int d = 0; d < size.length; d++)
+                pos = pos * size[d] + index[d];
+            indices[i] = pos;
+            for (int d = size.length - 1; d >= 0 && ++index[d] > ranges[d][1]; d--)
+                index[d] = ranges[d][0];
+        }
+        return indices;
+    }
+
+    /**
+     * Parses the indices "[a][b..c][]" of an array into one interval per dimension
+     */
+    private static int[][] parseIndexRanges(String indices, int[] size) {
+        int[][] ranges = new int[size.length][];
+        int d = 0;
+        int i = 0;
+        while (i < indices.length()) {
+            int close = indices.indexOf(']', i);
+            if (indices.charAt(i) != '[' || close < 0 || d == size.length)
+                throw new IllegalArgumentException("invalid indices " + indices);
+            String r = indices.substring(i + 1, close);
+            ranges[d] = r.isEmpty() ? new int[]{0, size[d] - 1}
+                    : r.contains("..") ? parseRange(r)
+                    : new int[]{Integer.parseInt(r), Integer.parseInt(r)};
+            d++;
+            i = close + 1;
+        }
+        if (d != size.length)
+            throw new IllegalArgumentException("invalid indices " + indices);
+        return ranges;
+    }
+
+    // ====================================================================================
+    // terms of the constraints
+
+    /**
+     * Expands a list of terms, the compact forms of arrays (e.g. "x[]" or "x[1][2..4]") being replaced by
+     * their existing cells and the parameters of a group ("%i" and "%...") by their arguments
+     */
+    private List<String> expandList(String text, String[] args) {
+        List<String> terms = new ArrayList<>();
+        if (text.isEmpty())
+            return terms;
+        for (String token : text.split("\\s+")) {
+            if (token.charAt(0) == '%') {
+                if (token.equals("%...")) {
+                    for (int i = firstUnnamedArg; i < args.length; i++)
+                        terms.add(args[i]);
+                } else {
+                    terms.add(args[Integer.parseInt(token.substring(1))]);
+                }
+            } else if (token.indexOf('[') >= 0 && (token.contains("[]") || token.contains(".."))) {
+                String id = token.substring(0, token.indexOf('['));
+                int[] size = arraySizes.get(id);
+                if (size == null)
+                    throw new IllegalArgumentException("unknown array " + id);
+                int[] index = new int[size.length];
+                for (int pos : cellIndices(token, id, size)) {
+                    for (int d = size.length - 1, p = pos; d >= 0; d--) {
+                        index[d] = p % size[d];
+                        p /= size[d];
+                    }
+                    StringBuilder name = new StringBuilder(id);
+                    for (int k : index)
+                        name.append('[').append(k).append(']');
+                    String cell = name.toString();
+                    if (varHashMap.containsKey(cell))
+                        terms.add(cell);
+                }
+            } else {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * @return the index of the first argument denoted by "%..." in a template, following the largest "%i"
+     */
+    private static int firstUnnamedArg(Node template) {
+        int first = 0;
+        String text = template.text == null ? "" : template.text;
+        for (int i = text.indexOf('%'); i >= 0; i = text.indexOf('%', i + 1)) {
+            int j = i + 1;
+            while (j < text.length() && Character.isDigit(text.charAt(j)))
+                j++;
+            if (j > i + 1)
+                first = Math.max(first, Integer.parseInt(text.substring(i + 1, j)) + 1);
+        }
+        for (Node child : template.children)
+            first = Math.max(first, firstUnnamedArg(child));
+        return first;
+    }
+
+    /**
+     * @return the expression of a term, being a variable or an integer
+     */
+    private IntExpression term(String token) {
+        if (isInteger(token))
+            return new Constant(md, parseInt(token));
+        IntExpression x = varHashMap.get(token);
+        if (x == null)
+            throw new IllegalArgumentException("unknown variable " + token);
+        used.add(token);
+        return x;
+    }
+
+    private IntExpression[] terms(List<String> tokens) {
+        return tokens.stream().map(this::term).toArray(IntExpression[]::new);
+    }
+
+    private int[] integers(List<String> tokens) {
+        return tokens.stream().mapToInt(XCSP3StreamLoader::parseInt).toArray();
+    }
+
+    // ====================================================================================
+    // constraints
+
+    /**
+     * An element of a constraint, read entirely except the groups.
+     * The tuples of the extensions are parsed as they are read, and the expressions of the intensions
+     * are parsed once for all the constraints of a group.
+     */
+    private static final class Node {
+        final String name;
+        final Map<String, String> attributes = new HashMap<>();
+        final List<Node> children = new ArrayList<>();
+        String text;
+        TupleParser tuples;
+        Expr expr;
+
+        Node(String name) {
+            this.name = name;
+        }
+
+        Node child(String name) {
+            for (Node c : children)
+                if (c.name.equals(name))
+                    return c;
+            return null;
+        }
+
+        String childText(String name) {
+            Node c = child(name);
+            if (c == null)
+                throw new IllegalArgumentException("missing <%s> in <%s>".formatted(name, this.name));
+            return c.text;
+        }
+    }
+
+    /**
+     * Reads the current element into a node
+     */
+    private Node readNode() throws XMLStreamException {
+        Node node = new Node(reader.getLocalName());
+        for (int i = 0; i < reader.getAttributeCount(); i++)
+            node.attributes.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+        boolean tuples = node.name.equals("supports") || node.name.equals("conflicts");
+        if (tuples)
+            node.tuples = new TupleParser();
+        StringBuilder text = tuples ? null : new StringBuilder();
+        while (true) {
+            int event = reader.next();
+            switch (event) {
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE -> {
+                    if (tuples)
+                        node.tuples.parse(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    else
+                        text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                }
+                case XMLStreamConstants.START_ELEMENT -> node.children.add(readNode());
+                case XMLStreamConstants.END_ELEMENT -> {
+                    if (tuples)
+                        node.tuples.end();
+                    else
+                        node.text = text.toString().trim();
+                    return node;
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the constraints until the end of the enclosing element
+     */
+    private void readConstraints() throws XMLStreamException {
+        String[] noArgs = new String[0];
+        while (true) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT)
+                return;
+            if (event != XMLStreamConstants.START_ELEMENT)
+                continue;
+            switch (reader.getLocalName()) {
+                case "block" -> readConstraints();
+                case "group" -> readGroup();
+                default -> post(readNode(), noArgs);
+            }
+        }
+    }
+
+    /**
+     * Reads a group, its template being posted for each of its arguments as they are read
+     */
+    private void readGroup() throws XMLStreamException {
+        Node template = null;
+        while (true) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT)
+                return;
+            if (event != XMLStreamConstants.START_ELEMENT)
+                continue;
+            if (template == null) {
+                template = readNode();
+                firstUnnamedArg = firstUnnamedArg(template);
+            } else if (reader.getLocalName().equals("args")) {
+                post(template, expandList(readText(), new String[0]).toArray(String[]::new));
+            } else {
+                throw new IllegalArgumentException("unexpected element <%s> in <group>".formatted(reader.getLocalName()));
+            }
+        }
+    }
+
+    private void post(Node c, String[] args) {
+        switch (c.name) {
+            case "extension" -> postExtension(c, args);
+            case "intension" -> {
+                if (c.expr == null)
+                    c.expr = Expr.parse(c.children.isEmpty() ? c.text : c.childText("function"));
+                md.add((BoolExpression) build(c.expr, args));
+            }
+            case "allDifferent" -> {
+                if (c.child("except") != null || c.children.stream().filter(n -> n.name.equals("list")).count() > 1)
+                    throw new NotYetImplementedException("allDifferent with exceptions or on several lists is not supported");
+                String list = c.child("list") != null ? c.childText("list") : c.text;
+                md.add(Factory.allDifferent(terms(expandList(list, args))));
+            }
+            case "sum" -> {
+                IntExpression[] list = terms(expandList(c.childText("list"), args));
+                IntExpression sum = c.child("coeffs") == null
+                        ? new Sum(list)
+                        : new WeightedSum(list, integers(expandList(c.childText("coeffs"), args)));
+                postCondition(sum, c.childText("condition"), args);
+            }
+            case "element" -> {
+                Node listNode = c.child("list");
+                List<String> list = expandList(listNode.text, args);
+                IntExpression index = term(expandList(c.childText("index"), args).getFirst());
+                int startIndex = Integer.parseInt(listNode.attributes.getOrDefault("startIndex", "0"));
+                if (startIndex != 0)
+                    index = Factory.minus(index, startIndex);
+                IntExpression element = list.stream().allMatch(XCSP3StreamLoader::isInteger)
+                        ? Factory.get(integers(list), index)
+                        : Factory.get(terms(list), index);
+                if (c.child("value") != null)
+                    md.add(Factory.eq(element, term(expandList(c.childText("value"), args).getFirst())));
+                else
+                    postCondition(element, c.childText("condition"), args);
+            }
+            case "instantiation" -> {
+                IntExpression[] list = terms(expandList(c.childText("list"), args));
+                int[] values = integers(expandList(c.childText("values"), args));
+                for (int i = 0; i < list.length; i++)
+                    md.add(Factory.eq(list[i], values[i]));
+            }
+            default ->
+                    throw new NotYetImplementedException("Constraint %s is not supported by the streaming loader, use XCSP3.load".formatted(c.name));
+        }
+    }
+
+    private void postExtension(Node c, String[] args) {
+        IntExpression[] list = terms(expandList(c.childText("list"), args));
+        Node supports = c.child("supports");
+        Node conflicts = c.child("conflicts");
+        TupleParser tuples = supports != null ? supports.tuples : conflicts.tuples;
+        boolean positive = supports != null;
+        if (list.length == 1) {
+            int[] values = tuples.values();
+            if (positive) {
+                md.add(new InSet(list[0], ImmutableSet.of(values)));
+            } else {
+                for (int v : values)
+                    md.add(new NotEq(list[0], v));
+            }
+            return;
+        }
+        int[][] table = tuples.tuples(list.length);
+        Optional<Integer> starred = tuples.starred() ? Optional.of(Constants.STAR_INT) : Optional.empty();
+        if (positive)
+            md.add(new Table(list, table, starred));
+        else
+            md.add(new NegTable(list, table, starred));
+    }
+
+    /**
+     * Posts a condition such as "(le,10)", "(eq,y)" or "(in,0..5)" on an expression
+     */
+    private void postCondition(IntExpression expr, String condition, String[] args) {
+        String inner = condition.trim();
+        if (!inner.startsWith("(") || !inner.endsWith(")") || inner.indexOf(',') < 0)
+            throw new IllegalArgumentException("invalid condition " + condition);
+        inner = inner.substring(1, inner.length() - 1);
+        int comma = inner.indexOf(',');
+        String op = inner.substring(0, comma).trim();
+        String operand = inner.substring(comma + 1).trim();
+        if (op.equals("in") || op.equals("notin")) {
+            BoolExpression in;
+            if (operand.contains("..") && !operand.startsWith("{")) {
+                int[] range = parseRange(operand);
+                in = Factory.and(Factory.ge(expr, range[0]), Factory.le(expr, range[1]));
+            } else {
+                String values = operand.replaceAll("[{}]", " ").trim();
+                in = new InSet(expr, ImmutableSet.of(integers(expandList(values, args))));
+            }
+            md.add(op.equals("in") ? in : Factory.not(in));
+            return;
+        }
+        IntExpression v = term(expandList(operand, args).getFirst());
+        md.add(switch (op) {
+            case "eq" -> Factory.eq(expr, v);
+            case "ne" -> Factory.neq(expr, v);
+            case "lt" -> Factory.lt(expr, v);
+            case "le" -> Factory.le(expr, v);
+            case "gt" -> Factory.gt(expr, v);
+            case "ge" -> Factory.ge(expr, v);
+            default -> throw new IllegalArgumentException("unknown operator " + op);
+        });
+    }
+
+    // ====================================================================================
+    // objectives
+
+    private void readObjectives() throws XMLStreamException {
+        while (true) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT)
+                return;
+            if (event != XMLStreamConstants.START_ELEMENT)
+                continue;
+            Node objective = readNode();
+            IntExpression expr = switch (objective.attributes.getOrDefault("type", "expression")) {
+                case "expression" -> build(Expr.parse(objective.text), new String[0]);
+                case "sum" -> {
+                    IntExpression[] list = terms(expandList(objective.childText("list"), new String[0]));
+                    yield objective.child("coeffs") == null
+                            ? new Sum(list)
+                            : new WeightedSum(list, integers(expandList(objective.childText("coeffs"), new String[0])));
+                }
+                case "minimum" -> Factory.min(terms(expandList(objective.childText("list"), new String[0])));
+                case "maximum" -> Factory.max(terms(expandList(objective.childText("list"), new String[0])));
+                default -> throw new NotYetImplementedException("Objective of type %s is not supported".formatted(objective.attributes.get("type")));
+            };
+            switch (objective.name) {
+                case "minimize" -> md.minimize(expr);
+                case "maximize" -> md.maximize(expr);
+                default -> throw new IllegalArgumentException("unexpected element <%s> in <objectives>".formatted(objective.name));
+            }
+        }
+    }
+
+    // ====================================================================================
+    // expressions in functional notation
+
+    /**
+     * Expression in functional notation, e.g. "eq(%0,add(x[1],2))", whose leaves are
+     * integers, variables, or parameters of a group
+     */
+    private sealed interface Expr {
+
+        record Leaf(String token) implements Expr {
+        }
+
+        record Call(String op, Expr[] args) implements Expr {
+        }
+
+        static Expr parse(String text) {
+            int[] pos = {0};
+            Expr e = parse(text, pos);
+            skipSpaces(text, pos);
+            if (pos[0] != text.length())
+                throw new IllegalArgumentException("invalid expression " + text);
+            return e;
+        }
+
+        private static Expr parse(String text, int[] pos) {
+            skipSpaces(text, pos);
+            int start = pos[0];
+            while (pos[0] < text.length() && "(),".indexOf(text.charAt(pos[0])) < 0)
+                pos[0]++;
+            String token = text.substring(start, pos[0]).trim();
+            if (pos[0] == text.length() || text.charAt(pos[0]) != '(') {
+                if (token.isEmpty())
+                    throw new IllegalArgumentException("invalid expression " + text);
+                return new Leaf(token);
+            }
+            pos[0]++; // (
+            List<Expr> args = new ArrayList<>();
+            skipSpaces(text, pos);
+            if (text.charAt(pos[0]) == ')') {
+                pos[0]++;
+                return new Call(token, new Expr[0]);
+            }
+            while (true) {
+                args.add(parse(text, pos));
+                skipSpaces(text, pos);
+                char c = text.charAt(pos[0]++);
+                if (c == ')')
+                    return new Call(token, args.toArray(Expr[]::new));
+                if (c != ',')
+                    throw new IllegalArgumentException("invalid expression " + text);
+            }
+        }
+
+        private static void skipSpaces(String text, int[] pos) {
+            while (pos[0] < text.length() && Character.isWhitespace(text.charAt(pos[0])))
+                pos[0]++;
+        }
+    }
+
+    private IntExpression build(Expr e, String[] args) {
+        return switch (e) {
+            case Expr.Leaf(String token) ->
+                    term(token.charAt(0) == '%' ? args[Integer.parseInt(token.substring(1))] : token);
+            case Expr.Call(String op, Expr[] sons) -> switch (op) {
+                case "neg" -> Factory.minus(build(sons[0], args));
+                case "abs" -> Factory.abs(build(sons[0], args));
+                case "add" -> new Sum(build(sons, args));
+                case "sub" -> Factory.minus(build(sons[0], args), build(sons[1], args));
+                case "mul" -> {
+                    IntExpression[] x = build(sons, args);
+                    if (x.length == 2 && x[0] instanceof Constant c)
+                        yield Factory.mul(x[1], c.v());
+                    if (x.length == 2 && x[1] instanceof Constant c)
+                        yield Factory.mul(x[0], c.v());
+                    yield Factory.mul(x);
+                }
+                case "dist" -> Factory.abs(Factory.minus(build(sons[0], args), build(sons[1], args)));
+                case "min" -> Factory.min(build(sons, args));
+                case "max" -> Factory.max(build(sons, args));
+                case "eq" -> {
+                    IntExpression[] x = build(sons, args);
+                    if (x.length == 2)
+                        yield Factory.eq(x[0], x[1]);
+                    BoolExpression[] eqs = new BoolExpression[x.length - 1];
+                    for (int i = 1; i < x.length; i++)
+                        eqs[i - 1] = Factory.eq(x[0], x[i]);
+                    yield Factory.and(eqs);
+                }
+                case "ne" -> {
+                    if (sons.length != 2)
+                        throw new NotYetImplementedException("No support for ne with more than 2 elements");
+                    yield Factory.neq(build(sons[0], args), build(sons[1], args));
+                }
+                case "lt" -> Factory.lt(build(sons[0], args), build(sons[1], args));
+                case "le" -> Factory.le(build(sons[0], args), build(sons[1], args));
+                case "gt" -> Factory.gt(build(sons[0], args), build(sons[1], args));
+                case "ge" -> Factory.ge(build(sons[0], args), build(sons[1], args));
+                case "not" -> Factory.not((BoolExpression) build(sons[0], args));
+                case "and" -> Factory.and(buildBool(sons, args));
+                case "or" -> Factory.or(buildBool(sons, args));
+                case "imp" -> Factory.implies((BoolExpression) build(sons[0], args), (BoolExpression) build(sons[1], args));
+                case "iff" -> {
+                    if (sons.length != 2)
+                        throw new NotYetImplementedException("No support for iff with more than 2 elements");
+                    yield Factory.eq(build(sons[0], args), build(sons[1], args));
+                }
+                case "in" -> {
+                    if (!(sons[1] instanceof Expr.Call(String set, Expr[] elements)) || !set.equals("set"))
+                        throw new IllegalArgumentException("in expects a set");
+                    IntExpression x = build(sons[0], args);
+                    IntExpression[] values = build(elements, args);
+                    if (Arrays.stream(values).allMatch(v -> v instanceof Constant))
+                        yield new InSet(x, ImmutableSet.of(Arrays.stream(values).mapToInt(v -> ((Constant) v).v()).toArray()));
+                    yield Factory.or(Arrays.stream(values).map(v -> Factory.eq(v, x)).toArray(BoolExpression[]::new));
+                }
+                default -> throw new NotYetImplementedException("Operator %s is not supported".formatted(op));
+            };
+        };
+    }
+
+    private IntExpression[] build(Expr[] sons, String[] args) {
+        IntExpression[] x = new IntExpression[sons.length];
+        for (int i = 0; i < sons.length; i++)
+            x[i] = build(sons[i], args);
+        return x;
+    }
+
+    private BoolExpression[] buildBool(Expr[] sons, String[] args) {
+        BoolExpression[] x = new BoolExpression[sons.length];
+        for (int i = 0; i < sons.length; i++)
+            x[i] = (BoolExpression) build(sons[i], args);
+        return x;
+    }
+
+    // ====================================================================================
+    // tuples
+
+    /**
+     * Incremental parser of the tuples of an extension, fed with the characters of the document
+     * as they are read such that a large table is never held as a string.
+     * The tuples, e.g. "(0,1)(1,*)", are written directly into their rows, and the values of
+     * a unary extension, e.g. "1 3 5..9", into a growing array.
+     */
+    static final class TupleParser {
+        private int[][] rows = new int[16][];
+        private int nRows = 0;
+        private int[] row = new int[4]; // the current tuple
+        private int rowSize = 0;
+        private int arity = -1;
+        private boolean inTuple = false;
+        private boolean starred = false;
+        private boolean sawTuple = false;
+
+        // values of a unary extension
+        private int[] values = new int[16];
+        private int nValues = 0;
+        private boolean range = false; // after ".."
+
+        // number being read
+        private long number = 0;
+        private boolean negative = false;
+        private boolean inNumber = false;
+        private int dots = 0;
+
+        void parse(char[] chars, int start, int length) {
+            for (int i = start; i < start + length; i++) {
+                char c = chars[i];
+                if (c >= '0' && c <= '9') {
+                    number = number * 10 + (c - '0');
+                    if (number > Integer.MAX_VALUE + 1L)
+                        throw new IllegalArgumentException("integer overflow in tuples");
+                    inNumber = true;
+                    continue;
+                }
+                switch (c) {
+                    case '-' -> negative = true;
+                    case '+' -> {
+                    }
+                    case '.' -> {
+                        endNumber();
+                        if (++dots == 2) {
+                            range = true;
+                            dots = 0;
+                        }
+                    }
+                    case '(' -> {
+                        inTuple = true;
+                        sawTuple = true;
+                        rowSize = 0;
+                        if (arity > 0)
+                            row = new int[arity];
+                    }
+                    case ',' -> endNumber();
+                    case ')' -> {
+                        endNumber();
+                        endTuple();
+                    }
+                    case '*' -> {
+                        starred = true;
+                        add(Constants.STAR_INT);
+                    }
+                    default -> {
+                        if (!Character.isWhitespace(c))
+                            throw new IllegalArgumentException("unexpected character '" + c + "' in tuples");
+                        endNumber();
+                    }
+                }
+            }
+        }
+
+        void end() {
+            endNumber();
+            if (inTuple)
+                throw new IllegalArgumentException("unterminated tuple");
+        }
+
+        private void endNumber() {
+            if (!inNumber) {
+                return;
+            }
+            int v = (int) (negative ? -number : number);
+            number = 0;
+            negative = false;
+            inNumber = false;
+            if (range) {
+                range = false;
+                for (int w = values[nValues - 1] + 1; w <= v; w++)
+                    add(w);
+            } else {
+                add(v);
+            }
+        }
+
+        private void add(int v) {
+            if (inTuple) {
+                if (rowSize == row.length) {
+                    if (arity > 0)
+                        throw new IllegalArgumentException("tuples of different arities");
+                    row = Arrays.copyOf(row, row.length * 2);
+                }
+                row[rowSize++] = v;
+            } else {
+                if (nValues == values.length)
+                    values = Arrays.copyOf(values, values.length * 2);
+                values[nValues++] = v;
+            }
+        }
+
+        private void endTuple() {
+            if (arity < 0) {
+                arity = rowSize;
+                row = Arrays.copyOf(row, arity);
+            } else if (rowSize != arity) {
+                throw new IllegalArgumentException("tuples of different arities");
+            }
+            if (nRows == rows.length)
+                rows = Arrays.copyOf(rows, rows.length * 2);
+            rows[nRows++] = row;
+            inTuple = false;
+        }
+
+        boolean starred() {
+            return starred;
+        }
+
+        /**
+         * @param arity the number of variables of the extension
+         * @return the tuples, shared by the constraints of a group
+         */
+        int[][] tuples(int arity) {
+            if (nRows > 0 && this.arity != arity)
+                throw new IllegalArgumentException("tuples of arity %d on %d variables".formatted(this.arity, arity));
+            if (rows.length != nRows)
+                rows = Arrays.copyOf(rows, nRows);
+            return rows;
+        }
+
+        /**
+         * @return the values of a unary extension
+         */
+        int[] values() {
+            if (sawTuple) {
+                int[] v = new int[nRows];
+                for (int i = 0; i < nRows; i++)
+                    v[i] = rows[i][0];
+                return v;
+            }
+            return Arrays.copyOf(values, nValues);
+        }
+    }
+
+    // ====================================================================================
+
+    /**
+     * Stream over a memory mapping of a file, mapped by windows such that files larger than 2GB can be read
+     */
+    private static final class MappedInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long size;
+        private long mapped = 0;
+        private MappedByteBuffer buffer;
+
+        MappedInputStream(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            size = channel.size();
+        }
+
+        private boolean available0() throws IOException {
+            if (buffer != null && buffer.hasRemaining())
+                return true;
+            if (mapped >= size)
+                return false;
+            long length = Math.min(MAPPING_WINDOW, size - mapped);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapped, length);
+            mapped += length;
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return available0() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0)
+                return 0;
+            if (!available0())
+                return -1;
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            buffer = null;
+            channel.close();
+        }
+    }
+}
@@ -9,10 +9,12 @@ import org.maxicp.modeling.symbolic.SymbolicModel;
 import org.maxicp.state.StateManager;
 
 import javax.lang.model.type.NullType;
+import java.util.Iterator;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
@@ -26,6 +28,7 @@ public abstract class AbstractConcurrentSearchMethod extends AbstractSearchMetho
     protected SearchStatistics statistics;
     protected Runnable onNodeVisit;
     private final BlockingQueue<Message> queue;
+    private boolean running; // guarded by queue
 
     private sealed interface Message {
         void cancel(Throwable ex);
@@ -38,13 +41,30 @@ public abstract class AbstractConcurrentSearchMethod extends AbstractSearchMetho
         }
     };
 
-    private record StealMessage(CompletableFuture<SymbolicModel> future) implements Message {
+    private record StealMessage(StealFuture future) implements Message {
         @Override
         public void cancel(Throwable ex) {
             future.completeExceptionally(ex);
         }
     };
 
+    /**
+     * Answer to a steal request. Once the search method has started to extract a model for it,
+     * the request cannot be cancelled anymore, such that no model is lost.
+     */
+    private static final class StealFuture extends CompletableFuture<SymbolicModel> {
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return claim() && super.cancel(mayInterruptIfRunning);
+        }
+    }
+
     public AbstractConcurrentSearchMethod(StateManager sm, Supplier<SymbolicModel[]> branching) {
         super(sm, branching);
         statistics = null;
@@ -85,10 +105,18 @@ public abstract class AbstractConcurrentSearchMethod extends AbstractSearchMetho
      * Steal a (yet non-visited) model from this search method. Thread-safe.
      *
      * The function is allowed to return null if and only if there is no Model left to visit.
+     * In particular, the future is completed with null right away if no solving process is running,
+     * and when the solving process ends before answering.
+     * Cancelling the future fails if the model is already being extracted, it is then completed shortly.
      */
     public Future<SymbolicModel> steal() {
-        CompletableFuture<SymbolicModel> future = new CompletableFuture<>();
-        queue.add(new StealMessage(future));
+        StealFuture future = new StealFuture();
+        synchronized (queue) {
+            if (running)
+                queue.add(new StealMessage(future));
+            else
+                future.complete(null);
+        }
         return future;
     }
 
@@ -106,7 +134,16 @@ public abstract class AbstractConcurrentSearchMethod extends AbstractSearchMetho
         while (!queue.isEmpty()) {
             Message message = queue.poll();
             switch (message) {
-                case StealMessage stealMessage -> stealMessage.future.complete(extractModel());
+                case StealMessage stealMessage -> {
+                    if (stealMessage.future.claim()) {
+                        try {
+                            stealMessage.future.complete(extractModel());
+                        } catch (RuntimeException | Error e) {
+                            stealMessage.future.completeExceptionally(e);
+                            throw e;
+                        }
+                    }
+                }
                 case StopMessage stopMessage -> {
                     while (!queue.isEmpty()) {
                         Message bis = queue.poll();
@@ -119,22 +156,44 @@ public abstract class AbstractConcurrentSearchMethod extends AbstractSearchMetho
         }
     }
 
+    /**
+     * Answers the pending steal requests with null, as no model is left to visit
+     */
+    private void rejectSteals() {
+        Iterator<Message> it = queue.iterator();
+        while (it.hasNext()) {
+            if (it.next() instanceof StealMessage stealMessage) {
+                it.remove();
+                stealMessage.future.complete(null);
+            }
+        }
+    }
+
     @Override
     protected void startSolve(SearchStatistics statistics, Predicate<SearchStatistics> limit, Runnable onNodeVisit) {
         this.statistics = statistics;
         this.onNodeVisit = onNodeVisit;
-        sm.withNewState(() -> {
-            initSolve();
-            try {
-                while(!done()) {
-                    if (limit.test(statistics)) throw new StopSearchException();
-                    processQueue();
-                    processNextStep();
+        synchronized (queue) {
+            running = true;
+        }
+        try {
+            sm.withNewState(() -> {
+                initSolve();
+                try {
+                    while (!done()) {
+                        if (limit.test(statistics)) throw new StopSearchException();
+                        processQueue();
+                        processNextStep();
+                    }
+                } finally {
+                    finishSolve();
                 }
+            });
+        } finally {
+            synchronized (queue) {
+                running = false;
+                rejectSteals();
             }
-            finally {
-                finishSolve();
-            }
-        });
+        }
     }
 }
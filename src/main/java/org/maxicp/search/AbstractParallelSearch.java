@@ -0,0 +1,127 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.search;
+
+import org.maxicp.modeling.ModelProxyInstantiator;
+import org.maxicp.modeling.algebra.integer.IntExpression;
+import org.maxicp.modeling.concrete.ConcreteModel;
+import org.maxicp.modeling.symbolic.*;
+import org.maxicp.modeling.symbolic.Objective;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Base class of the searches solving a {@link ModelProxyInstantiator} on a pool of workers,
+ * each worker solving its own concrete model on its own thread
+ * (see {@link EPSearch}, {@link WorkStealingDFSearch}, {@link PortfolioSearch} and {@link LNSearch}).
+ * <p>
+ * When optimizing, the bound of the objective is shared by all the workers
+ * through a {@link SharedMinimization} or {@link SharedMaximization}.
+ */
+public abstract class AbstractParallelSearch {
+
+    protected final ModelProxyInstantiator modelProxy;
+    protected final ModelProxyInstantiator.ModelInstantiator<? extends ConcreteModel> instantiator;
+    private final List<Runnable> solutionListeners = new LinkedList<>();
+
+    /**
+     * @param modelProxy   the model to solve
+     * @param instantiator the instantiator of the concrete model of each worker
+     */
+    protected AbstractParallelSearch(ModelProxyInstantiator modelProxy, ModelProxyInstantiator.ModelInstantiator<? extends ConcreteModel> instantiator) {
+        this.modelProxy = modelProxy;
+        this.instantiator = instantiator;
+    }
+
+    /**
+     * Adds a listener called each time a solution is found.
+     * When optimizing, {@link PortfolioSearch} and {@link LNSearch} only call it
+     * on the solutions improving the incumbent.
+     * It is called on the thread of the worker that found the solution,
+     * never concurrently with another solution listener of this search.
+     *
+     * @param listener the listener
+     */
+    public void onSolution(Runnable listener) {
+        solutionListeners.add(listener);
+    }
+
+    /**
+     * Calls the solution listeners, one thread at a time
+     */
+    protected synchronized void notifySolution() {
+        solutionListeners.forEach(Runnable::run);
+    }
+
+    /**
+     * Turns an objective into an objective whose bound is shared by the workers
+     *
+     * @param objective a {@link Minimization}, {@link Maximization} or their shared counterpart
+     * @return the shared objective
+     * @throws IllegalArgumentException if the objective is not supported
+     */
+    protected static Objective shared(Objective objective) {
+        return switch (objective) {
+            case Minimization m -> new SharedMinimization(m.expr());
+            case Maximization m -> new SharedMaximization(m.expr());
+            case SharedMinimization m -> m;
+            case SharedMaximization m -> m;
+            default -> throw new IllegalArgumentException("the objective is not supported");
+        };
+    }
+
+    /**
+     * @param shared an objective returned by {@link #shared(Objective)}
+     * @return the expression optimized by the objective
+     */
+    protected static IntExpression expression(Objective shared) {
+        return shared instanceof SharedMinimization m ? m.expr : ((SharedMaximization) shared).expr;
+    }
+
+    /**
+     * Runs each worker on its own thread and waits for all of them.
+     * The first failure of a worker is reported as soon as it happens,
+     * after aborting the other workers, which are also interrupted.
+     *
+     * @param workers the workers
+     * @param abort   called before rethrowing the failure of a worker (or the interruption of the calling thread),
+     *                to stop the other workers
+     * @return the results of the workers, in the order of the workers
+     * @throws RuntimeException the exception thrown by a worker
+     */
+    protected static <T> List<T> runWorkers(List<Callable<T>> workers, Runnable abort) {
+        if (workers.isEmpty())
+            return new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(workers.size());
+        try {
+            CompletionService<T> completion = new ExecutorCompletionService<>(executor);
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> worker : workers)
+                futures.add(completion.submit(worker));
+            // in the order of completion, such that the first failure is not hidden by a long worker
+            for (int i = 0; i < futures.size(); i++)
+                completion.take().get();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures)
+                results.add(future.get());
+            return results;
+        } catch (InterruptedException e) {
+            abort.run();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            abort.run();
+            if (e.getCause() instanceof RuntimeException re)
+                throw re;
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -67,6 +67,26 @@ public abstract class AbstractSearchMethod<T> implements SearchMethod {
         failureListeners.forEach(Runnable::run);
     }
 
+    /**
+     * Called on each leaf of the search: the state manager notifies the solver
+     * such that it completes the propagation of the leaf
+     * (e.g. the constraints deferred by the staged propagation of {@link org.maxicp.cp.engine.core.MaxiCP}).
+     *
+     * @param statistics the statistics of the search
+     * @return true if the leaf is a solution, false if its propagation failed, the failure being recorded
+     * @see StateManager#notifyLeaf()
+     */
+    protected boolean acceptLeaf(SearchStatistics statistics) {
+        try {
+            sm.notifyLeaf();
+            return true;
+        } catch (InconsistencyException e) {
+            statistics.incrFailures();
+            notifyFailure();
+            return false;
+        }
+    }
+
     protected SearchStatistics solve(SearchStatistics statistics, Predicate<SearchStatistics> limit, Runnable onNodeVisit) {
         sm.withNewState(() -> {
             try {
@@ -229,7 +249,7 @@ public abstract class AbstractSearchMethod<T> implements SearchMethod {
                             }
                         }
 
-                    } else if (allFixed(variables)) {
+                    } else if (allFixed(variables) && acceptLeaf(statistics)) {
                         statistics.incrSolutions();
                         notifySolution();
                         panicTime += panic(() -> allFixed(variables), linearizer.branchingActions.toArray(new Action[0]), index);
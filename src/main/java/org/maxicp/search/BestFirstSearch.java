@@ -9,45 +9,159 @@ import org.maxicp.modeling.ModelProxy;
 import org.maxicp.modeling.symbolic.SymbolicModel;
 import org.maxicp.util.exception.InconsistencyException;
 
-import java.util.PriorityQueue;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
+import static org.maxicp.util.io.VarInts.readVarInt;
+import static org.maxicp.util.io.VarInts.writeVarInt;
+
+/**
+ * Best first search: the open node with the smallest key, given by the node evaluator, is expanded first.
+ * <p>
+ * By default the open nodes are all kept in memory.
+ * The number of open nodes kept in memory can be bounded with {@link #setMaxOpenNodes(int, Overflow)}:
+ * each time the budget is exceeded, the worst half of the open nodes is either
+ * explored right away with a depth first search ({@link Overflow#DEPTH_FIRST}),
+ * or written to disk ({@link Overflow#SPILL}) and reloaded later, by increasing key.
+ * <p>
+ * A spilled node is encoded by its key and the indices of the alternatives leading to it from the root.
+ * It is reloaded by replaying these alternatives, such that spilling
+ * requires a deterministic branching (e.g. not {@link Searches#lastConflict}).
+ *
+ * @param <T> the type of the keys of the nodes
+ */
 public class BestFirstSearch<T extends Comparable<T>> extends RunnableSearchMethod {
+
+    /**
+     * What to do with the worst open nodes when their number exceeds the budget
+     */
+    public enum Overflow {
+        /**
+         * The nodes are explored right away with a depth first search
+         */
+        DEPTH_FIRST,
+        /**
+         * The nodes are written to disk and reloaded when their key is the smallest one
+         */
+        SPILL
+    }
+
     private Supplier<T> nodeEvaluator;
     private ModelProxy modelProxy;
     private PriorityQueue<PQEntry<T>> pq = new PriorityQueue<>();
 
-    record PQEntry<T extends Comparable<T>>(T order, SymbolicModel m) implements Comparable<PQEntry<T>> {
+    private int maxOpenNodes = Integer.MAX_VALUE;
+    private Overflow overflow = Overflow.SPILL;
+    private Path spillDirectory = null;
+
+    private SymbolicModel root;
+    private final PriorityQueue<Run<T>> runs = new PriorityQueue<>(Comparator.comparing(r -> r.head.order));
+    private int nSpilled;
+
+    /**
+     * Indices of the alternatives leading to a node, from the node up to the root
+     */
+    record ChoicePath(int choice, ChoicePath parent, int depth) {
+
+        static ChoicePath child(ChoicePath parent, int choice) {
+            return new ChoicePath(choice, parent, parent == null ? 1 : parent.depth + 1);
+        }
+
+        static int[] toArray(ChoicePath path) {
+            int[] choices = new int[path == null ? 0 : path.depth];
+            for (ChoicePath p = path; p != null; p = p.parent)
+                choices[p.depth - 1] = p.choice;
+            return choices;
+        }
+
+        static ChoicePath fromArray(int[] choices) {
+            ChoicePath path = null;
+            for (int c : choices)
+                path = child(path, c);
+            return path;
+        }
+    }
+
+    record PQEntry<T extends Comparable<T>>(T order, SymbolicModel m, ChoicePath path) implements Comparable<PQEntry<T>> {
         @Override
         public int compareTo(PQEntry<T> o) {
             return this.order.compareTo(o.order);
         }
     }
 
-    // TODO best first search with limited number of opened nodes
+    /**
+     * Spilled node, reloaded by replaying its choices from the root
+     */
+    record SpilledEntry<T>(T order, int[] choices) {
+    }
+
     public BestFirstSearch(ModelProxy modelProxy, Supplier<Runnable[]> branching, Supplier<T> nodeEvaluator) {
         super(modelProxy.getConcreteModel().getStateManager(), branching);
         this.modelProxy = modelProxy;
         this.nodeEvaluator = nodeEvaluator;
     }
 
+    /**
+     * Bounds the number of open nodes kept in memory.
+     * When the number of open nodes exceeds the budget,
+     * the worst half is explored depth first or spilled to disk.
+     *
+     * @param maxOpenNodes the maximum number of open nodes in memory, at least 2
+     * @param overflow     what to do with the worst open nodes
+     */
+    public void setMaxOpenNodes(int maxOpenNodes, Overflow overflow) {
+        if (maxOpenNodes < 2) throw new IllegalArgumentException("at least two open nodes are needed");
+        this.maxOpenNodes = maxOpenNodes;
+        this.overflow = overflow;
+    }
+
+    /**
+     * Sets the directory of the files in which the open nodes are spilled
+     *
+     * @param spillDirectory the directory, the default temporary-file directory if null
+     */
+    public void setSpillDirectory(Path spillDirectory) {
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * @return the number of nodes spilled to disk during the last search
+     */
+    public int numberOfSpilledNodes() {
+        return nSpilled;
+    }
+
     @Override
     protected void startSolve(SearchStatistics statistics, Predicate<SearchStatistics> limit, Runnable onNodeVisit) {
         pq.clear();
-        pq.add(new PQEntry<>(nodeEvaluator.get(), modelProxy.getModel().symbolicCopy()));
+        clearRuns();
+        nSpilled = 0;
+        root = modelProxy.getModel().symbolicCopy();
+        pq.add(new PQEntry<>(nodeEvaluator.get(), root, null));
 
-        while (!pq.isEmpty()) {
+        while (!pq.isEmpty() || !runs.isEmpty()) {
             if (limit.test(statistics))
                 throw new StopSearchException();
 
-            SymbolicModel m = pq.poll().m;
             statistics.incrNodes();
-
+            ChoicePath path;
             sm.saveState();
             try {
-                // jumpTo will perform restore operations until it finds the common ancestor
-                modelProxy.getConcreteModel().jumpTo(m);
+                if (!runs.isEmpty() && (pq.isEmpty() || runs.peek().head.order.compareTo(pq.peek().order) < 0)) {
+                    int[] choices = pollSpilled().choices;
+                    path = ChoicePath.fromArray(choices);
+                    replay(choices, onNodeVisit);
+                } else {
+                    PQEntry<T> e = pq.poll();
+                    path = e.path;
+                    // jumpTo will perform restore operations until it finds the common ancestor
+                    modelProxy.getConcreteModel().jumpTo(e.m);
+                }
             } catch (InconsistencyException e) {
                 sm.restoreState();
                 continue;
@@ -56,26 +170,295 @@ public class BestFirstSearch<T extends Comparable<T>> extends RunnableSearchMeth
             Runnable[] alts = branching.get();
 
             if (alts.length == 0) {
-                statistics.incrSolutions();
-                notifySolution();
+                if (acceptLeaf(statistics)) {
+                    statistics.incrSolutions();
+                    notifySolution();
+                }
             } else {
-                for (Runnable b : alts) {
+                for (int i = 0; i < alts.length; i++) {
                     sm.saveState();
                     try {
                         onNodeVisit.run();
-                        b.run();
-                        pq.add(new PQEntry<>(nodeEvaluator.get(), modelProxy.getModel().symbolicCopy()));
+                        alts[i].run();
+                        pq.add(new PQEntry<>(nodeEvaluator.get(), modelProxy.getModel().symbolicCopy(), ChoicePath.child(path, i)));
                     } catch (InconsistencyException e) {
                         statistics.incrFailures();
                         notifyFailure();
                     }
                     sm.restoreState();
                 }
+                if (pq.size() > maxOpenNodes)
+                    overflow(statistics, limit, onNodeVisit);
+            }
+        }
+    }
+
+    /**
+     * Removes the worst half of the open nodes from memory
+     */
+    private void overflow(SearchStatistics statistics, Predicate<SearchStatistics> limit, Runnable onNodeVisit) {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        PQEntry<T>[] entries = pq.toArray(new PQEntry[0]);
+        Arrays.sort(entries);
+        int kept = maxOpenNodes / 2;
+        pq.clear();
+        pq.addAll(Arrays.asList(entries).subList(0, kept));
+        PQEntry<T>[] worst = Arrays.copyOfRange(entries, kept, entries.length);
+        if (overflow == Overflow.SPILL) {
+            spill(worst);
+        } else {
+            for (int i = 0; i < worst.length; i++) {
+                sm.saveState();
+                try {
+                    modelProxy.getConcreteModel().jumpTo(worst[i].m);
+                } catch (InconsistencyException ex) {
+                    sm.restoreState();
+                    continue;
+                }
+                try {
+                    depthFirst(worst[i].path, statistics, limit, onNodeVisit);
+                } catch (StopSearchException ex) {
+                    // the nodes not explored yet are kept open
+                    pq.addAll(Arrays.asList(worst).subList(i + 1, worst.length));
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    /**
+     * Explores the subtree of the current node.
+     * If the limit is reached, the nodes not explored yet are put back in the open nodes.
+     */
+    private void depthFirst(ChoicePath path, SearchStatistics statistics, Predicate<SearchStatistics> limit, Runnable onNodeVisit) {
+        if (limit.test(statistics)) {
+            pq.add(new PQEntry<>(nodeEvaluator.get(), modelProxy.getModel().symbolicCopy(), path));
+            throw new StopSearchException();
+        }
+        statistics.incrNodes();
+        Runnable[] alts = branching.get();
+        if (alts.length == 0) {
+            if (acceptLeaf(statistics)) {
+                statistics.incrSolutions();
+                notifySolution();
+            }
+            return;
+        }
+        for (int i = 0; i < alts.length; i++) {
+            sm.saveState();
+            try {
+                onNodeVisit.run();
+                alts[i].run();
+                depthFirst(ChoicePath.child(path, i), statistics, limit, onNodeVisit);
+            } catch (InconsistencyException e) {
+                statistics.incrFailures();
+                notifyFailure();
+            } catch (StopSearchException e) {
+                sm.restoreState();
+                for (int j = i + 1; j < alts.length; j++) {
+                    sm.saveState();
+                    try {
+                        alts[j].run();
+                        pq.add(new PQEntry<>(nodeEvaluator.get(), modelProxy.getModel().symbolicCopy(), ChoicePath.child(path, j)));
+                    } catch (InconsistencyException ignored) {
+                    }
+                    sm.restoreState();
+                }
+                throw e;
+            }
+            sm.restoreState();
+        }
+    }
+
+    /**
+     * Reaches a spilled node by replaying its choices from the root,
+     * visiting each node on the way as when the node was first reached
+     *
+     * @throws InconsistencyException if the node fails, e.g. because of a tightened objective
+     */
+    private void replay(int[] choices, Runnable onNodeVisit) {
+        modelProxy.getConcreteModel().jumpTo(root);
+        for (int c : choices) {
+            Runnable[] alts = branching.get();
+            if (c >= alts.length)
+                throw InconsistencyException.INCONSISTENCY;
+            onNodeVisit.run();
+            alts[c].run();
+        }
+    }
+
+    /**
+     * Calls the consumer on each open node, the spilled ones being reloaded from disk.
+     * To be called after a search stopped by its limit.
+     *
+     * @param consumer the consumer of the open nodes
+     */
+    public void forEachUnexploredModel(Consumer<SymbolicModel> consumer) {
+        for (PQEntry<T> e : pq)
+            consumer.accept(e.m);
+        for (Run<T> run : runs) {
+            try (DataInputStream in = run.open()) {
+                for (int i = 0; i < run.size; i++) {
+                    SpilledEntry<T> e = readEntry(in);
+                    if (i < run.next - 1)
+                        continue; // already explored
+                    sm.withNewState(() -> {
+                        try {
+                            replay(e.choices, () -> {});
+                            consumer.accept(modelProxy.getModel().symbolicCopy());
+                        } catch (InconsistencyException ignored) {
+                        }
+                    });
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
         }
     }
 
     public SymbolicModel[] getUnexploredModels() {
-        return pq.stream().map(x -> x.m).toArray(SymbolicModel[]::new);
+        List<SymbolicModel> models = new ArrayList<>();
+        forEachUnexploredModel(models::add);
+        return models.toArray(SymbolicModel[]::new);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // spilled runs: sorted files of nodes, merged by key
+
+    /**
+     * File of spilled nodes sorted by key, with its first unexplored node in memory
+     */
+    private static class Run<T> {
+        final Path file;
+        final int size;
+        DataInputStream in;
+        SpilledEntry<T> head;
+        int next; // number of entries read
+
+        Run(Path file, int size) {
+            this.file = file;
+            this.size = size;
+        }
+
+        DataInputStream open() throws IOException {
+            return new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        }
+    }
+
+    private void spill(PQEntry<T>[] sorted) {
+        try {
+            Path file = spillDirectory == null ? Files.createTempFile("maxicp-bfs", ".run") : Files.createTempFile(spillDirectory, "maxicp-bfs", ".run");
+            file.toFile().deleteOnExit();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+                for (PQEntry<T> e : sorted) {
+                    writeKey(out, e.order);
+                    int[] choices = ChoicePath.toArray(e.path);
+                    writeVarInt(out, choices.length);
+                    for (int c : choices)
+                        writeVarInt(out, c);
+                }
+            }
+            nSpilled += sorted.length;
+            Run<T> run = new Run<>(file, sorted.length);
+            run.in = run.open();
+            advance(run);
+            runs.add(run);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private SpilledEntry<T> pollSpilled() {
+        Run<T> run = runs.poll();
+        SpilledEntry<T> e = run.head;
+        try {
+            advance(run);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        if (run.head != null)
+            runs.add(run);
+        return e;
+    }
+
+    private void advance(Run<T> run) throws IOException {
+        if (run.next == run.size) {
+            run.head = null;
+            run.in.close();
+            Files.deleteIfExists(run.file);
+        } else {
+            run.head = readEntry(run.in);
+            run.next++;
+        }
+    }
+
+    private void clearRuns() {
+        for (Run<T> run : runs) {
+            try {
+                run.in.close();
+                Files.deleteIfExists(run.file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        runs.clear();
+    }
+
+    private SpilledEntry<T> readEntry(DataInputStream in) throws IOException {
+        T order = readKey(in);
+        int[] choices = new int[readVarInt(in)];
+        for (int i = 0; i < choices.length; i++)
+            choices[i] = readVarInt(in);
+        return new SpilledEntry<>(order, choices);
+    }
+
+    private static final int KEY_DOUBLE = 0;
+    private static final int KEY_INTEGER = 1;
+    private static final int KEY_LONG = 2;
+    private static final int KEY_OBJECT = 3;
+
+    private static void writeKey(DataOutputStream out, Object key) throws IOException {
+        switch (key) {
+            case Double d -> {
+                out.writeByte(KEY_DOUBLE);
+                out.writeDouble(d);
+            }
+            case Integer i -> {
+                out.writeByte(KEY_INTEGER);
+                out.writeInt(i);
+            }
+            case Long l -> {
+                out.writeByte(KEY_LONG);
+                out.writeLong(l);
+            }
+            case Serializable s -> {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (ObjectOutputStream o = new ObjectOutputStream(bytes)) {
+                    o.writeObject(s);
+                }
+                out.writeByte(KEY_OBJECT);
+                writeVarInt(out, bytes.size());
+                bytes.writeTo(out);
+            }
+            default -> throw new IllegalStateException("the keys must be serializable to be spilled");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T readKey(DataInputStream in) throws IOException {
+        return (T) switch (in.readByte()) {
+            case KEY_DOUBLE -> in.readDouble();
+            case KEY_INTEGER -> in.readInt();
+            case KEY_LONG -> in.readLong();
+            default -> {
+                byte[] bytes = new byte[readVarInt(in)];
+                in.readFully(bytes);
+                try (ObjectInputStream o = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    yield o.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(e);
+                }
+            }
+        };
     }
 }
@@ -5,6 +5,7 @@ import org.maxicp.modeling.symbolic.SymbolicModel;
 import org.maxicp.util.exception.InconsistencyException;
 
 import java.util.ArrayDeque;
+import java.util.Iterator;
 import java.util.function.Supplier;
 
 public class ConcurrentDFSearch extends AbstractConcurrentSearchMethod {
@@ -81,8 +82,10 @@ public class ConcurrentDFSearch extends AbstractConcurrentSearchMethod {
     private void expandNode() {
         SymbolicModel[] alts = branching.get();
         if (alts.length == 0) {
-            statistics.incrSolutions();
-            notifySolution();
+            if (acceptLeaf(statistics)) {
+                statistics.incrSolutions();
+                notifySolution();
+            }
         }
         else {
             boolean first = true;
@@ -100,9 +103,19 @@ public class ConcurrentDFSearch extends AbstractConcurrentSearchMethod {
         }
     }
 
+    /**
+     * Removes the shallowest alternative not visited yet, i.e. the one closest to the bottom of the stack.
+     * The save and restore surrounding it are kept, they remain balanced.
+     */
     @Override
     protected SymbolicModel extractModel() {
-        //SymbolicModel firstNode = alternatives.removeFirst();
+        Iterator<DFSTodoElement> it = alternatives.iterator();
+        while (it.hasNext()) {
+            if (it.next() instanceof SymbolicModelToRun(SymbolicModel m)) {
+                it.remove();
+                return m;
+            }
+        }
         return null;
     }
 }
@@ -0,0 +1,327 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.search;
+
+import org.maxicp.state.StateManager;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.maxicp.util.io.VarInts.putVarLong;
+import static org.maxicp.util.io.VarInts.readVarLong;
+import static org.maxicp.util.io.VarInts.unZigZag;
+import static org.maxicp.util.io.VarInts.zigZag;
+
+/**
+ * A DFSListener that streams the nodes of the search tree to a binary log,
+ * such that its memory does not grow with the tree, contrary to {@link DFSTreeRecorder}.
+ * <p>
+ * Each node is written as an event with its id, the id of its parent, its kind, its depth,
+ * the label of the decision leading to it and the time elapsed since the recorder was created.
+ * The events are buffered and written through a {@link FileChannel}.
+ * Only a sample of the nodes can be recorded, and the nodes deeper than a cutoff can be skipped,
+ * the numbers of skipped nodes being written at the end of the log.
+ * <p>
+ * The decisions are labeled by wrapping the branching with {@link #labeled(Supplier, Supplier)}.
+ * The log can be read with {@link #read(Path, Consumer)} and summarized with {@link SearchTreeHeatmap}.
+ * <p>
+ * The depth of a node is computed from the level of the state manager,
+ * such that a recorder must be used for one search only.
+ */
+public class DFSTreeStreamRecorder implements DFSListener, Closeable {
+
+    /**
+     * Kind of a node of the search tree
+     */
+    public enum Kind {
+        BRANCH, FAIL, SOLUTION
+    }
+
+    /**
+     * A node of the search tree
+     *
+     * @param id       the id of the node
+     * @param parentId the id of its parent
+     * @param kind     the kind of the node
+     * @param depth    the depth of the node, 1 for the children of the root
+     * @param label    the label of the decision leading to the node, null if unlabeled
+     * @param nanos    the time at which the node was recorded, since the creation of the recorder
+     */
+    public record Event(int id, int parentId, Kind kind, int depth, String label, long nanos) {
+    }
+
+    /**
+     * A decision with a label, see {@link #labeled(Supplier, Supplier)}
+     */
+    private record LabeledAction(String label, Runnable action) implements Runnable {
+        @Override
+        public void run() {
+            action.run();
+        }
+    }
+
+    private static final int MAGIC = 0x4d585452; // MXTR
+    private static final int VERSION = 1;
+
+    private static final int BRANCH = 0;
+    private static final int FAIL = 1;
+    private static final int SOLUTION = 2;
+    private static final int LABEL = 3;
+    private static final int END = 4;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+    private final long startTime = System.nanoTime();
+    private long lastTime = 0;
+
+    private double samplingRate = 1.0;
+    private Random random = new Random(42);
+    private int maxDepth = Integer.MAX_VALUE;
+    private long nSampledOut = 0;
+    private long nTooDeep = 0;
+
+    private final Map<String, Integer> labelIds = new HashMap<>();
+    private String nextLabel = null;
+
+    private int rootLevel = -1;
+    private int childDepth = 0;
+
+    /**
+     * Creates a recorder writing to a file, replaced if it exists
+     *
+     * @param file the log file
+     * @throws UncheckedIOException if the file cannot be opened
+     */
+    public DFSTreeStreamRecorder(Path file) {
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.putInt(MAGIC);
+        buffer.put((byte) VERSION);
+    }
+
+    /**
+     * Records each node with a given probability only
+     *
+     * @param samplingRate the probability to record a node, in ]0,1]
+     * @param seed         the seed of the sampling
+     */
+    public void setSamplingRate(double samplingRate, long seed) {
+        if (samplingRate <= 0 || samplingRate > 1) throw new IllegalArgumentException("the sampling rate must be in ]0,1]");
+        this.samplingRate = samplingRate;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Skips the nodes deeper than a given depth
+     *
+     * @param maxDepth the maximum depth of the recorded nodes
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Labels the decisions of a branching.
+     * The label is computed each time the branching returns alternatives,
+     * and given to each of them, e.g. the name of the branching variable.
+     *
+     * @param branching the branching
+     * @param label     computes the label of the alternatives, before they are applied
+     * @return the branching with labeled alternatives
+     */
+    public static Supplier<Runnable[]> labeled(Supplier<Runnable[]> branching, Supplier<String> label) {
+        return () -> {
+            Runnable[] alts = branching.get();
+            if (alts.length == 0)
+                return alts;
+            String l = label.get();
+            Runnable[] labeled = new Runnable[alts.length];
+            for (int i = 0; i < alts.length; i++)
+                labeled[i] = new LabeledAction(l, alts[i]);
+            return labeled;
+        };
+    }
+
+    @Override
+    public void saveState(StateManager sm) {
+        if (rootLevel < 0)
+            rootLevel = sm.getLevel();
+        childDepth = sm.getLevel() - rootLevel + 1;
+    }
+
+    @Override
+    public void branchingAction(Runnable action) {
+        nextLabel = action instanceof LabeledAction labeled ? labeled.label : null;
+    }
+
+    @Override
+    public void branch(int id, int pId) {
+        record(BRANCH, id, pId, childDepth, nextLabel);
+    }
+
+    @Override
+    public void fail(int id, int pId) {
+        record(FAIL, id, pId, childDepth, nextLabel);
+    }
+
+    @Override
+    public void solution(int id, int pId) {
+        // a solution is a leaf below the last node branched on
+        record(SOLUTION, id, pId, childDepth + 1, null);
+    }
+
+    private void record(int kind, int id, int pId, int depth, String label) {
+        if (depth > maxDepth) {
+            nTooDeep++;
+            return;
+        }
+        if (samplingRate < 1 && random.nextDouble() >= samplingRate) {
+            nSampledOut++;
+            return;
+        }
+        int labelId = 0;
+        if (label != null) {
+            Integer l = labelIds.get(label);
+            if (l == null) {
+                byte[] bytes = label.getBytes(StandardCharsets.UTF_8);
+                l = labelIds.size() + 1;
+                labelIds.put(label, l);
+                ensure(6 + bytes.length);
+                buffer.put((byte) LABEL);
+                putVarLong(buffer, bytes.length);
+                buffer.put(bytes);
+            }
+            labelId = l;
+        }
+        long time = System.nanoTime() - startTime;
+        ensure(1 + 5 * 4 + 10);
+        buffer.put((byte) kind);
+        putVarLong(buffer, Integer.toUnsignedLong(zigZag(id)));
+        putVarLong(buffer, Integer.toUnsignedLong(zigZag(pId)));
+        putVarLong(buffer, depth);
+        putVarLong(buffer, labelId);
+        putVarLong(buffer, time - lastTime);
+        lastTime = time;
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.remaining() < bytes) {
+            flush();
+            if (buffer.remaining() < bytes)
+                throw new IllegalArgumentException("label too long");
+        }
+    }
+
+    private void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * @return the number of nodes not recorded due to the sampling
+     */
+    public long numberOfSampledOut() {
+        return nSampledOut;
+    }
+
+    /**
+     * @return the number of nodes not recorded due to the depth cutoff
+     */
+    public long numberOfTooDeep() {
+        return nTooDeep;
+    }
+
+    /**
+     * Writes the end of the log and closes the file
+     */
+    @Override
+    public void close() {
+        if (!channel.isOpen())
+            return;
+        ensure(21);
+        buffer.put((byte) END);
+        putVarLong(buffer, nSampledOut);
+        putVarLong(buffer, nTooDeep);
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Summary of the end of a log
+     *
+     * @param nEvents     the number of recorded nodes
+     * @param nSampledOut the number of nodes not recorded due to the sampling
+     * @param nTooDeep    the number of nodes not recorded due to the depth cutoff
+     */
+    public record Trailer(long nEvents, long nSampledOut, long nTooDeep) {
+    }
+
+    /**
+     * Reads a log written by a recorder
+     *
+     * @param file     the log
+     * @param consumer called on each recorded node, in the order of the search
+     * @return the summary at the end of the log
+     * @throws UncheckedIOException if the file cannot be read, is not a log or is truncated
+     */
+    public static Trailer read(Path file, Consumer<Event> consumer) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION)
+                throw new IOException(file + " is not a search tree log");
+            Map<Integer, String> labels = new HashMap<>();
+            long time = 0;
+            long nEvents = 0;
+            while (true) {
+                int kind = in.readUnsignedByte();
+                switch (kind) {
+                    case LABEL -> {
+                        byte[] bytes = new byte[(int) readVarLong(in)];
+                        in.readFully(bytes);
+                        labels.put(labels.size() + 1, new String(bytes, StandardCharsets.UTF_8));
+                    }
+                    case END -> {
+                        return new Trailer(nEvents, readVarLong(in), readVarLong(in));
+                    }
+                    case BRANCH, FAIL, SOLUTION -> {
+                        int id = unZigZag((int) readVarLong(in));
+                        int pId = unZigZag((int) readVarLong(in));
+                        int depth = (int) readVarLong(in);
+                        int label = (int) readVarLong(in);
+                        time += readVarLong(in);
+                        nEvents++;
+                        consumer.accept(new Event(id, pId, Kind.values()[kind], depth, labels.get(label), time));
+                    }
+                    default -> throw new IOException("corrupted search tree log");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -5,11 +5,16 @@
 
 package org.maxicp.search;
 
+import org.maxicp.cp.engine.core.PropagationProfiler;
 import org.maxicp.modeling.ModelProxy;
+import org.maxicp.modeling.algebra.integer.IntExpression;
 import org.maxicp.state.StateManager;
 import org.maxicp.util.exception.InconsistencyException;
 
-import java.util.Stack;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
@@ -51,60 +56,296 @@ public class DFSearch extends RunnableSearchMethod {
 
     private int currNodeId = -1;
 
+    private Path checkpointFile = null;
+    private long checkpointPeriodNanos;
+    private IntExpression[] checkpointVars;
+    private SearchCheckpoint.Writer checkpointWriter = null;
+    private long nextCheckpoint;
+    private SearchCheckpoint stopCheckpoint;
+    private int[] incumbent;
+
+    private SearchCheckpoint resume = null;
+    private Objective objective = null;
+
+    private PropagationProfiler profiler = null;
+    private Consumer<String> profileReport = null;
+
+    /**
+     * Emits the report of a profiler at the end of each search,
+     * also when it is stopped by its limit or throws.
+     * The propagators are sorted by decreasing time in the report (see {@link PropagationProfiler#report()}).
+     *
+     * @param profiler the profiler of the solver, typically obtained
+     *                 with {@link org.maxicp.cp.engine.core.MaxiCP#enableProfiling()},
+     *                 null to emit no report
+     * @param report   the sink of the report, e.g. a logger
+     */
+    public void setProfileReport(PropagationProfiler profiler, Consumer<String> report) {
+        this.profiler = profiler;
+        this.profileReport = report;
+    }
+
+    /**
+     * Periodically writes a {@link SearchCheckpoint} of the next searches to a file,
+     * and when they end, such that they can be resumed with {@link #resumeFrom(SearchCheckpoint)}.
+     * The search thread only takes a snapshot of the current branch,
+     * the file is written by a background thread.
+     *
+     * @param file         the checkpoint file, replaced at each checkpoint, null to disable the checkpoints
+     * @param periodMillis the time between two checkpoints
+     * @param solution     the variables whose values in the last solution found are kept in the checkpoint
+     */
+    public void setCheckpoint(Path file, long periodMillis, IntExpression... solution) {
+        if (periodMillis < 0) throw new IllegalArgumentException("the period must be >= 0");
+        this.checkpointFile = file;
+        this.checkpointPeriodNanos = periodMillis * 1_000_000;
+        this.checkpointVars = solution;
+    }
+
+    /**
+     * Resumes the next search ({@code solve} or {@code optimize}) from a checkpoint:
+     * the parts of the search tree explored before the checkpoint are skipped,
+     * the statistics start from the ones of the checkpoint and an {@link IntObjective}
+     * starts from its bound.
+     * The search must be set up as the one that wrote the checkpoint, with a deterministic branching.
+     *
+     * @param checkpoint the checkpoint, obtained with {@link SearchCheckpoint#read(Path)}
+     */
+    public void resumeFrom(SearchCheckpoint checkpoint) {
+        this.resume = checkpoint;
+    }
+
     public DFSearch(StateManager sm, Supplier<Runnable[]> branching) {
         super(sm, branching);
     }
     public DFSearch(ModelProxy modelProxy, Supplier<Runnable[]> branching) { super(modelProxy.getConcreteModel().getStateManager(), branching); }
 
-    // solution to DFS with explicit stack
-    private void expandNode(Stack<Runnable> alternatives, SearchStatistics statistics, Runnable onNodeVisit, int parentId) {
+    /**
+     * Explicit stack of the nodes being explored.
+     * A frame holds the alternatives of a node, the index of the next alternative to explore,
+     * the state level to restore after each alternative, the id of the node
+     * and the id given to its first child.
+     */
+    private static final class DecisionStack {
+        private Runnable[][] alternatives = new Runnable[32][];
+        private int[] next = new int[32];
+        private int[] level = new int[32];
+        private int[] nodeId = new int[32];
+        private int[] firstChildId = new int[32];
+        private int size = 0;
+
+        private void push(Runnable[] alts, int lvl, int id, int childId) {
+            if (size == next.length) {
+                int capacity = 2 * size;
+                alternatives = Arrays.copyOf(alternatives, capacity);
+                next = Arrays.copyOf(next, capacity);
+                level = Arrays.copyOf(level, capacity);
+                nodeId = Arrays.copyOf(nodeId, capacity);
+                firstChildId = Arrays.copyOf(firstChildId, capacity);
+            }
+            alternatives[size] = alts;
+            next[size] = 0;
+            level[size] = lvl;
+            nodeId[size] = id;
+            firstChildId[size] = childId;
+            size++;
+        }
+
+        private void pop() {
+            alternatives[--size] = null;
+        }
+    }
+
+    /**
+     * Asks the branching for the alternatives of the current node
+     * and pushes them on the stack, or records a solution if there are none.
+     *
+     * @return true if a frame was pushed
+     */
+    private boolean expandNode(DecisionStack stack, SearchStatistics statistics, int nodeId) {
         Runnable[] alts = branching.get();
         if (alts.length == 0) {
+            // the solver completes the propagation of the leaf, a failure is handled as any other one
+            sm.notifyLeaf();
+            if (checkpointWriter != null && checkpointVars.length > 0) {
+                int[] values = new int[checkpointVars.length];
+                for (int i = 0; i < values.length; i++)
+                    values[i] = checkpointVars[i].min();
+                incumbent = values;
+            }
             statistics.incrSolutions();
-            notifySolution(currNodeId++, parentId);
+            notifySolution(currNodeId++, nodeId);
             notifySolution();
-        } else {
-            for (int i = alts.length - 1; i >= 0; i--) {
-                int nodeId = currNodeId++;
-                Runnable a = alts[i];
-                alternatives.push(() -> {
-                    notifyRestoreState();
-                    sm.restoreState();
-                });
-                alternatives.push(() -> {
-                    statistics.incrNodes();
-                    onNodeVisit.run();
-                    try {
-                        notifyBranchAction(a);
-                        a.run();
-                        notifyBranch(nodeId, parentId);
-                        expandNode(alternatives, statistics, onNodeVisit, nodeId);
-                    } catch (InconsistencyException e) {
-                        notifyFailure(nodeId, parentId);
+            return false;
+        }
+        // the last alternative gets the smallest id
+        stack.push(alts, sm.getLevel(), nodeId, currNodeId);
+        currNodeId += alts.length;
+        return true;
+    }
+
+    /**
+     * Replays the branch of the checkpoint, the alternatives on its left being skipped
+     *
+     * @return true if the branch fails and the state must be restored
+     */
+    private boolean resumeBranch(DecisionStack stack, int[] branch, Runnable onNodeVisit) {
+        for (int d = 0; d < branch.length; d++) {
+            Runnable[] alts = branching.get();
+            if (branch[d] > alts.length || (d < branch.length - 1 && branch[d] == alts.length))
+                throw new IllegalStateException("the search differs from the checkpointed one, is the branching deterministic?");
+            stack.push(alts, sm.getLevel(), -1, currNodeId);
+            currNodeId += alts.length;
+            if (d == branch.length - 1) {
+                stack.next[d] = branch[d];
+                return false;
+            }
+            stack.next[d] = branch[d] + 1;
+            sm.saveState();
+            try {
+                onNodeVisit.run();
+                alts[branch[d]].run();
+            } catch (InconsistencyException e) {
+                return true; // e.g. due to the bound of the objective, tightened since the branch was explored
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Snapshot of the search: the current branch is given by the alternative being explored at each node
+     * but the deepest one, for which it is the next alternative to explore
+     */
+    private SearchCheckpoint checkpoint(DecisionStack stack, SearchStatistics statistics) {
+        int[] branch = new int[stack.size];
+        for (int f = 0; f < stack.size; f++)
+            branch[f] = f == stack.size - 1 ? stack.next[f] : stack.next[f] - 1;
+        boolean hasBound = objective instanceof IntObjective;
+        int bound = hasBound ? ((IntObjective) objective).getBound() : 0;
+        return new SearchCheckpoint(branch, stack.size == 0, statistics, currNodeId, hasBound, bound, incumbent);
+    }
+
+    @Override
+    protected SearchStatistics solve(SearchStatistics statistics, Predicate<SearchStatistics> limit, Runnable onNodeVisit) {
+        incumbent = resume == null ? null : resume.incumbent();
+        if (resume != null) {
+            SearchStatistics previous = resume.statistics();
+            statistics.restore(previous.numberOfNodes(), previous.numberOfFailures(), previous.numberOfSolutions(), previous.numberOfAndNodes());
+            if (resume.isCompleted()) {
+                resume = null;
+                statistics.setCompleted();
+                return statistics;
+            }
+        }
+        if (checkpointFile != null) {
+            checkpointWriter = new SearchCheckpoint.Writer(checkpointFile);
+            nextCheckpoint = System.nanoTime() + checkpointPeriodNanos;
+            stopCheckpoint = null;
+        }
+        Throwable failure = null;
+        try {
+            super.solve(statistics, limit, onNodeVisit);
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            resume = null;
+            if (profiler != null && profileReport != null)
+                profileReport.accept(profiler.report());
+            if (checkpointWriter != null) {
+                SearchCheckpoint last = statistics.isCompleted() ? checkpoint(new DecisionStack(), statistics) : stopCheckpoint;
+                SearchCheckpoint.Writer writer = checkpointWriter;
+                checkpointWriter = null;
+                stopCheckpoint = null;
+                try {
+                    writer.close(last);
+                } catch (UncheckedIOException e) {
+                    // the failure of the search is the one to report
+                    if (failure == null)
                         throw e;
-                    }
-                });
-                alternatives.push(() -> {
-                    notifySaveState();
-                    sm.saveState();
-                });
+                    failure.addSuppressed(e);
+                }
             }
         }
+        return statistics;
+    }
+
+    @Override
+    public SearchStatistics optimize(Objective toTighten, Predicate<SearchStatistics> limit) {
+        if (resume != null && resume.hasBound() && toTighten instanceof IntObjective intObjective)
+            intObjective.setBound(resume.bound());
+        objective = toTighten;
+        try {
+            return super.optimize(toTighten, limit);
+        } finally {
+            objective = null;
+        }
     }
 
     @Override
     protected void startSolve(SearchStatistics statistics, Predicate<SearchStatistics> limit, Runnable onNodeVisit) {
-        currNodeId = 0;
-        Stack<Runnable> alternatives = new Stack<Runnable>();
-        expandNode(alternatives, statistics, onNodeVisit, currNodeId);
-        while (!alternatives.isEmpty()) {
-            if (limit.test(statistics)) throw new StopSearchException();
+        DecisionStack stack = new DecisionStack();
+        boolean restore = false; // the state saved before the last explored alternative must be restored
+        if (resume == null) {
+            currNodeId = 0;
+            try {
+                expandNode(stack, statistics, currNodeId);
+            } catch (InconsistencyException e) {
+                statistics.incrFailures();
+                notifyFailure();
+            }
+        } else {
+            currNodeId = resume.nextNodeId();
+            restore = resumeBranch(stack, resume.branchArray(), onNodeVisit);
+        }
+        while (stack.size > 0) {
+            if (limit.test(statistics)) {
+                if (checkpointWriter != null)
+                    stopCheckpoint = checkpoint(stack, statistics);
+                throw new StopSearchException();
+            }
+            if (checkpointWriter != null && System.nanoTime() - nextCheckpoint >= 0) {
+                checkpointWriter.submit(checkpoint(stack, statistics));
+                nextCheckpoint = System.nanoTime() + checkpointPeriodNanos;
+            }
+            int f = stack.size - 1;
+            if (restore) {
+                notifyRestoreState();
+                sm.restoreStateUntil(stack.level[f]);
+                restore = false;
+                continue;
+            }
+            Runnable[] alts = stack.alternatives[f];
+            int i = stack.next[f];
+            if (i == alts.length) {
+                stack.pop();
+                restore = stack.size > 0;
+                continue;
+            }
+            stack.next[f] = i + 1;
+            int nodeId = stack.firstChildId[f] + alts.length - 1 - i;
+            int parentId = stack.nodeId[f];
+            Runnable a = alts[i];
+            notifySaveState();
+            sm.saveState();
             try {
-                alternatives.pop().run();
+                statistics.incrNodes();
+                onNodeVisit.run();
+                try {
+                    notifyBranchAction(a);
+                    a.run();
+                    notifyBranch(nodeId, parentId);
+                    if (expandNode(stack, statistics, nodeId))
+                        continue; // the alternatives of the child are explored first
+                } catch (InconsistencyException e) {
+                    notifyFailure(nodeId, parentId);
+                    throw e;
+                }
             } catch (InconsistencyException e) {
                 statistics.incrFailures();
                 notifyFailure();
             }
+            restore = true;
         }
     }
 
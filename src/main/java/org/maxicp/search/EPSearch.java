@@ -0,0 +1,227 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.search;
+
+import org.maxicp.cp.modeling.CPModelInstantiator;
+import org.maxicp.modeling.ModelProxyInstantiator;
+import org.maxicp.modeling.concrete.ConcreteModel;
+import org.maxicp.modeling.symbolic.*;
+import org.maxicp.modeling.symbolic.Objective;
+import org.maxicp.state.StateManager;
+import org.maxicp.util.exception.InconsistencyException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Embarrassingly Parallel Search (EPS).
+ * <p>
+ * The search space is first decomposed on the calling thread into subproblems,
+ * by expanding the nodes of the search tree in breadth-first order
+ * until the number of open nodes reaches the target (by default 30 times the number of workers).
+ * The nodes that fail during the decomposition are eliminated.
+ * The subproblems are then solved by a depth-first search on a pool of workers.
+ * Each worker instantiates the model once and reuses it for all the subproblems it takes.
+ * <p>
+ * The branching is the one of a {@link DFSearch}. It is created by a factory called once for the decomposition
+ * and once on each worker thread, with the model of the worker as the current model of the
+ * {@link org.maxicp.modeling.ModelProxy}, such that stateful heuristics (e.g. {@link Searches#lastConflict})
+ * are not shared by the threads.
+ * The solution listeners are also called on the worker threads, one at a time.
+ * When a worker fails, the other ones stop and the failure is rethrown.
+ * <p>
+ * Algorithm described in
+ * "Embarrassingly Parallel Search" J-C. Régin, M. Rezgui, A. Malapert, CP 2013
+ */
+public class EPSearch extends AbstractParallelSearch {
+
+    private final Supplier<Supplier<Runnable[]>> branching;
+    private final int nWorkers;
+    private final int nSubproblemsTarget;
+
+    private int nSubproblems = 0;
+    private volatile boolean aborted;
+
+    /**
+     * Creates an EPS with one worker per available processor
+     * and 30 subproblems per worker
+     *
+     * @param modelProxy the model to solve
+     * @param branching  the factory of the branching used to decompose and solve the subproblems
+     */
+    public EPSearch(ModelProxyInstantiator modelProxy, Supplier<Supplier<Runnable[]>> branching) {
+        this(modelProxy, CPModelInstantiator.withTrailing, branching, Runtime.getRuntime().availableProcessors(), 30);
+    }
+
+    /**
+     * Creates an EPS
+     *
+     * @param modelProxy           the model to solve
+     * @param instantiator         the instantiator of the concrete model of each worker
+     * @param branching            the factory of the branching used to decompose and solve the subproblems,
+     *                             called on the thread of each worker
+     * @param nWorkers             the number of threads solving the subproblems
+     * @param subproblemsPerWorker the target number of subproblems per worker
+     */
+    public EPSearch(ModelProxyInstantiator modelProxy,
+                    ModelProxyInstantiator.ModelInstantiator<? extends ConcreteModel> instantiator,
+                    Supplier<Supplier<Runnable[]>> branching, int nWorkers, int subproblemsPerWorker) {
+        super(modelProxy, instantiator);
+        if (nWorkers < 1) throw new IllegalArgumentException("at least one worker is needed");
+        if (subproblemsPerWorker < 1) throw new IllegalArgumentException("at least one subproblem per worker is needed");
+        this.branching = branching;
+        this.nWorkers = nWorkers;
+        this.nSubproblemsTarget = nWorkers * subproblemsPerWorker;
+    }
+
+    /**
+     * @return the number of subproblems generated by the last decomposition
+     */
+    public int numberOfSubproblems() {
+        return nSubproblems;
+    }
+
+    /**
+     * Finds all the solutions
+     *
+     * @return the statistics aggregated over the decomposition and all the subproblems
+     */
+    public SearchStatistics solve() {
+        return run(null);
+    }
+
+    /**
+     * Finds an optimal solution. The bound of the objective is shared by the workers:
+     * each solution found by a worker prunes the search of all the other ones.
+     *
+     * @param objective the objective, a {@link Minimization} or {@link Maximization}
+     *                  is turned into its shared counterpart
+     * @return the statistics aggregated over the decomposition and all the subproblems
+     */
+    public SearchStatistics optimize(Objective objective) {
+        return run(shared(objective));
+    }
+
+    private SearchStatistics run(Objective objective) {
+        SymbolicModel root = modelProxy.getModel().symbolicCopy();
+        SearchStatistics statistics = new SearchStatistics();
+        SymbolicModel[] subproblems = decompose(root, statistics);
+        nSubproblems = subproblems.length;
+        aborted = false;
+
+        AtomicInteger next = new AtomicInteger(0);
+        List<Callable<SearchStatistics>> workers = new ArrayList<>();
+        for (int w = 0; w < Math.min(nWorkers, subproblems.length); w++)
+            workers.add(() -> solveSubproblems(root, subproblems, next, objective));
+        boolean completed = true;
+        for (SearchStatistics s : runWorkers(workers, () -> {
+            next.set(subproblems.length);
+            aborted = true;
+        })) {
+            statistics.add(s);
+            completed &= s.isCompleted();
+        }
+        if (completed)
+            statistics.setCompleted();
+        return statistics;
+    }
+
+    /**
+     * Expands the nodes in breadth-first order until the target number of open nodes is reached
+     *
+     * @return the open nodes, empty if the root node fails
+     */
+    private SymbolicModel[] decompose(SymbolicModel root, SearchStatistics statistics) {
+        try {
+            return expand(root, statistics);
+        } catch (InconsistencyException e) {
+            // the root node fails when the model is instantiated
+            statistics.incrFailures();
+            return new SymbolicModel[0];
+        }
+    }
+
+    private SymbolicModel[] expand(SymbolicModel root, SearchStatistics statistics) {
+        return modelProxy.runAsConcrete(instantiator, root, cp -> {
+            StateManager sm = cp.getStateManager();
+            Supplier<Runnable[]> branching = this.branching.get();
+            ArrayDeque<SymbolicModel> open = new ArrayDeque<>();
+            ArrayList<SymbolicModel> leaves = new ArrayList<>();
+            open.add(root);
+            while (!open.isEmpty() && open.size() + leaves.size() < nSubproblemsTarget) {
+                SymbolicModel node = open.poll();
+                int level = sm.getLevel();
+                sm.saveState();
+                try {
+                    cp.jumpTo(node);
+                    Runnable[] alts = branching.get();
+                    if (alts.length == 0) {
+                        leaves.add(node); // a solution, found again by a worker
+                        continue;
+                    }
+                    for (Runnable alt : alts) {
+                        sm.saveState();
+                        try {
+                            statistics.incrNodes();
+                            alt.run();
+                            open.add(cp.symbolicCopy());
+                        } catch (InconsistencyException e) {
+                            statistics.incrFailures();
+                        }
+                        sm.restoreState();
+                    }
+                } catch (InconsistencyException e) {
+                    statistics.incrFailures();
+                } finally {
+                    sm.restoreStateUntil(level);
+                }
+            }
+            ArrayList<SymbolicModel> subproblems = new ArrayList<>(leaves);
+            subproblems.addAll(open);
+            return subproblems.toArray(new SymbolicModel[0]);
+        });
+    }
+
+    /**
+     * Solves the subproblems not yet taken by another worker, on a single model instance
+     */
+    private SearchStatistics solveSubproblems(SymbolicModel root, SymbolicModel[] subproblems, AtomicInteger next, Objective objective) {
+        return modelProxy.runAsConcrete(instantiator, root, cp -> {
+            StateManager sm = cp.getStateManager();
+            SearchStatistics statistics = new SearchStatistics();
+            // the objective is created before any subproblem such that its variables are kept
+            org.maxicp.search.Objective obj = objective == null ? null : cp.createObjective(objective);
+            sm.saveState();
+            DFSearch search = cp.dfSearch(branching.get());
+            search.onSolution(this::notifySolution);
+            boolean completed = true;
+            int i;
+            while ((i = next.getAndIncrement()) < subproblems.length) {
+                SymbolicModel subproblem = subproblems[i];
+                SearchStatistics s = sm.withNewState(() -> {
+                    try {
+                        cp.jumpTo(subproblem);
+                    } catch (InconsistencyException e) {
+                        SearchStatistics failed = new SearchStatistics();
+                        failed.incrFailures();
+                        failed.setCompleted();
+                        return failed;
+                    }
+                    return obj == null ? search.solve(stats -> aborted) : search.optimize(obj, stats -> aborted);
+                });
+                statistics.add(s);
+                completed &= s.isCompleted();
+            }
+            if (completed)
+                statistics.setCompleted();
+            return statistics;
+        });
+    }
+}
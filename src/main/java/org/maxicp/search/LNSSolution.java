@@ -0,0 +1,108 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.search;
+
+import org.maxicp.modeling.IntervalVar;
+import org.maxicp.modeling.SeqVar;
+import org.maxicp.modeling.algebra.Expression;
+import org.maxicp.modeling.algebra.integer.IntExpression;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+
+/**
+ * Immutable solution found by an {@link LNSearch},
+ * with the value of the objective and of the variables read by its relaxation operators.
+ * <p>
+ * The values are keyed by the symbolic variables, that are shared by the models of all the workers.
+ */
+public final class LNSSolution {
+
+    private final int objective;
+    private final IdentityHashMap<Expression, int[]> values = new IdentityHashMap<>();
+
+    /**
+     * Records the values of the variables in the current model
+     *
+     * @param objective the value of the objective
+     * @param variables the variables to record, they must be fixed
+     */
+    LNSSolution(int objective, Collection<Expression> variables) {
+        this.objective = objective;
+        for (Expression x : variables) {
+            switch (x) {
+                case SeqVar s -> values.put(s, visitOrder(s));
+                case IntervalVar v -> values.put(v, v.isPresent() ? new int[]{1, v.startMin(), v.endMin()} : new int[]{0, 0, 0});
+                case IntExpression i -> values.put(i, new int[]{i.min()});
+                default -> throw new IllegalArgumentException("cannot record " + x);
+            }
+        }
+    }
+
+    private static int[] visitOrder(SeqVar s) {
+        int[] order = new int[s.nNode()];
+        int n = 0;
+        for (int node = s.start(); node != s.end(); node = s.memberAfter(node))
+            order[n++] = node;
+        order[n++] = s.end();
+        return Arrays.copyOf(order, n);
+    }
+
+    private int[] get(Expression x) {
+        int[] v = values.get(x);
+        if (v == null)
+            throw new IllegalArgumentException(x + " is not recorded, it must be returned by Relaxation.variables()");
+        return v;
+    }
+
+    /**
+     * @return the value of the objective
+     */
+    public int objective() {
+        return objective;
+    }
+
+    /**
+     * @param x a recorded variable
+     * @return the value of the variable
+     */
+    public int value(IntExpression x) {
+        return get(x)[0];
+    }
+
+    /**
+     * @param s a recorded sequence variable
+     * @return the visited nodes in order, from the start node to the end node included
+     */
+    public int[] order(SeqVar s) {
+        return get(s).clone();
+    }
+
+    /**
+     * @param v a recorded interval variable
+     * @return true if the interval is present
+     */
+    public boolean isPresent(IntervalVar v) {
+        return get(v)[0] == 1;
+    }
+
+    /**
+     * @param v a recorded interval variable, present in the solution
+     * @return the start of the interval
+     */
+    public int start(IntervalVar v) {
+        return get(v)[1];
+    }
+
+    /**
+     * @param v a recorded interval variable, present in the solution
+     * @return the end of the interval
+     */
+    public int end(IntervalVar v) {
+        return get(v)[2];
+    }
+}
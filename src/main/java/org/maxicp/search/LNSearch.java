@@ -0,0 +1,387 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.search;
+
+import org.maxicp.cp.modeling.CPModelInstantiator;
+import org.maxicp.modeling.ModelProxyInstantiator;
+import org.maxicp.modeling.algebra.Expression;
+import org.maxicp.modeling.algebra.integer.IntExpression;
+import org.maxicp.modeling.concrete.ConcreteModel;
+import org.maxicp.modeling.symbolic.*;
+import org.maxicp.modeling.symbolic.Objective;
+import org.maxicp.util.exception.InconsistencyException;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Parallel Adaptive Large Neighborhood Search.
+ * <p>
+ * Each worker owns a concrete model of the same {@link ModelProxyInstantiator}.
+ * It first searches for an initial solution, and then repeatedly relaxes the incumbent solution
+ * with a {@link Relaxation} operator and searches the neighborhood with a {@link DFSearch}
+ * limited in number of failures.
+ * The incumbent solution and the bound of the objective are shared by all the workers:
+ * each worker relaxes the best solution found by any of them.
+ * <p>
+ * The operator of each iteration is selected by a roulette wheel on the weights of the operators (ALNS).
+ * After each iteration, the weight of its operator is updated with the reaction factor {@code r}:
+ * {@code w = (1 - r) w + r s}, with the score {@code s} being 1 if the incumbent was improved and 0 otherwise.
+ * <p>
+ * Ropke, S., Pisinger, D. (2006).
+ * An adaptive large neighborhood search heuristic for the pickup and delivery problem with time windows.
+ * Transportation science, 40(4), 455-472.
+ */
+public class LNSearch extends AbstractParallelSearch {
+
+    /**
+     * Statistics of a relaxation operator
+     */
+    public static final class OperatorStatistics {
+        private final String name;
+        private final Relaxation relaxation;
+        private double weight = 1;
+        private int nCalls;
+        private int nImprovements;
+        private long timeNanos;
+
+        private OperatorStatistics(String name, Relaxation relaxation) {
+            this.name = name;
+            this.relaxation = relaxation;
+        }
+
+        /**
+         * @return the name of the operator
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * @return the current weight of the operator in the roulette wheel
+         */
+        public synchronized double weight() {
+            return weight;
+        }
+
+        /**
+         * @return the number of iterations using the operator
+         */
+        public synchronized int numberOfCalls() {
+            return nCalls;
+        }
+
+        /**
+         * @return the number of iterations using the operator that improved the incumbent
+         */
+        public synchronized int numberOfImprovements() {
+            return nImprovements;
+        }
+
+        /**
+         * @return the time spent in the iterations using the operator, in nanoseconds
+         */
+        public synchronized long timeNanos() {
+            return timeNanos;
+        }
+
+        private synchronized void reset() {
+            weight = 1;
+            nCalls = 0;
+            nImprovements = 0;
+            timeNanos = 0;
+        }
+
+        private synchronized void update(boolean improved, long time, double reaction) {
+            nCalls++;
+            timeNanos += time;
+            if (improved)
+                nImprovements++;
+            weight = Math.max(MIN_WEIGHT, (1 - reaction) * weight + reaction * (improved ? 1 : 0));
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("%s: weight=%.3f calls=%d improvements=%d time(ms)=%d", name, weight, nCalls, nImprovements, timeNanos / 1_000_000);
+        }
+    }
+
+    // keeps every operator selectable
+    private static final double MIN_WEIGHT = 0.01;
+
+    private final Supplier<Supplier<Runnable[]>> branching;
+    private final int nWorkers;
+    private final List<OperatorStatistics> operators = new ArrayList<>();
+
+    private int failureLimit = 100;
+    private double reaction = 0.1;
+    private long seed = 0;
+
+    private volatile boolean done;
+    private volatile LNSSolution incumbent;
+    private boolean optimal;
+    private int maxIterations;
+    private AtomicInteger nIterations;
+
+    /**
+     * Creates an LNS without operators, the concrete models being instantiated with trailing
+     *
+     * @param modelProxy the model to optimize
+     * @param branching  the factory of the branching, called on the thread of each worker
+     * @param nWorkers   the number of threads
+     */
+    public LNSearch(ModelProxyInstantiator modelProxy, Supplier<Supplier<Runnable[]>> branching, int nWorkers) {
+        this(modelProxy, CPModelInstantiator.withTrailing, branching, nWorkers);
+    }
+
+    /**
+     * Creates an LNS without operators
+     *
+     * @param modelProxy   the model to optimize
+     * @param instantiator the instantiator of the concrete model of each worker
+     * @param branching    the factory of the branching, called on the thread of each worker
+     * @param nWorkers     the number of threads
+     */
+    public LNSearch(ModelProxyInstantiator modelProxy,
+                    ModelProxyInstantiator.ModelInstantiator<? extends ConcreteModel> instantiator,
+                    Supplier<Supplier<Runnable[]>> branching, int nWorkers) {
+        super(modelProxy, instantiator);
+        if (nWorkers < 1) throw new IllegalArgumentException("at least one worker is needed");
+        this.branching = branching;
+        this.nWorkers = nWorkers;
+    }
+
+    /**
+     * Adds a relaxation operator
+     *
+     * @param name       the name of the operator
+     * @param relaxation the operator, see {@link Relaxations}
+     * @return this search
+     */
+    public LNSearch add(String name, Relaxation relaxation) {
+        for (OperatorStatistics o : operators)
+            if (o.name.equals(name))
+                throw new IllegalArgumentException("operator " + name + " already exists");
+        operators.add(new OperatorStatistics(name, relaxation));
+        return this;
+    }
+
+    /**
+     * Sets the number of failures after which the search of a neighborhood is stopped (100 by default)
+     *
+     * @param failureLimit the maximum number of failures of an iteration
+     */
+    public void setFailureLimit(int failureLimit) {
+        this.failureLimit = failureLimit;
+    }
+
+    /**
+     * Sets the reaction factor of the update of the weights of the operators (0.1 by default)
+     *
+     * @param reaction the reaction factor, in [0,1]
+     */
+    public void setReaction(double reaction) {
+        if (reaction < 0 || reaction > 1) throw new IllegalArgumentException("the reaction must be in [0,1]");
+        this.reaction = reaction;
+    }
+
+    /**
+     * Sets the seed of the random generators, worker {@code i} using {@code seed + i} (0 by default)
+     *
+     * @param seed the seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @return the best solution found by the last search, null if none
+     */
+    public LNSSolution incumbent() {
+        return incumbent;
+    }
+
+    /**
+     * @return true if the last search proved the optimality of its incumbent, or the infeasibility
+     */
+    public boolean isOptimal() {
+        return optimal;
+    }
+
+    /**
+     * @return the number of iterations of the last search
+     */
+    public int numberOfIterations() {
+        return nIterations == null ? 0 : Math.min(nIterations.get(), maxIterations);
+    }
+
+    /**
+     * @param name the name of an operator
+     * @return the statistics of that operator in the last search
+     */
+    public OperatorStatistics statistics(String name) {
+        for (OperatorStatistics o : operators)
+            if (o.name.equals(name))
+                return o;
+        throw new IllegalArgumentException("operator " + name + " does not exist");
+    }
+
+    /**
+     * @return the statistics of all the operators in the last search
+     */
+    public List<OperatorStatistics> statistics() {
+        return Collections.unmodifiableList(operators);
+    }
+
+    /**
+     * Optimizes the objective with a limited number of iterations
+     *
+     * @param objective     the objective, a {@link Minimization} or {@link Maximization}
+     *                      is turned into its shared counterpart
+     * @param maxIterations the number of iterations over all the workers
+     * @return the statistics aggregated over all the workers,
+     * completed if the optimality of the incumbent (or the infeasibility) was proven
+     */
+    public SearchStatistics optimize(Objective objective, int maxIterations) {
+        return optimize(objective, maxIterations, Long.MAX_VALUE);
+    }
+
+    /**
+     * Optimizes the objective with a limited number of iterations and a time limit
+     *
+     * @param objective       the objective, a {@link Minimization} or {@link Maximization}
+     *                        is turned into its shared counterpart
+     * @param maxIterations   the number of iterations over all the workers
+     * @param timeLimitMillis the time limit, in milliseconds
+     * @return the statistics aggregated over all the workers,
+     * completed if the optimality of the incumbent (or the infeasibility) was proven
+     */
+    public SearchStatistics optimize(Objective objective, int maxIterations, long timeLimitMillis) {
+        if (operators.isEmpty())
+            throw new IllegalStateException("the search has no relaxation operator");
+        Objective shared = shared(objective);
+        long start = System.currentTimeMillis();
+        long deadline = timeLimitMillis > Long.MAX_VALUE - start ? Long.MAX_VALUE : start + timeLimitMillis;
+        SymbolicModel root = modelProxy.getModel().symbolicCopy();
+        Set<Expression> recorded = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (OperatorStatistics o : operators) {
+            o.reset();
+            recorded.addAll(Arrays.asList(o.relaxation.variables()));
+        }
+        List<Expression> variables = new ArrayList<>(recorded);
+        this.maxIterations = maxIterations;
+        nIterations = new AtomicInteger();
+        done = false;
+        incumbent = null;
+        optimal = false;
+
+        List<Callable<SearchStatistics>> tasks = new ArrayList<>();
+        for (int w = 0; w < nWorkers; w++) {
+            int id = w;
+            tasks.add(() -> work(id, root, shared, variables, deadline));
+        }
+        SearchStatistics statistics = new SearchStatistics();
+        for (SearchStatistics s : runWorkers(tasks, () -> done = true))
+            statistics.add(s);
+        if (optimal)
+            statistics.setCompleted();
+        return statistics;
+    }
+
+    private boolean stopped(long deadline) {
+        return done || nIterations.get() >= maxIterations || System.currentTimeMillis() >= deadline;
+    }
+
+    private SearchStatistics work(int id, SymbolicModel root, Objective objective, List<Expression> variables, long deadline) {
+        try {
+            return modelProxy.runAsConcrete(instantiator, root, cp -> {
+                SearchStatistics statistics = new SearchStatistics();
+                Random random = new Random(seed + id);
+                DFSearch search = cp.dfSearch(branching.get());
+                IntExpression expr = expression(objective);
+                boolean minimize = objective instanceof SharedMinimization;
+                boolean[] improved = new boolean[]{false}; // by this worker, during the current iteration
+                search.onSolution(() -> {
+                    if (foundSolution(new LNSSolution(minimize ? expr.min() : expr.max(), variables), minimize))
+                        improved[0] = true;
+                });
+                org.maxicp.search.Objective obj = cp.createObjective(objective);
+
+                // initial solution, the search stops as soon as any worker has one
+                SearchStatistics initial = search.optimize(obj, s -> incumbent != null || stopped(deadline));
+                statistics.add(initial);
+                if (initial.isCompleted()) {
+                    // the bound is shared: no worker can find a better solution
+                    proved();
+                    return statistics;
+                }
+                while (true) {
+                    if (done || System.currentTimeMillis() >= deadline || nIterations.incrementAndGet() > maxIterations)
+                        break;
+                    OperatorStatistics operator = select(random);
+                    LNSSolution relaxed = incumbent;
+                    improved[0] = false;
+                    long t0 = System.nanoTime();
+                    SearchStatistics s = search.optimizeSubjectTo(obj,
+                            stats -> stats.numberOfFailures() >= failureLimit || done || System.currentTimeMillis() >= deadline,
+                            () -> operator.relaxation.relax(relaxed, random));
+                    operator.update(improved[0], System.nanoTime() - t0, reaction);
+                    statistics.add(s);
+                }
+                return statistics;
+            });
+        } catch (InconsistencyException e) {
+            // the root node fails when the model is instantiated
+            proved();
+            SearchStatistics statistics = new SearchStatistics();
+            statistics.incrFailures();
+            return statistics;
+        } catch (RuntimeException | Error e) {
+            done = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Selects an operator by a roulette wheel on their weights
+     */
+    private OperatorStatistics select(Random random) {
+        double total = 0;
+        for (OperatorStatistics o : operators)
+            total += o.weight();
+        double r = random.nextDouble() * total;
+        for (OperatorStatistics o : operators) {
+            r -= o.weight();
+            if (r < 0)
+                return o;
+        }
+        return operators.getLast();
+    }
+
+    /**
+     * Records the solution if it improves the incumbent and notifies the listeners
+     *
+     * @return true if the solution improves the incumbent
+     */
+    private synchronized boolean foundSolution(LNSSolution solution, boolean minimize) {
+        LNSSolution current = incumbent;
+        if (current != null && (minimize ? solution.objective() >= current.objective() : solution.objective() <= current.objective()))
+            return false;
+        incumbent = solution;
+        notifySolution();
+        return true;
+    }
+
+    /**
+     * Stops the search after a worker explored the whole search space
+     */
+    private synchronized void proved() {
+        optimal = true;
+        done = true;
+    }
+}
@@ -0,0 +1,375 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.search;
+
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.cp.modeling.CPModelInstantiator;
+import org.maxicp.cp.modeling.ConcreteCPModel;
+import org.maxicp.modeling.ModelProxyInstantiator;
+import org.maxicp.modeling.algebra.integer.IntExpression;
+import org.maxicp.modeling.concrete.ConcreteModel;
+import org.maxicp.modeling.symbolic.*;
+import org.maxicp.modeling.symbolic.Objective;
+import org.maxicp.util.exception.InconsistencyException;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Parallel portfolio of depth-first searches.
+ * <p>
+ * Each configuration of the portfolio is a branching explored by a {@link DFSearch},
+ * or a {@link RestartSearch} (see {@link #addRestart}),
+ * on its own thread and its own concrete model of the same {@link ModelProxyInstantiator}.
+ * When optimizing, the incumbent bound is shared by all the searches
+ * through a {@link SharedMinimization} or {@link SharedMaximization}:
+ * a solution found by any configuration prunes all the other ones.
+ * The restart configurations also share their nogoods ({@link org.maxicp.cp.engine.constraints.NoGood})
+ * through a pool: the nogoods recorded by a configuration at a restart are added to the pool,
+ * and each restart configuration posts the ones added by the other configurations at its next restart.
+ * The nogoods are expressed on the symbolic variables of the configurations, such that they can be
+ * posted on the solver of any of them.
+ * The portfolio stops as soon as a complete configuration finishes,
+ * proving the optimality of the incumbent (or the infeasibility),
+ * or, when solving, as soon as any configuration finds a solution.
+ * <p>
+ * The branching of a configuration is created on its thread,
+ * with its model as the current model of the {@link org.maxicp.modeling.ModelProxy},
+ * such that stateful heuristics (e.g. {@link Searches#lastConflict}) are not shared.
+ */
+public class PortfolioSearch extends AbstractParallelSearch {
+
+    private record Configuration(String name, Supplier<Supplier<Runnable[]>> branching, Restart restart, boolean complete) {
+    }
+
+    /**
+     * Restart search of a configuration, branching on the variables x
+     */
+    private record Restart(IntExpression[] x, Function<CPIntVar[], Supplier<CPIntVar>> variableSelector,
+                           Function<CPIntVar, Integer> valueSelector, RestartPolicy policy) {
+    }
+
+    /**
+     * Nogoods recorded by the restart configurations, the variables being given by their index
+     * in the variables of the configuration
+     */
+    private static final class NoGoodPool {
+
+        private record SharedNoGood(int source, int[] x, int[] v) {
+        }
+
+        private final List<SharedNoGood> noGoods = new ArrayList<>();
+
+        synchronized void add(SharedNoGood noGood) {
+            noGoods.add(noGood);
+        }
+
+        synchronized List<SharedNoGood> from(int index) {
+            return new ArrayList<>(noGoods.subList(index, noGoods.size()));
+        }
+
+        /**
+         * @param source the index of the configuration
+         * @param x      the variables of the configuration
+         * @return the exchange of the configuration, receiving the nogoods of the other configurations
+         */
+        RestartSearch.NoGoodExchange exchange(int source, CPIntVar[] x) {
+            IdentityHashMap<CPIntVar, Integer> index = new IdentityHashMap<>();
+            for (int i = 0; i < x.length; i++)
+                index.putIfAbsent(x[i], i);
+            return new RestartSearch.NoGoodExchange() {
+                private int next = 0; // first nogood of the pool not received yet
+
+                @Override
+                public void publish(CPIntVar[] vars, int[] v) {
+                    int[] ix = new int[vars.length];
+                    for (int i = 0; i < vars.length; i++) {
+                        Integer j = index.get(vars[i]);
+                        if (j == null) // decided on a variable not shared with the other configurations
+                            return;
+                        ix[i] = j;
+                    }
+                    add(new SharedNoGood(source, ix, v.clone()));
+                }
+
+                @Override
+                public void receive(BiConsumer<CPIntVar[], int[]> post) {
+                    List<SharedNoGood> received = from(next);
+                    next += received.size();
+                    for (SharedNoGood noGood : received) {
+                        if (noGood.source == source)
+                            continue;
+                        CPIntVar[] vars = new CPIntVar[noGood.x.length];
+                        for (int i = 0; i < vars.length; i++)
+                            vars[i] = x[noGood.x[i]];
+                        post.accept(vars, noGood.v);
+                    }
+                }
+            };
+        }
+    }
+
+    private final List<Configuration> configurations = new ArrayList<>();
+    private final Map<String, RestartSearch> restartSearches = new HashMap<>();
+
+    private volatile boolean done;
+    private String winner;
+    private Integer incumbent;
+    private final Map<String, SearchStatistics> statistics = new LinkedHashMap<>();
+
+    /**
+     * Creates an empty portfolio, the concrete models being instantiated with trailing
+     *
+     * @param modelProxy the model to solve
+     */
+    public PortfolioSearch(ModelProxyInstantiator modelProxy) {
+        this(modelProxy, CPModelInstantiator.withTrailing);
+    }
+
+    /**
+     * Creates an empty portfolio
+     *
+     * @param modelProxy   the model to solve
+     * @param instantiator the instantiator of the concrete model of each configuration
+     */
+    public PortfolioSearch(ModelProxyInstantiator modelProxy, ModelProxyInstantiator.ModelInstantiator<? extends ConcreteModel> instantiator) {
+        super(modelProxy, instantiator);
+    }
+
+    /**
+     * Adds a configuration exploring the whole search tree
+     *
+     * @param name      the name of the configuration
+     * @param branching the factory of the branching, called on the thread of the configuration
+     * @return this portfolio
+     */
+    public PortfolioSearch add(String name, Supplier<Supplier<Runnable[]>> branching) {
+        return add(name, branching, true);
+    }
+
+    /**
+     * Adds a configuration
+     *
+     * @param name      the name of the configuration
+     * @param branching the factory of the branching, called on the thread of the configuration
+     * @param complete  false if the branching does not explore the whole search tree
+     *                  (e.g. {@link LimitedDiscrepancyBranching}), such that its completion
+     *                  does not prove anything and does not stop the portfolio
+     * @return this portfolio
+     */
+    public PortfolioSearch add(String name, Supplier<Supplier<Runnable[]>> branching, boolean complete) {
+        return add(new Configuration(name, branching, null, complete));
+    }
+
+    /**
+     * Adds a configuration exploring the whole search tree with a {@link RestartSearch},
+     * sharing its nogoods with the other restart configurations.
+     * The instantiator of the portfolio must create {@link ConcreteCPModel}.
+     *
+     * @param name             the name of the configuration
+     * @param x                the variables to branch on, the nogoods being shared
+     *                         by the configurations branching on the same variables
+     * @param variableSelector creates the variable selector from the concrete variables of x,
+     *                         called on the thread of the configuration
+     * @param valueSelector    given a variable, returns the value to which
+     *                         it must be assigned on the left branch (and excluded on the right)
+     * @param policy           the number of failures allowed to each run
+     * @return this portfolio
+     */
+    public PortfolioSearch addRestart(String name, IntExpression[] x, Function<CPIntVar[], Supplier<CPIntVar>> variableSelector,
+                                      Function<CPIntVar, Integer> valueSelector, RestartPolicy policy) {
+        return add(new Configuration(name, null, new Restart(x.clone(), variableSelector, valueSelector, policy), true));
+    }
+
+    private PortfolioSearch add(Configuration configuration) {
+        for (Configuration c : configurations)
+            if (c.name.equals(configuration.name))
+                throw new IllegalArgumentException("configuration " + configuration.name + " already exists");
+        configurations.add(configuration);
+        return this;
+    }
+
+    /**
+     * @return the name of the configuration that stopped the last search,
+     * null if it was stopped by its limit or if no complete configuration finished
+     */
+    public String winner() {
+        return winner;
+    }
+
+    /**
+     * @param name the name of a configuration
+     * @return the statistics of that configuration in the last search
+     */
+    public SearchStatistics statistics(String name) {
+        return statistics.get(name);
+    }
+
+    /**
+     * @param name the name of a configuration added with {@link #addRestart}
+     * @return its restart search in the last search, e.g. to get its number of received nogoods,
+     * null if it did not start
+     */
+    public RestartSearch restartSearch(String name) {
+        synchronized (restartSearches) {
+            return restartSearches.get(name);
+        }
+    }
+
+    /**
+     * Searches for a solution, stopping all the configurations as soon as one finds it
+     *
+     * @return the statistics aggregated over all the configurations,
+     * completed if a complete configuration finished or a solution was found
+     */
+    public SearchStatistics solve() {
+        return solve(stats -> false);
+    }
+
+    /**
+     * Searches for a solution, stopping all the configurations as soon as one finds it
+     *
+     * @param limit a predicate called at each node by every configuration, on its own statistics,
+     *              that stops that configuration when it becomes true
+     * @return the statistics aggregated over all the configurations,
+     * completed if a complete configuration finished or a solution was found
+     */
+    public SearchStatistics solve(Predicate<SearchStatistics> limit) {
+        return run(null, limit);
+    }
+
+    /**
+     * Finds an optimal solution, stopping all the configurations as soon as one proves optimality
+     *
+     * @param objective the objective, a {@link Minimization} or {@link Maximization}
+     *                  is turned into its shared counterpart
+     * @return the statistics aggregated over all the configurations,
+     * completed if optimality was proven
+     */
+    public SearchStatistics optimize(Objective objective) {
+        return optimize(objective, stats -> false);
+    }
+
+    /**
+     * Finds an optimal solution, stopping all the configurations as soon as one proves optimality
+     *
+     * @param objective the objective, a {@link Minimization} or {@link Maximization}
+     *                  is turned into its shared counterpart
+     * @param limit     a predicate called at each node by every configuration, on its own statistics,
+     *                  that stops that configuration when it becomes true
+     * @return the statistics aggregated over all the configurations,
+     * completed if optimality was proven
+     */
+    public SearchStatistics optimize(Objective objective, Predicate<SearchStatistics> limit) {
+        return run(shared(objective), limit);
+    }
+
+    private SearchStatistics run(Objective objective, Predicate<SearchStatistics> limit) {
+        if (configurations.isEmpty())
+            throw new IllegalStateException("the portfolio has no configuration");
+        SymbolicModel root = modelProxy.getModel().symbolicCopy();
+        done = false;
+        winner = null;
+        incumbent = null;
+        statistics.clear();
+        restartSearches.clear();
+        NoGoodPool pool = new NoGoodPool();
+
+        List<Callable<SearchStatistics>> tasks = new ArrayList<>();
+        for (int i = 0; i < configurations.size(); i++) {
+            Configuration c = configurations.get(i);
+            int index = i;
+            tasks.add(() -> runConfiguration(c, index, pool, root, objective, limit));
+        }
+        List<SearchStatistics> results = runWorkers(tasks, () -> done = true);
+        SearchStatistics aggregated = new SearchStatistics();
+        for (int i = 0; i < configurations.size(); i++) {
+            statistics.put(configurations.get(i).name, results.get(i));
+            aggregated.add(results.get(i));
+        }
+        if (winner != null)
+            aggregated.setCompleted();
+        return aggregated;
+    }
+
+    private SearchStatistics runConfiguration(Configuration c, int index, NoGoodPool pool, SymbolicModel root, Objective objective, Predicate<SearchStatistics> limit) {
+        Predicate<SearchStatistics> stop = stats -> done || limit.test(stats);
+        SearchStatistics s;
+        try {
+            s = modelProxy.runAsConcrete(instantiator, root, cp -> {
+                AbstractSearchMethod<Runnable> search = c.restart == null ? cp.dfSearch(c.branching.get()) : restartSearch(c, index, pool, cp);
+                if (objective == null) {
+                    search.onSolution(() -> foundSolution(c));
+                    return search.solve(stop);
+                }
+                IntExpression expr = expression(objective);
+                boolean minimize = objective instanceof SharedMinimization;
+                search.onSolution(() -> improvedSolution(minimize ? expr.min() : -expr.max()));
+                return search.optimize(cp.createObjective(objective), stop);
+            });
+        } catch (InconsistencyException e) {
+            // the root node fails when the model is instantiated
+            s = new SearchStatistics();
+            s.incrFailures();
+            s.setCompleted();
+        } catch (RuntimeException | Error e) {
+            done = true;
+            throw e;
+        }
+        if (s.isCompleted() && c.complete)
+            finished(c);
+        return s;
+    }
+
+    private RestartSearch restartSearch(Configuration c, int index, NoGoodPool pool, ConcreteModel model) {
+        if (!(model instanceof ConcreteCPModel cp))
+            throw new IllegalStateException("the restart configuration " + c.name + " needs a CP model");
+        CPIntVar[] x = cp.getCPVar(c.restart.x);
+        RestartSearch search = new RestartSearch(cp.solver, c.restart.variableSelector.apply(x), c.restart.valueSelector, c.restart.policy);
+        search.setNoGoodExchange(pool.exchange(index, x));
+        synchronized (restartSearches) {
+            restartSearches.put(c.name, search);
+        }
+        return search;
+    }
+
+    /**
+     * Records the first solution and stops the portfolio
+     */
+    private synchronized void foundSolution(Configuration c) {
+        if (done)
+            return;
+        notifySolution();
+        winner = c.name;
+        done = true;
+    }
+
+    /**
+     * Notifies the listeners if the solution improves the incumbent
+     *
+     * @param value the value of the solution, negated when maximizing
+     */
+    private synchronized void improvedSolution(int value) {
+        if (incumbent != null && value >= incumbent)
+            return;
+        incumbent = value;
+        notifySolution();
+    }
+
+    /**
+     * Stops the portfolio after a complete configuration finished its search
+     */
+    private synchronized void finished(Configuration c) {
+        if (done)
+            return;
+        winner = c.name;
+        done = true;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.search;
+
+import org.maxicp.modeling.algebra.Expression;
+
+import java.util.Random;
+
+/**
+ * Relaxation operator of a Large Neighborhood Search.
+ * <p>
+ * An operator constrains the current model to a neighborhood of the incumbent solution,
+ * typically by fixing some of the variables to their value in the incumbent
+ * and leaving the other ones free.
+ * It is called on the thread of an {@link LNSearch} worker,
+ * such that the constraints are added to the model of that worker
+ * through the {@link org.maxicp.modeling.ModelProxy} of the variables.
+ *
+ * @see Relaxations
+ */
+@FunctionalInterface
+public interface Relaxation {
+
+    /**
+     * Constrains the current model to a neighborhood of the incumbent
+     *
+     * @param incumbent the best solution found so far
+     * @param random    the random generator of the worker
+     */
+    void relax(LNSSolution incumbent, Random random);
+
+    /**
+     * Returns the variables whose value in the incumbent is read by the operator.
+     * They are recorded in each solution found by the {@link LNSearch}.
+     *
+     * @return the variables read by the operator, none by default
+     */
+    default Expression[] variables() {
+        return new Expression[0];
+    }
+}
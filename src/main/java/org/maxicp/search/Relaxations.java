@@ -0,0 +1,205 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.search;
+
+import org.maxicp.modeling.IntervalVar;
+import org.maxicp.modeling.SeqVar;
+import org.maxicp.modeling.algebra.Expression;
+import org.maxicp.modeling.algebra.integer.IntExpression;
+
+import java.util.Random;
+import java.util.function.BiConsumer;
+
+import static org.maxicp.modeling.Factory.*;
+
+/**
+ * Factory for the relaxation operators of an {@link LNSearch}.
+ */
+public final class Relaxations {
+
+    private Relaxations() {
+        throw new UnsupportedOperationException();
+    }
+
+    private record Operator(Expression[] variables, BiConsumer<LNSSolution, Random> body) implements Relaxation {
+        @Override
+        public void relax(LNSSolution incumbent, Random random) {
+            body.accept(incumbent, random);
+        }
+
+        @Override
+        public Expression[] variables() {
+            return variables;
+        }
+    }
+
+    /**
+     * Creates a relaxation operator
+     *
+     * @param variables the variables whose value in the incumbent is read by the operator
+     * @param relax     constrains the current model to a neighborhood of the incumbent
+     * @return the relaxation operator
+     */
+    public static Relaxation of(Expression[] variables, BiConsumer<LNSSolution, Random> relax) {
+        return new Operator(variables.clone(), relax);
+    }
+
+    /**
+     * Random relaxation: each variable is fixed to its value in the incumbent
+     * with a given probability, independently of the other ones.
+     *
+     * @param fixedFraction the probability to fix a variable
+     * @param x             the variables
+     * @return the relaxation operator
+     */
+    public static Relaxation random(double fixedFraction, IntExpression... x) {
+        return of(x, (incumbent, random) -> {
+            for (IntExpression xi : x)
+                if (random.nextDouble() < fixedFraction)
+                    xi.getModelProxy().add(eq(xi, incumbent.value(xi)));
+        });
+    }
+
+    /**
+     * Propagation-guided relaxation.
+     * The variables are fixed one by one to their value in the incumbent,
+     * until the size of the search space, the product of the domain sizes, is small enough.
+     * The next variable to fix is the one whose domain was the most reduced by the previous fixings,
+     * such that the relaxed variables are the ones related to each other by the constraints.
+     * The first variable, or the next one if no domain was reduced, is chosen randomly.
+     * <p>
+     * Perron, L., Shaw, P., Furnon, V. (2004).
+     * Propagation guided large neighborhood search.
+     * In CP (pp. 468-481). Springer.
+     *
+     * @param relaxedFraction the fraction of the logarithm of the search space size left,
+     *                        e.g. 0.1 stops when the product of the domain sizes is below its initial value to the power 0.1
+     * @param x               the variables
+     * @return the relaxation operator
+     */
+    public static Relaxation propagationGuided(double relaxedFraction, IntExpression... x) {
+        return of(x, (incumbent, random) -> {
+            int n = x.length;
+            double target = relaxedFraction * logSize(x);
+            double[] reduction = new double[n];
+            int[] size = new int[n];
+            int[] unfixed = new int[n];
+            while (logSize(x) > target) {
+                int next = -1;
+                int nUnfixed = 0;
+                for (int i = 0; i < n; i++) {
+                    if (x[i].isFixed())
+                        continue;
+                    unfixed[nUnfixed++] = i;
+                    if (reduction[i] > 0 && (next == -1 || reduction[i] > reduction[next]))
+                        next = i;
+                }
+                if (nUnfixed == 0)
+                    return;
+                if (next == -1)
+                    next = unfixed[random.nextInt(nUnfixed)];
+                for (int i = 0; i < n; i++)
+                    size[i] = x[i].size();
+                x[next].getModelProxy().add(eq(x[next], incumbent.value(x[next])));
+                for (int i = 0; i < n; i++)
+                    reduction[i] += Math.log(size[i]) - Math.log(x[i].size());
+            }
+        });
+    }
+
+    private static double logSize(IntExpression[] x) {
+        double s = 0;
+        for (IntExpression xi : x)
+            s += Math.log(xi.size());
+        return s;
+    }
+
+    /**
+     * Sequence-based relaxation for routing problems.
+     * A string of consecutive visited nodes, starting from a node chosen randomly
+     * among the visited ones, is removed from its sequence.
+     * The other visited nodes are inserted in their sequence in the order of the incumbent,
+     * such that the removed nodes and the nodes not visited in the incumbent can be inserted
+     * anywhere, in any sequence.
+     *
+     * @param nRelaxed the maximum number of consecutive nodes removed
+     * @param seqVars  the sequence variables
+     * @return the relaxation operator
+     */
+    public static Relaxation sequence(int nRelaxed, SeqVar... seqVars) {
+        return of(seqVars, (incumbent, random) -> {
+            int[][] orders = new int[seqVars.length][];
+            int nVisited = 0;
+            for (int k = 0; k < seqVars.length; k++) {
+                orders[k] = incumbent.order(seqVars[k]);
+                nVisited += orders[k].length - 2;
+            }
+            // sequence and position of the first removed node, chosen among the visited nodes
+            int removedSeq = -1;
+            int removedFrom = 0;
+            if (nVisited > 0) {
+                removedFrom = random.nextInt(nVisited) + 1;
+                for (removedSeq = 0; removedFrom > orders[removedSeq].length - 2; removedSeq++)
+                    removedFrom -= orders[removedSeq].length - 2;
+            }
+            for (int k = 0; k < seqVars.length; k++) {
+                int[] order = orders[k];
+                int prev = order[0];
+                for (int j = 1; j < order.length - 1; j++) {
+                    if (k == removedSeq && j >= removedFrom && j < removedFrom + nRelaxed)
+                        continue;
+                    seqVars[k].getModelProxy().add(insert(seqVars[k], prev, order[j]));
+                    prev = order[j];
+                }
+            }
+        });
+    }
+
+    /**
+     * Time-window relaxation for scheduling problems.
+     * The present intervals overlapping a time window chosen randomly are relaxed,
+     * the other ones are fixed to their start in the incumbent.
+     * An absent interval is relaxed with the probability for a present one to be relaxed,
+     * and kept absent otherwise.
+     *
+     * @param windowLength the length of the time window
+     * @param intervals    the interval variables
+     * @return the relaxation operator
+     */
+    public static Relaxation timeWindow(int windowLength, IntervalVar... intervals) {
+        return of(intervals, (incumbent, random) -> {
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            int nPresent = 0;
+            for (IntervalVar v : intervals) {
+                if (incumbent.isPresent(v)) {
+                    min = Math.min(min, incumbent.start(v));
+                    max = Math.max(max, incumbent.end(v));
+                    nPresent++;
+                }
+            }
+            if (nPresent == 0)
+                return;
+            int from = min + random.nextInt(Math.max(1, max - min - windowLength + 1));
+            int to = from + windowLength;
+            int nRelaxed = 0;
+            for (IntervalVar v : intervals)
+                if (incumbent.isPresent(v) && incumbent.start(v) < to && incumbent.end(v) > from)
+                    nRelaxed++;
+            double relaxedFraction = (double) nRelaxed / nPresent;
+            for (IntervalVar v : intervals) {
+                if (incumbent.isPresent(v)) {
+                    if (incumbent.start(v) < to && incumbent.end(v) > from)
+                        continue;
+                    v.getModelProxy().add(present(v));
+                    v.getModelProxy().add(start(v, incumbent.start(v)));
+                } else if (random.nextDouble() >= relaxedFraction) {
+                    v.getModelProxy().add(not(present(v)));
+                }
+            }
+        });
+    }
+}
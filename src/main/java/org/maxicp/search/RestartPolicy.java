@@ -0,0 +1,61 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.search;
+
+/**
+ * Number of failures allowed to each run of a {@link RestartSearch}
+ * before it restarts.
+ */
+@FunctionalInterface
+public interface RestartPolicy {
+
+    /**
+     * @param run the index of the run, starting at 1
+     * @return the maximum number of failures of that run, positive
+     */
+    int failureLimit(int run);
+
+    /**
+     * Luby sequence {@code 1 1 2 1 1 2 4 1 1 2 1 1 2 4 8 ...} multiplied by a scale.
+     * <p>
+     * Luby, M., Sinclair, A., Zuckerman, D. (1993).
+     * Optimal speedup of Las Vegas algorithms.
+     * Information Processing Letters, 47(4), 173-180.
+     *
+     * @param scale the number of failures of the first run
+     * @return the Luby restart policy
+     */
+    static RestartPolicy luby(int scale) {
+        if (scale < 1) throw new IllegalArgumentException("the scale must be positive");
+        return run -> (int) Math.min(Integer.MAX_VALUE, (long) scale * lubySequence(run));
+    }
+
+    /**
+     * Geometric sequence {@code initial, initial * growth, initial * growth^2, ...}
+     *
+     * @param initial the number of failures of the first run
+     * @param growth  the factor applied to the limit at each restart, at least 1
+     * @return the geometric restart policy
+     */
+    static RestartPolicy geometric(int initial, double growth) {
+        if (initial < 1) throw new IllegalArgumentException("the initial limit must be positive");
+        if (growth < 1) throw new IllegalArgumentException("the growth must be at least 1");
+        return run -> (int) Math.min(Integer.MAX_VALUE, Math.ceil(initial * Math.pow(growth, run - 1)));
+    }
+
+    /**
+     * @param i the index in the sequence, starting at 1
+     * @return the i-th element of the Luby sequence
+     */
+    static long lubySequence(int i) {
+        int k = 1;
+        while ((1L << k) - 1 < i)
+            k++;
+        if ((1L << k) - 1 == i)
+            return 1L << (k - 1);
+        return lubySequence((int) (i - (1L << (k - 1)) + 1));
+    }
+}
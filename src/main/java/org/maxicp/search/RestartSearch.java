@@ -0,0 +1,261 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.search;
+
+import org.maxicp.cp.CPFactory;
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.cp.engine.core.CPSolver;
+import org.maxicp.state.StateInt;
+import org.maxicp.util.exception.InconsistencyException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static org.maxicp.search.Searches.EMPTY;
+import static org.maxicp.search.Searches.branch;
+
+/**
+ * Depth first search restarted each time the number of failures
+ * of the current run reaches the limit given by a {@link RestartPolicy}.
+ * <p>
+ * The search branches with binary decisions {@code x = v} (left) and {@code x != v} (right).
+ * At each restart, the decisions along the current branch are turned into
+ * reduced nld-nogoods: for each negative decision {@code x != v}, the positive decisions
+ * above it together with {@code x = v} form a nogood, its left subtree being explored.
+ * As the current node just failed, the positive decisions of the whole branch form a nogood too.
+ * These nogoods are posted with {@link org.maxicp.cp.engine.constraints.NoGood} before the next run
+ * and prevent it to explore again the parts of the search tree explored by the previous runs.
+ * The search is therefore complete and visits each solution once, as {@link DFSearch}.
+ * The nogoods are removed when the search ends.
+ * <p>
+ * The variable and value selectors are kept from one run to the other,
+ * such that the heuristics learning from the failures keep their weights.
+ * <p>
+ * The nogoods can be exchanged with other restart searches solving the same problem
+ * through a {@link NoGoodExchange}, as done by {@link PortfolioSearch}:
+ * the nogoods recorded at a restart are published, and the ones received are posted
+ * with them before the next run.
+ * <p>
+ * Lecoutre, C., Sais, L., Tabary, S., Vidal, V. (2007).
+ * Recording and minimizing nogoods from restarts.
+ * Journal on Satisfiability, Boolean Modeling and Computation, 1(3-4), 147-167.
+ */
+public class RestartSearch extends AbstractSearchMethod<Runnable> {
+
+    private record NoGoodLiterals(CPIntVar[] x, int[] v) {
+    }
+
+    /**
+     * Exchange of the nogoods between restart searches solving the same problem,
+     * each one on its own solver
+     */
+    public interface NoGoodExchange {
+
+        /**
+         * Called with each nogood recorded at a restart
+         *
+         * @param x the variables of the nogood, of the solver of the search
+         * @param v the forbidden combination of values
+         */
+        void publish(CPIntVar[] x, int[] v);
+
+        /**
+         * Called at each restart, after the recorded nogoods are posted,
+         * to post the nogoods received from the other searches
+         *
+         * @param post posts a nogood on the solver of the search,
+         *             throws an {@link InconsistencyException} if it refutes the root node
+         */
+        void receive(BiConsumer<CPIntVar[], int[]> post);
+    }
+
+    private final CPSolver cp;
+    private final RestartPolicy policy;
+    private final DFSearch dfs;
+
+    // decisions of the current branch, the depth is restored on backtrack
+    private final StateInt depth;
+    private CPIntVar[] decisionVar = new CPIntVar[32];
+    private int[] decisionVal = new int[32];
+    private boolean[] positive = new boolean[32];
+
+    private boolean recordNoGoods = true;
+    private NoGoodExchange exchange;
+    private int nRestarts;
+    private int nNoGoods;
+    private int nReceivedNoGoods;
+
+    /**
+     * Creates a restart search with the Luby policy, scaled by 100 failures
+     *
+     * @param cp               the solver
+     * @param variableSelector returns the next variable to branch on, null if all are fixed
+     * @param valueSelector    given a variable, returns the value to which
+     *                         it must be assigned on the left branch (and excluded on the right)
+     */
+    public RestartSearch(CPSolver cp, Supplier<CPIntVar> variableSelector, Function<CPIntVar, Integer> valueSelector) {
+        this(cp, variableSelector, valueSelector, RestartPolicy.luby(100));
+    }
+
+    /**
+     * Creates a restart search
+     *
+     * @param cp               the solver
+     * @param variableSelector returns the next variable to branch on, null if all are fixed
+     * @param valueSelector    given a variable, returns the value to which
+     *                         it must be assigned on the left branch (and excluded on the right)
+     * @param policy           the number of failures allowed to each run
+     */
+    public RestartSearch(CPSolver cp, Supplier<CPIntVar> variableSelector, Function<CPIntVar, Integer> valueSelector, RestartPolicy policy) {
+        super(cp.getStateManager(), null);
+        this.cp = cp;
+        this.policy = policy;
+        this.depth = sm.makeStateInt(0);
+        this.branching = () -> {
+            CPIntVar x = variableSelector.get();
+            if (x == null)
+                return EMPTY;
+            int v = valueSelector.apply(x);
+            return branch(() -> {
+                decide(x, v, true);
+                cp.post(CPFactory.eq(x, v));
+            }, () -> {
+                decide(x, v, false);
+                cp.post(CPFactory.neq(x, v));
+            });
+        };
+        this.dfs = CPFactory.makeDfs(cp, branching);
+        dfs.onSolution(this::notifySolution);
+        dfs.onFailure(this::notifyFailure);
+    }
+
+    /**
+     * Enables or disables the recording of nogoods at each restart (enabled by default).
+     * Without nogoods, the search may explore the same parts of the search tree again
+     * and report the same solution more than once.
+     *
+     * @param recordNoGoods true to record the nogoods
+     */
+    public void setRecordNoGoods(boolean recordNoGoods) {
+        this.recordNoGoods = recordNoGoods;
+    }
+
+    /**
+     * Sets the exchange through which the nogoods are shared with other restart searches
+     *
+     * @param exchange the exchange, null to share nothing
+     */
+    public void setNoGoodExchange(NoGoodExchange exchange) {
+        this.exchange = exchange;
+    }
+
+    /**
+     * @return the number of restarts of the last search
+     */
+    public int numberOfRestarts() {
+        return nRestarts;
+    }
+
+    /**
+     * @return the number of nogoods recorded during the last search
+     */
+    public int numberOfNoGoods() {
+        return nNoGoods;
+    }
+
+    /**
+     * @return the number of nogoods received from the {@link NoGoodExchange} during the last search
+     */
+    public int numberOfReceivedNoGoods() {
+        return nReceivedNoGoods;
+    }
+
+    private void decide(CPIntVar x, int v, boolean pos) {
+        int d = depth.value();
+        if (d == decisionVar.length) {
+            decisionVar = Arrays.copyOf(decisionVar, 2 * d);
+            decisionVal = Arrays.copyOf(decisionVal, 2 * d);
+            positive = Arrays.copyOf(positive, 2 * d);
+        }
+        decisionVar[d] = x;
+        decisionVal[d] = v;
+        positive[d] = pos;
+        depth.setValue(d + 1);
+    }
+
+    /**
+     * Extracts the reduced nld-nogoods of the current branch, whose last node failed
+     */
+    private void extractNoGoods(List<NoGoodLiterals> noGoods) {
+        int k = depth.value();
+        CPIntVar[] x = new CPIntVar[k + 1];
+        int[] v = new int[k + 1];
+        int nPositive = 0;
+        for (int i = 0; i < k; i++) {
+            x[nPositive] = decisionVar[i];
+            v[nPositive] = decisionVal[i];
+            if (positive[i])
+                nPositive++;
+            else // the left branch x = v was explored
+                noGoods.add(new NoGoodLiterals(Arrays.copyOf(x, nPositive + 1), Arrays.copyOf(v, nPositive + 1)));
+        }
+        noGoods.add(new NoGoodLiterals(Arrays.copyOf(x, nPositive), Arrays.copyOf(v, nPositive)));
+    }
+
+    @Override
+    protected void startSolve(SearchStatistics statistics, Predicate<SearchStatistics> limit, Runnable onNodeVisit) {
+        nRestarts = 0;
+        nNoGoods = 0;
+        nReceivedNoGoods = 0;
+        for (int run = 1; ; run++) {
+            // a failure is always followed by a test of the limit, at the state of the failed node
+            long maxFailures = (long) statistics.numberOfFailures() + policy.failureLimit(run);
+            List<NoGoodLiterals> noGoods = new ArrayList<>();
+            boolean[] restart = new boolean[]{false};
+            dfs.solve(statistics, stats -> {
+                if (limit.test(stats))
+                    return true;
+                if (stats.numberOfFailures() >= maxFailures) {
+                    restart[0] = true;
+                    if (recordNoGoods)
+                        extractNoGoods(noGoods);
+                    return true;
+                }
+                return false;
+            }, onNodeVisit);
+            if (statistics.isCompleted())
+                return;
+            if (!restart[0])
+                throw new StopSearchException();
+            nRestarts++;
+            try {
+                for (NoGoodLiterals noGood : noGoods) {
+                    if (noGood.x.length == 0) // the root node is refuted
+                        return;
+                    if (exchange != null)
+                        exchange.publish(noGood.x, noGood.v);
+                    cp.post(CPFactory.noGood(noGood.x, noGood.v));
+                    nNoGoods++;
+                }
+                if (exchange != null) {
+                    exchange.receive((x, v) -> {
+                        if (x.length == 0)
+                            throw InconsistencyException.INCONSISTENCY;
+                        cp.post(CPFactory.noGood(x, v));
+                        nReceivedNoGoods++;
+                    });
+                }
+            } catch (InconsistencyException e) {
+                return; // the nogoods refute the root node: the search space is explored
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.search;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.maxicp.util.io.VarInts.readVarInt;
+import static org.maxicp.util.io.VarInts.readZigZag;
+import static org.maxicp.util.io.VarInts.writeVarInt;
+import static org.maxicp.util.io.VarInts.writeZigZag;
+
+/**
+ * Checkpoint of a {@link DFSearch}, from which a search stopped by its limit,
+ * or interrupted by the end of the JVM, can be resumed with {@link DFSearch#resumeFrom(SearchCheckpoint)}.
+ * <p>
+ * The open part of the search tree is encoded by the current branch, as the indices of the alternatives taken from the root:
+ * all the alternatives on the left of the branch are explored, the ones on its right are not.
+ * The checkpoint also holds the statistics of the search, the bound of the objective and the last solution found,
+ * given by the values of the variables passed to {@link DFSearch#setCheckpoint}.
+ * <p>
+ * Resuming a search replays the branch, such that the branching must be deterministic
+ * (e.g. not {@link Searches#lastConflict}) and the model must be the same.
+ */
+public final class SearchCheckpoint {
+
+    private static final int MAGIC = 0x4d58434b; // MXCK
+    private static final int VERSION = 1;
+
+    private static final int COMPLETED = 1;
+    private static final int BOUND = 2;
+    private static final int INCUMBENT = 4;
+
+    private final int[] branch;
+    private final boolean completed;
+    private final int nNodes;
+    private final int nFailures;
+    private final int nSolutions;
+    private final int nAndNodes;
+    private final int nextNodeId;
+    private final boolean hasBound;
+    private final int bound;
+    private final int[] incumbent;
+
+    SearchCheckpoint(int[] branch, boolean completed, SearchStatistics statistics, int nextNodeId,
+                     boolean hasBound, int bound, int[] incumbent) {
+        this(branch, completed, statistics.numberOfNodes(), statistics.numberOfFailures(), statistics.numberOfSolutions(),
+                statistics.numberOfAndNodes(), nextNodeId, hasBound, bound, incumbent);
+    }
+
+    private SearchCheckpoint(int[] branch, boolean completed, int nNodes, int nFailures, int nSolutions, int nAndNodes,
+                             int nextNodeId, boolean hasBound, int bound, int[] incumbent) {
+        this.branch = branch;
+        this.completed = completed;
+        this.nNodes = nNodes;
+        this.nFailures = nFailures;
+        this.nSolutions = nSolutions;
+        this.nAndNodes = nAndNodes;
+        this.nextNodeId = nextNodeId;
+        this.hasBound = hasBound;
+        this.bound = bound;
+        this.incumbent = incumbent;
+    }
+
+    /**
+     * @return true if the search tree was completely explored
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * @return the statistics of the search when the checkpoint was taken
+     */
+    public SearchStatistics statistics() {
+        SearchStatistics statistics = new SearchStatistics();
+        statistics.restore(nNodes, nFailures, nSolutions, nAndNodes);
+        if (completed)
+            statistics.setCompleted();
+        return statistics;
+    }
+
+    /**
+     * @return true if the search was optimizing an {@link IntObjective}
+     */
+    public boolean hasBound() {
+        return hasBound;
+    }
+
+    /**
+     * @return the bound of the objective when the checkpoint was taken
+     */
+    public int bound() {
+        if (!hasBound) throw new IllegalStateException("no objective bound in the checkpoint");
+        return bound;
+    }
+
+    /**
+     * @return the values of the checkpointed variables in the last solution found,
+     * null if no solution was found
+     */
+    public int[] incumbent() {
+        return incumbent == null ? null : incumbent.clone();
+    }
+
+    /**
+     * @return the indices of the alternatives of the current branch, from the root.
+     * The last one is the first unexplored alternative of the deepest node.
+     */
+    public int[] branch() {
+        return branch.clone();
+    }
+
+    int[] branchArray() {
+        return branch;
+    }
+
+    int nextNodeId() {
+        return nextNodeId;
+    }
+
+    /**
+     * Reads a checkpoint
+     *
+     * @param file the file written by a search
+     * @return the checkpoint
+     * @throws UncheckedIOException if the file cannot be read or is not a checkpoint
+     */
+    public static SearchCheckpoint read(Path file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION)
+                throw new IOException(file + " is not a search checkpoint");
+            int flags = in.readUnsignedByte();
+            int nNodes = readVarInt(in);
+            int nFailures = readVarInt(in);
+            int nSolutions = readVarInt(in);
+            int nAndNodes = readVarInt(in);
+            int nextNodeId = readVarInt(in);
+            int bound = (flags & BOUND) != 0 ? in.readInt() : 0;
+            int[] incumbent = null;
+            if ((flags & INCUMBENT) != 0) {
+                incumbent = new int[readVarInt(in)];
+                for (int i = 0; i < incumbent.length; i++)
+                    incumbent[i] = readZigZag(in);
+            }
+            int[] branch = new int[readVarInt(in)];
+            for (int i = 0; i < branch.length; i++)
+                branch[i] = readVarInt(in);
+            return new SearchCheckpoint(branch, (flags & COMPLETED) != 0, nNodes, nFailures, nSolutions, nAndNodes,
+                    nextNodeId, (flags & BOUND) != 0, bound, incumbent);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the checkpoint to a temporary file moved over the given one,
+     * such that the file always holds a complete checkpoint
+     */
+    void write(Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                out.writeByte((completed ? COMPLETED : 0) | (hasBound ? BOUND : 0) | (incumbent != null ? INCUMBENT : 0));
+                writeVarInt(out, nNodes);
+                writeVarInt(out, nFailures);
+                writeVarInt(out, nSolutions);
+                writeVarInt(out, nAndNodes);
+                writeVarInt(out, nextNodeId);
+                if (hasBound)
+                    out.writeInt(bound);
+                if (incumbent != null) {
+                    writeVarInt(out, incumbent.length);
+                    for (int v : incumbent)
+                        writeZigZag(out, v);
+                }
+                writeVarInt(out, branch.length);
+                for (int c : branch)
+                    writeVarInt(out, c);
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Writes the checkpoints of a search on a background thread.
+     * The search thread only hands over its snapshots, a snapshot submitted while the previous one
+     * is not yet written replaces it.
+     */
+    static final class Writer {
+        private static final long CLOSE_TIMEOUT_SECONDS = 60;
+
+        private final Path file;
+        private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "maxicp-checkpoint");
+            t.setDaemon(true);
+            return t;
+        });
+        private final AtomicReference<SearchCheckpoint> pending = new AtomicReference<>();
+        private volatile IOException error;
+
+        Writer(Path file) {
+            this.file = file;
+        }
+
+        void submit(SearchCheckpoint checkpoint) {
+            if (pending.getAndSet(checkpoint) == null)
+                executor.execute(this::writePending);
+        }
+
+        private void writePending() {
+            SearchCheckpoint checkpoint = pending.getAndSet(null);
+            if (checkpoint == null)
+                return;
+            try {
+                checkpoint.write(file);
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+
+        /**
+         * Writes the last checkpoint and waits for the writes to be done,
+         * at most {@link #CLOSE_TIMEOUT_SECONDS} seconds.
+         * If the thread is interrupted while waiting, its interrupt flag is restored
+         * and the writes go on in the background.
+         *
+         * @throws UncheckedIOException if a checkpoint could not be written, or not in time
+         */
+        void close(SearchCheckpoint last) {
+            if (last != null)
+                submit(last);
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                    throw new UncheckedIOException(new IOException("the last checkpoint was not written within " + CLOSE_TIMEOUT_SECONDS + "s"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (error != null)
+                throw new UncheckedIOException(error);
+        }
+    }
+}
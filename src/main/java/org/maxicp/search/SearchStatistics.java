@@ -51,10 +51,32 @@ public class SearchStatistics {
         nSolutions += n;
     }
 
+    /**
+     * Adds the number of failures, nodes, solutions and and-nodes of other statistics to these ones
+     *
+     * @param other the statistics to add
+     */
+    public void add(SearchStatistics other) {
+        nFailures += other.nFailures;
+        nNodes += other.nNodes;
+        nSolutions += other.nSolutions;
+        nAndNodes += other.nAndNodes;
+    }
+
     public void incrAndNodes() {
         nAndNodes ++;
     }
 
+    /**
+     * Sets the counters to the ones of a search resumed from a {@link SearchCheckpoint}
+     */
+    void restore(int nNodes, int nFailures, int nSolutions, int nAndNodes) {
+        this.nNodes = nNodes;
+        this.nFailures = nFailures;
+        this.nSolutions = nSolutions;
+        this.nAndNodes = nAndNodes;
+    }
+
     public void setCompleted() {
         completed = true;
     }
@@ -71,6 +93,10 @@ public class SearchStatistics {
         return nSolutions;
     }
 
+    public int numberOfAndNodes() {
+        return nAndNodes;
+    }
+
     public boolean isCompleted() {
         return completed;
     }
@@ -0,0 +1,211 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.search;
+
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Offline summary of a search tree log written by a {@link DFSTreeStreamRecorder}:
+ * the number of failures for each depth and label of the decision, typically the branching variable.
+ * The depths are grouped in buckets of a given width, such that the summary
+ * remains readable for deep trees.
+ * <p>
+ * Usage: {@code java org.maxicp.search.SearchTreeHeatmap log [bucketWidth] [--csv]}
+ */
+public class SearchTreeHeatmap {
+
+    /**
+     * Label of the nodes reached by unlabeled decisions
+     */
+    public static final String UNLABELED = "?";
+
+    private static final String SHADES = " .:-=+*#%@";
+
+    private final int bucketWidth;
+    private final Map<String, long[]> failures = new TreeMap<>();
+    private long[] nodesPerBucket = new long[0];
+    private long[] failuresPerBucket = new long[0];
+    private long nSolutions = 0;
+    private DFSTreeStreamRecorder.Trailer trailer;
+
+    private SearchTreeHeatmap(int bucketWidth) {
+        this.bucketWidth = bucketWidth;
+    }
+
+    /**
+     * Summarizes a log
+     *
+     * @param file        the log written by a {@link DFSTreeStreamRecorder}
+     * @param bucketWidth the number of depths grouped in a column of the heatmap
+     * @return the summary
+     */
+    public static SearchTreeHeatmap of(Path file, int bucketWidth) {
+        if (bucketWidth < 1) throw new IllegalArgumentException("the bucket width must be >= 1");
+        SearchTreeHeatmap heatmap = new SearchTreeHeatmap(bucketWidth);
+        heatmap.trailer = DFSTreeStreamRecorder.read(file, heatmap::add);
+        return heatmap;
+    }
+
+    private void add(DFSTreeStreamRecorder.Event e) {
+        int b = (e.depth() - 1) / bucketWidth;
+        if (b >= nodesPerBucket.length) {
+            int n = Math.max(b + 1, 2 * nodesPerBucket.length);
+            nodesPerBucket = Arrays.copyOf(nodesPerBucket, n);
+            failuresPerBucket = Arrays.copyOf(failuresPerBucket, n);
+        }
+        nodesPerBucket[b]++;
+        switch (e.kind()) {
+            case FAIL -> {
+                failuresPerBucket[b]++;
+                String label = e.label() == null ? UNLABELED : e.label();
+                long[] row = failures.get(label);
+                if (row == null || row.length <= b) {
+                    row = row == null ? new long[b + 1] : Arrays.copyOf(row, Math.max(b + 1, 2 * row.length));
+                    failures.put(label, row);
+                }
+                row[b]++;
+            }
+            case SOLUTION -> nSolutions++;
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * @return the number of depths grouped in a column
+     */
+    public int bucketWidth() {
+        return bucketWidth;
+    }
+
+    /**
+     * @return the number of columns, the deepest recorded node being in the last one
+     */
+    public int numberOfBuckets() {
+        int n = nodesPerBucket.length;
+        while (n > 0 && nodesPerBucket[n - 1] == 0)
+            n--;
+        return n;
+    }
+
+    /**
+     * @return the labels of the decisions leading to a failure, sorted
+     */
+    public Set<String> labels() {
+        return Collections.unmodifiableSet(failures.keySet());
+    }
+
+    /**
+     * @param label  the label of the decisions, {@link #UNLABELED} for the unlabeled ones
+     * @param bucket the column, i.e. the depths {@code bucket * bucketWidth + 1 .. (bucket + 1) * bucketWidth}
+     * @return the number of recorded failures
+     */
+    public long failures(String label, int bucket) {
+        long[] row = failures.get(label);
+        return row == null || bucket >= row.length ? 0 : row[bucket];
+    }
+
+    /**
+     * @param bucket the column
+     * @return the number of recorded failures at the depths of the column
+     */
+    public long failures(int bucket) {
+        return bucket < failuresPerBucket.length ? failuresPerBucket[bucket] : 0;
+    }
+
+    /**
+     * @param bucket the column
+     * @return the number of recorded nodes at the depths of the column
+     */
+    public long nodes(int bucket) {
+        return bucket < nodesPerBucket.length ? nodesPerBucket[bucket] : 0;
+    }
+
+    /**
+     * @return the number of recorded solutions
+     */
+    public long numberOfSolutions() {
+        return nSolutions;
+    }
+
+    /**
+     * @return the summary at the end of the log, with the number of nodes not recorded
+     */
+    public DFSTreeStreamRecorder.Trailer trailer() {
+        return trailer;
+    }
+
+    /**
+     * @return the failures as CSV, one line per label and one column per bucket of depths
+     */
+    public String toCsv() {
+        StringBuilder sb = new StringBuilder("label");
+        int n = numberOfBuckets();
+        for (int b = 0; b < n; b++)
+            sb.append(',').append(b * bucketWidth + 1);
+        sb.append('\n');
+        for (String label : failures.keySet()) {
+            sb.append('"').append(label.replace("\"", "\"\"")).append('"');
+            for (int b = 0; b < n; b++)
+                sb.append(',').append(failures(label, b));
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the heatmap of the failures, one line per label and one character per bucket of depths,
+     * darker for more failures
+     */
+    @Override
+    public String toString() {
+        int n = numberOfBuckets();
+        long max = 1;
+        int width = "depth".length();
+        for (Map.Entry<String, long[]> e : failures.entrySet()) {
+            width = Math.max(width, e.getKey().length());
+            for (long f : e.getValue())
+                max = Math.max(max, f);
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-" + width + "s |", "depth"));
+        for (int b = 0; b < n; b += 10)
+            sb.append(String.format("%-10s", b * bucketWidth + 1));
+        sb.append('\n');
+        for (String label : failures.keySet()) {
+            sb.append(String.format("%-" + width + "s |", label));
+            long total = 0;
+            for (int b = 0; b < n; b++) {
+                long f = failures(label, b);
+                total += f;
+                sb.append(f == 0 ? ' ' : SHADES.charAt((int) Math.max(1, Math.round((double) f / max * (SHADES.length() - 1)))));
+            }
+            sb.append("| ").append(total).append('\n');
+        }
+        sb.append(String.format("%-" + width + "s |", "nodes"));
+        long maxNodes = 1;
+        for (int b = 0; b < n; b++)
+            maxNodes = Math.max(maxNodes, nodesPerBucket[b]);
+        for (int b = 0; b < n; b++)
+            sb.append(nodesPerBucket[b] == 0 ? ' ' : SHADES.charAt((int) Math.max(1, Math.round((double) nodesPerBucket[b] / maxNodes * (SHADES.length() - 1)))));
+        sb.append("| ").append(trailer.nEvents()).append('\n');
+        sb.append("solutions: ").append(nSolutions)
+                .append(", not recorded: ").append(trailer.nSampledOut()).append(" sampled out, ")
+                .append(trailer.nTooDeep()).append(" too deep\n");
+        return sb.toString();
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("usage: SearchTreeHeatmap log [bucketWidth] [--csv]");
+            System.exit(1);
+        }
+        int bucketWidth = args.length > 1 && !args[1].equals("--csv") ? Integer.parseInt(args[1]) : 1;
+        SearchTreeHeatmap heatmap = SearchTreeHeatmap.of(Path.of(args[0]), bucketWidth);
+        System.out.print(Arrays.asList(args).contains("--csv") ? heatmap.toCsv() : heatmap.toString());
+    }
+}
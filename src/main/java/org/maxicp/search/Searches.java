@@ -6,13 +6,18 @@
 package org.maxicp.search;
 
 
+import org.maxicp.cp.engine.core.CPConstraint;
+import org.maxicp.cp.engine.core.CPIntVar;
 import org.maxicp.cp.engine.core.CPIntervalVar;
 import org.maxicp.cp.engine.core.CPSeqVar;
+import org.maxicp.cp.engine.core.CPSolver;
 import org.maxicp.modeling.*;
 import org.maxicp.modeling.algebra.bool.Eq;
 import org.maxicp.modeling.algebra.bool.NotEq;
 import org.maxicp.modeling.algebra.integer.IntExpression;
 import org.maxicp.modeling.symbolic.SymbolicModel;
+import org.maxicp.state.StateInt;
+import org.maxicp.state.StateManager;
 import org.maxicp.util.TriFunction;
 import org.maxicp.util.exception.InconsistencyException;
 
@@ -404,6 +409,298 @@ public final class Searches {
         };
     }
 
+    /**
+     * Selects the unfixed variable with the largest score
+     *
+     * @param x     the variables
+     * @param score the score of the variable at a given index
+     * @return the first unfixed variable with the largest score, null if all are fixed
+     */
+    private static CPIntVar selectMax(CPIntVar[] x, IntToDoubleFunction score) {
+        CPIntVar best = null;
+        double bestScore = 0;
+        for (int i = 0; i < x.length; i++) {
+            if (x[i].isFixed())
+                continue;
+            double s = score.applyAsDouble(i);
+            if (best == null || s > bestScore) {
+                best = x[i];
+                bestScore = s;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Failure listener of a variable selector, tied to the search using the selector:
+     * it is registered on the solver at the first selection of a search
+     * and removed once the search ends, i.e. once the state is restored below the level of that selection.
+     * The listener is not called once the search ended and is removed
+     * at the next failure or the next registration, whichever comes first.
+     */
+    private static final class FailureListener {
+
+        private final CPSolver solver;
+        private final Consumer<CPConstraint> listener;
+        private final StateInt registered; // 1 while registered for the current search
+        private Runnable remove;
+
+        FailureListener(CPSolver solver, Consumer<CPConstraint> listener) {
+            this.solver = solver;
+            this.listener = listener;
+            this.registered = solver.getStateManager().makeStateInt(0);
+        }
+
+        /**
+         * Registers the listener if it is not registered for the current search, to be called at each selection
+         */
+        void register() {
+            if (registered.value() == 1)
+                return;
+            if (remove != null)
+                remove.run();
+            registered.setValue(1);
+            remove = solver.onFailure(this::failed);
+        }
+
+        private void failed(CPConstraint c) {
+            if (registered.value() == 1) {
+                listener.accept(c);
+            } else {
+                remove.run();
+                remove = null;
+            }
+        }
+    }
+
+    /**
+     * Scopes of the constraints of the variables to select from,
+     * used to update the scores of the variables incrementally when a constraint fails.
+     * <p>
+     * The variables have no explicit list of constraints, hence the scopes are read
+     * from the constraints registered on the variables at the first selection, once the model is posted.
+     * The scope of a constraint is restricted to the variables to select from
+     * and the constraints posted later are ignored.
+     */
+    private static final class ConstraintScopes {
+
+        private final CPIntVar[] x;
+        private IdentityHashMap<CPConstraint, int[]> scopes = null;
+        private int[] degree;
+
+        ConstraintScopes(CPIntVar[] x) {
+            this.x = x;
+        }
+
+        /**
+         * Indexes the constraints of the variables, if not done yet
+         *
+         * @return true if the constraints were indexed by this call
+         */
+        boolean index() {
+            if (scopes != null)
+                return false;
+            scopes = new IdentityHashMap<>();
+            degree = new int[x.length];
+            for (int i = 0; i < x.length; i++) {
+                int var = i;
+                x[i].visitConstraints(c -> {
+                    int[] scope = scopes.get(c);
+                    if (scope == null) {
+                        scope = new int[]{var};
+                    } else {
+                        scope = Arrays.copyOf(scope, scope.length + 1);
+                        scope[scope.length - 1] = var;
+                    }
+                    scopes.put(c, scope);
+                    degree[var]++;
+                });
+            }
+            return true;
+        }
+
+        /**
+         * @param i the index of a variable
+         * @return the number of constraints of the variable
+         */
+        int degree(int i) {
+            return degree[i];
+        }
+
+        /**
+         * Calls the consumer on the index of each variable in the scope of a constraint
+         * with at least one other unfixed variable in the scope.
+         * A constraint involving a single variable to select from is always considered.
+         *
+         * @param c        the constraint
+         * @param consumer called on the index of the variables
+         */
+        void forEachVar(CPConstraint c, IntConsumer consumer) {
+            int[] scope = scopes == null ? null : scopes.get(c);
+            if (scope == null)
+                return;
+            if (scope.length == 1) {
+                consumer.accept(scope[0]);
+                return;
+            }
+            int nUnfixed = 0;
+            for (int i : scope)
+                if (!x[i].isFixed())
+                    nUnfixed++;
+            for (int i : scope)
+                if (nUnfixed - (x[i].isFixed() ? 0 : 1) > 0)
+                    consumer.accept(i);
+        }
+    }
+
+    /**
+     * Dom/wdeg variable selector.
+     * Selects the unfixed variable minimizing the ratio between its domain size
+     * and its weighted degree, the sum of the weights of its constraints.
+     * The weight of a constraint is one plus the number of times its propagation failed,
+     * such that the search focuses on the hard parts of the problem.
+     * <p>
+     * The weighted degrees are updated when a constraint fails, counting each constraint once per variable
+     * and only for the variables with at least one other unfixed variable in the scope of the constraint.
+     * The scope of a constraint is restricted to the variables to select from.
+     * <p>
+     * Boussemart, F., Hemery, F., Lecoutre, C., Sais, L. (2004).
+     * Boosting systematic search by weighting constraints.
+     * In ECAI (Vol. 16, p. 146).
+     *
+     * @param x the variables to select from
+     * @return the variable selector, returning null if all the variables are fixed
+     */
+    public static Supplier<CPIntVar> domWdeg(CPIntVar... x) {
+        ConstraintScopes scopes = new ConstraintScopes(x);
+        int[] wdeg = new int[x.length];
+        FailureListener failures = new FailureListener(x[0].getSolver(), c -> scopes.forEachVar(c, i -> wdeg[i]++));
+        return () -> {
+            failures.register();
+            if (scopes.index()) {
+                for (int i = 0; i < x.length; i++)
+                    wdeg[i] = scopes.degree(i);
+            }
+            return selectMax(x, i -> Math.max(1, wdeg[i]) / (double) x[i].size());
+        };
+    }
+
+    /**
+     * Activity-based variable selector, with a decay of 0.999
+     *
+     * @param x the variables to select from
+     * @return the variable selector, returning null if all the variables are fixed
+     * @see #activity(double, CPIntVar...)
+     */
+    public static Supplier<CPIntVar> activity(CPIntVar... x) {
+        return activity(0.999, x);
+    }
+
+    /**
+     * Activity-based variable selector.
+     * The activity of a variable is incremented each time its domain is reduced by a decision
+     * (including the decisions whose propagation fails) and decays otherwise.
+     * Selects the unfixed variable maximizing the ratio between its activity and its domain size.
+     * <p>
+     * The domain sizes of the variables are recorded at each selection,
+     * in reversible integers such that, at any node, they are the ones of its parent.
+     * The activities of the variables reduced by a decision are incremented when the next node is reached
+     * or when its propagation fails, the other activities decaying once per node reached.
+     * <p>
+     * Michel, L., Van Hentenryck, P. (2012).
+     * Activity-based search for black-box constraint programming solvers.
+     * In CPAIOR (pp. 228-243). Springer.
+     *
+     * @param decay the factor applied to the activity of the variables not reduced by a decision
+     * @param x     the variables to select from
+     * @return the variable selector, returning null if all the variables are fixed
+     */
+    public static Supplier<CPIntVar> activity(double decay, CPIntVar... x) {
+        if (decay <= 0 || decay > 1) throw new IllegalArgumentException("the decay must be in ]0,1]");
+        StateManager sm = x[0].getSolver().getStateManager();
+        StateInt[] size = new StateInt[x.length];
+        for (int i = 0; i < x.length; i++)
+            size[i] = sm.makeStateInt(x[i].size());
+        double[] activity = new double[x.length];
+        // a failed decision only increments the activities, the decay is applied once per node reached
+        FailureListener failures = new FailureListener(x[0].getSolver(), c -> {
+            for (int i = 0; i < x.length; i++)
+                if (x[i].size() < size[i].value())
+                    activity[i] += 1;
+        });
+        return () -> {
+            failures.register();
+            for (int i = 0; i < x.length; i++) {
+                int s = x[i].size();
+                if (s < size[i].value())
+                    activity[i] += 1;
+                else if (s > 1)
+                    activity[i] *= decay;
+            }
+            CPIntVar best = null;
+            double bestScore = 0;
+            for (int i = 0; i < x.length; i++) {
+                int s = x[i].size();
+                size[i].setValue(s);
+                if (s == 1)
+                    continue;
+                double score = activity[i] / s;
+                if (best == null || score > bestScore || (score == bestScore && s < best.size())) {
+                    best = x[i];
+                    bestScore = score;
+                }
+            }
+            return best;
+        };
+    }
+
+    /**
+     * Conflict-history variable selector (CHB), as adapted to constraint programming by CHS.
+     * Each constraint has a score, updated each time its propagation fails
+     * with a reward favoring the constraints involved in recent failures:
+     * {@code q(c) = (1 - a) q(c) + a / (conflicts - last(c) + 1)}, where {@code conflicts} is the number of failures,
+     * {@code last(c)} the last failure of {@code c} and the step {@code a} decreases from 0.1 to 0.06.
+     * Selects the unfixed variable maximizing the ratio between the sum of the scores of its constraints and its domain size.
+     * The sums are updated when a constraint fails, as the weighted degrees of {@link #domWdeg(CPIntVar...)}.
+     * <p>
+     * Liang, J. H., Ganesh, V., Poupart, P., Czarnecki, K. (2016).
+     * Exponential recency weighted average branching heuristic for SAT solvers.
+     * In AAAI (pp. 3434-3440).
+     * <p>
+     * Habet, D., Terrioux, C. (2021).
+     * Conflict history based heuristic for constraint satisfaction problem solving.
+     * Journal of Heuristics, 27(6), 951-990.
+     *
+     * @param x the variables to select from
+     * @return the variable selector, returning null if all the variables are fixed
+     */
+    public static Supplier<CPIntVar> conflictHistory(CPIntVar... x) {
+        ConstraintScopes scopes = new ConstraintScopes(x);
+        // sum of the scores of the constraints of each variable
+        double[] score = new double[x.length];
+        // score and last failure of the constraints that failed at least once
+        IdentityHashMap<CPConstraint, double[]> scores = new IdentityHashMap<>();
+        double[] conflicts = new double[]{0};
+        double[] step = new double[]{0.1};
+        FailureListener failures = new FailureListener(x[0].getSolver(), c -> {
+            conflicts[0]++;
+            double[] q = scores.computeIfAbsent(c, k -> new double[]{0, 0});
+            double previous = q[0];
+            q[0] = (1 - step[0]) * q[0] + step[0] / (conflicts[0] - q[1] + 1);
+            q[1] = conflicts[0];
+            step[0] = Math.max(0.06, step[0] - 1e-6);
+            scopes.forEachVar(c, i -> score[i] += q[0] - previous);
+        });
+        return () -> {
+            failures.register();
+            if (scopes.index()) {
+                for (int i = 0; i < x.length; i++)
+                    score[i] = 1e-4 * scopes.degree(i);
+            }
+            return selectMax(x, i -> score[i] / x[i].size());
+        };
+    }
+
     public static Supplier<Runnable[]> firstFail(SeqVar... seqVars) {
         int nNodes = Arrays.stream(seqVars).map(SeqVar::nNode).max(Integer::compareTo).get();
         int[] nodes = new int[nNodes];
@@ -0,0 +1,262 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.search;
+
+import org.maxicp.cp.modeling.CPModelInstantiator;
+import org.maxicp.modeling.ModelProxyInstantiator;
+import org.maxicp.modeling.concrete.ConcreteModel;
+import org.maxicp.modeling.symbolic.*;
+import org.maxicp.modeling.symbolic.Objective;
+import org.maxicp.state.StateManager;
+import org.maxicp.util.exception.InconsistencyException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Parallel depth-first search with work stealing.
+ * <p>
+ * Each worker owns a concrete model and explores its part of the search tree
+ * with a {@link ConcurrentDFSearch}. The first worker starts at the root,
+ * an idle worker steals the shallowest unexplored alternative of a busy one
+ * (see {@link AbstractConcurrentSearchMethod#steal()}).
+ * The stolen nodes move between the workers as {@link SymbolicModel} paths,
+ * on which the thief jumps before exploring them.
+ * <p>
+ * The search terminates when no worker holds a node nor waits for the answer to a steal request:
+ * the number of such workers is counted, a thief being counted as soon as it sends its request.
+ * <p>
+ * The branching is called on the worker threads,
+ * with the model of the worker as the current model of the {@link org.maxicp.modeling.ModelProxy}.
+ * The solution listeners are also called on the worker threads, one at a time.
+ * When optimizing, the bound is shared by all the workers.
+ */
+public class WorkStealingDFSearch extends AbstractParallelSearch {
+
+    private static final long STEAL_TIMEOUT_NANOS = 1_000_000;
+    private static final long MIN_BACKOFF_NANOS = 10_000;
+    private static final long MAX_BACKOFF_NANOS = 1_000_000;
+
+    private final Supplier<SymbolicModel[]> branching;
+    private final int nWorkers;
+
+    private AtomicReferenceArray<ConcurrentDFSearch> workers;
+    private AtomicInteger nBusy;
+    private volatile boolean terminated;
+    private final AtomicInteger nSteals = new AtomicInteger();
+
+    /**
+     * Creates a work-stealing search with one worker per available processor
+     *
+     * @param modelProxy the model to solve
+     * @param branching  the symbolic branching, see {@link org.maxicp.modeling.SymbolicBranching}
+     */
+    public WorkStealingDFSearch(ModelProxyInstantiator modelProxy, Supplier<SymbolicModel[]> branching) {
+        this(modelProxy, CPModelInstantiator.withTrailing, branching, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a work-stealing search
+     *
+     * @param modelProxy   the model to solve
+     * @param instantiator the instantiator of the concrete model of each worker
+     * @param branching    the symbolic branching, see {@link org.maxicp.modeling.SymbolicBranching}
+     * @param nWorkers     the number of threads exploring the search tree
+     */
+    public WorkStealingDFSearch(ModelProxyInstantiator modelProxy,
+                                ModelProxyInstantiator.ModelInstantiator<? extends ConcreteModel> instantiator,
+                                Supplier<SymbolicModel[]> branching, int nWorkers) {
+        super(modelProxy, instantiator);
+        if (nWorkers < 1) throw new IllegalArgumentException("at least one worker is needed");
+        this.branching = branching;
+        this.nWorkers = nWorkers;
+    }
+
+    /**
+     * @return the number of nodes stolen during the last search
+     */
+    public int numberOfSteals() {
+        return nSteals.get();
+    }
+
+    /**
+     * Finds all the solutions
+     *
+     * @return the statistics aggregated over all the workers
+     */
+    public SearchStatistics solve() {
+        return run(null);
+    }
+
+    /**
+     * Finds an optimal solution. The bound of the objective is shared by the workers:
+     * each solution found by a worker prunes the search of all the other ones.
+     *
+     * @param objective the objective, a {@link Minimization} or {@link Maximization}
+     *                  is turned into its shared counterpart
+     * @return the statistics aggregated over all the workers
+     */
+    public SearchStatistics optimize(Objective objective) {
+        return run(shared(objective));
+    }
+
+    private SearchStatistics run(Objective objective) {
+        SymbolicModel root = modelProxy.getModel().symbolicCopy();
+        workers = new AtomicReferenceArray<>(nWorkers);
+        nBusy = new AtomicInteger(1); // the first worker holds the root
+        terminated = false;
+        nSteals.set(0);
+
+        List<Callable<SearchStatistics>> tasks = new ArrayList<>();
+        for (int w = 0; w < nWorkers; w++) {
+            int id = w;
+            tasks.add(() -> work(id, root, objective));
+        }
+        SearchStatistics statistics = new SearchStatistics();
+        boolean completed = true;
+        for (SearchStatistics s : runWorkers(tasks, this::abort)) {
+            statistics.add(s);
+            completed &= s.isCompleted();
+        }
+        if (completed)
+            statistics.setCompleted();
+        return statistics;
+    }
+
+    /**
+     * Stops all the workers, after one of them failed
+     */
+    private void abort() {
+        terminated = true;
+        for (int w = 0; w < nWorkers; w++) {
+            ConcurrentDFSearch worker = workers.get(w);
+            if (worker != null)
+                worker.stop();
+        }
+    }
+
+    /**
+     * Explores the root (first worker only) and then the stolen nodes until the search terminates
+     */
+    private SearchStatistics work(int id, SymbolicModel root, Objective objective) {
+        try {
+            return modelProxy.runAsConcrete(instantiator, root, cp -> {
+                StateManager sm = cp.getStateManager();
+                SearchStatistics statistics = new SearchStatistics();
+                // the objective is created before any node such that its variables are kept
+                org.maxicp.search.Objective obj = objective == null ? null : cp.createObjective(objective);
+                sm.saveState();
+                ConcurrentDFSearch search = cp.concurrentDFSearch(branching);
+                search.onSolution(this::notifySolution);
+                workers.set(id, search);
+                boolean completed = true;
+                SymbolicModel node = id == 0 ? root : steal(id);
+                while (node != null) {
+                    SymbolicModel toExplore = node;
+                    SearchStatistics s = sm.withNewState(() -> {
+                        SearchStatistics nodeStatistics = new SearchStatistics();
+                        if (toExplore != root)
+                            nodeStatistics.incrNodes(); // not visited by the worker it was stolen from
+                        try {
+                            cp.jumpTo(toExplore);
+                        } catch (InconsistencyException e) {
+                            nodeStatistics.incrFailures();
+                            nodeStatistics.setCompleted();
+                            return nodeStatistics;
+                        }
+                        SearchStatistics explored = obj == null ? search.solve() : search.optimize(obj);
+                        nodeStatistics.add(explored);
+                        if (explored.isCompleted())
+                            nodeStatistics.setCompleted();
+                        return nodeStatistics;
+                    });
+                    statistics.add(s);
+                    completed &= s.isCompleted();
+                    nBusy.decrementAndGet();
+                    node = steal(id);
+                }
+                if (completed)
+                    statistics.setCompleted();
+                return statistics;
+            });
+        } catch (InconsistencyException e) {
+            // the root node fails when the model is instantiated, no worker holds a node
+            SearchStatistics statistics = new SearchStatistics();
+            if (id == 0) {
+                statistics.incrFailures();
+                nBusy.decrementAndGet();
+            }
+            statistics.setCompleted();
+            return statistics;
+        } catch (RuntimeException | Error e) {
+            abort(); // the other workers would wait forever for the nodes of this one
+            throw e;
+        }
+    }
+
+    /**
+     * Steals a node from another worker, waiting until one is available or the search is over.
+     * A victim that does not answer within {@link #STEAL_TIMEOUT_NANOS} is skipped,
+     * and the idle worker backs off exponentially between two rounds over the victims.
+     *
+     * @return the stolen node, null if the search is over
+     */
+    private SymbolicModel steal(int id) {
+        int k = 0;
+        long backoff = MIN_BACKOFF_NANOS;
+        while (!terminated) {
+            if (nBusy.get() == 0) {
+                terminated = true;
+                break;
+            }
+            nBusy.incrementAndGet(); // accounts for the node possibly in transit
+            for (int i = 1; i < nWorkers; i++) {
+                ConcurrentDFSearch victim = workers.get((id + i + k) % nWorkers);
+                if (victim == null || (id + i + k) % nWorkers == id)
+                    continue;
+                try {
+                    SymbolicModel m = answer(victim.steal());
+                    if (m != null) {
+                        nSteals.incrementAndGet();
+                        return m;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    nBusy.decrementAndGet();
+                    throw new StopSearchException();
+                } catch (ExecutionException ignored) {
+                    // the victim was stopped
+                }
+            }
+            nBusy.decrementAndGet();
+            k++;
+            LockSupport.parkNanos(backoff);
+            backoff = Math.min(2 * backoff, MAX_BACKOFF_NANOS);
+        }
+        return null;
+    }
+
+    /**
+     * Waits for the answer to a steal request, cancelling it after {@link #STEAL_TIMEOUT_NANOS}
+     *
+     * @return the stolen node, null if the victim had none or did not answer in time
+     */
+    private static SymbolicModel answer(Future<SymbolicModel> request) throws InterruptedException, ExecutionException {
+        try {
+            return request.get(STEAL_TIMEOUT_NANOS, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            if (request.cancel(false))
+                return null;
+            // the victim is already extracting a node for this request
+            return request.get();
+        }
+    }
+}
@@ -44,6 +44,24 @@ public interface StateManager {
      */
     void onRestore(Runnable listener);
 
+    /**
+     * Add a listener that is notified each time a search reaches a leaf,
+     * before the leaf is accepted as a solution.
+     * The listener may complete the propagation of the leaf
+     * and rejects it by throwing an {@link org.maxicp.util.exception.InconsistencyException}.
+     *
+     * @param listener the listener to be notified
+     */
+    void onLeaf(Runnable listener);
+
+    /**
+     * Notifies the listeners given to {@link #onLeaf(Runnable)}.
+     * Called by the searches on each leaf, before counting it as a solution.
+     *
+     * @throws org.maxicp.util.exception.InconsistencyException if a listener rejects the leaf
+     */
+    void notifyLeaf();
+
     /**
      * Returns the current level.
      * It is increased at each {@link #saveState()}
@@ -37,11 +37,13 @@ public class Copier implements StateManager {
     private Stack<Storage> store;
     private Stack<Backup> prior;
     private List<Runnable> onRestoreListeners;
+    private List<Runnable> onLeafListeners;
 
     public Copier() {
         store = new Stack<Storage>();
         prior = new Stack<Backup>();
         onRestoreListeners = new LinkedList<Runnable>();
+        onLeafListeners = new LinkedList<Runnable>();
     }
 
     private void notifyRestore() {
@@ -55,6 +57,18 @@ public class Copier implements StateManager {
         onRestoreListeners.add(listener);
     }
 
+    @Override
+    public void onLeaf(Runnable listener) {
+        onLeafListeners.add(listener);
+    }
+
+    @Override
+    public void notifyLeaf() {
+        for (Runnable l : onLeafListeners) {
+            l.run();
+        }
+    }
+
     public int getLevel() {
         return prior.size() - 1;
     }
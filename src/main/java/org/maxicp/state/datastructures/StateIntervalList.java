@@ -0,0 +1,559 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.state.datastructures;
+
+import org.maxicp.state.State;
+import org.maxicp.state.StateInt;
+import org.maxicp.state.StateManager;
+
+import java.security.InvalidParameterException;
+import java.util.Set;
+
+/**
+ * Set of integers represented as a sorted list of disjoint ranges
+ * that can be saved and restored through
+ * the {@link StateManager#saveState()} / {@link StateManager#restoreState()}
+ * methods.
+ * <p>
+ * Contrary to {@link StateSparseSet}, the memory consumption is
+ * proportional to the number of holes in the set and not to its width,
+ * which makes it suitable for very large domains (e.g. time horizons).
+ * <p>
+ * The ranges are stored in an immutable balanced search tree (a treap)
+ * that is only modified when a hole is created or modified strictly inside the set.
+ * Such a modification copies the O(log #ranges) nodes on the path to the modified range
+ * and shares the rest of the tree with the previous version, such that the trail
+ * only keeps O(log #ranges) nodes per removal.
+ * The bounds and the size are maintained separately such that
+ * {@link #removeBelow(int)} / {@link #removeAbove(int)} / removing the
+ * min or max value do not modify the tree.
+ * The runs of consecutive values starting at the min and ending at the max
+ * are also maintained such that these bound updates are O(1) as long as the
+ * new bound stays in the same range.
+ * Crossing a hole requires to search the next range in the tree and is O(log #ranges).
+ */
+public class StateIntervalList {
+
+    /**
+     * Immutable node of the tree of ranges, ordered by lower bound
+     * and heap-ordered by priority
+     */
+    private static final class Range {
+        final int lo;
+        final int hi;
+        final int priority;
+        final Range left;
+        final Range right;
+        final int size; // number of values in the subtree
+        final int count; // number of ranges in the subtree
+
+        Range(int lo, int hi, int priority, Range left, Range right) {
+            this.lo = lo;
+            this.hi = hi;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.size = hi - lo + 1 + size(left) + size(right);
+            this.count = 1 + count(left) + count(right);
+        }
+
+        Range(int lo, int hi) {
+            this(lo, hi, priority(lo), null, null);
+        }
+
+        Range with(Range left, Range right) {
+            return new Range(lo, hi, priority, left, right);
+        }
+
+        static int size(Range r) {
+            return r == null ? 0 : r.size;
+        }
+
+        static int count(Range r) {
+            return r == null ? 0 : r.count;
+        }
+
+        // pseudo-random but deterministic priority
+        static int priority(int lo) {
+            long z = lo * 0x9E3779B97F4A7C15L;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            return (int) (z ^ (z >>> 31));
+        }
+    }
+
+    private final State<Range> ranges;
+    private final StateInt min;
+    private final StateInt max;
+    private final StateInt size;
+    // all the values of [min, minHi] and of [maxLo, max] are in the ranges
+    private final StateInt minHi;
+    private final StateInt maxLo;
+
+    // chronological log of the values removed strictly inside the set, used to compute deltas
+    private int[] holes = new int[4];
+    private final StateInt nHoles;
+
+    private final int initMin;
+    private final int initMax;
+
+    /**
+     * Creates a set containing the elements {@code {min,min+1,...,max}}.
+     *
+     * @param sm  the state manager that will save and restore the set when
+     *            {@link StateManager#saveState()} / {@link StateManager#restoreState()}
+     *            mehtods are called
+     * @param min the minimum value in the set
+     * @param max the maximum value in the set {@code max >= min}
+     */
+    public StateIntervalList(StateManager sm, int min, int max) {
+        this(sm, min > max ? null : new Range(min, max));
+    }
+
+    /**
+     * Creates a set containing the elements of {@code values}.
+     *
+     * @param sm     the state manager that will save and restore the set when
+     *               {@link StateManager#saveState()} / {@link StateManager#restoreState()}
+     *               mehtods are called
+     * @param values the elements to initialize the set with
+     */
+    public StateIntervalList(StateManager sm, Set<Integer> values) {
+        this(sm, buildRanges(values));
+    }
+
+    private StateIntervalList(StateManager sm, Range initRanges) {
+        if (initRanges == null)
+            throw new InvalidParameterException("at least one value in the set");
+        this.ranges = sm.makeStateRef(initRanges);
+        this.initMin = ceiling(initRanges, Integer.MIN_VALUE).lo;
+        this.initMax = floor(initRanges, Integer.MAX_VALUE).hi;
+        this.min = sm.makeStateInt(initMin);
+        this.max = sm.makeStateInt(initMax);
+        this.size = sm.makeStateInt(initRanges.size);
+        this.minHi = sm.makeStateInt(ceiling(initRanges, Integer.MIN_VALUE).hi);
+        this.maxLo = sm.makeStateInt(floor(initRanges, Integer.MAX_VALUE).lo);
+        this.nHoles = sm.makeStateInt(0);
+    }
+
+    private static Range buildRanges(Set<Integer> values) {
+        if (values.isEmpty()) throw new InvalidParameterException("at least one value in the set");
+        int[] sorted = values.stream().mapToInt(Integer::intValue).sorted().toArray();
+        Range r = null;
+        int i = 0;
+        while (i < sorted.length) {
+            int j = i;
+            while (j + 1 < sorted.length && sorted[j + 1] == sorted[j] + 1)
+                j++;
+            r = merge(r, new Range(sorted[i], sorted[j]));
+            i = j + 1;
+        }
+        return r;
+    }
+
+    /**
+     * Splits a tree in the ranges with a lower bound {@code < key} and the other ones.
+     */
+    private static Range[] split(Range t, int key) {
+        if (t == null) return new Range[2];
+        if (t.lo < key) {
+            Range[] s = split(t.right, key);
+            s[0] = t.with(t.left, s[0]);
+            return s;
+        } else {
+            Range[] s = split(t.left, key);
+            s[1] = t.with(s[1], t.right);
+            return s;
+        }
+    }
+
+    /**
+     * Merges two trees, the ranges of {@code a} being all before the ones of {@code b}.
+     */
+    private static Range merge(Range a, Range b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) return a.with(a.left, merge(a.right, b));
+        return b.with(merge(a, b.left), b.right);
+    }
+
+    /**
+     * Replaces the range starting at {@code lo} by the ranges of {@code by}.
+     */
+    private static Range replace(Range t, int lo, Range by) {
+        Range[] before = split(t, lo);
+        Range[] after = split(before[1], lo + 1);
+        return merge(before[0], merge(by, after[1]));
+    }
+
+    /**
+     * Returns the range with the greatest lower bound {@code <= val}, null if none.
+     */
+    private static Range floor(Range t, int val) {
+        Range f = null;
+        while (t != null) {
+            if (t.lo <= val) {
+                f = t;
+                t = t.right;
+            } else {
+                t = t.left;
+            }
+        }
+        return f;
+    }
+
+    /**
+     * Returns the range with the smallest lower bound {@code >= val}, null if none.
+     */
+    private static Range ceiling(Range t, int val) {
+        Range c = null;
+        while (t != null) {
+            if (t.lo >= val) {
+                c = t;
+                t = t.left;
+            } else {
+                t = t.right;
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Returns the range following {@code r}, null if none.
+     */
+    private static Range next(Range t, Range r) {
+        return r.lo == Integer.MAX_VALUE ? null : ceiling(t, r.lo + 1);
+    }
+
+    /**
+     * Returns the range preceding {@code r}, null if none.
+     */
+    private static Range previous(Range t, Range r) {
+        return r.lo == Integer.MIN_VALUE ? null : floor(t, r.lo - 1);
+    }
+
+    /**
+     * Returns the number of values {@code <= val} in the ranges.
+     */
+    private static int valuesUpTo(Range t, long val) {
+        int n = 0;
+        while (t != null) {
+            if (t.lo <= val) {
+                n += Range.size(t.left) + (int) (Math.min(t.hi, val) - t.lo + 1);
+                t = t.right;
+            } else {
+                t = t.left;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Returns the number of ranges with a lower bound {@code <= val}.
+     */
+    private static int rangesUpTo(Range t, int val) {
+        int n = 0;
+        while (t != null) {
+            if (t.lo <= val) {
+                n += Range.count(t.left) + 1;
+                t = t.right;
+            } else {
+                t = t.left;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * The initial minimum value of the set (at its creation)
+     * @return the initial minimum value of the set
+     */
+    public int initMin() {
+        return initMin;
+    }
+
+    /**
+     * The initial maximum value of the set (at its creation)
+     * @return the initial maximum value of the set
+     */
+    public int initMax() {
+        return initMax;
+    }
+
+    /**
+     * Returns the number of disjoint ranges in the set.
+     *
+     * @return the number of maximal intervals of consecutive values in the set
+     */
+    public int nRanges() {
+        if (isEmpty()) return 0;
+        Range t = ranges.value();
+        return rangesUpTo(t, max.value()) - rangesUpTo(t, min.value()) + 1;
+    }
+
+    /**
+     * @return true if the set is empty
+     */
+    public boolean isEmpty() {
+        return min.value() > max.value();
+    }
+
+    /**
+     * @return the size of the set
+     */
+    public int size() {
+        return size.value();
+    }
+
+    /**
+     * Returns the minimum value in the set.
+     *
+     * @return the minimum value in the set
+     */
+    public int min() {
+        return min.value();
+    }
+
+    /**
+     * Returns the maximum value in the set.
+     *
+     * @return the maximum value in the set
+     */
+    public int max() {
+        return max.value();
+    }
+
+    /**
+     * Checks if a value is in the set.
+     *
+     * @param val the value to check
+     * @return true if val is in the set
+     */
+    public boolean contains(int val) {
+        if (val < min.value() || val > max.value()) return false;
+        return floor(ranges.value(), val).hi >= val;
+    }
+
+    /**
+     * Sets the first values of <code>dest</code> to the ones
+     * present in the set, in increasing order.
+     *
+     * @param dest, an array large enough {@code dest.length >= size()}
+     * @return the size of the set
+     */
+    public int fillArray(int[] dest) {
+        if (isEmpty()) return 0;
+        Range t = ranges.value();
+        int mi = min.value();
+        int ma = max.value();
+        int s = 0;
+        for (Range r = floor(t, mi); r != null && r.lo <= ma; r = next(t, r)) {
+            int to = Math.min(ma, r.hi);
+            for (int v = Math.max(mi, r.lo); v <= to; v++)
+                dest[s++] = v;
+        }
+        return s;
+    }
+
+    /**
+     * Removes the given value from the set.
+     *
+     * @param val the value to remove.
+     * @return true if val was in the set, false otherwise
+     */
+    public boolean remove(int val) {
+        if (!contains(val)) return false;
+        int mi = min.value();
+        int ma = max.value();
+        if (mi == ma) {
+            removeAll();
+            return true;
+        } else if (val == mi) {
+            if (val < minHi.value()) {
+                min.setValue(val + 1);
+            } else {
+                Range t = ranges.value();
+                Range r = floor(t, val);
+                if (val == r.hi) r = next(t, r);
+                min.setValue(Math.max(val + 1, r.lo));
+                minHi.setValue(r.hi);
+            }
+        } else if (val == ma) {
+            if (val > maxLo.value()) {
+                max.setValue(val - 1);
+            } else {
+                Range t = ranges.value();
+                Range r = floor(t, val);
+                if (val == r.lo) r = previous(t, r);
+                max.setValue(Math.min(val - 1, r.hi));
+                maxLo.setValue(r.lo);
+            }
+        } else {
+            removeInside(val);
+        }
+        size.decrement();
+        return true;
+    }
+
+    /**
+     * Removes a value strictly between min and max, this modifies
+     * the range containing it and is thus done by copying the path to it.
+     */
+    private void removeInside(int val) {
+        Range t = ranges.value();
+        Range r = floor(t, val);
+        Range by;
+        if (r.lo == r.hi) {
+            by = null; // the whole range disappears (it cannot be the first or last one)
+        } else if (val == r.lo) {
+            by = new Range(val + 1, r.hi, r.priority, null, null);
+        } else if (val == r.hi) {
+            by = new Range(r.lo, val - 1, r.priority, null, null);
+        } else {
+            // split the range in two
+            by = merge(new Range(r.lo, val - 1, r.priority, null, null), new Range(val + 1, r.hi));
+        }
+        ranges.setValue(replace(t, r.lo, by));
+        if (val <= minHi.value()) minHi.setValue(val - 1);
+        if (val >= maxLo.value()) maxLo.setValue(val + 1);
+        logHole(val);
+    }
+
+    private void logHole(int val) {
+        int n = nHoles.value();
+        if (n == holes.length)
+            holes = java.util.Arrays.copyOf(holes, 2 * n);
+        holes[n] = val;
+        nHoles.setValue(n + 1);
+    }
+
+    /**
+     * Removes all the element from the set except the given value.
+     *
+     * @param v is an element in the set
+     */
+    public void removeAllBut(int v) {
+        assert (contains(v));
+        min.setValue(v);
+        max.setValue(v);
+        minHi.setValue(v);
+        maxLo.setValue(v);
+        size.setValue(1);
+    }
+
+    /**
+     * Removes all the values in the set.
+     */
+    public void removeAll() {
+        min.setValue(max.value() + 1);
+        size.setValue(0);
+    }
+
+    /**
+     * Remove all the values less than the given value from the set.
+     * This is O(1) if the value is in the range containing the min,
+     * and O(log #ranges) otherwise.
+     *
+     * @param value a value such that all the ones smaller are removed
+     */
+    public void removeBelow(int value) {
+        int oldMin = min.value();
+        if (value <= oldMin) return;
+        if (value > max.value()) {
+            removeAll();
+            return;
+        }
+        if (value <= minHi.value()) {
+            min.setValue(value);
+            size.setValue(size.value() - (value - oldMin));
+            return;
+        }
+        Range t = ranges.value();
+        Range r = floor(t, value);
+        if (r.hi < value) r = next(t, r); // value falls in a hole
+        int mi = Math.max(value, r.lo);
+        min.setValue(mi);
+        minHi.setValue(r.hi);
+        size.setValue(size.value() - (valuesUpTo(t, mi - 1L) - valuesUpTo(t, oldMin - 1L)));
+    }
+
+    /**
+     * Remove all the values larger than the given value from the set.
+     * This is O(1) if the value is in the range containing the max,
+     * and O(log #ranges) otherwise.
+     *
+     * @param value a value such that all the ones greater are removed
+     */
+    public void removeAbove(int value) {
+        int oldMax = max.value();
+        if (value >= oldMax) return;
+        if (value < min.value()) {
+            removeAll();
+            return;
+        }
+        if (value >= maxLo.value()) {
+            max.setValue(value);
+            size.setValue(size.value() - (oldMax - value));
+            return;
+        }
+        Range t = ranges.value();
+        Range r = floor(t, value);
+        int ma = Math.min(value, r.hi);
+        max.setValue(ma);
+        maxLo.setValue(r.lo);
+        size.setValue(size.value() - (valuesUpTo(t, oldMax) - valuesUpTo(t, ma)));
+    }
+
+    /**
+     * Fills the array with the values removed since the set had
+     * the given min, max and size.
+     *
+     * @param oldMin the minimum value at the time of the snapshot
+     * @param oldMax the maximum value at the time of the snapshot
+     * @param oldSize the size at the time of the snapshot
+     * @param arr an array large enough to contain the removed values
+     * @return the number of values removed, stored in {@code arr[0..]}
+     */
+    public int fillDeltaArray(int oldMin, int oldMax, int oldSize, int[] arr) {
+        int removed = oldSize - size();
+        if (removed == 0) return 0;
+        Range t = ranges.value();
+        int s = 0;
+        // values lost on the bounds are still present in the ranges (ranges are only modified inside)
+        int mi = isEmpty() ? oldMax + 1 : min.value();
+        int ma = isEmpty() ? oldMax : max.value();
+        for (Range r = floor(t, oldMin); r != null && r.lo < mi; r = next(t, r)) {
+            for (int v = Math.max(oldMin, r.lo); v <= Math.min(mi - 1, r.hi); v++)
+                arr[s++] = v;
+        }
+        for (Range r = floor(t, oldMax); r != null && r.hi > ma; r = previous(t, r)) {
+            for (int v = Math.max(Math.max(ma + 1, mi), r.lo); v <= Math.min(oldMax, r.hi); v++)
+                arr[s++] = v;
+        }
+        // the most recent holes are the ones created since the snapshot
+        int n = nHoles.value();
+        for (int i = n - (removed - s); i < n; i++)
+            arr[s++] = holes[i];
+        return s;
+    }
+
+    @Override
+    public String toString() {
+        if (isEmpty()) return "{}";
+        Range t = ranges.value();
+        int mi = min.value();
+        int ma = max.value();
+        StringBuilder b = new StringBuilder("{");
+        for (Range r = floor(t, mi); r != null && r.lo <= ma; r = next(t, r)) {
+            int from = Math.max(mi, r.lo);
+            int to = Math.min(ma, r.hi);
+            if (from > mi) b.append(',');
+            b.append(from);
+            if (to > from) b.append("..").append(to);
+        }
+        b.append("}");
+        return b.toString();
+    }
+}
@@ -70,11 +70,21 @@ public class StateSparseBitSet {
 
         @Override
         public void union(BitSet other) {
+            union(other.words, 0);
+        }
+
+        /**
+         * Makes the union with a bit-set stored in an array of words,
+         * only on the non-zero words of the outer sparse-bit-set.
+         *
+         * @param other  the array holding the other bit-set
+         * @param offset the index of the first word of the other bit-set in the array
+         */
+        public void union(long[] other, int offset) {
             for (int i = nNonZero.value() - 1; i >= 0; i--) {
                 int idx = nonZeroIdx[i];
-                this.words[idx] |= other.words[idx];
+                this.words[idx] |= other[offset + idx];
             }
-
         }
 
         @Override
@@ -143,10 +153,21 @@ public class StateSparseBitSet {
      * @param bs the BitSet to intersect with
      */
     public void intersect(BitSet bs) {
+        intersect(bs.words, 0);
+    }
+
+    /**
+     * Intersect this sparseBitSet with a bit-set stored in an array of words,
+     * such as the supports shared by several constraints
+     *
+     * @param bs     the array holding the bit-set to intersect with
+     * @param offset the index of the first word of the bit-set in the array
+     */
+    public void intersect(long[] bs, int offset) {
         int size = nNonZero.value();
         for (int i = size - 1; i >= 0; i--) {
             int idx = nonZeroIdx[i];
-            long intersect = words[idx].value() & bs.words[idx];
+            long intersect = words[idx].value() & bs[offset + idx];
             if (intersect == 0L) {
                 // deactivation of word
                 size -= 1;
@@ -165,9 +186,20 @@ public class StateSparseBitSet {
      * @return true if empty, false otherwise
      */
     public boolean hasEmptyIntersection(BitSet bs) {
+        return hasEmptyIntersection(bs.words, 0);
+    }
+
+    /**
+     * Test the emptiness of the intersection with a bit-set stored in an array of words
+     *
+     * @param bs     the array holding the bit-set to test the intersection with
+     * @param offset the index of the first word of the bit-set in the array
+     * @return true if empty, false otherwise
+     */
+    public boolean hasEmptyIntersection(long[] bs, int offset) {
         for (int i = nNonZero.value() - 1; i >= 0; i--) {
             int idx = nonZeroIdx[i];
-            if ((words[idx].value() & bs.words[idx]) != 0L) {
+            if ((words[idx].value() & bs[offset + idx]) != 0L) {
                 return false;
             }
         }
@@ -175,10 +207,21 @@ public class StateSparseBitSet {
     }
 
     public int countIntersection(BitSet bs) {
+        return countIntersection(bs.words, 0);
+    }
+
+    /**
+     * Counts the elements of the intersection with a bit-set stored in an array of words
+     *
+     * @param bs     the array holding the bit-set
+     * @param offset the index of the first word of the bit-set in the array
+     * @return the size of the intersection
+     */
+    public int countIntersection(long[] bs, int offset) {
         int count = 0;
         for (int i = nNonZero.value() - 1; i >= 0; i--) {
             int idx = nonZeroIdx[i];
-            count += java.lang.Long.bitCount(words[idx].value() & bs.words[idx]);
+            count += java.lang.Long.bitCount(words[idx].value() & bs[offset + idx]);
         }
         return count;
     }
@@ -38,11 +38,13 @@ public class Trailer implements StateManager {
     private long magic = 0L;
 
     private List<Runnable> onRestoreListeners;
+    private List<Runnable> onLeafListeners;
 
     public Trailer() {
         prior = new Stack<Backup>();
         current = new Backup();
         onRestoreListeners = new LinkedList<Runnable>();
+        onLeafListeners = new LinkedList<Runnable>();
     }
 
     private void notifyRestore() {
@@ -56,6 +58,18 @@ public class Trailer implements StateManager {
         onRestoreListeners.add(listener);
     }
 
+    @Override
+    public void onLeaf(Runnable listener) {
+        onLeafListeners.add(listener);
+    }
+
+    @Override
+    public void notifyLeaf() {
+        for (Runnable l : onLeafListeners) {
+            l.run();
+        }
+    }
+
     public long getMagic() {
         return magic;
     }
@@ -0,0 +1,143 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2024 UCLouvain
+ */
+
+package org.maxicp.util.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Variable-length encoding of integers used by the binary files of the library
+ * (search checkpoints, search tree logs, cached instances, ...).
+ * <p>
+ * A value is written by groups of 7 bits, least significant first,
+ * the high bit of each byte telling whether another byte follows.
+ * Signed values are first zigzag-encoded ({@code 0, -1, 1, -2, ...} to {@code 0, 1, 2, 3, ...})
+ * such that small negative values also take few bytes.
+ */
+public final class VarInts {
+
+    private VarInts() {
+    }
+
+    /**
+     * Writes an int as an unsigned varint
+     *
+     * @param out the output
+     * @param v   the value, negative values take 5 bytes
+     * @throws IOException if the output cannot be written
+     */
+    public static void writeVarInt(DataOutput out, int v) throws IOException {
+        while ((v & ~0x7F) != 0) {
+            out.writeByte((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte(v);
+    }
+
+    /**
+     * Reads an int written by {@link #writeVarInt(DataOutput, int)}
+     *
+     * @param in the input
+     * @return the value
+     * @throws IOException if the input cannot be read
+     */
+    public static int readVarInt(DataInput in) throws IOException {
+        int v = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return v;
+        }
+    }
+
+    /**
+     * Writes a signed int as a zigzag-encoded varint
+     *
+     * @param out the output
+     * @param v   the value
+     * @throws IOException if the output cannot be written
+     */
+    public static void writeZigZag(DataOutput out, int v) throws IOException {
+        writeVarInt(out, zigZag(v));
+    }
+
+    /**
+     * Reads an int written by {@link #writeZigZag(DataOutput, int)}
+     *
+     * @param in the input
+     * @return the value
+     * @throws IOException if the input cannot be read
+     */
+    public static int readZigZag(DataInput in) throws IOException {
+        return unZigZag(readVarInt(in));
+    }
+
+    /**
+     * Writes a long as an unsigned varint
+     *
+     * @param out the output
+     * @param v   the value, negative values take 10 bytes
+     * @throws IOException if the output cannot be written
+     */
+    public static void writeVarLong(DataOutput out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    /**
+     * Puts a long as an unsigned varint in a buffer,
+     * with the same encoding as {@link #writeVarLong(DataOutput, long)}
+     *
+     * @param buffer the buffer, with at least 10 bytes remaining
+     * @param v      the value
+     */
+    public static void putVarLong(ByteBuffer buffer, long v) {
+        while ((v & ~0x7FL) != 0) {
+            buffer.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buffer.put((byte) v);
+    }
+
+    /**
+     * Reads a long written by {@link #writeVarLong(DataOutput, long)} or {@link #putVarLong(ByteBuffer, long)}
+     *
+     * @param in the input
+     * @return the value
+     * @throws IOException if the input cannot be read
+     */
+    public static long readVarLong(DataInput in) throws IOException {
+        long v = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return v;
+        }
+    }
+
+    /**
+     * @param v a signed value
+     * @return its zigzag encoding, to be read as an unsigned int
+     */
+    public static int zigZag(int v) {
+        return (v << 1) ^ (v >> 31);
+    }
+
+    /**
+     * @param v a zigzag encoding
+     * @return the signed value it encodes
+     */
+    public static int unZigZag(int v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
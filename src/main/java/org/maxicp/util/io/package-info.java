@@ -4,6 +4,6 @@
  */
 
 /**
- * Input file reader utility
+ * Input file reader and variable-length binary encoding utilities
  */
 package org.maxicp.util.io;
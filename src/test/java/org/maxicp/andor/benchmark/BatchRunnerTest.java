@@ -0,0 +1,122 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2024 UCLouvain
+ */
+
+package org.maxicp.andor.benchmark;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchRunnerTest {
+
+    // a triangle 1-2-3 and a vertex 4 adjacent to 3, with 3 colors
+    private static final String GRAPH = """
+            c triangle with a pendant vertex
+            p edge 4 4 3
+            e 1 2
+            e 2 3
+            e 1 3
+            e 3 4
+            """;
+
+    private static Path graph() throws Exception {
+        Path file = Files.createTempFile("graph", ".col");
+        Files.writeString(file, GRAPH);
+        return file;
+    }
+
+    @Test
+    public void testRunsAllSearches() throws Exception {
+        Path file = graph();
+        try {
+            String instance = file.toString();
+            BatchRunner runner = new BatchRunner(60, TimeUnit.SECONDS, Integer.MAX_VALUE, 2, 1, 10);
+            List<BatchRunner.Result> results = runner.run(List.of(
+                    new BatchRunner.Run(instance, BatchRunner.Search.OR),
+                    new BatchRunner.Run(instance, BatchRunner.Search.AND_CS),
+                    new BatchRunner.Run(instance, BatchRunner.Search.AND_PS)));
+            assertEquals(3, results.size());
+            for (BatchRunner.Result r : results) {
+                assertEquals("OK", r.status(), r.error());
+                assertTrue(r.statistics().isCompleted());
+                assertTrue(r.loadNanos() >= 0 && r.initNanos() >= 0 && r.searchNanos() >= 0);
+                assertTrue(r.peakHeap() > 0);
+            }
+            assertEquals(BatchRunner.Search.OR, results.get(0).run().search());
+            // 3! colorings of the triangle, times 2 colors for the pendant vertex
+            assertEquals(12, results.get(0).statistics().numberOfSolutions());
+            assertEquals(12, results.get(1).statistics().numberOfSolutions());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testLimits() throws Exception {
+        Path file = graph();
+        try {
+            String instance = file.toString();
+            BatchRunner.Run run = new BatchRunner.Run(instance, BatchRunner.Search.OR);
+            BatchRunner.Result timeout = new BatchRunner(0, TimeUnit.SECONDS, Integer.MAX_VALUE, 1, 0, 0).run(List.of(run)).getFirst();
+            assertEquals("TIMEOUT", timeout.status());
+            assertFalse(timeout.statistics().isCompleted());
+
+            BatchRunner.Result limit = new BatchRunner(60, TimeUnit.SECONDS, 5, 1, 0, 0).run(List.of(run)).getFirst();
+            assertEquals("LIMIT", limit.status());
+            assertEquals(5, limit.statistics().numberOfSolutions());
+
+            BatchRunner.Result error = new BatchRunner(60, TimeUnit.SECONDS, Integer.MAX_VALUE, 1, 0, 0)
+                    .run(List.of(new BatchRunner.Run(instance + ".missing.col", BatchRunner.Search.OR))).getFirst();
+            assertEquals("ERROR", error.status());
+            assertNull(error.statistics());
+            assertNotNull(error.error());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testWriteResults() throws Exception {
+        Path file = graph();
+        Path csv = Files.createTempFile("results", ".csv");
+        Path json = Files.createTempFile("results", ".json");
+        try {
+            List<BatchRunner.Result> results = new BatchRunner(60, TimeUnit.SECONDS, Integer.MAX_VALUE, 1, 0, 0)
+                    .run(List.of(new BatchRunner.Run(file.toString(), BatchRunner.Search.OR),
+                            new BatchRunner.Run(file + ".missing.col", BatchRunner.Search.AND_PS)));
+            BatchRunner.writeCsv(csv, results);
+            List<String> lines = Files.readAllLines(csv);
+            assertEquals(3, lines.size());
+            assertTrue(lines.get(0).startsWith("instance,search,status,completed,solutions"));
+            assertTrue(lines.get(1).contains(",or,OK,true,12,"));
+            assertTrue(lines.get(2).contains(",and-ps,ERROR,false,0,"));
+
+            BatchRunner.writeJson(json, results);
+            String content = Files.readString(json);
+            assertTrue(content.startsWith("["));
+            assertTrue(content.contains("\"search\": \"or\", \"status\": \"OK\", \"completed\": true, \"solutions\": 12"));
+            assertTrue(content.contains("\"error\": null"));
+        } finally {
+            Files.delete(file);
+            Files.delete(csv);
+            Files.delete(json);
+        }
+    }
+
+    @Test
+    public void testFormatAndSearchNames() {
+        assertEquals(BatchRunner.Format.XCSP3, BatchRunner.Format.of("minicsp24/a.xml"));
+        assertEquals(BatchRunner.Format.DIMACS, BatchRunner.Format.of("graph_coloring/instance/david.col"));
+        assertThrows(IllegalArgumentException.class, () -> BatchRunner.Format.of("a.txt"));
+        assertEquals(BatchRunner.Search.AND_CS, BatchRunner.Search.of("and-cs"));
+        assertEquals(BatchRunner.Search.AND_PS, BatchRunner.Search.of("AND_PS"));
+        assertThrows(IllegalArgumentException.class, () -> BatchRunner.Search.of("bfs"));
+    }
+}
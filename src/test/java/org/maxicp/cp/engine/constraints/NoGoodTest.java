@@ -0,0 +1,88 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.cp.engine.constraints;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.maxicp.cp.CPFactory;
+import org.maxicp.cp.CPSolverTest;
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.cp.engine.core.CPSolver;
+import org.maxicp.search.DFSearch;
+import org.maxicp.search.SearchStatistics;
+import org.maxicp.util.exception.InconsistencyException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.maxicp.search.Searches.firstFail;
+
+public class NoGoodTest extends CPSolverTest {
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testPropagation(CPSolver cp) {
+        CPIntVar[] x = CPFactory.makeIntVarArray(cp, 4, 3);
+        NoGood noGood = new NoGood(x, new int[]{0, 1, 2, 0});
+        cp.post(noGood);
+
+        cp.getStateManager().saveState();
+        cp.post(CPFactory.eq(x[0], 0));
+        cp.post(CPFactory.eq(x[3], 0));
+        assertEquals(3, x[1].size());
+        cp.post(CPFactory.eq(x[1], 1));
+        // only the last literal is left
+        assertFalse(x[2].contains(2));
+        assertEquals(2, x[2].size());
+        cp.getStateManager().restoreState();
+
+        assertTrue(x[2].contains(2));
+        cp.getStateManager().saveState();
+        cp.post(CPFactory.eq(x[0], 0));
+        cp.post(CPFactory.eq(x[1], 1));
+        cp.post(CPFactory.eq(x[2], 2));
+        assertFalse(x[3].contains(0));
+        cp.getStateManager().restoreState();
+
+        // entailed once a value is removed
+        cp.post(CPFactory.neq(x[1], 1));
+        cp.post(CPFactory.eq(x[0], 0));
+        cp.post(CPFactory.eq(x[2], 2));
+        cp.post(CPFactory.eq(x[3], 0));
+        assertFalse(noGood.isActive());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testFailure(CPSolver cp) {
+        CPIntVar[] x = CPFactory.makeIntVarArray(cp, 3, 3);
+        for (CPIntVar xi : x)
+            cp.post(CPFactory.eq(xi, 1));
+        assertThrows(InconsistencyException.class, () -> cp.post(new NoGood(x, new int[]{1, 1, 1})));
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testUnary(CPSolver cp) {
+        CPIntVar x = CPFactory.makeIntVar(cp, 0, 4);
+        cp.post(CPFactory.noGood(new CPIntVar[]{x}, new int[]{3}));
+        assertFalse(x.contains(3));
+        assertEquals(4, x.size());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testSearch(CPSolver cp) {
+        CPIntVar[] x = CPFactory.makeIntVarArray(cp, 3, 3);
+        cp.post(new NoGood(x, new int[]{0, 0, 0}));
+        cp.post(new NoGood(new CPIntVar[]{x[2], x[0]}, new int[]{1, 2}));
+        DFSearch dfs = CPFactory.makeDfs(cp, firstFail(x));
+        dfs.onSolution(() -> {
+            assertFalse(x[0].min() == 0 && x[1].min() == 0 && x[2].min() == 0);
+            assertFalse(x[2].min() == 1 && x[0].min() == 2);
+        });
+        SearchStatistics stats = dfs.solve();
+        assertEquals(27 - 1 - 3, stats.numberOfSolutions());
+    }
+}
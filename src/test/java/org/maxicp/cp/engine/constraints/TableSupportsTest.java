@@ -0,0 +1,97 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.cp.engine.constraints;
+
+import org.junit.jupiter.api.Test;
+import org.maxicp.cp.CPFactory;
+import org.maxicp.cp.engine.core.CPConstraint;
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.cp.engine.core.CPSolver;
+import org.maxicp.search.SearchStatistics;
+import org.maxicp.util.exception.InconsistencyException;
+
+import java.util.Random;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.maxicp.cp.engine.constraints.TableTest.randomTuples;
+import static org.maxicp.search.Searches.firstFail;
+
+public class TableSupportsTest {
+
+    @Test
+    public void testSupports() {
+        CPSolver cp = CPFactory.makeSolver();
+        CPIntVar[] x = new CPIntVar[]{CPFactory.makeIntVar(cp, 1, 3), CPFactory.makeIntVar(cp, 0, 1)};
+        int[][] table = new int[][]{{1, 0}, {3, 1}, {5, 1}, {2, 9}};
+        TableSupports supports = TableSupports.of(x, table, 9);
+        assertEquals(2, supports.arity());
+        assertEquals(4, supports.numberOfTuples());
+        assertEquals(1, supports.numberOfWords());
+        assertEquals(1, supports.offset(0));
+        assertEquals(0, supports.offset(1));
+        // x[0] = 3 is supported by the second tuple
+        assertEquals(0b0010L, supports.strictWords()[supports.index(0, 2)]);
+        // x[1] = 0 is supported by the first tuple, and the last one with a star
+        assertEquals(0b0001L, supports.strictWords()[supports.index(1, 0)]);
+        assertEquals(0b1001L, supports.words()[supports.index(1, 0)]);
+        // a table without star does not duplicate its supports
+        TableSupports noStar = TableSupports.of(x, table);
+        assertSame(noStar.words(), noStar.strictWords());
+
+        assertTrue(supports.covers(x));
+        cp.post(CPFactory.neq(x[0], 1));
+        assertTrue(supports.covers(x));
+        assertFalse(supports.covers(new CPIntVar[]{CPFactory.makeIntVar(cp, 0, 3), x[1]}));
+        assertFalse(supports.covers(new CPIntVar[]{x[0]}));
+    }
+
+    @Test
+    public void testSharedSupportsSameSearch() {
+        Random rand = new Random(12);
+        for (int iter = 0; iter < 20; iter++) {
+            int[][] t1 = randomTuples(rand, 3, 50, 2, 8);
+            int[][] t2 = randomTuples(rand, 3, 50, 2, 8);
+            int[][] t3 = randomTuples(rand, 3, 50, 2, 8, true);
+            TableSupports[] shared = new TableSupports[3];
+            SearchStatistics expected = solve(TableCT::new, (x, t) -> new ShortTableCT(x, t, 3), NegTableCT::new, t1, t2, t3);
+            // the supports are computed once, for domains larger than the ones of the solvers using them
+            CPSolver template = CPFactory.makeSolver();
+            CPIntVar[] y = CPFactory.makeIntVarArray(template, 3, -2, 10);
+            shared[0] = TableSupports.of(y, t1);
+            shared[1] = TableSupports.of(y, t2, 3);
+            shared[2] = TableSupports.of(y, t3);
+            for (int i = 0; i < 2; i++) {
+                SearchStatistics actual = solve(
+                        (x, t) -> new TableCT(x, shared[0]),
+                        (x, t) -> new ShortTableCT(x, shared[1]),
+                        (x, t) -> new NegTableCT(x, shared[2]), t1, t2, t3);
+                assertEquals(expected == null, actual == null);
+                if (expected != null) {
+                    assertEquals(expected.numberOfNodes(), actual.numberOfNodes());
+                    assertEquals(expected.numberOfFailures(), actual.numberOfFailures());
+                    assertEquals(expected.numberOfSolutions(), actual.numberOfSolutions());
+                }
+            }
+        }
+    }
+
+    private static SearchStatistics solve(BiFunction<CPIntVar[], int[][], CPConstraint> table,
+                                          BiFunction<CPIntVar[], int[][], CPConstraint> shortTable,
+                                          BiFunction<CPIntVar[], int[][], CPConstraint> negTable,
+                                          int[][] t1, int[][] t2, int[][] t3) {
+        try {
+            CPSolver cp = CPFactory.makeSolver();
+            CPIntVar[] x = CPFactory.makeIntVarArray(cp, 5, 9);
+            cp.post(table.apply(new CPIntVar[]{x[0], x[1], x[2]}, t1));
+            cp.post(shortTable.apply(new CPIntVar[]{x[2], x[3], x[4]}, t2));
+            cp.post(negTable.apply(new CPIntVar[]{x[0], x[2], x[4]}, t3));
+            return CPFactory.makeDfs(cp, firstFail(x)).solve();
+        } catch (InconsistencyException e) {
+            return null;
+        }
+    }
+}
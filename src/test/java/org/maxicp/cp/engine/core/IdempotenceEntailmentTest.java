@@ -0,0 +1,177 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.cp.engine.core;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.maxicp.cp.CPFactory;
+import org.maxicp.cp.CPSolverTest;
+import org.maxicp.cp.engine.constraints.AllDifferentDC;
+import org.maxicp.cp.engine.constraints.LessOrEqual;
+import org.maxicp.cp.engine.constraints.Sum;
+import org.maxicp.cp.engine.constraints.TableCT;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class IdempotenceEntailmentTest extends CPSolverTest {
+
+    /**
+     * x < y, the filtering of x and y reaches its fix-point in one call
+     */
+    private static class CountingLess extends AbstractCPConstraint {
+        final CPIntVar x, y;
+        int nPropagate = 0;
+
+        CountingLess(CPIntVar x, CPIntVar y, boolean idempotent) {
+            super(x.getSolver());
+            this.x = x;
+            this.y = y;
+            setIdempotent(idempotent);
+        }
+
+        @Override
+        public void post() {
+            x.propagateOnBoundChange(this);
+            y.propagateOnBoundChange(this);
+        }
+
+        @Override
+        public void propagate() {
+            nPropagate++;
+            x.removeAbove(y.max() - 1);
+            y.removeBelow(x.min() + 1);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testIdempotentNotRescheduledByItself(CPSolver cp) {
+        for (boolean idempotent : new boolean[]{false, true}) {
+            CPIntVar x = CPFactory.makeIntVar(cp, 0, 10);
+            CPIntVar y = CPFactory.makeIntVar(cp, 0, 10);
+            CountingLess c = new CountingLess(x, y, idempotent);
+            cp.post(c);
+            assertEquals(idempotent, c.isIdempotent());
+            assertEquals(0, c.nPropagate);
+
+            x.removeBelow(3);
+            cp.fixPoint();
+            assertEquals(4, y.min());
+            assertEquals(9, x.max());
+            // the modifications made by the constraint schedule it again only if it is not idempotent
+            assertEquals(idempotent ? 1 : 2, c.nPropagate);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testIdempotentRescheduledByOthers(CPSolver cp) {
+        CPIntVar x = CPFactory.makeIntVar(cp, 0, 10);
+        CPIntVar y = CPFactory.makeIntVar(cp, 0, 10);
+        CPIntVar z = CPFactory.makeIntVar(cp, 0, 10);
+        CountingLess xy = new CountingLess(x, y, true);
+        CountingLess yz = new CountingLess(y, z, true);
+        cp.post(xy);
+        cp.post(yz);
+        z.removeAbove(5);
+        cp.fixPoint();
+        assertEquals(4, y.max());
+        assertEquals(3, x.max());
+        assertEquals(1, y.min());
+        assertEquals(2, z.min());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testLessOrEqualEntailed(CPSolver cp) {
+        CPIntVar x = CPFactory.makeIntVar(cp, 0, 10);
+        CPIntVar y = CPFactory.makeIntVar(cp, 0, 10);
+        LessOrEqual c = new LessOrEqual(x, y);
+        cp.post(c);
+        assertTrue(c.isIdempotent());
+        assertTrue(c.isActive());
+
+        cp.getStateManager().saveState();
+        cp.post(CPFactory.le(x, 4));
+        cp.post(CPFactory.ge(y, 4));
+        assertFalse(c.isActive());
+        cp.getStateManager().restoreState();
+        assertTrue(c.isActive());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testSumEntailed(CPSolver cp) {
+        CPIntVar[] x = CPFactory.makeIntVarArray(cp, 3, 5);
+        Sum c = new Sum(x, 6);
+        cp.post(c);
+        assertTrue(c.isActive());
+
+        cp.getStateManager().saveState();
+        cp.post(CPFactory.eq(x[0], 4));
+        assertTrue(c.isActive());
+        cp.post(CPFactory.eq(x[1], 1));
+        assertTrue(x[2].isFixed());
+        assertEquals(1, x[2].min());
+        assertFalse(c.isActive());
+        cp.getStateManager().restoreState();
+        assertTrue(c.isActive());
+        assertFalse(x[2].isFixed());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testTableEntailed(CPSolver cp) {
+        CPIntVar[] x = CPFactory.makeIntVarArray(cp, 3, 3);
+        int[][] table = new int[][]{
+                {0, 0, 0},
+                {0, 0, 1},
+                {0, 0, 2},
+                {1, 1, 0},
+                {2, 1, 1}};
+        TableCT c = new TableCT(x, table);
+        cp.post(c);
+        assertTrue(c.isIdempotent());
+        assertTrue(c.isActive());
+
+        cp.getStateManager().saveState();
+        cp.post(CPFactory.eq(x[1], 0));
+        assertTrue(x[0].isFixed());
+        assertEquals(3, x[2].size());
+        assertFalse(c.isActive());
+        cp.getStateManager().restoreState();
+        assertTrue(c.isActive());
+
+        cp.getStateManager().saveState();
+        cp.post(CPFactory.eq(x[1], 1));
+        assertEquals(2, x[0].size());
+        assertEquals(2, x[2].size());
+        assertTrue(c.isActive());
+        cp.getStateManager().restoreState();
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testAllDifferentEntailed(CPSolver cp) {
+        CPIntVar[] x = CPFactory.makeIntVarArray(cp, 3, 4);
+        AllDifferentDC c = new AllDifferentDC(x);
+        cp.post(c);
+        assertTrue(c.isIdempotent());
+        assertTrue(c.isActive());
+
+        cp.getStateManager().saveState();
+        cp.post(CPFactory.eq(x[0], 0));
+        assertTrue(c.isActive());
+        cp.post(CPFactory.eq(x[1], 1));
+        assertFalse(x[2].contains(0));
+        assertFalse(x[2].contains(1));
+        assertFalse(c.isActive());
+        cp.getStateManager().restoreState();
+        assertTrue(c.isActive());
+        assertTrue(x[2].contains(0));
+    }
+}
@@ -114,5 +114,39 @@ public class IntDomainTest extends CPSolverTest {
 
     }
 
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testIntervalListDomain(CPSolver cp) {
+        MyDomainListener dlistener = new MyDomainListener();
+        IntDomain dom = new IntervalListDomain(cp.getStateManager(), 5, 10);
+
+        dom.removeAbove(8, dlistener);
+
+        assertEquals(1, dlistener.nChange);
+        assertEquals(0, dlistener.nBind);
+        assertEquals(1, dlistener.nRemoveAbove);
+        assertEquals(0, dlistener.nRemoveBelow);
+
+        dom.remove(6, dlistener);
+
+        assertEquals(2, dlistener.nChange);
+        assertEquals(0, dlistener.nBind);
+        assertEquals(1, dlistener.nRemoveAbove);
+        assertEquals(0, dlistener.nRemoveBelow);
+
+        dom.remove(5, dlistener);
+
+        assertEquals(3, dlistener.nChange);
+        assertEquals(0, dlistener.nBind);
+        assertEquals(1, dlistener.nRemoveAbove);
+        assertEquals(1, dlistener.nRemoveBelow);
+
+        dom.remove(7, dlistener);
+
+        assertEquals(4, dlistener.nChange);
+        assertEquals(1, dlistener.nBind);
+        assertEquals(1, dlistener.nRemoveAbove);
+        assertEquals(2, dlistener.nRemoveBelow);
+    }
 
 }
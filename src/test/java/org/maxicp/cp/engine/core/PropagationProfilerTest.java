@@ -0,0 +1,95 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.cp.engine.core;
+
+import org.junit.jupiter.api.Test;
+import org.maxicp.cp.CPFactory;
+import org.maxicp.search.DFSearch;
+import org.maxicp.search.SearchStatistics;
+import org.maxicp.state.trail.Trailer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.maxicp.search.Searches.firstFail;
+
+
+public class PropagationProfilerTest {
+
+    private static CPIntVar[] nQueens(CPSolver cp, int n) {
+        CPIntVar[] q = CPFactory.makeIntVarArray(cp, n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = i + 1; j < n; j++) {
+                cp.post(CPFactory.neq(q[i], q[j]));
+                cp.post(CPFactory.neq(q[i], q[j], j - i));
+                cp.post(CPFactory.neq(q[i], q[j], i - j));
+            }
+        return q;
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        MaxiCP cp = new MaxiCP(new Trailer());
+        assertNull(cp.getProfiler());
+        nQueens(cp, 4);
+        assertNull(cp.getProfiler());
+    }
+
+    @Test
+    public void testProfileNQueens() {
+        MaxiCP cp = new MaxiCP(new Trailer());
+        PropagationProfiler profiler = cp.enableProfiling();
+        CPIntVar[] q = nQueens(cp, 6);
+        DFSearch dfs = CPFactory.makeDfs(cp, firstFail(q));
+        SearchStatistics stats = dfs.solve();
+        assertEquals(4, stats.numberOfSolutions());
+
+        assertTrue(profiler.numberOfFixPoints() > 0);
+        long calls = 0;
+        long failures = 0;
+        for (PropagationProfiler.Stats s : profiler.classStatistics()) {
+            calls += s.calls();
+            failures += s.failures();
+            assertTrue(s.pruningCalls() <= s.calls());
+        }
+        assertEquals(profiler.numberOfIterations(), calls);
+        assertTrue(failures > 0);
+        assertEquals("NotEqual", profiler.classStatistics().stream()
+                .filter(s -> s.name().equals("NotEqual")).findFirst().orElseThrow().name());
+        assertTrue(profiler.instanceStatistics().size() >= 15 * 3);
+        assertTrue(profiler.report().contains("NotEqual"));
+
+        cp.disableProfiling();
+        assertNull(cp.getProfiler());
+    }
+
+    @Test
+    public void testReportAtTheEndOfTheSearch() {
+        MaxiCP cp = new MaxiCP(new Trailer());
+        PropagationProfiler profiler = cp.enableProfiling();
+        CPIntVar[] q = nQueens(cp, 6);
+        DFSearch dfs = CPFactory.makeDfs(cp, firstFail(q));
+        List<String> reports = new ArrayList<>();
+        dfs.setProfileReport(profiler, reports::add);
+        dfs.solve();
+        assertEquals(1, reports.size());
+        assertTrue(reports.get(0).contains("NotEqual"));
+
+        // also emitted when the search is stopped or throws
+        dfs.solve(s -> s.numberOfNodes() > 3);
+        assertEquals(2, reports.size());
+        dfs.onSolution(() -> {
+            throw new IllegalStateException();
+        });
+        assertThrows(IllegalStateException.class, dfs::solve);
+        assertEquals(3, reports.size());
+
+        dfs.setProfileReport(null, reports::add);
+        dfs.solve(s -> s.numberOfNodes() > 3);
+        assertEquals(3, reports.size());
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.cp.engine.core;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.maxicp.Constants;
+import org.maxicp.cp.CPSolverTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class PropagationQueueTest extends CPSolverTest {
+
+    private static class Dummy extends AbstractCPConstraint {
+        final int priority;
+
+        Dummy(CPSolver cp, int priority) {
+            super(cp);
+            this.priority = priority;
+        }
+
+        @Override
+        public int priority() {
+            return priority;
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testPriorityThenFifo(CPSolver cp) {
+        PropagationQueue queue = new PropagationQueue(cp.getStateManager(), Constants.PIORITY_SLOW + 1);
+        Dummy slow = new Dummy(cp, Constants.PIORITY_SLOW);
+        Dummy fast1 = new Dummy(cp, Constants.PIORITY_FAST);
+        Dummy medium = new Dummy(cp, Constants.PIORITY_MEDIUM);
+        Dummy fast2 = new Dummy(cp, Constants.PIORITY_FAST);
+        assertTrue(queue.isEmpty());
+        queue.add(slow);
+        queue.add(fast1);
+        queue.add(medium);
+        queue.add(fast2);
+        assertEquals(4, queue.size());
+        assertSame(fast1, queue.poll());
+        assertSame(fast2, queue.poll());
+        assertSame(medium, queue.poll());
+        assertSame(slow, queue.poll());
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testGrowAndWrapAround(CPSolver cp) {
+        PropagationQueue queue = new PropagationQueue(cp.getStateManager(), 1);
+        Dummy[] constraints = new Dummy[100];
+        for (int i = 0; i < constraints.length; i++)
+            constraints[i] = new Dummy(cp, 0);
+        // move the head such that the circular buffer wraps around before growing
+        for (int i = 0; i < 10; i++) {
+            queue.add(constraints[i]);
+            assertSame(constraints[i], queue.poll());
+        }
+        for (Dummy c : constraints)
+            queue.add(c);
+        for (Dummy c : constraints)
+            assertSame(c, queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testIndexReusedAfterRestore(CPSolver cp) {
+        PropagationQueue queue = new PropagationQueue(cp.getStateManager(), 1);
+        Dummy root = new Dummy(cp, 0);
+        assertEquals(0, queue.register(root));
+
+        cp.getStateManager().saveState();
+        Dummy left = new Dummy(cp, 0);
+        assertEquals(1, queue.register(left));
+        cp.getStateManager().restoreState();
+
+        Dummy right = new Dummy(cp, 0);
+        assertEquals(1, queue.register(right));
+        assertEquals(0, queue.register(root));
+        // the index of left was taken by right, left is registered again
+        assertEquals(2, queue.register(left));
+        queue.add(left);
+        queue.add(right);
+        assertSame(left, queue.poll());
+        assertSame(right, queue.poll());
+    }
+}
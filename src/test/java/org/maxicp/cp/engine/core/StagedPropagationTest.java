@@ -0,0 +1,200 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.cp.engine.core;
+
+import org.junit.jupiter.api.Test;
+import org.maxicp.Constants;
+import org.maxicp.cp.CPFactory;
+import org.maxicp.search.DFSearch;
+import org.maxicp.search.SearchStatistics;
+import org.maxicp.state.StateManager;
+import org.maxicp.state.copy.Copier;
+import org.maxicp.state.trail.Trailer;
+import org.maxicp.util.exception.InconsistencyException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.maxicp.search.Searches.firstFail;
+
+
+public class StagedPropagationTest {
+
+    /**
+     * Expensive constraint that never prunes anything
+     */
+    private static class Expensive extends AbstractCPConstraint {
+        final CPIntVar x;
+        int nPropagate = 0;
+
+        Expensive(CPIntVar x) {
+            super(x.getSolver());
+            this.x = x;
+            setExpensive(true);
+        }
+
+        @Override
+        public void post() {
+            x.propagateOnDomainChange(this);
+        }
+
+        @Override
+        public void propagate() {
+            nPropagate++;
+        }
+    }
+
+    @Test
+    public void testBudget() {
+        MaxiCP cp = new MaxiCP(new Trailer());
+        cp.enableStagedPropagation(new StagedPropagation(1, Long.MAX_VALUE, Integer.MAX_VALUE, 0));
+        CPIntVar x = CPFactory.makeIntVar(cp, 0, 10);
+        Expensive c1 = new Expensive(x);
+        Expensive c2 = new Expensive(x);
+        cp.post(c1);
+        cp.post(c2);
+
+        x.remove(5);
+        cp.fixPoint();
+        assertEquals(1, c1.nPropagate);
+        assertEquals(0, c2.nPropagate);
+        assertTrue(cp.hasDeferred());
+        assertEquals(1, cp.getStagedPropagation().numberOfOverBudget());
+
+        // the deferred constraint is propagated by the next fix-point
+        cp.fixPoint();
+        assertEquals(1, c2.nPropagate);
+        assertFalse(cp.hasDeferred());
+
+        x.remove(6);
+        cp.propagateDeferred(); // nothing deferred
+        cp.fixPoint();
+        x.remove(7);
+        cp.fixPoint();
+        assertEquals(3, c1.nPropagate);
+        assertEquals(1, c2.nPropagate);
+        cp.propagateDeferred();
+        assertEquals(2, c2.nPropagate);
+        assertFalse(cp.hasDeferred());
+    }
+
+    @Test
+    public void testAdaptiveSkip() {
+        MaxiCP cp = new MaxiCP(new Trailer());
+        StagedPropagation policy = cp.enableStagedPropagation(new StagedPropagation(Integer.MAX_VALUE, Long.MAX_VALUE, 2, 4));
+        CPIntVar x = CPFactory.makeIntVar(cp, 0, 100);
+        Expensive c = new Expensive(x);
+        cp.post(c);
+        for (int v = 0; v < 10; v++) {
+            x.remove(v);
+            cp.fixPoint();
+        }
+        // called twice, skipped once, called once, skipped twice, ...
+        assertTrue(c.nPropagate < 10);
+        assertTrue(policy.numberOfSkipped() > 0);
+        assertEquals(10, c.nPropagate + policy.numberOfSkipped());
+        cp.propagateDeferred();
+        assertFalse(cp.hasDeferred());
+    }
+
+    @Test
+    public void testDeferredAgainAfterRestore() {
+        for (StateManager sm : new StateManager[]{new Trailer(), new Copier()}) {
+            MaxiCP cp = new MaxiCP(sm);
+            cp.enableStagedPropagation(new StagedPropagation(1, Long.MAX_VALUE, Integer.MAX_VALUE, 0));
+            CPIntVar x = CPFactory.makeIntVar(cp, 0, 10);
+            Expensive c1 = new Expensive(x);
+            Expensive c2 = new Expensive(x);
+            cp.post(c1);
+            cp.post(c2);
+            x.remove(5);
+            cp.fixPoint();
+            assertTrue(cp.hasDeferred());
+            assertTrue(c2.isScheduled());
+
+            sm.saveState();
+            cp.fixPoint();
+            assertFalse(cp.hasDeferred());
+            assertFalse(c2.isScheduled());
+            // deferred at the child level
+            x.remove(6);
+            cp.fixPoint();
+            sm.restoreState();
+
+            // c2 was not propagated in the restored state
+            assertTrue(cp.hasDeferred());
+            assertFalse(c1.isScheduled());
+            assertTrue(c2.isScheduled());
+            cp.propagateDeferred();
+            assertFalse(cp.hasDeferred());
+            assertFalse(c1.isScheduled());
+            assertFalse(c2.isScheduled());
+        }
+    }
+
+    @Test
+    public void testPriorityUnchanged() {
+        MaxiCP cp = new MaxiCP(new Trailer());
+        CPIntVar[] x = CPFactory.makeIntVarArray(cp, 3, 3);
+        CPConstraint allDiff = CPFactory.allDifferentDC(x);
+        assertTrue(allDiff.isExpensive());
+        // only the staged propagation moves it to the last level
+        assertNotEquals(Constants.PIORITY_SLOW, allDiff.priority());
+    }
+
+    private static int nQueens(int n, StagedPropagation policy) {
+        return nQueens(n, policy, false);
+    }
+
+    /**
+     * @param raw true to build the search from the state manager instead of {@link CPFactory#makeDfs}
+     */
+    private static int nQueens(int n, StagedPropagation policy, boolean raw) {
+        MaxiCP cp = new MaxiCP(new Trailer());
+        if (policy != null) cp.enableStagedPropagation(policy);
+        CPIntVar[] q = CPFactory.makeIntVarArray(cp, n, n);
+        CPIntVar[] qL = CPFactory.makeIntVarArray(n, i -> CPFactory.minus(q[i], i));
+        CPIntVar[] qR = CPFactory.makeIntVarArray(n, i -> CPFactory.plus(q[i], i));
+        cp.post(CPFactory.allDifferentDC(q));
+        cp.post(CPFactory.allDifferentDC(qL));
+        cp.post(CPFactory.allDifferentDC(qR));
+        DFSearch dfs = raw ? new DFSearch(cp.getStateManager(), firstFail(q)) : CPFactory.makeDfs(cp, firstFail(q));
+        dfs.onSolution(() -> {
+            for (int i = 0; i < n; i++)
+                for (int j = i + 1; j < n; j++) {
+                    assertNotEquals(q[i].min(), q[j].min());
+                    assertNotEquals(q[i].min() - i, q[j].min() - j);
+                    assertNotEquals(q[i].min() + i, q[j].min() + j);
+                }
+        });
+        SearchStatistics stats = dfs.solve();
+        return stats.numberOfSolutions();
+    }
+
+    @Test
+    public void testSolutionsPreserved() {
+        assertEquals(92, nQueens(8, null));
+        assertEquals(92, nQueens(8, new StagedPropagation()));
+        // skip the all-different constraints very often, they are propagated on the leaves anyway
+        assertEquals(92, nQueens(8, new StagedPropagation(1, Long.MAX_VALUE, 1, 8)));
+        // no time budget, the all-different constraints are only propagated on the leaves
+        assertEquals(4, nQueens(6, new StagedPropagation(Integer.MAX_VALUE, 0, Integer.MAX_VALUE, 0)));
+        // the search propagates them on the leaves whatever the way it was built
+        assertEquals(4, nQueens(6, new StagedPropagation(Integer.MAX_VALUE, 0, Integer.MAX_VALUE, 0), true));
+    }
+
+    @Test
+    public void testNotifyLeafPropagatesDeferred() {
+        MaxiCP cp = new MaxiCP(new Trailer());
+        cp.enableStagedPropagation(new StagedPropagation(Integer.MAX_VALUE, 0, Integer.MAX_VALUE, 0));
+        CPIntVar[] x = CPFactory.makeIntVarArray(cp, 3, 3);
+        cp.post(CPFactory.allDifferentDC(x));
+        for (CPIntVar xi : x)
+            xi.removeAbove(1);
+        cp.fixPoint(); // not satisfiable anymore, only detected by the deferred constraint
+        assertTrue(cp.hasDeferred());
+        assertThrows(InconsistencyException.class, () -> cp.getStateManager().notifyLeaf());
+        assertFalse(cp.hasDeferred());
+    }
+}
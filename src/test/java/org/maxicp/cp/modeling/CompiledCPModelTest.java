@@ -0,0 +1,132 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2024 UCLouvain
+ *
+ */
+
+package org.maxicp.cp.modeling;
+
+import org.junit.jupiter.api.Test;
+import org.maxicp.ModelDispatcher;
+import org.maxicp.modeling.Factory;
+import org.maxicp.modeling.IntVar;
+import org.maxicp.modeling.algebra.integer.IntExpression;
+import org.maxicp.cp.engine.constraints.TableSupports;
+import org.maxicp.modeling.Constraint;
+import org.maxicp.modeling.constraints.ExpressionIsTrue;
+import org.maxicp.modeling.constraints.Table;
+import org.maxicp.modeling.symbolic.SymbolicModel;
+import org.maxicp.search.SearchStatistics;
+import org.maxicp.search.Searches;
+
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.maxicp.modeling.Factory.*;
+
+public class CompiledCPModelTest {
+
+    private static ModelDispatcher queens(int n, IntVar[] q) {
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] x = model.intVarArray(n, n);
+        System.arraycopy(x, 0, q, 0, n);
+        IntExpression[] qL = model.intVarArray(n, i -> x[i].plus(i));
+        IntExpression[] qR = model.intVarArray(n, i -> x[i].minus(i));
+        model.add(allDifferent(x));
+        model.add(allDifferent(qL));
+        model.add(allDifferent(qR));
+        // an equality simplified by the preprocessing
+        IntVar y = model.intVar(0, n - 1);
+        model.add(eq(y, x[0]));
+        return model;
+    }
+
+    @Test
+    public void testCache() {
+        IntVar[] q = new IntVar[6];
+        ModelDispatcher model = queens(6, q);
+        SymbolicModel root = model.getSymbolicModel();
+        CompiledCPModel compiled = CompiledCPModel.of(root);
+        assertSame(compiled, CompiledCPModel.of(root));
+        assertNotSame(compiled, CompiledCPModel.compile(root));
+        assertSame(root, compiled.model());
+        // the equality is replaced by the instantiation of its representative and the reuse of it
+        assertTrue(compiled.numberOfConstraints() >= 3);
+
+        Object data = compiled.shared("key", Object::new);
+        assertSame(data, compiled.shared("key", Object::new));
+
+        SymbolicModel child = root.add(new ExpressionIsTrue(eq(q[1], 2)));
+        assertNotSame(compiled, CompiledCPModel.of(child));
+        CompiledCPModel.clearCache(model);
+        assertNotSame(compiled, CompiledCPModel.of(root));
+    }
+
+    @Test
+    public void testConcurrentInstances() throws Exception {
+        int n = 7;
+        IntVar[] q = new IntVar[n];
+        ModelDispatcher model = queens(n, q);
+        SymbolicModel root = model.getSymbolicModel();
+        int expected = model.runCP((Function<ConcreteCPModel, Integer>) cp -> cp.dfSearch(Searches.firstFail(q)).solve().numberOfSolutions());
+
+        int nThreads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        AtomicInteger nSolutions = new AtomicInteger();
+        try {
+            Future<?>[] futures = new Future[nThreads];
+            for (int t = 0; t < nThreads; t++) {
+                int value = t;
+                futures[t] = executor.submit(() -> model.runAsConcrete(CPModelInstantiator.withTrailing, root, (Function<ConcreteCPModel, Void>) cp -> {
+                    assertSame(CompiledCPModel.of(root), cp.getCompiledModel());
+                    model.add(eq(q[0], value));
+                    SearchStatistics stats = cp.dfSearch(Searches.firstFail(q)).solve();
+                    nSolutions.addAndGet(stats.numberOfSolutions());
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures)
+                f.get();
+        } finally {
+            executor.shutdown();
+        }
+        int rest = model.runCP((Function<ConcreteCPModel, Integer>) cp -> {
+            model.add(ge(q[0], nThreads));
+            return cp.dfSearch(Searches.firstFail(q)).solve().numberOfSolutions();
+        });
+        assertEquals(expected, nSolutions.get() + rest);
+    }
+
+    @Test
+    public void testSharedTableSupports() {
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] x = model.intVarArray(3, 4);
+        int[][] tuples = new int[][]{{0, 1, 2}, {1, 2, 3}, {3, 2, 1}, {2, 2, 2}};
+        model.add(table(x, tuples, Optional.empty()));
+        SymbolicModel root = model.getSymbolicModel();
+        CompiledCPModel compiled = CompiledCPModel.of(root);
+        Constraint table = null;
+        for (int i = 0; i < compiled.numberOfConstraints(); i++)
+            if (compiled.constraint(i) instanceof Table)
+                table = compiled.constraint(i);
+        assertNotNull(table);
+
+        int[] nSolutions = new int[2];
+        for (int i = 0; i < 2; i++) {
+            int k = i;
+            model.runCP((java.util.function.Consumer<ConcreteCPModel>) cp -> {
+                assertSame(compiled, cp.getCompiledModel());
+                nSolutions[k] = cp.dfSearch(Searches.firstFail(x)).solve().numberOfSolutions();
+            });
+        }
+        assertEquals(tuples.length, nSolutions[0]);
+        assertEquals(tuples.length, nSolutions[1]);
+        // the supports were computed by the first instance and reused by the second one
+        TableSupports supports = compiled.shared(table, () -> null);
+        assertNotNull(supports);
+        assertEquals(tuples.length, supports.numberOfTuples());
+    }
+}
@@ -1,13 +1,25 @@
 package org.maxicp.cp.modeling;
 
+import org.junit.jupiter.api.Test;
+import org.maxicp.ModelDispatcher;
 import org.maxicp.cp.engine.core.AbstractCPConstraint;
 import org.maxicp.cp.engine.core.CPConstraint;
+import org.maxicp.modeling.BoolVar;
 import org.maxicp.modeling.Factory;
 import org.maxicp.modeling.CustomConstraint;
+import org.maxicp.modeling.IntVar;
 import org.maxicp.modeling.Model;
+import org.maxicp.modeling.algebra.bool.BoolExpression;
+import org.maxicp.modeling.algebra.integer.IntExpression;
 import org.maxicp.modeling.concrete.ConcreteModelTest;
+import org.maxicp.search.Searches;
 import org.maxicp.state.StateManager;
 
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.maxicp.modeling.Factory.*;
+
 public class ConcreteCPModelTest extends ConcreteModelTest<ConcreteCPModel, CPConstraint> {
 
     @Override
@@ -27,4 +39,63 @@ public class ConcreteCPModelTest extends ConcreteModelTest<ConcreteCPModel, CPCo
             }
         };
     }
+
+    @Test
+    public void testStructurallyEqualExpressionsShareTheirVariable() {
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] x = model.intVarArray(3, 5);
+        // built separately, equal by structure only
+        IntExpression s1 = sum(x[0], x[1], x[2]);
+        IntExpression s2 = sum(x[0], x[1], x[2]);
+        IntExpression s3 = sum(x[0], x[2], x[1]);
+        BoolExpression b1 = le(abs(sum(x[0], x[1])), 3);
+        BoolExpression b2 = le(abs(sum(x[0], x[1])), 3);
+        model.add(le(s1, 6));
+        model.add(ge(s2, 2));
+        model.add(or(b1, eq(x[2], 0)));
+        model.add(or(b2, eq(x[2], 1)));
+        model.runCP((Consumer<ConcreteCPModel>) cp -> {
+            assertSame(cp.getCPVar(s1), cp.getCPVar(s2));
+            assertNotSame(cp.getCPVar(s1), cp.getCPVar(s3));
+            assertSame(cp.getCPVar(b1), cp.getCPVar(b2));
+            int n = cp.dfSearch(Searches.firstFail(x)).solve().numberOfSolutions();
+            int expected = 0;
+            for (int a = 0; a < 5; a++)
+                for (int b = 0; b < 5; b++)
+                    for (int c = 0; c < 5; c++)
+                        if (a + b + c <= 6 && a + b + c >= 2 && (Math.abs(a + b) <= 3 || c == 0) && (Math.abs(a + b) <= 3 || c == 1))
+                            expected++;
+            assertEquals(expected, n);
+        });
+    }
+
+    @Test
+    public void testBoolExpressionEqualToAVariableSharesItsTwin() {
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] x = model.intVarArray(3, 5);
+        BoolExpression b1 = le(sum(x[0], x[1]), 3);
+        BoolExpression b2 = le(sum(x[0], x[1]), 3);
+        model.add(eq(b1, model.boolVar()));
+        model.add(eq(b2, model.boolVar()));
+        model.runCP((Consumer<ConcreteCPModel>) cp -> {
+            assertSame(cp.getCPVar(b1), cp.getCPVar(b2));
+        });
+    }
+
+    @Test
+    public void testExpressionsOfTheSearchAreNotShared() {
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] x = model.intVarArray(2, 5);
+        model.add(le(sum(x[0], x[1]), 6));
+        model.runCP((Consumer<ConcreteCPModel>) cp -> {
+            cp.getStateManager().withNewState(() -> {
+                // instantiated after the construction, their mapping is undone on backtrack
+                IntExpression s1 = sum(x[0], x[1]);
+                IntExpression s2 = sum(x[0], x[1]);
+                model.add(ge(s1, 1));
+                model.add(le(s2, 5));
+                assertNotSame(cp.getCPVar(s1), cp.getCPVar(s2));
+            });
+        });
+    }
 }
@@ -0,0 +1,177 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2024 UCLouvain
+ *
+ */
+
+package org.maxicp.modeling.presolve;
+
+import org.junit.jupiter.api.Test;
+import org.maxicp.ModelDispatcher;
+import org.maxicp.cp.modeling.CPModelInstantiator;
+import org.maxicp.cp.modeling.ConcreteCPModel;
+import org.maxicp.modeling.Constraint;
+import org.maxicp.modeling.Factory;
+import org.maxicp.modeling.IntVar;
+import org.maxicp.modeling.algebra.bool.Eq;
+import org.maxicp.modeling.algebra.integer.Constant;
+import org.maxicp.modeling.algebra.integer.IntExpression;
+import org.maxicp.modeling.constraints.AllDifferent;
+import org.maxicp.modeling.constraints.ExpressionIsTrue;
+import org.maxicp.modeling.constraints.NegTable;
+import org.maxicp.modeling.constraints.Table;
+import org.maxicp.modeling.symbolic.SymbolicIntVar;
+import org.maxicp.modeling.symbolic.SymbolicModel;
+import org.maxicp.search.Searches;
+import org.maxicp.util.exception.InconsistencyException;
+
+import java.util.*;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.maxicp.modeling.Factory.*;
+
+public class PresolverTest {
+
+    private static List<Constraint> constraints(ModelDispatcher model) {
+        List<Constraint> constraints = new ArrayList<>();
+        for (Constraint c : model.getSymbolicModel().getConstraints())
+            constraints.add(c);
+        return constraints;
+    }
+
+    @Test
+    public void testConstantFolding() {
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar x = model.intVar(0, 10);
+        IntVar y = model.intVar(0, 10);
+        Constant two = new Constant(model, 2);
+        Constant three = new Constant(model, 3);
+        model.add(eq(sum(x, two, y, three), 10));
+        model.add(le(sum(two, three), 5));
+        PresolvedModel p = new Presolver(new ConstantFolding()).presolve(constraints(model));
+        assertFalse(p.isInfeasible());
+        // the constant constraint is removed, the constants of the sum are merged
+        assertEquals(1, p.constraints().size());
+        ExpressionIsTrue c = (ExpressionIsTrue) p.constraints().getFirst();
+        IntExpression folded = ((Eq) c.expr()).a();
+        int nConstants = 0;
+        for (var e : folded.subexpressions())
+            if (e instanceof Constant k) {
+                nConstants++;
+                assertEquals(5, k.v());
+            }
+        assertEquals(1, nConstants);
+    }
+
+    @Test
+    public void testUnaryDomainReduction() {
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar x = model.intVar(0, 10);
+        IntVar y = model.intVar(0, 10);
+        model.add(le(x, 7));
+        model.add(ge(x, 2));
+        model.add(neq(x, 5));
+        model.add(table(new IntExpression[]{y}, new int[][]{{1}, {3}, {12}}, Optional.empty()));
+        model.add(neq(x, y));
+        PresolvedModel p = new Presolver(new UnaryDomainReduction()).presolve(constraints(model));
+        assertEquals(1, p.constraints().size());
+        assertArrayEquals(new int[]{2, 3, 4, 6, 7}, p.domain((SymbolicIntVar) x).values());
+        assertArrayEquals(new int[]{1, 3}, p.domain((SymbolicIntVar) y).values());
+        assertEquals(4, p.reports().getFirst().removed());
+        assertEquals(4, p.reports().getFirst().reduced());
+    }
+
+    @Test
+    public void testInfeasible() {
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar x = model.intVar(0, 10);
+        model.add(le(x, 3));
+        model.add(ge(x, 5));
+        PresolvedModel p = Presolver.standard().presolve(constraints(model));
+        assertTrue(p.isInfeasible());
+        // the constraint proving it is kept
+        assertEquals(1, p.constraints().size());
+
+        assertThrows(InconsistencyException.class, () -> model.runAsConcrete(CPModelInstantiator.withPresolve,
+                (Function<ConcreteCPModel, Integer>) cp -> cp.dfSearch(Searches.firstFail(x)).solve().numberOfSolutions()));
+    }
+
+    @Test
+    public void testRedundantConstraints() {
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] x = model.intVarArray(4, 4);
+        model.add(allDifferent(x));
+        model.add(allDifferent(x[0], x[2]));
+        model.add(allDifferent(x[1]));
+        model.add(le(x[0], x[1]));
+        model.add(le(x[0], x[1]));
+        model.add(le(x[2], 10));
+        PresolvedModel p = new Presolver(new RedundantConstraintElimination()).presolve(constraints(model));
+        assertEquals(2, p.constraints().size());
+        assertEquals(1, p.constraints().stream().filter(c -> c instanceof AllDifferent).count());
+        assertEquals(4, p.reports().getFirst().removed());
+    }
+
+    @Test
+    public void testTableMerging() {
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar x = model.intVar(0, 3);
+        IntVar y = model.intVar(0, 3);
+        model.add(table(new IntExpression[]{x, y}, new int[][]{{0, 1}, {1, 2}, {2, 3}, {3, 4}}, Optional.empty()));
+        model.add(table(new IntExpression[]{y, x}, new int[][]{{1, 0}, {3, 2}, {0, 0}}, Optional.empty()));
+        model.add(negTable(new IntExpression[]{x, y}, new int[][]{{0, 1}}, Optional.empty()));
+        model.add(negTable(new IntExpression[]{x, y}, new int[][]{{3, 3}}, Optional.empty()));
+        PresolvedModel p = new Presolver(new TableMerging()).presolve(constraints(model));
+        assertEquals(2, p.constraints().size());
+        Table t = (Table) p.constraints().stream().filter(c -> c instanceof Table).findFirst().orElseThrow();
+        assertEquals(2, t.array().length);
+        NegTable nt = (NegTable) p.constraints().stream().filter(c -> c instanceof NegTable).findFirst().orElseThrow();
+        assertEquals(2, nt.array().length);
+    }
+
+    @Test
+    public void testVariableElimination() {
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar x = model.intVar(0, 10);
+        IntVar y = model.intVar(0, 10);
+        IntVar z = model.intVar(0, 10);
+        model.add(eq(x, 4));
+        model.add(eq(sum(x, y), z));
+        model.add(le(x, y));
+        PresolvedModel p = Presolver.standard().presolve(constraints(model));
+        assertFalse(p.isInfeasible());
+        assertTrue(p.eliminated().contains(x));
+        assertTrue(p.unconstrained().contains(x));
+        assertTrue(p.domain((SymbolicIntVar) x).isFixed());
+        assertEquals(4, p.domain((SymbolicIntVar) y).min());
+        assertEquals(5, p.reports().size());
+        assertTrue(p.toString().contains("variable elimination"));
+    }
+
+    @Test
+    public void testSameSolutions() {
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        int n = 6;
+        IntVar[] x = model.intVarArray(n, n);
+        model.add(allDifferent(x));
+        model.add(allDifferent(x[0], x[1], x[2]));
+        model.add(le(x[0], 3));
+        model.add(neq(x[1], 2));
+        model.add(eq(x[n - 1], 5));
+        model.add(le(sum(x[0], new Constant(model, 1), x[1]), sum(x[2], new Constant(model, 2))));
+        model.add(table(new IntExpression[]{x[3], x[4]}, new int[][]{{0, 1}, {1, 0}, {2, 3}, {3, 2}, {4, 4}, {4, 5}}, Optional.empty()));
+        SymbolicModel root = model.getSymbolicModel();
+
+        int expected = model.runCP((Function<ConcreteCPModel, Integer>) cp -> cp.dfSearch(Searches.firstFail(x)).solve().numberOfSolutions());
+        int[] presolved = new int[1];
+        model.runAsConcrete(CPModelInstantiator.withPresolve, root, (Function<ConcreteCPModel, Void>) cp -> {
+            assertNotNull(cp.getCompiledModel().presolved());
+            assertTrue(cp.getCompiledModel().numberOfConstraints() < 7);
+            presolved[0] = cp.dfSearch(Searches.firstFail(x)).solve().numberOfSolutions();
+            return null;
+        });
+        assertTrue(expected > 0);
+        assertEquals(expected, presolved[0]);
+    }
+}
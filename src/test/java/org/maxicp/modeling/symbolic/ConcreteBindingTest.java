@@ -0,0 +1,104 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.modeling.symbolic;
+
+import org.junit.jupiter.api.Test;
+import org.maxicp.ModelDispatcher;
+import org.maxicp.cp.modeling.CPModelInstantiator;
+import org.maxicp.cp.modeling.ConcreteCPModel;
+import org.maxicp.modeling.Factory;
+import org.maxicp.modeling.IntVar;
+import org.maxicp.search.SearchStatistics;
+import org.maxicp.search.Searches;
+
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.maxicp.modeling.Factory.*;
+
+public class ConcreteBindingTest {
+
+    @Test
+    public void testPermanentVariables() {
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] x = model.intVarArray(4, 4);
+        model.add(allDifferent(x));
+        model.runCP((Consumer<ConcreteCPModel>) cp -> {
+            for (IntVar xi : x)
+                assertTrue(cp.isPermanent(xi));
+            SearchStatistics stats = cp.dfSearch(Searches.firstFail(x)).solve();
+            assertEquals(24, stats.numberOfSolutions());
+            cp.getStateManager().withNewState(() -> {
+                model.add(eq(x[0], 2));
+                assertTrue(x[0].isFixed());
+                assertEquals(2, x[0].min());
+                assertEquals(3, x[1].size());
+                assertFalse(x[1].contains(2));
+            });
+            // the binding sees the restored domains
+            assertFalse(x[0].isFixed());
+            assertEquals(4, x[1].size());
+            int[] values = new int[4];
+            assertEquals(4, x[1].fillArray(values));
+        });
+        // back to the symbolic model
+        assertEquals(4, x[0].size());
+        assertFalse(x[0].isFixed());
+    }
+
+    @Test
+    public void testLazyVariable() {
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] x = model.intVarArray(3, 3);
+        IntVar y = model.intVar(Set.of(1, 3, 5));
+        model.add(allDifferent(x));
+        model.runCP((Consumer<ConcreteCPModel>) cp -> {
+            cp.getStateManager().withNewState(() -> {
+                // y is not in any constraint, its concrete variable is created here and removed on backtrack
+                model.add(neq(y, 3));
+                assertFalse(cp.isPermanent(y));
+                assertEquals(2, y.size());
+                assertFalse(y.contains(3));
+            });
+            assertEquals(3, y.size());
+            assertTrue(y.contains(3));
+            assertEquals(1, y.min());
+            assertEquals(5, y.max());
+        });
+    }
+
+    @Test
+    public void testThreads() throws Exception {
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] x = model.intVarArray(5, 10);
+        model.add(allDifferent(x));
+        SymbolicModel root = model.getSymbolicModel();
+        int nThreads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        try {
+            Future<?>[] futures = new Future[nThreads];
+            for (int t = 0; t < nThreads; t++) {
+                int lb = t;
+                futures[t] = executor.submit(() -> model.runAsConcrete(CPModelInstantiator.withTrailing, root, (Function<ConcreteCPModel, Void>) cp -> {
+                    model.add(ge(x[0], lb));
+                    for (int k = 0; k < 10000; k++) {
+                        assertEquals(lb, x[0].min());
+                        assertEquals(10 - lb, x[0].size());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures)
+                f.get();
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(0, x[0].min());
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2024 UCLouvain
+ */
+
+package org.maxicp.modeling.symbolic;
+
+import org.junit.jupiter.api.Test;
+import org.maxicp.ModelDispatcher;
+import org.maxicp.cp.modeling.ConcreteCPModel;
+import org.maxicp.modeling.Constraint;
+import org.maxicp.modeling.Factory;
+import org.maxicp.modeling.IntVar;
+import org.maxicp.modeling.algebra.Expression;
+import org.maxicp.modeling.algebra.integer.IntExpression;
+import org.maxicp.modeling.constraints.Table;
+import org.maxicp.search.DFSearch;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.maxicp.modeling.Factory.*;
+import static org.maxicp.search.Searches.firstFail;
+
+public class ParsedInstanceCacheTest {
+
+    private static final String[] NAMES = {"x0", "x1", "x2", "y"};
+
+    /**
+     * A model using each kind of constraint of the cache, with a table shared by two constraints
+     */
+    private static IntExpression[] model(ModelDispatcher md) {
+        IntVar[] x = new IntVar[3];
+        for (int i = 0; i < 3; i++)
+            x[i] = md.intVar(NAMES[i], 0, 2);
+        IntVar y = md.intVar(NAMES[3], new int[]{-1, 1, 4});
+        IntVar unnamed = md.intVar(0, 10);
+        int[][] tuples = {{0, 1}, {1, 2}, {2, 0}, {1, 1}};
+        md.add(new Table(new IntExpression[]{x[0], x[1]}, tuples, Optional.empty()));
+        md.add(new Table(new IntExpression[]{x[1], x[2]}, tuples, Optional.empty()));
+        md.add(le(sum(x[0], x[2], y), 4));
+        md.add(eq(unnamed, sum(x[0], mul(y, 2))));
+        md.add(allDifferent(x[0], y));
+        return new IntExpression[]{x[0], x[1], x[2], y};
+    }
+
+    private static int countSolutions(ModelDispatcher md, IntExpression[] decisionVars) {
+        return md.runCP((Function<ConcreteCPModel, Integer>) cp -> {
+            DFSearch search = cp.dfSearch(firstFail(decisionVars));
+            return search.solve().numberOfSolutions();
+        });
+    }
+
+    private static List<Table> tables(ModelDispatcher md) {
+        List<Table> tables = new ArrayList<>();
+        for (Constraint c : md.getConstraints())
+            if (c instanceof Table t)
+                tables.add(t);
+        return tables;
+    }
+
+    /**
+     * The constraints of a model in posting order, each one given by its kind
+     * and the sorted ids of the variables in its scope
+     */
+    private static List<String> postingOrder(ModelDispatcher md) {
+        List<IntExpression> vars = md.getPreloaded();
+        List<String> order = new ArrayList<>();
+        for (Constraint c : md.getConstraints()) {
+            List<String> scope = new ArrayList<>();
+            for (Expression e : c.scope()) {
+                int id = -1;
+                for (int i = 0; i < vars.size() && id < 0; i++)
+                    if (vars.get(i) == e)
+                        id = i;
+                scope.add(id >= 0 ? "v" + id : e.getClass().getSimpleName());
+            }
+            Collections.sort(scope);
+            order.add(c.getClass().getSimpleName() + scope);
+        }
+        Collections.reverse(order);
+        return order;
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList())
+                Files.delete(p);
+        }
+    }
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        Path dir = Files.createTempDirectory("cache");
+        try {
+            Path instance = Files.writeString(dir.resolve("instance.txt"), "instance");
+            ParsedInstanceCache cache = new ParsedInstanceCache(dir.resolve("entries"));
+            assertTrue(cache.read(instance, "test").isEmpty());
+
+            int expected;
+            List<String> order;
+            try (ModelDispatcher md = Factory.makeModelDispatcher()) {
+                IntExpression[] decisionVars = model(md);
+                expected = countSolutions(md, decisionVars);
+                order = postingOrder(md);
+                assertTrue(cache.write(instance, "test", md, NAMES, decisionVars));
+            }
+            assertTrue(expected > 0);
+
+            ParsedInstanceCache.Entry entry = cache.read(instance, "test").orElseThrow();
+            try (ModelDispatcher md = entry.md()) {
+                assertArrayEquals(NAMES, entry.names());
+                assertEquals(5, md.getPreloaded().size());
+                // the constraints are posted in the same order as in the parsed model
+                assertEquals(order, postingOrder(md));
+                List<Table> tables = tables(md);
+                assertEquals(2, tables.size());
+                assertSame(tables.get(0).array(), tables.get(1).array());
+                assertEquals(expected, countSolutions(md, entry.decisionVars()));
+            }
+            // another parser does not share the entry
+            assertTrue(cache.read(instance, "other").isEmpty());
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testModifiedOrCorruptedInstanceIsMiss() throws Exception {
+        Path dir = Files.createTempDirectory("cache");
+        try {
+            Path instance = Files.writeString(dir.resolve("instance.txt"), "instance");
+            ParsedInstanceCache cache = new ParsedInstanceCache(dir.resolve("entries"));
+            try (ModelDispatcher md = Factory.makeModelDispatcher()) {
+                assertTrue(cache.write(instance, "test", md, NAMES, model(md)));
+            }
+            Path entry = cache.entry(instance, "test");
+            Files.write(entry, new byte[]{1, 2, 3});
+            assertTrue(cache.read(instance, "test").isEmpty());
+
+            Files.writeString(instance, "modified");
+            assertTrue(cache.read(instance, "test").isEmpty());
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testNotCacheable() throws Exception {
+        Path dir = Files.createTempDirectory("cache");
+        try {
+            Path instance = Files.writeString(dir.resolve("instance.txt"), "instance");
+            ParsedInstanceCache cache = new ParsedInstanceCache(dir.resolve("entries"));
+            try (ModelDispatcher md = Factory.makeModelDispatcher()) {
+                IntVar[] x = md.intVarArray(3, 3);
+                // an expression registered as a variable
+                IntExpression[] y = md.intVarArray(3, i -> x[i].plus(i));
+                md.add(allDifferent(y));
+                assertFalse(cache.write(instance, "test", md, new String[]{"x0", "x1", "x2"}, x));
+            }
+            assertTrue(cache.read(instance, "test").isEmpty());
+        } finally {
+            delete(dir);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2024 UCLouvain
+ */
+
+package org.maxicp.modeling.symbolic;
+
+import org.junit.jupiter.api.Test;
+import org.maxicp.ModelDispatcher;
+import org.maxicp.cp.modeling.CPModelInstantiator;
+import org.maxicp.cp.modeling.ConcreteCPModel;
+import org.maxicp.modeling.Factory;
+import org.maxicp.modeling.IntVar;
+import org.maxicp.modeling.algebra.integer.IntExpression;
+import org.maxicp.modeling.constraints.ExpressionIsTrue;
+import org.maxicp.search.Searches;
+import org.maxicp.util.exception.InconsistencyException;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.maxicp.modeling.Factory.*;
+
+public class SymbolicModelCodecTest {
+
+    private static IntVar[] nQueens(ModelDispatcher model, int n) {
+        IntVar[] q = model.intVarArray(n, n);
+        IntExpression[] qL = model.intVarArray(n, i -> q[i].plus(i));
+        IntExpression[] qR = model.intVarArray(n, i -> q[i].minus(i));
+        model.add(allDifferent(q));
+        model.add(allDifferent(qL));
+        model.add(allDifferent(qR));
+        return q;
+    }
+
+    /**
+     * Subproblems partitioning the search space on the first two queens
+     */
+    private static List<SymbolicModel> subproblems(SymbolicModel root, IntVar[] q) {
+        List<SymbolicModel> nodes = new ArrayList<>();
+        int n = q.length;
+        for (int v = 0; v < n; v++) {
+            SymbolicModel child = root.add(new ExpressionIsTrue(eq(q[0], v)));
+            nodes.add(child.add(new ExpressionIsTrue(le(q[1], n / 2))));
+            nodes.add(child.add(new ExpressionIsTrue(le(n / 2 + 1, q[1]))).add(new ExpressionIsTrue(neq(q[1], q[2]))));
+        }
+        return nodes;
+    }
+
+    private static void assertSameConstraints(SymbolicModel expected, SymbolicModel actual, SymbolicModel root) {
+        assertEquals(expected.depth(), actual.depth());
+        while (expected != root) {
+            assertEquals(expected.constraint().toString(), actual.constraint().toString());
+            expected = expected.parent();
+            actual = actual.parent();
+        }
+        assertSame(root, actual);
+    }
+
+    @Test
+    public void testRoundTrip() {
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] q = nQueens(model, 8);
+        SymbolicModel root = model.getSymbolicModel();
+        SymbolicModelCodec codec = new SymbolicModelCodec(root, q);
+        for (SymbolicModel node : subproblems(root, q)) {
+            byte[] encoded = codec.encode(node);
+            // the count, then 3 bytes per decision
+            assertEquals(1 + 3 * (node.depth() - root.depth()), encoded.length);
+            SymbolicModel decoded = codec.decode(encoded);
+            assertSameConstraints(node, decoded, root);
+        }
+        assertEquals(1, codec.encode(root).length);
+        assertSame(root, codec.decode(codec.encode(root)));
+        assertEquals(codec.fingerprint(), new SymbolicModelCodec(root, q).fingerprint());
+    }
+
+    @Test
+    public void testSameSolutions() throws Exception {
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] q = nQueens(model, 8);
+        SymbolicModel root = model.getSymbolicModel();
+        SymbolicModelCodec codec = new SymbolicModelCodec(root, q);
+        Path file = Files.createTempFile("subproblems", ".bin");
+        try {
+            codec.write(file, subproblems(root, q));
+            int total = 0;
+            for (SymbolicModel node : codec.read(file)) {
+                try {
+                    total += model.runAsConcrete(CPModelInstantiator.withTrailing, node,
+                            (Function<ConcreteCPModel, Integer>) cp -> cp.dfSearch(Searches.firstFail(q)).solve().numberOfSolutions());
+                } catch (InconsistencyException e) {
+                    // the subproblem fails when it is instantiated
+                }
+            }
+            assertEquals(92, total);
+
+            // another model
+            ModelDispatcher other = Factory.makeModelDispatcher();
+            IntVar[] r = nQueens(other, 9);
+            assertThrows(UncheckedIOException.class, () -> new SymbolicModelCodec(other.getSymbolicModel(), r).read(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * A model of the same shape for any table
+     */
+    private static SymbolicModel tableModel(ModelDispatcher model, IntVar[] x, int[][] table) {
+        model.add(table(new IntExpression[]{x[0], x[1]}, table, Optional.empty()));
+        model.add(le(sum(x[1], x[2]), 3));
+        return model.getSymbolicModel();
+    }
+
+    @Test
+    public void testFingerprintOfTheStructure() {
+        int[][] t1 = {{0, 1}, {1, 2}, {2, 0}};
+        int[][] t2 = {{0, 1}, {1, 2}, {2, 1}};
+        ModelDispatcher m1 = Factory.makeModelDispatcher();
+        IntVar[] x1 = m1.intVarArray(3, 3);
+        long f1 = new SymbolicModelCodec(tableModel(m1, x1, t1), x1).fingerprint();
+        // built in the same way
+        ModelDispatcher m2 = Factory.makeModelDispatcher();
+        IntVar[] x2 = m2.intVarArray(3, 3);
+        assertEquals(f1, new SymbolicModelCodec(tableModel(m2, x2, t1.clone()), x2).fingerprint());
+        // another table
+        ModelDispatcher m3 = Factory.makeModelDispatcher();
+        IntVar[] x3 = m3.intVarArray(3, 3);
+        assertNotEquals(f1, new SymbolicModelCodec(tableModel(m3, x3, t2), x3).fingerprint());
+        // another scope
+        ModelDispatcher m4 = Factory.makeModelDispatcher();
+        IntVar[] x4 = m4.intVarArray(3, 3);
+        assertNotEquals(f1, new SymbolicModelCodec(tableModel(m4, new IntVar[]{x4[1], x4[0], x4[2]}, t1), x4).fingerprint());
+    }
+
+    @Test
+    public void testInvalid() {
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] q = nQueens(model, 4);
+        SymbolicModel root = model.getSymbolicModel();
+        SymbolicModelCodec codec = new SymbolicModelCodec(root, q[0], q[1]);
+        // q[2] is not a variable of the codec
+        assertThrows(IllegalArgumentException.class, () -> codec.encode(root.add(new ExpressionIsTrue(eq(q[2], 1)))));
+        assertThrows(IllegalArgumentException.class, () -> codec.encode(root.add(allDifferent(q[0], q[1]))));
+        SymbolicModel sibling = Factory.makeModelDispatcher().getSymbolicModel();
+        assertThrows(IllegalArgumentException.class, () -> codec.encode(sibling));
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(new byte[]{1, 0, 5}));
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(new byte[]{1, 0}));
+    }
+}
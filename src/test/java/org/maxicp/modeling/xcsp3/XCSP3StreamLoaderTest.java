@@ -0,0 +1,180 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2024 UCLouvain
+ */
+
+package org.maxicp.modeling.xcsp3;
+
+import org.junit.jupiter.api.Test;
+import org.maxicp.cp.modeling.ConcreteCPModel;
+import org.maxicp.modeling.Constraint;
+import org.maxicp.modeling.constraints.Table;
+import org.maxicp.modeling.symbolic.SymbolicModel;
+import org.maxicp.search.DFSearch;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.maxicp.search.Searches.firstFail;
+
+public class XCSP3StreamLoaderTest {
+
+    private static final String PERMUTATIONS = """
+            <instance format="XCSP3" type="CSP">
+              <variables>
+                <array id="x" size="[3]"> 1..3 </array>
+              </variables>
+              <constraints>
+                <allDifferent> x[] </allDifferent>
+                <group>
+                  <intension> lt(%0,%1) </intension>
+                  <args> x[0] x[1] </args>
+                </group>
+              </constraints>
+            </instance>
+            """;
+
+    private static XCSP3.XCSP3LoadedInstance load(String xml) throws IOException {
+        return XCSP3StreamLoader.load(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static int countSolutions(XCSP3.XCSP3LoadedInstance instance) {
+        return instance.md().runCP((Function<ConcreteCPModel, Integer>) cp -> {
+            DFSearch search = cp.dfSearch(firstFail(instance.decisionVars()));
+            return search.solve().numberOfSolutions();
+        });
+    }
+
+    @Test
+    public void testCompactListsAndGroups() throws Exception {
+        try (XCSP3.XCSP3LoadedInstance instance = load(PERMUTATIONS)) {
+            assertEquals(3, instance.decisionVars().length);
+            // the permutations of 1..3 with x[0] < x[1]
+            assertEquals(3, countSolutions(instance));
+        }
+    }
+
+    @Test
+    public void testExtensionTuplesSharedInGroup() throws Exception {
+        String xml = """
+                <instance format="XCSP3" type="CSP">
+                  <variables>
+                    <array id="x" size="[3]"> 0..2 </array>
+                  </variables>
+                  <constraints>
+                    <group>
+                      <extension>
+                        <list> %0 %1 </list>
+                        <supports> (0,*)(1,1)(2,0) </supports>
+                      </extension>
+                      <args> x[0] x[1] </args>
+                      <args> x[1] x[2] </args>
+                    </group>
+                    <extension>
+                      <list> x[0] </list>
+                      <conflicts> 0 </conflicts>
+                    </extension>
+                  </constraints>
+                </instance>
+                """;
+        try (XCSP3.XCSP3LoadedInstance instance = load(xml)) {
+            List<Table> tables = new ArrayList<>();
+            for (Constraint c : ((SymbolicModel) instance.md().getModel()).getConstraints())
+                if (c instanceof Table t)
+                    tables.add(t);
+            assertEquals(2, tables.size());
+            assertSame(tables.get(0).array(), tables.get(1).array());
+            assertTrue(tables.get(0).starred().isPresent());
+            // (x[0], x[1]) and (x[1], x[2]) in {(0,*), (1,1), (2,0)} with x[0] != 0
+            assertEquals(4, countSolutions(instance));
+        }
+    }
+
+    @Test
+    public void testSumAndElement() throws Exception {
+        String xml = """
+                <instance format="XCSP3" type="CSP">
+                  <variables>
+                    <array id="x" size="[2][2]">
+                      <domain for="x[0][]"> 0..2 </domain>
+                      <domain for="x[1][1]"> 1 3 </domain>
+                    </array>
+                    <var id="y"> 1..3 </var>
+                    <var id="z"> 0..100 </var>
+                  </variables>
+                  <constraints>
+                    <block>
+                      <sum>
+                        <list> x[][] </list>
+                        <coeffs> 1 1 2 </coeffs>
+                        <condition> (le,5) </condition>
+                      </sum>
+                    </block>
+                    <element>
+                      <list startIndex="1"> 10 20 30 </list>
+                      <index> y </index>
+                      <value> z </value>
+                    </element>
+                  </constraints>
+                </instance>
+                """;
+        try (XCSP3.XCSP3LoadedInstance instance = load(xml)) {
+            // x[1][0] has no domain, such that it is not a variable
+            assertEquals(5, instance.decisionVars().length);
+            // x[0][0] + x[0][1] + 2 x[1][1] <= 5: 8 assignments with x[1][1] = 1, none with x[1][1] = 3
+            // and z is the y-th value of the list
+            assertEquals(8 * 3, countSolutions(instance));
+        }
+    }
+
+    @Test
+    public void testMemoryMappedFile() throws Exception {
+        Path file = Files.createTempFile("instance", ".xml");
+        try {
+            Files.writeString(file, PERMUTATIONS);
+            try (XCSP3.XCSP3LoadedInstance instance = XCSP3StreamLoader.load(file, true)) {
+                assertEquals(3, countSolutions(instance));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testSameSolutionsAsXCSP3Parser() throws Exception {
+        for (String file : new String[]{
+                "minicsp24/PoolBallTriangle/PoolBallTriangle-05_c24.xml",
+                "minicsp25/LangfordBin/LangfordBin-010_c25.xml",
+                "minicsp24/FRB/FRB-30-15-1_c18.xml"}) {
+            int expected;
+            try (XCSP3.XCSP3LoadedInstance instance = XCSP3.load(file)) {
+                expected = countSolutions(instance);
+            }
+            try (XCSP3.XCSP3LoadedInstance instance = XCSP3StreamLoader.load(file)) {
+                assertEquals(expected, countSolutions(instance), file);
+            }
+        }
+    }
+
+    @Test
+    public void testUnsupportedConstraint() {
+        String xml = """
+                <instance format="XCSP3" type="CSP">
+                  <variables>
+                    <array id="x" size="[3]"> 0..2 </array>
+                  </variables>
+                  <constraints>
+                    <circuit> x[] </circuit>
+                  </constraints>
+                </instance>
+                """;
+        assertThrows(org.maxicp.util.exception.NotYetImplementedException.class, () -> load(xml));
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.search;
+
+import org.junit.jupiter.api.Test;
+import org.maxicp.ModelDispatcher;
+import org.maxicp.modeling.Factory;
+import org.maxicp.modeling.IntVar;
+import org.maxicp.modeling.algebra.integer.IntExpression;
+import org.maxicp.modeling.constraints.ExpressionIsTrue;
+import org.maxicp.modeling.symbolic.SymbolicModel;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.maxicp.modeling.Factory.*;
+import static org.maxicp.search.Searches.firstFail;
+
+public class BestFirstSearchTest {
+
+    private static IntVar[] nQueens(ModelDispatcher model, int n) {
+        IntVar[] q = model.intVarArray(n, n);
+        IntExpression[] qL = model.intVarArray(n, i -> q[i].plus(i));
+        IntExpression[] qR = model.intVarArray(n, i -> q[i].minus(i));
+        model.add(allDifferent(q));
+        model.add(allDifferent(qL));
+        model.add(allDifferent(qR));
+        return q;
+    }
+
+    private static String solution(IntVar[] q) {
+        return Arrays.toString(Arrays.stream(q).mapToInt(IntVar::min).toArray());
+    }
+
+    @Test
+    public void testUnbounded() {
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] q = nQueens(model, 8);
+        model.runCP(cp -> {
+            BestFirstSearch<Double> search = cp.bestFirstSearch(firstFail(q), () -> -CartesianSpaceEvaluator.evaluate(q));
+            SearchStatistics stats = search.solve();
+            assertTrue(stats.isCompleted());
+            assertEquals(92, stats.numberOfSolutions());
+            assertEquals(0, search.numberOfSpilledNodes());
+        });
+    }
+
+    @Test
+    public void testJumpCheckpoints() {
+        for (int stride : new int[]{1, 2, 3}) {
+            ModelDispatcher model = Factory.makeModelDispatcher();
+            IntVar[] q = nQueens(model, 8);
+            model.runCP(cp -> {
+                cp.setJumpCheckpointStride(stride);
+                BestFirstSearch<Double> search = cp.bestFirstSearch(firstFail(q), () -> -CartesianSpaceEvaluator.evaluate(q));
+                Set<String> solutions = new HashSet<>();
+                search.onSolution(() -> assertTrue(solutions.add(solution(q))));
+                SearchStatistics stats = search.solve();
+                assertTrue(stats.isCompleted());
+                assertEquals(92, stats.numberOfSolutions());
+                assertEquals(92, solutions.size());
+            });
+        }
+    }
+
+    @Test
+    public void testCommonAncestor() {
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] q = nQueens(model, 4);
+        SymbolicModel root = model.getSymbolicModel();
+        SymbolicModel a = root.add(new ExpressionIsTrue(eq(q[0], 1)));
+        SymbolicModel b = a.add(new ExpressionIsTrue(eq(q[1], 3)));
+        SymbolicModel c = a.add(new ExpressionIsTrue(eq(q[1], 0))).add(new ExpressionIsTrue(eq(q[2], 2)));
+        assertEquals(root.depth() + 1, a.depth());
+        assertEquals(root.depth() + 3, c.depth());
+        assertSame(a, SymbolicModel.commonAncestor(b, c));
+        assertSame(a, SymbolicModel.commonAncestor(c, a));
+        assertSame(b, SymbolicModel.commonAncestor(b, b));
+        assertNull(SymbolicModel.commonAncestor(b, Factory.makeModelDispatcher().getSymbolicModel()));
+    }
+
+    @Test
+    public void testBoundedOpenNodes() {
+        for (BestFirstSearch.Overflow overflow : BestFirstSearch.Overflow.values()) {
+            ModelDispatcher model = Factory.makeModelDispatcher();
+            IntVar[] q = nQueens(model, 8);
+            model.runCP(cp -> {
+                // the keys are integers for the depth first overflow, doubles for the spill
+                BestFirstSearch<? extends Comparable<?>> search = overflow == BestFirstSearch.Overflow.SPILL ?
+                        cp.bestFirstSearch(firstFail(q), () -> -CartesianSpaceEvaluator.evaluate(q)) :
+                        cp.bestFirstSearch(firstFail(q), () -> Arrays.stream(q).mapToInt(IntVar::size).sum());
+                search.setMaxOpenNodes(4, overflow);
+                Set<String> solutions = new HashSet<>();
+                search.onSolution(() -> assertTrue(solutions.add(solution(q))));
+                SearchStatistics stats = search.solve();
+                assertTrue(stats.isCompleted());
+                assertEquals(92, stats.numberOfSolutions());
+                assertEquals(92, solutions.size());
+                if (overflow == BestFirstSearch.Overflow.SPILL)
+                    assertTrue(search.numberOfSpilledNodes() > 0);
+                else
+                    assertEquals(0, search.numberOfSpilledNodes());
+            });
+        }
+    }
+
+    @Test
+    public void testSpilledNodesAreVisitedWhenReplayed() {
+        int[] visits = new int[2];
+        for (int k = 0; k < 2; k++) {
+            int run = k;
+            ModelDispatcher model = Factory.makeModelDispatcher();
+            IntVar[] q = nQueens(model, 8);
+            model.runCP(cp -> {
+                BestFirstSearch<Double> search = cp.bestFirstSearch(firstFail(q), () -> -CartesianSpaceEvaluator.evaluate(q));
+                if (run == 1)
+                    search.setMaxOpenNodes(4, BestFirstSearch.Overflow.SPILL);
+                SearchStatistics stats = search.solve(new SearchStatistics(), s -> false, () -> visits[run]++);
+                assertEquals(92, stats.numberOfSolutions());
+                assertEquals(run == 1, search.numberOfSpilledNodes() > 0);
+            });
+        }
+        // the choices replayed to reload the spilled nodes are visited again
+        assertTrue(visits[1] > visits[0]);
+    }
+
+    @Test
+    public void testUnexploredModels() {
+        for (BestFirstSearch.Overflow overflow : BestFirstSearch.Overflow.values()) {
+            ModelDispatcher model = Factory.makeModelDispatcher();
+            IntVar[] q = nQueens(model, 8);
+            model.runCP(cp -> {
+                BestFirstSearch<Double> search = cp.bestFirstSearch(firstFail(q), () -> -CartesianSpaceEvaluator.evaluate(q));
+                search.setMaxOpenNodes(6, overflow);
+                Set<String> solutions = new HashSet<>();
+                search.onSolution(() -> assertTrue(solutions.add(solution(q))));
+                SearchStatistics stats = search.solve(s -> s.numberOfNodes() >= 60);
+                assertFalse(stats.isCompleted());
+                if (overflow == BestFirstSearch.Overflow.SPILL)
+                    assertTrue(search.numberOfSpilledNodes() > 0);
+                // the decomposition covers the whole search space
+                SymbolicModel[] unexplored = search.getUnexploredModels();
+                assertTrue(unexplored.length > 0);
+                for (SymbolicModel m : unexplored) {
+                    cp.getStateManager().withNewState(() -> {
+                        cp.jumpTo(m);
+                        DFSearch dfs = cp.dfSearch(firstFail(q));
+                        dfs.onSolution(() -> assertTrue(solutions.add(solution(q))));
+                        dfs.solve();
+                    });
+                }
+                assertEquals(92, solutions.size());
+            });
+        }
+    }
+}
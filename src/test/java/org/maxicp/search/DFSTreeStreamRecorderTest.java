@@ -0,0 +1,137 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.search;
+
+import org.junit.jupiter.api.Test;
+import org.maxicp.cp.CPFactory;
+import org.maxicp.cp.engine.constraints.AllDifferentFWC;
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.cp.engine.core.CPSolver;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.maxicp.cp.CPFactory.minus;
+import static org.maxicp.cp.CPFactory.plus;
+
+public class DFSTreeStreamRecorderTest {
+
+    private static CPIntVar[] queens(int n) {
+        CPSolver cp = CPFactory.makeSolver();
+        CPIntVar[] q = CPFactory.makeIntVarArray(cp, n, n);
+        cp.post(new AllDifferentFWC(q));
+        cp.post(new AllDifferentFWC(CPFactory.makeIntVarArray(n, i -> minus(q[i], i))));
+        cp.post(new AllDifferentFWC(CPFactory.makeIntVarArray(n, i -> plus(q[i], i))));
+        return q;
+    }
+
+    /**
+     * N-ary static order branching labeled by the name of the branching variable
+     */
+    private static Supplier<Runnable[]> branching(CPIntVar[] q) {
+        Supplier<Runnable[]> branching = Searches.staticOrderNary(q);
+        return DFSTreeStreamRecorder.labeled(branching, () -> {
+            for (int i = 0; i < q.length; i++)
+                if (!q[i].isFixed())
+                    return "q" + i;
+            return null;
+        });
+    }
+
+    private static Path tempFile() throws IOException {
+        Path file = Files.createTempFile("maxicp", ".tree");
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    @Test
+    public void testRecordAll() throws IOException {
+        int n = 8;
+        CPIntVar[] q = queens(n);
+        Path file = tempFile();
+        DFSearch search = CPFactory.makeDfs(q[0].getSolver(), branching(q));
+        SearchStatistics stats;
+        try (DFSTreeStreamRecorder recorder = new DFSTreeStreamRecorder(file)) {
+            stats = search.solve(recorder);
+        }
+
+        Map<Integer, Integer> depth = new HashMap<>();
+        int[] count = new int[DFSTreeStreamRecorder.Kind.values().length];
+        long[] lastTime = new long[1];
+        DFSTreeStreamRecorder.Trailer trailer = DFSTreeStreamRecorder.read(file, e -> {
+            count[e.kind().ordinal()]++;
+            assertTrue(e.depth() >= 1 && e.depth() <= n + 1);
+            if (e.depth() > 1)
+                assertEquals(e.depth() - 1, depth.get(e.parentId()));
+            if (e.kind() == DFSTreeStreamRecorder.Kind.SOLUTION) {
+                assertNull(e.label());
+            } else {
+                // the static order branches on the variables in order, some being fixed by propagation
+                assertTrue(Integer.parseInt(e.label().substring(1)) >= e.depth() - 1);
+            }
+            assertTrue(e.nanos() >= lastTime[0]);
+            lastTime[0] = e.nanos();
+            depth.put(e.id(), e.depth());
+        });
+        assertEquals(stats.numberOfNodes(), count[0] + count[1]);
+        assertEquals(stats.numberOfFailures(), count[1]);
+        assertEquals(stats.numberOfSolutions(), count[2]);
+        assertEquals(stats.numberOfNodes() + stats.numberOfSolutions(), trailer.nEvents());
+        assertEquals(0, trailer.nSampledOut());
+        assertEquals(0, trailer.nTooDeep());
+
+        SearchTreeHeatmap heatmap = SearchTreeHeatmap.of(file, 1);
+        assertTrue(heatmap.numberOfBuckets() > 4 && heatmap.numberOfBuckets() <= n + 1);
+        assertEquals(stats.numberOfSolutions(), heatmap.numberOfSolutions());
+        long failures = 0;
+        for (String label : heatmap.labels())
+            for (int b = 0; b < heatmap.numberOfBuckets(); b++)
+                failures += heatmap.failures(label, b);
+        assertEquals(stats.numberOfFailures(), failures);
+        for (int b = 0; b < heatmap.numberOfBuckets(); b++) {
+            long f = 0;
+            for (String label : heatmap.labels())
+                f += heatmap.failures(label, b);
+            assertEquals(heatmap.failures(b), f);
+            assertTrue(heatmap.nodes(b) >= heatmap.failures(b));
+        }
+        assertFalse(heatmap.labels().contains(SearchTreeHeatmap.UNLABELED));
+        assertEquals(heatmap.labels().size() + 1, heatmap.toCsv().split("\n").length);
+        assertTrue(heatmap.toString().contains(heatmap.labels().iterator().next()));
+
+        SearchTreeHeatmap buckets = SearchTreeHeatmap.of(file, 4);
+        assertEquals((heatmap.numberOfBuckets() + 3) / 4, buckets.numberOfBuckets());
+        assertEquals(heatmap.failures(0) + heatmap.failures(1) + heatmap.failures(2) + heatmap.failures(3), buckets.failures(0));
+    }
+
+    @Test
+    public void testSamplingAndCutoff() throws IOException {
+        int n = 8;
+        CPIntVar[] q = queens(n);
+        DFSearch search = CPFactory.makeDfs(q[0].getSolver(), branching(q));
+        Path file = tempFile();
+        SearchStatistics stats;
+        DFSTreeStreamRecorder recorder = new DFSTreeStreamRecorder(file);
+        recorder.setSamplingRate(0.5, 7);
+        recorder.setMaxDepth(5);
+        stats = search.solve(recorder);
+        recorder.close();
+
+        long total = stats.numberOfNodes() + stats.numberOfSolutions();
+        DFSTreeStreamRecorder.Trailer trailer = DFSTreeStreamRecorder.read(file, e -> assertTrue(e.depth() <= 5));
+        assertEquals(recorder.numberOfSampledOut(), trailer.nSampledOut());
+        assertEquals(recorder.numberOfTooDeep(), trailer.nTooDeep());
+        assertEquals(total, trailer.nEvents() + trailer.nSampledOut() + trailer.nTooDeep());
+        assertTrue(trailer.nSampledOut() > 0);
+        assertTrue(trailer.nTooDeep() > 0);
+        assertTrue(trailer.nEvents() > 0);
+    }
+}
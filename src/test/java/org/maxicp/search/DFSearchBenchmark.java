@@ -0,0 +1,173 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.search;
+
+import org.maxicp.cp.CPFactory;
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.cp.engine.core.CPSolver;
+import org.maxicp.state.StateManager;
+import org.maxicp.util.exception.InconsistencyException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Stack;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static org.maxicp.search.Searches.firstFail;
+
+/**
+ * Node throughput of {@link DFSearch} on the NQueens problem,
+ * compared to the former driver pushing three closures per alternative
+ * on a {@link Stack}.
+ * Both drivers explore the same tree such that the ratio of their
+ * number of searches per second is the ratio of their node throughput.
+ * <p>
+ * Run the main method with the test classpath, after {@code mvn test-compile}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DFSearchBenchmark {
+
+    /**
+     * Depth first search exploring the tree with closures, as done before the explicit decision stack.
+     * Copy of the former {@link DFSearch}, with its listener notifications and node visits,
+     * such that both drivers do the same work per node.
+     */
+    static class ClosureDFSearch extends RunnableSearchMethod {
+
+        private static final DFSListener EMPTY_LISTENER = new DFSListener(){};
+        private DFSListener dfsListener = EMPTY_LISTENER;
+
+        public void setDFSListener(DFSListener listener) {
+            this.dfsListener = listener;
+        }
+
+        private void notifySolution(int nodeId, int parentId) {
+            dfsListener.solution(nodeId, parentId);
+        }
+
+        private void notifyFailure(int nodeId, int parentId) {
+            dfsListener.fail(nodeId, parentId);
+        }
+
+        private void notifyBranch(int nodeId, int parentId) {
+            dfsListener.branch(nodeId, parentId);
+        }
+
+        private void notifyBranchAction(Runnable action) {
+            dfsListener.branchingAction(action);
+        }
+
+        private void notifySaveState() {
+            dfsListener.saveState(sm);
+        }
+
+        private void notifyRestoreState() {
+            dfsListener.restoreState(sm);
+        }
+
+        private int currNodeId = -1;
+
+        ClosureDFSearch(StateManager sm, Supplier<Runnable[]> branching) {
+            super(sm, branching);
+        }
+
+        private void expandNode(Stack<Runnable> alternatives, SearchStatistics statistics, Runnable onNodeVisit, int parentId) {
+            Runnable[] alts = branching.get();
+            if (alts.length == 0) {
+                statistics.incrSolutions();
+                notifySolution(currNodeId++, parentId);
+                notifySolution();
+            } else {
+                for (int i = alts.length - 1; i >= 0; i--) {
+                    int nodeId = currNodeId++;
+                    Runnable a = alts[i];
+                    alternatives.push(() -> {
+                        notifyRestoreState();
+                        sm.restoreState();
+                    });
+                    alternatives.push(() -> {
+                        statistics.incrNodes();
+                        onNodeVisit.run();
+                        try {
+                            notifyBranchAction(a);
+                            a.run();
+                            notifyBranch(nodeId, parentId);
+                            expandNode(alternatives, statistics, onNodeVisit, nodeId);
+                        } catch (InconsistencyException e) {
+                            notifyFailure(nodeId, parentId);
+                            throw e;
+                        }
+                    });
+                    alternatives.push(() -> {
+                        notifySaveState();
+                        sm.saveState();
+                    });
+                }
+            }
+        }
+
+        @Override
+        protected void startSolve(SearchStatistics statistics, Predicate<SearchStatistics> limit, Runnable onNodeVisit) {
+            currNodeId = 0;
+            Stack<Runnable> alternatives = new Stack<>();
+            expandNode(alternatives, statistics, onNodeVisit, currNodeId);
+            while (!alternatives.isEmpty()) {
+                if (limit.test(statistics)) throw new StopSearchException();
+                try {
+                    alternatives.pop().run();
+                } catch (InconsistencyException e) {
+                    statistics.incrFailures();
+                    notifyFailure();
+                }
+            }
+        }
+    }
+
+    @Param({"10", "12"})
+    public int n;
+
+    private CPSolver cp;
+    private CPIntVar[] q;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        cp = CPFactory.makeSolver();
+        q = CPFactory.makeIntVarArray(cp, n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = i + 1; j < n; j++) {
+                cp.post(CPFactory.neq(q[i], q[j]));
+                cp.post(CPFactory.neq(q[i], q[j], j - i));
+                cp.post(CPFactory.neq(q[i], q[j], i - j));
+            }
+    }
+
+    @Benchmark
+    public int explicitStack() {
+        return new DFSearch(cp.getStateManager(), firstFail(q)).solve().numberOfNodes();
+    }
+
+    @Benchmark
+    public int closures() {
+        return new ClosureDFSearch(cp.getStateManager(), firstFail(q)).solve().numberOfNodes();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(DFSearchBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.search;
+
+import org.junit.jupiter.api.Test;
+import org.maxicp.ModelDispatcher;
+import org.maxicp.cp.modeling.CPModelInstantiator;
+import org.maxicp.modeling.Factory;
+import org.maxicp.modeling.IntVar;
+import org.maxicp.modeling.algebra.integer.IntExpression;
+import org.maxicp.modeling.symbolic.Objective;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.maxicp.modeling.Factory.*;
+import static org.maxicp.search.Searches.*;
+
+public class EPSearchTest {
+
+    private static Supplier<Runnable[]> firstFailBranching(ModelDispatcher model, IntExpression[] x) {
+        return () -> {
+            IntExpression xs = selectMin(x, xi -> xi.size() > 1, xi -> xi.size());
+            if (xs == null)
+                return EMPTY;
+            int v = xs.min();
+            return branch(() -> model.add(eq(xs, v)), () -> model.add(neq(xs, v)));
+        };
+    }
+
+    @Test
+    public void testNQueens() {
+        int n = 8;
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] q = model.intVarArray(n, n);
+        IntExpression[] qL = model.intVarArray(n, i -> q[i].plus(i));
+        IntExpression[] qR = model.intVarArray(n, i -> q[i].minus(i));
+        model.add(allDifferent(q));
+        model.add(allDifferent(qL));
+        model.add(allDifferent(qR));
+
+        for (int nWorkers : new int[]{1, 3}) {
+            AtomicInteger nBranchings = new AtomicInteger(0);
+            EPSearch eps = new EPSearch(model, CPModelInstantiator.withTrailing, () -> {
+                nBranchings.incrementAndGet();
+                return firstFailBranching(model, q);
+            }, nWorkers, 10);
+            AtomicInteger nSolutions = new AtomicInteger(0);
+            eps.onSolution(() -> {
+                // the listener sees the solution of the worker
+                for (int i = 0; i < n; i++)
+                    assertTrue(q[i].isFixed());
+                nSolutions.incrementAndGet();
+            });
+            SearchStatistics stats = eps.solve();
+            assertEquals(92, stats.numberOfSolutions());
+            assertEquals(92, nSolutions.get());
+            assertTrue(stats.isCompleted());
+            assertTrue(eps.numberOfSubproblems() >= nWorkers * 10);
+            // one branching for the decomposition and one per worker
+            assertEquals(1 + nWorkers, nBranchings.get());
+        }
+    }
+
+    @Test
+    public void testFailedWorkerStopsTheOthers() throws InterruptedException {
+        int n = 8;
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] q = model.intVarArray(n, n);
+        model.add(allDifferent(q));
+        model.add(allDifferent(model.intVarArray(n, i -> q[i].plus(i))));
+        model.add(allDifferent(model.intVarArray(n, i -> q[i].minus(i))));
+
+        int nWorkers = 3;
+        EPSearch eps = new EPSearch(model, CPModelInstantiator.withTrailing, () -> firstFailBranching(model, q), nWorkers, 10);
+        AtomicInteger nSolutions = new AtomicInteger(0);
+        IllegalStateException failure = new IllegalStateException();
+        eps.onSolution(() -> {
+            if (nSolutions.incrementAndGet() == 1)
+                throw failure;
+        });
+        assertSame(failure, assertThrows(IllegalStateException.class, eps::solve));
+        // the other workers are stopped instead of solving the remaining subproblems in the background
+        Thread.sleep(200);
+        int reported = nSolutions.get();
+        Thread.sleep(200);
+        assertEquals(reported, nSolutions.get());
+        assertTrue(reported < 92);
+    }
+
+    @Test
+    public void testAllSubproblemsFail() {
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] x = model.intVarArray(3, 2);
+        model.add(allDifferent(x));
+        EPSearch eps = new EPSearch(model, CPModelInstantiator.withTrailing, () -> firstFailBranching(model, x), 2, 4);
+        SearchStatistics stats = eps.solve();
+        assertEquals(0, stats.numberOfSolutions());
+        assertTrue(stats.isCompleted());
+        assertEquals(0, eps.numberOfSubproblems());
+    }
+
+    @Test
+    public void testOptimize() {
+        // minimize the sum of variables all different in 0..5, the optimum is 0+1+2+3 = 6
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] x = model.intVarArray(4, 6);
+        model.add(allDifferent(x));
+        IntExpression total = sum(x);
+        Objective obj = minimize(total);
+        EPSearch eps = new EPSearch(model, CPModelInstantiator.withTrailing, () -> firstFailBranching(model, x), 4, 5);
+        AtomicInteger best = new AtomicInteger(Integer.MAX_VALUE);
+        eps.onSolution(() -> {
+            // two workers may find solutions concurrently, such that they are not reported in decreasing order
+            best.set(Math.min(best.get(), total.min()));
+        });
+        SearchStatistics stats = eps.optimize(obj);
+        assertTrue(stats.isCompleted());
+        assertEquals(6, best.get());
+    }
+}
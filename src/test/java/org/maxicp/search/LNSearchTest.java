@@ -0,0 +1,137 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.search;
+
+import org.junit.jupiter.api.Test;
+import org.maxicp.ModelDispatcher;
+import org.maxicp.modeling.Factory;
+import org.maxicp.modeling.IntVar;
+import org.maxicp.modeling.IntervalVar;
+import org.maxicp.modeling.SeqVar;
+import org.maxicp.modeling.algebra.integer.IntExpression;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.maxicp.modeling.Factory.*;
+import static org.maxicp.search.Searches.*;
+
+public class LNSearchTest {
+
+    @Test
+    public void testAssignment() {
+        // minimize sum c[i] * x[i] with x all different: the largest coefficients get the smallest values
+        int[] c = {3, 9, 1, 7, 5, 8, 2, 6};
+        int n = c.length;
+        int optimum = 0;
+        int[] sorted = Arrays.stream(c).sorted().toArray();
+        for (int i = 0; i < n; i++)
+            optimum += sorted[n - 1 - i] * i;
+
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] x = model.intVarArray(n, n);
+        model.add(allDifferent(x));
+        IntExpression cost = sum(model.intVarArray(n, i -> mul(x[i], c[i])));
+
+        LNSearch lns = new LNSearch(model, () -> firstFail(x), 2)
+                .add("random", Relaxations.random(0.5, x))
+                .add("propagationGuided", Relaxations.propagationGuided(0.3, x));
+        AtomicInteger last = new AtomicInteger(Integer.MAX_VALUE);
+        lns.onSolution(() -> {
+            // the listener is only called on improving solutions
+            assertTrue(cost.min() < last.get());
+            last.set(cost.min());
+        });
+        SearchStatistics stats = lns.optimize(minimize(cost), 300);
+        assertEquals(optimum, lns.incumbent().objective());
+        assertEquals(optimum, last.get());
+        int value = 0;
+        Set<Integer> values = new HashSet<>();
+        for (int i = 0; i < n; i++) {
+            value += c[i] * lns.incumbent().value(x[i]);
+            values.add(lns.incumbent().value(x[i]));
+        }
+        assertEquals(optimum, value);
+        assertEquals(n, values.size());
+
+        int nCalls = lns.statistics().stream().mapToInt(LNSearch.OperatorStatistics::numberOfCalls).sum();
+        assertEquals(lns.numberOfIterations(), nCalls);
+        assertTrue(lns.numberOfIterations() <= 300);
+        assertTrue(lns.statistics("random").numberOfImprovements() + lns.statistics("propagationGuided").numberOfImprovements() > 0);
+        assertTrue(stats.numberOfSolutions() > 0);
+    }
+
+    @Test
+    public void testSequence() {
+        int[][] distance = {
+                {0, 3, 7, 4, 6, 2, 0},
+                {3, 0, 5, 2, 8, 4, 3},
+                {7, 5, 0, 6, 3, 5, 7},
+                {4, 2, 6, 0, 4, 3, 4},
+                {6, 8, 3, 4, 0, 5, 6},
+                {2, 4, 5, 3, 5, 0, 2},
+                {0, 3, 7, 4, 6, 2, 0}
+        };
+        int nNodes = distance.length;
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        SeqVar route = model.seqVar(nNodes, 0, nNodes - 1);
+        IntVar totalDistance = model.intVar(0, 1000);
+        for (int node = 0; node < nNodes; node++)
+            model.add(require(route, node));
+        model.add(distance(route, distance, totalDistance));
+
+        int optimum = model.runCP(cp -> {
+            DFSearch search = cp.dfSearch(firstFail(route));
+            AtomicInteger best = new AtomicInteger();
+            search.onSolution(() -> best.set(totalDistance.min()));
+            search.optimize(minimize(totalDistance));
+            return best.get();
+        });
+
+        LNSearch lns = new LNSearch(model, () -> firstFail(route), 2)
+                .add("sequence", Relaxations.sequence(3, route));
+        lns.setFailureLimit(50);
+        lns.optimize(minimize(totalDistance), 200);
+        assertEquals(optimum, lns.incumbent().objective());
+        int[] order = lns.incumbent().order(route);
+        assertEquals(nNodes, order.length);
+        int d = 0;
+        for (int i = 0; i < nNodes - 1; i++)
+            d += distance[order[i]][order[i + 1]];
+        assertEquals(optimum, d);
+    }
+
+    @Test
+    public void testTimeWindow() {
+        // single machine, minimize the sum of the ends: the shortest tasks first
+        int[] duration = {4, 1, 3, 2};
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntervalVar[] tasks = model.intervalVarArray(duration.length, i -> model.intervalVar(0, 20, duration[i], true));
+        model.add(noOverlap(tasks));
+        IntExpression sumEnds = sum(Arrays.stream(tasks).map(Factory::end).toArray(IntExpression[]::new));
+
+        LNSearch lns = new LNSearch(model, () -> setTimes(tasks), 1)
+                .add("timeWindow", Relaxations.timeWindow(4, tasks));
+        lns.optimize(minimize(sumEnds), 100);
+        assertEquals(1 + 3 + 6 + 10, lns.incumbent().objective());
+    }
+
+    @Test
+    public void testInfeasible() {
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] x = model.intVarArray(3, 2);
+        model.add(allDifferent(x));
+        LNSearch lns = new LNSearch(model, () -> firstFail(x), 2)
+                .add("random", Relaxations.random(0.5, x));
+        SearchStatistics stats = lns.optimize(minimize(sum(x)), 10);
+        assertTrue(stats.isCompleted());
+        assertTrue(lns.isOptimal());
+        assertNull(lns.incumbent());
+    }
+}
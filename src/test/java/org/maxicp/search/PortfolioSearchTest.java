@@ -0,0 +1,133 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.search;
+
+import org.junit.jupiter.api.Test;
+import org.maxicp.ModelDispatcher;
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.modeling.Factory;
+import org.maxicp.modeling.IntVar;
+import org.maxicp.modeling.algebra.integer.IntExpression;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.maxicp.modeling.Factory.*;
+import static org.maxicp.search.Searches.*;
+
+public class PortfolioSearchTest {
+
+    @Test
+    public void testOptimize() {
+        // minimize the sum of variables all different in 0..7, the optimum is 0+1+2+3+4 = 10
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] x = model.intVarArray(5, 8);
+        model.add(allDifferent(x));
+        IntExpression total = sum(x);
+
+        PortfolioSearch portfolio = new PortfolioSearch(model)
+                .add("firstFail", () -> firstFail(x))
+                .add("cos", () -> conflictOrderingSearch(minDomVariableSelector(x), xi -> xi.max()))
+                .add("lastConflict", () -> lastConflict(minDomVariableSelector(x), xi -> xi.max()))
+                .add("lds", () -> limitedDiscrepancy(firstFail(x), 1), false);
+        AtomicInteger best = new AtomicInteger(Integer.MAX_VALUE);
+        AtomicInteger nSolutions = new AtomicInteger(0);
+        portfolio.onSolution(() -> {
+            int value = total.min();
+            assertTrue(value < best.get()); // only the improving solutions are notified
+            best.set(value);
+            nSolutions.incrementAndGet();
+        });
+        SearchStatistics stats = portfolio.optimize(minimize(total));
+        assertTrue(stats.isCompleted());
+        assertEquals(10, best.get());
+        assertTrue(Set.of("firstFail", "cos", "lastConflict").contains(portfolio.winner()));
+        assertTrue(portfolio.statistics(portfolio.winner()).isCompleted());
+        assertTrue(stats.numberOfSolutions() >= nSolutions.get());
+    }
+
+    @Test
+    public void testIncompleteOnly() {
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] x = model.intVarArray(5, 8);
+        model.add(allDifferent(x));
+        IntExpression total = sum(x);
+        PortfolioSearch portfolio = new PortfolioSearch(model)
+                .add("lds", () -> limitedDiscrepancy(firstFail(x), 0), false);
+        SearchStatistics stats = portfolio.optimize(minimize(total));
+        assertFalse(stats.isCompleted());
+        assertNull(portfolio.winner());
+        assertEquals(1, stats.numberOfSolutions());
+        assertThrows(IllegalArgumentException.class, () -> portfolio.add("lds", () -> firstFail(x)));
+    }
+
+    @Test
+    public void testSolve() {
+        int n = 10;
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] q = model.intVarArray(n, n);
+        model.add(allDifferent(q));
+        model.add(allDifferent(model.intVarArray(n, i -> q[i].plus(i))));
+        model.add(allDifferent(model.intVarArray(n, i -> q[i].minus(i))));
+
+        PortfolioSearch portfolio = new PortfolioSearch(model)
+                .add("firstFail", () -> firstFail(q))
+                .add("staticOrder", () -> staticOrder(q));
+        AtomicInteger nSolutions = new AtomicInteger(0);
+        portfolio.onSolution(() -> {
+            for (IntVar qi : q)
+                assertTrue(qi.isFixed());
+            nSolutions.incrementAndGet();
+        });
+        SearchStatistics stats = portfolio.solve();
+        assertTrue(stats.isCompleted());
+        assertEquals(1, nSolutions.get());
+        assertNotNull(portfolio.winner());
+    }
+
+    @Test
+    public void testInfeasible() {
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] x = model.intVarArray(3, 2);
+        model.add(allDifferent(x));
+        PortfolioSearch portfolio = new PortfolioSearch(model)
+                .add("firstFail", () -> firstFail(x))
+                .add("staticOrder", () -> staticOrder(x));
+        SearchStatistics stats = portfolio.solve();
+        assertTrue(stats.isCompleted());
+        assertEquals(0, stats.numberOfSolutions());
+        assertNotNull(portfolio.winner());
+    }
+
+    @Test
+    public void testRestartConfigurations() {
+        // minimize the sum of variables all different in 0..7, the optimum is 0+1+2+3+4+5 = 15
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] x = model.intVarArray(6, 8);
+        for (int i = 0; i < x.length; i++)
+            for (int j = i + 1; j < x.length; j++)
+                model.add(neq(x[i], x[j]));
+        IntExpression total = sum(x);
+
+        PortfolioSearch portfolio = new PortfolioSearch(model)
+                .addRestart("domWdeg", x, Searches::domWdeg, CPIntVar::max, RestartPolicy.luby(1))
+                .addRestart("activity", x, Searches::activity, CPIntVar::max, RestartPolicy.luby(2))
+                .add("lds", () -> limitedDiscrepancy(firstFail(x), 1), false);
+        AtomicInteger best = new AtomicInteger(Integer.MAX_VALUE);
+        portfolio.onSolution(() -> {
+            assertTrue(total.min() < best.get());
+            best.set(total.min());
+        });
+        SearchStatistics stats = portfolio.optimize(minimize(total));
+        assertTrue(stats.isCompleted());
+        assertEquals(15, best.get());
+        assertTrue(Set.of("domWdeg", "activity").contains(portfolio.winner()));
+        assertNotNull(portfolio.restartSearch(portfolio.winner()));
+        assertNull(portfolio.restartSearch("lds"));
+        assertThrows(IllegalArgumentException.class, () -> portfolio.addRestart("lds", x, Searches::domWdeg, CPIntVar::min, RestartPolicy.luby(1)));
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.maxicp.cp.CPFactory;
+import org.maxicp.cp.CPSolverTest;
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.cp.engine.core.CPSolver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.maxicp.search.Searches.selectMin;
+
+public class RestartSearchTest extends CPSolverTest {
+
+    @Test
+    public void testLuby() {
+        int[] expected = {1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8, 1};
+        RestartPolicy luby = RestartPolicy.luby(10);
+        for (int i = 0; i < expected.length; i++)
+            assertEquals(10 * expected[i], luby.failureLimit(i + 1));
+    }
+
+    @Test
+    public void testGeometric() {
+        RestartPolicy geometric = RestartPolicy.geometric(10, 1.5);
+        assertEquals(10, geometric.failureLimit(1));
+        assertEquals(15, geometric.failureLimit(2));
+        assertEquals(23, geometric.failureLimit(3));
+        assertEquals(Integer.MAX_VALUE, geometric.failureLimit(1000));
+    }
+
+    private static CPIntVar[] nQueens(CPSolver cp, int n) {
+        CPIntVar[] q = CPFactory.makeIntVarArray(cp, n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = i + 1; j < n; j++) {
+                cp.post(CPFactory.neq(q[i], q[j]));
+                cp.post(CPFactory.neq(q[i], q[j], j - i));
+                cp.post(CPFactory.neq(q[i], q[j], i - j));
+            }
+        return q;
+    }
+
+    private static Supplier<CPIntVar> minDom(CPIntVar[] x) {
+        return () -> selectMin(x, xi -> !xi.isFixed(), CPIntVar::size);
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testAllSolutions(CPSolver cp) {
+        CPIntVar[] q = nQueens(cp, 8);
+        for (RestartPolicy policy : new RestartPolicy[]{RestartPolicy.luby(1), RestartPolicy.geometric(2, 1.3)}) {
+            RestartSearch search = new RestartSearch(cp, minDom(q), CPIntVar::min, policy);
+            Set<String> solutions = new HashSet<>();
+            search.onSolution(() -> {
+                // each solution is found once
+                assertTrue(solutions.add(Arrays.toString(Arrays.stream(q).mapToInt(CPIntVar::min).toArray())));
+            });
+            SearchStatistics stats = search.solve();
+            assertTrue(stats.isCompleted());
+            assertEquals(92, stats.numberOfSolutions());
+            assertTrue(search.numberOfRestarts() > 0);
+            assertTrue(search.numberOfNoGoods() > 0);
+            // the nogoods are removed after the search
+            assertEquals(92, CPFactory.makeDfs(cp, Searches.firstFail(q)).solve().numberOfSolutions());
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testFirstSolution(CPSolver cp) {
+        CPIntVar[] q = nQueens(cp, 20);
+        RestartSearch search = new RestartSearch(cp, minDom(q), CPIntVar::max, RestartPolicy.luby(2));
+        search.onSolution(() -> {
+            for (int i = 0; i < q.length; i++)
+                for (int j = i + 1; j < q.length; j++) {
+                    assertNotEquals(q[i].min(), q[j].min());
+                    assertNotEquals(q[i].min() + i, q[j].min() + j);
+                    assertNotEquals(q[i].min() - i, q[j].min() - j);
+                }
+        });
+        SearchStatistics stats = search.solve(s -> s.numberOfSolutions() == 1);
+        assertEquals(1, stats.numberOfSolutions());
+        assertFalse(stats.isCompleted());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testInfeasible(CPSolver cp) {
+        // pigeon hole
+        CPIntVar[] x = CPFactory.makeIntVarArray(cp, 6, 5);
+        for (int i = 0; i < x.length; i++)
+            for (int j = i + 1; j < x.length; j++)
+                cp.post(CPFactory.neq(x[i], x[j]));
+        RestartSearch search = new RestartSearch(cp, minDom(x), CPIntVar::min, RestartPolicy.geometric(1, 1.1));
+        SearchStatistics stats = search.solve();
+        assertTrue(stats.isCompleted());
+        assertEquals(0, stats.numberOfSolutions());
+        assertTrue(search.numberOfRestarts() > 0);
+    }
+
+    private static CPIntVar[] pigeonHole(CPSolver cp) {
+        CPIntVar[] x = CPFactory.makeIntVarArray(cp, 7, 6);
+        for (int i = 0; i < x.length; i++)
+            for (int j = i + 1; j < x.length; j++)
+                cp.post(CPFactory.neq(x[i], x[j]));
+        return x;
+    }
+
+    @Test
+    public void testNoGoodExchange() {
+        // the nogoods of a first search, on the indices of its variables
+        List<int[][]> published = new ArrayList<>();
+        CPIntVar[] x = pigeonHole(CPFactory.makeSolver());
+        RestartSearch first = new RestartSearch(x[0].getSolver(), minDom(x), CPIntVar::min, RestartPolicy.geometric(1, 1.1));
+        first.setNoGoodExchange(new RestartSearch.NoGoodExchange() {
+            @Override
+            public void publish(CPIntVar[] vars, int[] v) {
+                int[] ix = Arrays.stream(vars).mapToInt(xi -> Arrays.asList(x).indexOf(xi)).toArray();
+                published.add(new int[][]{ix, v.clone()});
+            }
+
+            @Override
+            public void receive(BiConsumer<CPIntVar[], int[]> post) {
+            }
+        });
+        SearchStatistics firstStats = first.solve();
+        assertTrue(firstStats.isCompleted());
+        assertEquals(first.numberOfNoGoods(), published.size());
+
+        // a second search on another solver receives them at its first restart
+        CPIntVar[] y = pigeonHole(CPFactory.makeSolver());
+        RestartSearch second = new RestartSearch(y[0].getSolver(), minDom(y), CPIntVar::min, RestartPolicy.geometric(1, 1.1));
+        second.setNoGoodExchange(new RestartSearch.NoGoodExchange() {
+            private boolean received = false;
+
+            @Override
+            public void publish(CPIntVar[] vars, int[] v) {
+            }
+
+            @Override
+            public void receive(BiConsumer<CPIntVar[], int[]> post) {
+                if (received)
+                    return;
+                received = true;
+                for (int[][] noGood : published)
+                    post.accept(Arrays.stream(noGood[0]).mapToObj(i -> y[i]).toArray(CPIntVar[]::new), noGood[1]);
+            }
+        });
+        SearchStatistics secondStats = second.solve();
+        assertTrue(secondStats.isCompleted());
+        assertEquals(0, secondStats.numberOfSolutions());
+        assertTrue(second.numberOfReceivedNoGoods() > 0);
+        assertTrue(secondStats.numberOfFailures() < firstStats.numberOfFailures());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testOptimize(CPSolver cp) {
+        CPIntVar[] x = CPFactory.makeIntVarArray(cp, 6, 8);
+        for (int i = 0; i < x.length; i++)
+            for (int j = i + 1; j < x.length; j++)
+                cp.post(CPFactory.neq(x[i], x[j]));
+        // maximize the sum of the differences between consecutive variables
+        CPIntVar[] diff = new CPIntVar[x.length - 1];
+        for (int i = 0; i < diff.length; i++)
+            diff[i] = CPFactory.abs(CPFactory.sum(x[i], CPFactory.minus(x[i + 1])));
+        CPIntVar obj = CPFactory.sum(diff);
+
+        int[] bestDfs = new int[]{Integer.MIN_VALUE};
+        DFSearch dfs = CPFactory.makeDfs(cp, Searches.firstFail(x));
+        dfs.onSolution(() -> bestDfs[0] = obj.min());
+        dfs.optimize(cp.maximize(obj));
+
+        RestartSearch search = new RestartSearch(cp, minDom(x), CPIntVar::min, RestartPolicy.luby(5));
+        int[] best = new int[]{Integer.MIN_VALUE};
+        search.onSolution(() -> {
+            assertTrue(obj.min() > best[0]);
+            best[0] = obj.min();
+        });
+        SearchStatistics stats = search.optimize(cp.maximize(obj));
+        assertTrue(stats.isCompleted());
+        assertEquals(bestDfs[0], best[0]);
+        assertTrue(search.numberOfRestarts() > 0);
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.search;
+
+import org.junit.jupiter.api.Test;
+import org.maxicp.cp.CPFactory;
+import org.maxicp.cp.engine.constraints.AllDifferentFWC;
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.cp.engine.core.CPSolver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.maxicp.cp.CPFactory.*;
+
+public class SearchCheckpointTest {
+
+    private static final int[] COST = {5, 1, 7, 3, 8, 2, 6, 4};
+
+    /**
+     * A fresh n-queens solver, as after a restart of the JVM
+     */
+    private static CPIntVar[] queens(int n) {
+        CPSolver cp = CPFactory.makeSolver();
+        CPIntVar[] q = CPFactory.makeIntVarArray(cp, n, n);
+        CPIntVar[] qL = CPFactory.makeIntVarArray(n, i -> minus(q[i], i));
+        CPIntVar[] qR = CPFactory.makeIntVarArray(n, i -> plus(q[i], i));
+        cp.post(new AllDifferentFWC(q));
+        cp.post(new AllDifferentFWC(qL));
+        cp.post(new AllDifferentFWC(qR));
+        return q;
+    }
+
+    private static CPIntVar cost(CPIntVar[] q) {
+        return sum(CPFactory.makeIntVarArray(q.length, i -> mul(q[i], COST[i])));
+    }
+
+    @Test
+    public void testResumeSolve() throws IOException {
+        Path dir = Files.createTempDirectory("maxicp");
+        dir.toFile().deleteOnExit();
+        int n = 8;
+        CPIntVar[] q0 = queens(n);
+        SearchStatistics full = CPFactory.makeDfs(q0[0].getSolver(), Searches.firstFail(q0)).solve();
+
+        Path file = dir.resolve("nqueens.ckpt");
+        file.toFile().deleteOnExit();
+        SearchCheckpoint checkpoint = null;
+        int nRuns = 0;
+        AtomicInteger nSolutions = new AtomicInteger();
+        do {
+            CPIntVar[] q = queens(n);
+            DFSearch search = CPFactory.makeDfs(q[0].getSolver(), Searches.firstFail(q));
+            search.onSolution(nSolutions::incrementAndGet);
+            search.setCheckpoint(file, 0, q);
+            if (checkpoint != null)
+                search.resumeFrom(checkpoint);
+            int maxNodes = 20 * (nRuns + 1);
+            SearchStatistics stats = search.solve(s -> s.numberOfNodes() >= maxNodes);
+            checkpoint = SearchCheckpoint.read(file);
+            assertEquals(stats, checkpoint.statistics());
+            nRuns++;
+        } while (!checkpoint.isCompleted());
+
+        assertTrue(nRuns > 2);
+        assertEquals(full.numberOfSolutions(), nSolutions.get());
+        assertEquals(full.numberOfSolutions(), checkpoint.statistics().numberOfSolutions());
+        assertEquals(full.numberOfNodes(), checkpoint.statistics().numberOfNodes());
+        assertEquals(full.numberOfFailures(), checkpoint.statistics().numberOfFailures());
+        assertNotNull(checkpoint.incumbent());
+        assertEquals(n, checkpoint.incumbent().length);
+    }
+
+    @Test
+    public void testResumeOptimize() throws IOException {
+        Path dir = Files.createTempDirectory("maxicp");
+        dir.toFile().deleteOnExit();
+        int n = 8;
+        CPIntVar[] q0 = queens(n);
+        CPIntVar cost0 = cost(q0);
+        AtomicInteger best = new AtomicInteger();
+        DFSearch search0 = CPFactory.makeDfs(q0[0].getSolver(), Searches.firstFail(q0));
+        search0.onSolution(() -> best.set(cost0.min()));
+        SearchStatistics full = search0.optimize(q0[0].getSolver().minimize(cost0));
+
+        Path file = dir.resolve("nqueens.ckpt");
+        file.toFile().deleteOnExit();
+        SearchCheckpoint checkpoint = null;
+        int totalNodes = 0;
+        do {
+            CPIntVar[] q = queens(n);
+            CPIntVar cost = cost(q);
+            CPIntVar[] solution = new CPIntVar[n + 1];
+            System.arraycopy(q, 0, solution, 0, n);
+            solution[n] = cost;
+            DFSearch search = CPFactory.makeDfs(q[0].getSolver(), Searches.firstFail(q));
+            search.setCheckpoint(file, 0, solution);
+            if (checkpoint != null) {
+                search.resumeFrom(checkpoint);
+                int bound = checkpoint.bound();
+                search.onSolution(() -> assertTrue(cost.min() <= bound));
+            }
+            int before = checkpoint == null ? 0 : checkpoint.statistics().numberOfNodes();
+            SearchStatistics stats = search.optimize(q[0].getSolver().minimize(cost), s -> s.numberOfNodes() >= before + 15);
+            totalNodes += stats.numberOfNodes() - before;
+            checkpoint = SearchCheckpoint.read(file);
+        } while (!checkpoint.isCompleted());
+
+        assertEquals(best.get(), checkpoint.incumbent()[n]);
+        int value = 0;
+        for (int i = 0; i < n; i++)
+            value += COST[i] * checkpoint.incumbent()[i];
+        assertEquals(best.get(), value);
+        assertEquals(best.get() - 1, checkpoint.bound());
+        // the nodes of the branches cut by a better bound are not explored again
+        assertTrue(totalNodes <= full.numberOfNodes());
+    }
+
+    @Test
+    public void testPeriodicCheckpoints() throws IOException {
+        Path dir = Files.createTempDirectory("maxicp");
+        dir.toFile().deleteOnExit();
+        CPIntVar[] q = queens(10);
+        Path file = dir.resolve("nqueens.ckpt");
+        file.toFile().deleteOnExit();
+        DFSearch search = CPFactory.makeDfs(q[0].getSolver(), Searches.firstFail(q));
+        search.setCheckpoint(file, 0);
+        AtomicInteger nValid = new AtomicInteger();
+        search.onSolution(() -> {
+            // a checkpoint file is always complete, being replaced atomically
+            if (Files.exists(file)) {
+                SearchCheckpoint c = SearchCheckpoint.read(file);
+                assertFalse(c.isCompleted());
+                assertTrue(c.branch().length > 0);
+                nValid.incrementAndGet();
+            }
+        });
+        SearchStatistics stats = search.solve();
+        assertTrue(nValid.get() > 0);
+        SearchCheckpoint checkpoint = SearchCheckpoint.read(file);
+        assertTrue(checkpoint.isCompleted());
+        assertEquals(stats, checkpoint.statistics());
+        assertNull(checkpoint.incumbent());
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void testFailedCheckpointDoesNotMaskSearchFailure() throws IOException {
+        Path dir = Files.createTempDirectory("maxicp");
+        dir.toFile().deleteOnExit();
+        CPIntVar[] q = queens(8);
+        // the checkpoints cannot be written in a missing directory
+        DFSearch search = CPFactory.makeDfs(q[0].getSolver(), Searches.firstFail(q));
+        search.setCheckpoint(dir.resolve("missing").resolve("nqueens.ckpt"), 0);
+        IllegalStateException failure = new IllegalStateException();
+        search.onSolution(() -> {
+            throw failure;
+        });
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, search::solve);
+        assertSame(failure, thrown);
+        assertEquals(1, thrown.getSuppressed().length);
+        assertTrue(thrown.getSuppressed()[0] instanceof UncheckedIOException);
+
+        // without a failure of the search, the failure of the checkpoints is reported
+        q = queens(8);
+        search = CPFactory.makeDfs(q[0].getSolver(), Searches.firstFail(q));
+        search.setCheckpoint(dir.resolve("missing").resolve("nqueens.ckpt"), 0);
+        assertThrows(UncheckedIOException.class, search::solve);
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.search;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.maxicp.cp.CPFactory;
+import org.maxicp.cp.CPSolverTest;
+import org.maxicp.cp.engine.core.AbstractCPConstraint;
+import org.maxicp.cp.engine.core.CPConstraint;
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.cp.engine.core.CPSolver;
+import org.maxicp.util.exception.InconsistencyException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.maxicp.search.Searches.*;
+
+public class WeightedSearchesTest extends CPSolverTest {
+
+    private static Supplier<Runnable[]> binary(CPSolver cp, Supplier<CPIntVar> variableSelector) {
+        return () -> {
+            CPIntVar x = variableSelector.get();
+            if (x == null)
+                return EMPTY;
+            int v = x.min();
+            return branch(() -> cp.post(CPFactory.eq(x, v)), () -> cp.post(CPFactory.neq(x, v)));
+        };
+    }
+
+    private static CPIntVar[] nQueens(CPSolver cp, int n) {
+        CPIntVar[] q = CPFactory.makeIntVarArray(cp, n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = i + 1; j < n; j++) {
+                cp.post(CPFactory.neq(q[i], q[j]));
+                cp.post(CPFactory.neq(q[i], q[j], j - i));
+                cp.post(CPFactory.neq(q[i], q[j], i - j));
+            }
+        return q;
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testFailureAttribution(CPSolver cp) {
+        CPIntVar x = CPFactory.makeIntVar(cp, 2);
+        CPIntVar y = CPFactory.makeIntVar(cp, 2);
+        CPIntVar z = CPFactory.makeIntVar(cp, 2);
+        cp.post(CPFactory.neq(x, y));
+        cp.post(CPFactory.neq(x, z));
+        CPConstraint neq = CPFactory.neq(y, z);
+        cp.post(neq);
+        List<CPConstraint> failed = new ArrayList<>();
+        cp.onFailure(failed::add);
+        assertEquals(1, neq.weight());
+        cp.getStateManager().saveState();
+        // y and z are fixed to 1 and x != z fails
+        assertThrows(InconsistencyException.class, () -> cp.post(CPFactory.eq(x, 0)));
+        cp.getStateManager().restoreState();
+        // the weight is not restored on backtrack
+        assertEquals(2, neq.weight());
+        assertEquals(List.of(neq), failed);
+        // a decision failing when it is posted is also recorded
+        CPIntVar w = CPFactory.makeIntVar(cp, 2);
+        cp.getStateManager().saveState();
+        cp.post(CPFactory.eq(w, 0));
+        CPConstraint decision = CPFactory.eq(w, 1);
+        assertThrows(InconsistencyException.class, () -> cp.post(decision));
+        cp.getStateManager().restoreState();
+        assertEquals(2, decision.weight());
+        assertEquals(List.of(neq, decision), failed);
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testRemoveFailureListener(CPSolver cp) {
+        CPIntVar x = CPFactory.makeIntVar(cp, 2);
+        CPIntVar y = CPFactory.makeIntVar(cp, 2);
+        cp.post(CPFactory.neq(x, y));
+        int[] calls = new int[2];
+        Runnable[] removeFirst = new Runnable[1];
+        removeFirst[0] = cp.onFailure(c -> {
+            calls[0]++;
+            removeFirst[0].run();
+        });
+        Runnable removeSecond = cp.onFailure(c -> calls[1]++);
+        for (int i = 0; i < 2; i++) {
+            cp.getStateManager().saveState();
+            assertThrows(InconsistencyException.class, () -> {
+                cp.post(CPFactory.eq(x, 0));
+                cp.post(CPFactory.eq(y, 0));
+            });
+            cp.getStateManager().restoreState();
+        }
+        // the listener removing itself does not hide the next one
+        assertArrayEquals(new int[]{1, 2}, calls);
+        removeSecond.run();
+        removeSecond.run();
+        cp.getStateManager().saveState();
+        assertThrows(InconsistencyException.class, () -> cp.post(CPFactory.eq(x, 2)));
+        cp.getStateManager().restoreState();
+        assertArrayEquals(new int[]{1, 2}, calls);
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testWeightedDegree(CPSolver cp) {
+        // pigeonhole: 3 pigeons in 2 holes
+        CPIntVar[] x = CPFactory.makeIntVarArray(cp, 3, 2);
+        for (int i = 0; i < x.length; i++)
+            for (int j = i + 1; j < x.length; j++)
+                cp.post(CPFactory.neq(x[i], x[j]));
+        assertEquals(2, x[1].weightedDegree());
+        cp.getStateManager().saveState();
+        assertThrows(InconsistencyException.class, () -> cp.post(CPFactory.eq(x[0], 0)));
+        cp.getStateManager().restoreState();
+        // x1 != x2 failed
+        assertEquals(2, x[0].weightedDegree());
+        assertEquals(3, x[1].weightedDegree());
+        assertEquals(3, x[2].weightedDegree());
+        // the views share the weighted degree of their variable
+        assertEquals(3, CPFactory.minus(x[1]).weightedDegree());
+        assertEquals(3, CPFactory.plus(x[1], 3).weightedDegree());
+        assertEquals(0, CPFactory.makeIntVar(cp, 1).weightedDegree());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testDomWdegCountsConstraintsWithOtherUnfixedVariables(CPSolver cp) {
+        CPIntVar a = CPFactory.makeIntVar(cp, 3);
+        CPIntVar b = CPFactory.makeIntVar(cp, 3);
+        CPIntVar d = CPFactory.makeIntVar(cp, 3);
+        // fails as soon as a is fixed, b is registered for several events
+        CPConstraint c = new AbstractCPConstraint(cp) {
+            @Override
+            public void post() {
+                a.propagateOnFix(this);
+                b.propagateOnDomainChange(this);
+                b.propagateOnBoundChange(this);
+            }
+
+            @Override
+            public void propagate() {
+                if (a.isFixed())
+                    throw InconsistencyException.INCONSISTENCY;
+            }
+        };
+        cp.post(c);
+        cp.post(CPFactory.neq(b, d));
+        // each constraint is counted once
+        assertEquals(2, b.weightedDegree());
+        Supplier<CPIntVar> domWdeg = domWdeg(a, b, d);
+        assertSame(b, domWdeg.get());
+        cp.getStateManager().saveState();
+        assertThrows(InconsistencyException.class, () -> cp.post(CPFactory.eq(a, 0)));
+        cp.getStateManager().restoreState();
+        assertEquals(3, b.weightedDegree());
+        // a had the unfixed variable b in the failed constraint, b had no other unfixed variable
+        assertSame(a, domWdeg.get());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testFailuresAfterTheSearchAreIgnored(CPSolver cp) {
+        CPIntVar a = CPFactory.makeIntVar(cp, 3);
+        CPIntVar b = CPFactory.makeIntVar(cp, 3);
+        CPIntVar d = CPFactory.makeIntVar(cp, 3);
+        CPConstraint c = new AbstractCPConstraint(cp) {
+            @Override
+            public void post() {
+                a.propagateOnFix(this);
+                b.propagateOnDomainChange(this);
+            }
+
+            @Override
+            public void propagate() {
+                if (a.isFixed())
+                    throw InconsistencyException.INCONSISTENCY;
+            }
+        };
+        cp.post(c);
+        cp.post(CPFactory.neq(b, d));
+        Supplier<CPIntVar> domWdeg = domWdeg(a, b, d);
+        // a search using the selector, ending when its state is restored
+        cp.getStateManager().withNewState(() -> assertSame(b, domWdeg.get()));
+        cp.getStateManager().saveState();
+        assertThrows(InconsistencyException.class, () -> cp.post(CPFactory.eq(a, 0)));
+        cp.getStateManager().restoreState();
+        // the failure outside of a search using the selector is not counted, as a would be selected otherwise
+        cp.getStateManager().withNewState(() -> assertSame(b, domWdeg.get()));
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testDomWdegFocusesOnConflict(CPSolver cp) {
+        // the four last variables cannot be all different, the four first ones are free
+        CPIntVar[] x = CPFactory.makeIntVarArray(cp, 8, 8);
+        for (int i = 4; i < 8; i++)
+            x[i].removeAbove(2);
+        cp.post(CPFactory.allDifferent(Arrays.copyOfRange(x, 4, 8)));
+
+        SearchStatistics staticOrder = CPFactory.makeDfs(cp, binary(cp, () -> {
+            for (CPIntVar xi : x)
+                if (!xi.isFixed())
+                    return xi;
+            return null;
+        })).solve();
+        SearchStatistics wdeg = CPFactory.makeDfs(cp, binary(cp, domWdeg(x))).solve();
+        assertEquals(0, wdeg.numberOfSolutions());
+        assertTrue(wdeg.numberOfFailures() < staticOrder.numberOfFailures());
+    }
+
+    private static List<Function<CPIntVar[], Supplier<CPIntVar>>> selectors() {
+        return List.of(Searches::domWdeg, Searches::activity, Searches::conflictHistory);
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testAllSolutions(CPSolver cp) {
+        for (Function<CPIntVar[], Supplier<CPIntVar>> selector : selectors()) {
+            cp.getStateManager().saveState();
+            CPIntVar[] q = nQueens(cp, 8);
+            SearchStatistics stats = CPFactory.makeDfs(cp, binary(cp, selector.apply(q))).solve();
+            assertTrue(stats.isCompleted());
+            assertEquals(92, stats.numberOfSolutions());
+            cp.getStateManager().restoreState();
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testWithRestarts(CPSolver cp) {
+        for (Function<CPIntVar[], Supplier<CPIntVar>> selector : selectors()) {
+            cp.getStateManager().saveState();
+            // pigeonhole: 6 pigeons in 5 holes
+            CPIntVar[] x = CPFactory.makeIntVarArray(cp, 6, 5);
+            for (int i = 0; i < x.length; i++)
+                for (int j = i + 1; j < x.length; j++)
+                    cp.post(CPFactory.neq(x[i], x[j]));
+            RestartSearch search = new RestartSearch(cp, selector.apply(x), CPIntVar::min, RestartPolicy.luby(5));
+            SearchStatistics stats = search.solve();
+            assertTrue(stats.isCompleted());
+            assertEquals(0, stats.numberOfSolutions());
+            cp.getStateManager().restoreState();
+        }
+    }
+}
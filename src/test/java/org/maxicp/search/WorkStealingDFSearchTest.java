@@ -0,0 +1,131 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.search;
+
+import org.junit.jupiter.api.Test;
+import org.maxicp.ModelDispatcher;
+import org.maxicp.cp.modeling.CPModelInstantiator;
+import org.maxicp.modeling.Factory;
+import org.maxicp.modeling.IntVar;
+import org.maxicp.modeling.SymbolicBranching;
+import org.maxicp.modeling.algebra.integer.IntExpression;
+import org.maxicp.modeling.symbolic.Objective;
+import org.maxicp.modeling.symbolic.SymbolicModel;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.maxicp.modeling.Factory.*;
+import static org.maxicp.search.Searches.*;
+
+public class WorkStealingDFSearchTest {
+
+    private static Supplier<SymbolicModel[]> firstFailBranching(ModelDispatcher model, IntExpression[] x) {
+        return SymbolicBranching.toSymbolicBranching(() -> {
+            IntExpression xs = selectMin(x, xi -> xi.size() > 1, xi -> xi.size());
+            if (xs == null)
+                return EMPTY;
+            int v = xs.min();
+            return branch(() -> model.add(eq(xs, v)), () -> model.add(neq(xs, v)));
+        }, model);
+    }
+
+    private static IntVar[] nQueens(ModelDispatcher model, int n) {
+        IntVar[] q = model.intVarArray(n, n);
+        IntExpression[] qL = model.intVarArray(n, i -> q[i].plus(i));
+        IntExpression[] qR = model.intVarArray(n, i -> q[i].minus(i));
+        model.add(allDifferent(q));
+        model.add(allDifferent(qL));
+        model.add(allDifferent(qR));
+        return q;
+    }
+
+    @Test
+    public void testNQueens() {
+        int n = 9;
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] q = nQueens(model, n);
+
+        SearchStatistics sequential = model.runCP(cp -> {
+            return cp.concurrentDFSearch(firstFailBranching(model, q)).solve();
+        });
+        assertEquals(352, sequential.numberOfSolutions());
+
+        for (int nWorkers : new int[]{1, 4}) {
+            WorkStealingDFSearch search = new WorkStealingDFSearch(model, CPModelInstantiator.withTrailing, firstFailBranching(model, q), nWorkers);
+            AtomicInteger nSolutions = new AtomicInteger(0);
+            search.onSolution(() -> {
+                // the listener sees the solution of the worker
+                for (int i = 0; i < n; i++)
+                    assertTrue(q[i].isFixed());
+                nSolutions.incrementAndGet();
+            });
+            SearchStatistics stats = search.solve();
+            assertTrue(stats.isCompleted());
+            assertEquals(352, stats.numberOfSolutions());
+            assertEquals(352, nSolutions.get());
+            // the same tree is explored, whatever the worker exploring each node
+            assertEquals(sequential.numberOfNodes(), stats.numberOfNodes());
+            assertEquals(sequential.numberOfFailures(), stats.numberOfFailures());
+            if (nWorkers == 1)
+                assertEquals(0, search.numberOfSteals());
+        }
+    }
+
+    @Test
+    public void testCancelledStealKeepsTheNode() {
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] q = nQueens(model, 6);
+        SearchStatistics stats = model.runCP(cp -> {
+            Supplier<SymbolicModel[]> branching = firstFailBranching(model, q);
+            ConcurrentDFSearch[] search = new ConcurrentDFSearch[1];
+            AtomicInteger nCalls = new AtomicInteger();
+            search[0] = cp.concurrentDFSearch(() -> {
+                if (nCalls.incrementAndGet() == 2) {
+                    // cancelled before the search answers it, no node may be extracted for it
+                    Future<SymbolicModel> request = search[0].steal();
+                    assertTrue(request.cancel(false));
+                }
+                return branching.get();
+            });
+            return search[0].solve();
+        });
+        assertTrue(stats.isCompleted());
+        assertEquals(4, stats.numberOfSolutions());
+    }
+
+    @Test
+    public void testInfeasibleRoot() {
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] x = model.intVarArray(3, 2);
+        model.add(allDifferent(x));
+        WorkStealingDFSearch search = new WorkStealingDFSearch(model, CPModelInstantiator.withTrailing, firstFailBranching(model, x), 3);
+        SearchStatistics stats = search.solve();
+        assertTrue(stats.isCompleted());
+        assertEquals(0, stats.numberOfSolutions());
+    }
+
+    @Test
+    public void testOptimize() {
+        // minimize the sum of variables all different in 0..5, the optimum is 0+1+2+3 = 6
+        ModelDispatcher model = Factory.makeModelDispatcher();
+        IntVar[] x = model.intVarArray(4, 6);
+        model.add(allDifferent(x));
+        IntExpression total = sum(x);
+        Objective obj = minimize(total);
+        WorkStealingDFSearch search = new WorkStealingDFSearch(model, CPModelInstantiator.withTrailing, firstFailBranching(model, x), 3);
+        AtomicInteger best = new AtomicInteger(Integer.MAX_VALUE);
+        search.onSolution(() -> {
+            // two workers may find solutions concurrently, such that they are not reported in decreasing order
+            best.set(Math.min(best.get(), total.min()));
+        });
+        SearchStatistics stats = search.optimize(obj);
+        assertTrue(stats.isCompleted());
+        assertEquals(6, best.get());
+    }
+}
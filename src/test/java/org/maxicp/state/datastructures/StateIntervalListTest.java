@@ -0,0 +1,188 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2023 UCLouvain
+ */
+
+package org.maxicp.state.datastructures;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.maxicp.state.StateManager;
+import org.maxicp.state.StateManagerTest;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class StateIntervalListTest extends StateManagerTest {
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testExample(StateManager sm) {
+        StateIntervalList set = new StateIntervalList(sm, 0, 9);
+
+        sm.saveState();
+
+        set.remove(4);
+        set.remove(6);
+
+        assertFalse(set.contains(4));
+        assertFalse(set.contains(6));
+        assertEquals(8, set.size());
+        assertEquals(3, set.nRanges());
+
+        sm.restoreState();
+
+        assertTrue(set.contains(4));
+        assertTrue(set.contains(6));
+        assertEquals(10, set.size());
+        assertEquals(1, set.nRanges());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void instantiateFromSet(StateManager sm) {
+        StateIntervalList set = new StateIntervalList(sm, new HashSet<>(Arrays.asList(0, 4, 5, 9)));
+
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(4));
+        assertTrue(set.contains(5));
+        assertTrue(set.contains(9));
+        assertFalse(set.contains(1));
+        assertEquals(4, set.size());
+        assertEquals(3, set.nRanges());
+        assertEquals("{0,4..5,9}", set.toString());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testBounds(StateManager sm) {
+        StateIntervalList set = new StateIntervalList(sm, new HashSet<>(Arrays.asList(0, 1, 2, 5, 6, 10, 11)));
+
+        sm.saveState();
+
+        set.removeBelow(3);
+        assertEquals(5, set.min());
+        assertEquals(4, set.size());
+
+        set.removeAbove(9);
+        assertEquals(6, set.max());
+        assertEquals(2, set.size());
+
+        set.remove(5);
+        assertEquals(6, set.min());
+        assertEquals(1, set.size());
+
+        sm.restoreState();
+
+        assertEquals(0, set.min());
+        assertEquals(11, set.max());
+        assertEquals(7, set.size());
+
+        set.removeAllBut(10);
+        assertEquals(1, set.size());
+        assertTrue(set.contains(10));
+
+        set.removeAll();
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.size());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testHugeDomain(StateManager sm) {
+        StateIntervalList set = new StateIntervalList(sm, 0, 100000000);
+        sm.saveState();
+        for (int i = 1; i < 1000; i++) {
+            set.remove(i * 1000);
+        }
+        assertEquals(100000001 - 999, set.size());
+        assertEquals(1000, set.nRanges());
+        set.removeBelow(500000);
+        assertEquals(500001, set.min());
+        set.removeAbove(600000);
+        assertEquals(599999, set.max());
+        assertEquals(599999 - 500001 + 1 - 99, set.size());
+        sm.restoreState();
+        assertEquals(100000001, set.size());
+        assertEquals(1, set.nRanges());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testManyNestedHoles(StateManager sm) {
+        // one level per hole, the trail must not keep a copy of all the ranges per level
+        int n = 20000;
+        StateIntervalList set = new StateIntervalList(sm, 0, 10 * n);
+        TreeSet<Integer> removed = new TreeSet<>();
+        Random rand = new Random(42);
+        for (int i = 0; i < n; i++) {
+            sm.saveState();
+            int v = 1 + rand.nextInt(10 * n - 1);
+            assertEquals(removed.add(v), set.remove(v));
+        }
+        assertEquals(10 * n + 1 - removed.size(), set.size());
+        int[] values = new int[set.size()];
+        assertEquals(set.size(), set.fillArray(values));
+        for (int i = 1; i < values.length; i++)
+            assertTrue(values[i - 1] < values[i]);
+        for (int v : removed)
+            assertFalse(set.contains(v));
+        sm.restoreStateUntil(-1);
+        assertEquals(10 * n + 1, set.size());
+        assertEquals(1, set.nRanges());
+        assertTrue(set.contains(removed.first()));
+    }
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testRandomAgainstTreeSet(StateManager sm) {
+        Random rand = new Random(42);
+        StateIntervalList set = new StateIntervalList(sm, -10, 40);
+        TreeSet<Integer> ref = new TreeSet<>();
+        for (int v = -10; v <= 40; v++) ref.add(v);
+        int[] delta = new int[51];
+        int[] values = new int[51];
+        for (int level = 0; level < 10; level++) {
+            sm.saveState();
+            for (int i = 0; i < 5 && ref.size() > 1; i++) {
+                int oldMin = set.min(), oldMax = set.max(), oldSize = set.size();
+                TreeSet<Integer> before = new TreeSet<>(ref);
+                int v = rand.nextInt(55) - 12;
+                switch (rand.nextInt(3)) {
+                    case 0 -> {
+                        assertEquals(ref.remove(v), set.remove(v));
+                    }
+                    case 1 -> {
+                        if (v <= ref.last()) {
+                            set.removeBelow(v);
+                            ref.removeIf(x -> x < v);
+                        }
+                    }
+                    default -> {
+                        if (v >= ref.first()) {
+                            set.removeAbove(v);
+                            ref.removeIf(x -> x > v);
+                        }
+                    }
+                }
+                before.removeAll(ref);
+                int s = set.fillDeltaArray(oldMin, oldMax, oldSize, delta);
+                TreeSet<Integer> removed = new TreeSet<>();
+                for (int j = 0; j < s; j++) removed.add(delta[j]);
+                assertEquals(before, removed);
+                assertEquals(ref.size(), set.size());
+                assertEquals(ref.first(), set.min());
+                assertEquals(ref.last(), set.max());
+                int n = set.fillArray(values);
+                assertArrayEquals(ref.stream().mapToInt(Integer::intValue).toArray(), Arrays.copyOf(values, n));
+            }
+        }
+        sm.restoreStateUntil(-1);
+        assertEquals(51, set.size());
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * MaxiCP is under MIT License
+ * Copyright (c)  2024 UCLouvain
+ */
+
+package org.maxicp.util.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.maxicp.util.io.VarInts.*;
+
+public class VarIntsTest {
+
+    private static final int[] INTS = {0, 1, -1, 63, -64, 64, 127, 128, 300, -300, 1 << 20, Integer.MAX_VALUE, Integer.MIN_VALUE};
+    private static final long[] LONGS = {0, 1, 127, 128, 1L << 35, Long.MAX_VALUE, -1, Long.MIN_VALUE};
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (int v : INTS) {
+            writeVarInt(out, v);
+            writeZigZag(out, v);
+        }
+        for (long v : LONGS)
+            writeVarLong(out, v);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (int v : INTS) {
+            assertEquals(v, readVarInt(in));
+            assertEquals(v, readZigZag(in));
+        }
+        for (long v : LONGS)
+            assertEquals(v, readVarLong(in));
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void testSmallValuesAreShort() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeVarInt(out, 127);
+        writeZigZag(out, -64);
+        assertEquals(2, bytes.size());
+        writeVarInt(out, 128);
+        assertEquals(4, bytes.size());
+    }
+
+    @Test
+    public void testBufferMatchesStream() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(128);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (long v : LONGS) {
+            putVarLong(buffer, v);
+            writeVarLong(out, v);
+        }
+        // a zigzag int written as an unsigned long has the same bytes as the varint
+        putVarLong(buffer, Integer.toUnsignedLong(zigZag(Integer.MIN_VALUE)));
+        writeZigZag(out, Integer.MIN_VALUE);
+        assertEquals(Arrays.toString(bytes.toByteArray()), Arrays.toString(Arrays.copyOf(buffer.array(), buffer.position())));
+    }
+}